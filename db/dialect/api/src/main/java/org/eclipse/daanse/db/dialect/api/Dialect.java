@@ -397,6 +397,16 @@ public interface Dialect {
 	 */
 	boolean supportsGroupingSets();
 
+	/**
+	 * Returns whether this Dialect supports window functions, such as
+	 * {@code ROW_NUMBER() OVER (PARTITION BY ... ORDER BY ...)}, in the SELECT
+	 * clause of a query with a GROUP BY clause. Currently H2, MySQL 8 and later,
+	 * Oracle and PostgreSQL.
+	 *
+	 * @return Whether this Dialect supports window functions
+	 */
+	boolean supportsWindowFunctions();
+
 	/**
 	 * Returns whether this Dialect places no limit on the number of rows which can
 	 * appear as elements of an IN or VALUES expression.
@@ -755,6 +765,38 @@ public interface Dialect {
 
 	boolean supportBatchOperations();
 
+	/**
+	 * Returns the fetch size to set on statements if none is configured.
+	 *
+	 * @see java.sql.Statement#setFetchSize(int)
+	 *
+	 * @return default fetch size; 0 leaves the default of the JDBC driver
+	 */
+	int getDefaultFetchSize();
+
+	/**
+	 * Returns the fetch size to set on a forward-only, read-only statement so
+	 * that the driver streams its rows instead of reading the whole result set
+	 * into memory.
+	 *
+	 * <p>
+	 * Most drivers stream with any positive fetch size, and return it
+	 * unchanged. MySQL only streams with a fetch size of
+	 * {@link Integer#MIN_VALUE}.
+	 *
+	 * @param fetchSize configured fetch size; 0 if none
+	 * @return fetch size that enables streaming
+	 */
+	int getStreamingFetchSize(int fetchSize);
+
+	/**
+	 * Returns whether the driver only streams rows if auto-commit of the
+	 * connection is off, as PostgreSQL does.
+	 *
+	 * @return whether streaming requires auto-commit to be off
+	 */
+	boolean requiresAutoCommitOffForStreaming();
+
 	String createSchema(String schemaName, boolean ifExists);
 
     StringBuilder generateUnionAllSql(List<Map<String, Map.Entry<Datatype, Object>>> valueList);
@@ -921,6 +921,11 @@ public abstract class JdbcDialectImpl implements Dialect {
         return false;
     }
 
+    @Override
+    public boolean supportsWindowFunctions() {
+        return false;
+    }
+
     @Override
     public boolean supportsUnlimitedValueList() {
         return false;
@@ -1146,4 +1151,19 @@ public abstract class JdbcDialectImpl implements Dialect {
         return true;
     }
 
+    @Override
+    public int getDefaultFetchSize() {
+        return 0;
+    }
+
+    @Override
+    public int getStreamingFetchSize(int fetchSize) {
+        return fetchSize;
+    }
+
+    @Override
+    public boolean requiresAutoCommitOffForStreaming() {
+        return false;
+    }
+
 }
@@ -35,4 +35,9 @@ public class H2Dialect extends JdbcDialectImpl {
         return SUPPORTED_PRODUCT_NAME.toLowerCase();
     }
 
+    @Override
+    public boolean supportsWindowFunctions() {
+        return true;
+    }
+
 }
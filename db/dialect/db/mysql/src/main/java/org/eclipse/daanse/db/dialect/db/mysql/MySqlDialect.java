@@ -324,6 +324,23 @@ public class MySqlDialect extends JdbcDialectImpl {
         return productVersion.compareTo("5.7") >= 0;
     }
 
+    /**
+     * Window functions were introduced in MySQL 8.0.
+     *
+     * @return true when MySQL version is 8 or larger
+     */
+    @Override
+    public boolean supportsWindowFunctions() {
+        return productVersion.compareTo("8.") >= 0;
+    }
+
+    @Override
+    public int getStreamingFetchSize(int fetchSize) {
+        // Connector/J streams row by row only with this fetch size; other
+        // fetch sizes are ignored unless useCursorFetch is set.
+        return Integer.MIN_VALUE;
+    }
+
     @Override
     public String getDialectName() {
         return SUPPORTED_PRODUCT_NAME.toLowerCase();
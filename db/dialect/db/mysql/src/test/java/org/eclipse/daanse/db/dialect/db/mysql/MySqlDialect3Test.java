@@ -10,6 +10,7 @@
 package org.eclipse.daanse.db.dialect.db.mysql;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -54,6 +55,18 @@ class MySqlDialect3Test {
         assertTrue(dialect.allowsRegularExpressionInWhereClause());
     }
 
+    @Test
+    void testStreamingFetchSize() {
+        assertEquals(Integer.MIN_VALUE, dialect.getStreamingFetchSize(500));
+        assertEquals(0, dialect.getDefaultFetchSize());
+    }
+
+    @Test
+    void testSupportsWindowFunctions() {
+        // MySQL 5.0
+        assertFalse(dialect.supportsWindowFunctions());
+    }
+
     @Test
     void testGenerateRegularExpression_InvalidRegex() throws Exception {
         assertNull(dialect.generateRegularExpression("table.column", "(a"), "Invalid regex should be ignored");
@@ -53,6 +53,11 @@ public class OracleDialect extends JdbcDialectImpl {
         return true;
     }
 
+    @Override
+    public boolean supportsWindowFunctions() {
+        return true;
+    }
+
     @Override
     public StringBuilder generateOrderByNulls(CharSequence expr, boolean ascending, boolean collateNullsLast) {
         return generateOrderByNullsAnsi(expr, ascending, collateNullsLast);
@@ -160,6 +165,13 @@ public class OracleDialect extends JdbcDialectImpl {
         }
     }
 
+    @Override
+    public int getDefaultFetchSize() {
+        // The driver's default of 10 rows needs a round trip for every ten
+        // rows of a large segment.
+        return 1000;
+    }
+
     @Override
     public String getDialectName() {
         return SUPPORTED_PRODUCT_NAME.toLowerCase();
@@ -53,6 +53,11 @@ public class PostgreSqlDialect extends JdbcDialectImpl {
         return true;
     }
 
+    @Override
+    public boolean supportsWindowFunctions() {
+        return true;
+    }
+
     @Override
 	public StringBuilder generateRegularExpression(String source, String javaRegex) {
         try {
@@ -92,6 +97,18 @@ public class PostgreSqlDialect extends JdbcDialectImpl {
         return super.getType(metaData, columnIndex);
     }
 
+    @Override
+    public int getDefaultFetchSize() {
+        return 1000;
+    }
+
+    @Override
+    public boolean requiresAutoCommitOffForStreaming() {
+        // The driver only uses a cursor, and fetches rows in batches of the
+        // fetch size, inside a transaction.
+        return true;
+    }
+
     @Override
     public String getDialectName() {
         return "postgres";
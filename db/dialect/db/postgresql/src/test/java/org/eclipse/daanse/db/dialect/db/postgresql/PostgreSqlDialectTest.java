@@ -41,6 +41,18 @@ class PostgreSqlDialectTest {
         assertTrue(dialect.allowsRegularExpressionInWhereClause());
     }
 
+    @Test
+    void testStreamingRequiresAutoCommitOff() {
+        assertTrue(dialect.requiresAutoCommitOffForStreaming());
+        assertEquals(1000, dialect.getDefaultFetchSize());
+        assertEquals(1000, dialect.getStreamingFetchSize(1000));
+    }
+
+    @Test
+    void testSupportsWindowFunctions() {
+        assertTrue(dialect.supportsWindowFunctions());
+    }
+
     @Test
     void testGenerateRegularExpression_InvalidRegex() throws Exception {
         assertNull(dialect.generateRegularExpression("table.column", "(a"), "Invalid regex should be ignored");
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.eclipse.daanse.db.dialect.api.Datatype;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import mondrian.rolap.RolapStar;
+
+/**
+ * Compares looking up cell keys in the axes of several segments of a star by
+ * value, as {@link SegmentAxis} did with a hash map per axis, with encoding
+ * each key once in the {@link ColumnValueDictionary} of its column and looking
+ * up its code in every axis, as a cell lookup in the star does.
+ *
+ * <p>The benchmark lives in the package of {@link SegmentAxis} because the
+ * lookup methods of the axis are package private.</p>
+ */
+@State(Scope.Benchmark)
+public class ColumnValueDictionaryPerformanceTest {
+
+    private static final int PROBE_COUNT = 1024;
+
+    @Param({ "100", "10000" })
+    private int keyCount;
+
+    @Param({ "1", "8" })
+    private int segmentCount;
+
+    private Map<Comparable, Integer>[] maps;
+    private SegmentAxis[] axes;
+    private ColumnValueDictionary dictionary;
+    private SegmentAxis[] staleAxes;
+    private ColumnValueDictionary currentDictionary;
+    private Comparable[] probes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        final Random random = new Random(42);
+        final RolapStar.Column column = column();
+        final RolapStar.Column flushedColumn = column();
+        maps = new Map[segmentCount];
+        axes = new SegmentAxis[segmentCount];
+        staleAxes = new SegmentAxis[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            // Each segment has about half of the values of the column.
+            final SortedSet<Comparable> keys = new TreeSet<>();
+            for (int k = 0; k < keyCount; k++) {
+                if (random.nextBoolean()) {
+                    keys.add(k);
+                }
+            }
+            maps[s] = new HashMap<>();
+            int offset = 0;
+            for (Comparable key : keys) {
+                maps[s].put(key, offset++);
+            }
+            axes[s] = new SegmentAxis(
+                new LiteralStarPredicate(column, true), keys, false);
+            staleAxes[s] = new SegmentAxis(
+                new LiteralStarPredicate(flushedColumn, true), keys, false);
+        }
+        dictionary = column.getValueDictionary();
+        // The segments of the flushed column were encoded before the flush,
+        // so their lookups fall back to the key values.
+        flushedColumn.clearValueDictionary();
+        currentDictionary = flushedColumn.getValueDictionary();
+        probes = new Comparable[PROBE_COUNT];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt(keyCount);
+        }
+    }
+
+    private static RolapStar.Column column() {
+        return new RolapStar.Column(Datatype.INTEGER) {
+        };
+    }
+
+    @Benchmark
+    public int hashMapByKey() {
+        int found = 0;
+        for (Comparable probe : probes) {
+            for (Map<Comparable, Integer> map : maps) {
+                final Integer offset = map.get(probe);
+                if (offset != null) {
+                    found += offset;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int axisByKey() {
+        int found = 0;
+        for (Comparable probe : probes) {
+            for (SegmentAxis axis : axes) {
+                found += axis.getOffset(probe);
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int axisByCode() {
+        int found = 0;
+        for (Comparable probe : probes) {
+            final int code = dictionary.lookup(probe);
+            for (SegmentAxis axis : axes) {
+                found += axis.getOffset(probe, dictionary, code);
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int axisByCodeAfterFlush() {
+        int found = 0;
+        for (Comparable probe : probes) {
+            final int code = currentDictionary.lookup(probe);
+            for (SegmentAxis axis : staleAxes) {
+                found += axis.getOffset(probe, currentDictionary, code);
+            }
+        }
+        return found;
+    }
+
+    public static void main(String... args) throws Exception {
+        Options opts = new OptionsBuilder()
+            .include(ColumnValueDictionaryPerformanceTest.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .forks(1)
+            .build();
+
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import mondrian.rolap.CellKey;
+import mondrian.spi.SegmentBody;
+import mondrian.spi.SegmentCodec;
+import mondrian.util.Pair;
+
+/**
+ * Compares the size, and the time to encode and decode, of segment bodies in
+ * the {@link SegmentBodyCodec} layout with Java serialization, which segment
+ * caches used before.
+ *
+ * <p>The sizes are printed when the trial starts. The class is in the package
+ * of the segment bodies, because their constructors are not public.</p>
+ */
+@State(Scope.Benchmark)
+public class SegmentBodyCodecPerformanceTest {
+
+    private static final int YEARS = 20;
+
+    private static final int PRODUCTS = 500;
+
+    @Param({ "denseInt", "denseDouble", "sparse" })
+    private String bodyType;
+
+    private SegmentBody body;
+    private byte[] encoded;
+    private byte[] deflated;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        body = body(bodyType);
+        encoded = SegmentCodec.encodeBody(body, SegmentCodec.Compression.NONE);
+        deflated =
+            SegmentCodec.encodeBody(body, SegmentCodec.Compression.DEFLATE);
+        serialized = serialize(body);
+        System.out.printf(
+            "%n%s: codec %d bytes, deflated %d bytes, serialized %d bytes%n",
+            bodyType, encoded.length, deflated.length, serialized.length);
+    }
+
+    /**
+     * Returns a body over a year axis and a product axis, with values and
+     * nulls as a fact table of sales would give.
+     */
+    private static SegmentBody body(String bodyType) {
+        final SortedSet<Comparable> years = new TreeSet<>();
+        for (int i = 0; i < YEARS; i++) {
+            years.add(1990 + i);
+        }
+        final SortedSet<Comparable> products = new TreeSet<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add("Product " + i);
+        }
+        final List<Pair<SortedSet<Comparable>, Boolean>> axes =
+            new ArrayList<>(
+                List.of(Pair.of(years, false), Pair.of(products, false)));
+        final Random random = new Random(42);
+        final int size = YEARS * PRODUCTS;
+        final BitSet nullValues = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(10) == 0) {
+                nullValues.set(i);
+            }
+        }
+        switch (bodyType) {
+        case "denseInt": {
+            final int[] values = new int[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = random.nextInt(1000);
+            }
+            return new DenseIntSegmentBody(nullValues, values, axes);
+        }
+        case "denseDouble": {
+            final double[] values = new double[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = random.nextInt(100000) / 100d;
+            }
+            return new DenseDoubleSegmentBody(nullValues, values, axes);
+        }
+        case "sparse": {
+            final Map<CellKey, Object> values = new HashMap<>();
+            for (int i = 0; i < size; i += 7) {
+                values.put(
+                    CellKey.Generator.newCellKey(
+                        new int[] {i / PRODUCTS, i % PRODUCTS}),
+                    random.nextInt(100000) / 100d);
+            }
+            return new SparseSegmentBody(values, axes);
+        }
+        default:
+            throw new IllegalArgumentException(bodyType);
+        }
+    }
+
+    private static byte[] serialize(SegmentBody body) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        return SegmentCodec.encodeBody(body, SegmentCodec.Compression.NONE);
+    }
+
+    @Benchmark
+    public byte[] codecEncodeDeflate() {
+        return SegmentCodec.encodeBody(body, SegmentCodec.Compression.DEFLATE);
+    }
+
+    @Benchmark
+    public byte[] serializationEncode() throws IOException {
+        return serialize(body);
+    }
+
+    @Benchmark
+    public SegmentBody codecDecode() {
+        return SegmentCodec.decodeBody(ByteBuffer.wrap(encoded));
+    }
+
+    @Benchmark
+    public SegmentBody codecDecodeDeflate() {
+        return SegmentCodec.decodeBody(ByteBuffer.wrap(deflated));
+    }
+
+    @Benchmark
+    public Object serializationDecode()
+        throws IOException, ClassNotFoundException
+    {
+        try (ObjectInputStream in =
+            new ObjectInputStream(new ByteArrayInputStream(serialized)))
+        {
+            return in.readObject();
+        }
+    }
+
+    public static void main(String... args) throws Exception {
+        Options opts = new OptionsBuilder()
+            .include(SegmentBodyCodecPerformanceTest.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .forks(1)
+            .build();
+
+        new Runner(opts).run();
+    }
+}
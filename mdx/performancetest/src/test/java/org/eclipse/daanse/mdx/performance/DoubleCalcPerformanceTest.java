@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.mdx.performance;
+
+import org.eclipse.daanse.olap.api.Evaluator;
+import org.eclipse.daanse.olap.calc.api.DoubleCalc;
+import org.eclipse.daanse.olap.calc.base.constant.ConstantDoubleCalc;
+import org.eclipse.daanse.olap.calc.base.nested.AbstractProfilingNestedDoubleCalc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import mondrian.olap.fun.FunUtil;
+import mondrian.olap.type.NumericType;
+
+/**
+ * Compares the boxing {@link DoubleCalc#evaluate(Evaluator)} with the
+ * primitive {@link DoubleCalc#evaluateDouble(Evaluator)} on a tree of numeric
+ * operators, as it is evaluated once per cell.
+ */
+@State(Scope.Benchmark)
+public class DoubleCalcPerformanceTest {
+
+    private static final int DEPTH = 16;
+
+    private DoubleCalc boxed;
+    private DoubleCalc primitive;
+
+    @Setup
+    public void setup() {
+        boxed = new ConstantDoubleCalc(NumericType.INSTANCE, 1.5);
+        primitive = new ConstantDoubleCalc(NumericType.INSTANCE, 1.5);
+        for (int i = 0; i < DEPTH; i++) {
+            DoubleCalc operand = new ConstantDoubleCalc(NumericType.INSTANCE, (double) i);
+            boxed = boxedPlus(boxed, operand);
+            primitive = primitivePlus(primitive, operand);
+        }
+    }
+
+    /**
+     * Operator as it was written before {@code evaluateDouble}: the operands
+     * and the result are boxed.
+     */
+    private static DoubleCalc boxedPlus(DoubleCalc calc0, DoubleCalc calc1) {
+        return new AbstractProfilingNestedDoubleCalc<DoubleCalc>(NumericType.INSTANCE,
+            new DoubleCalc[] { calc0, calc1 }) {
+            @Override
+            public Double evaluate(Evaluator evaluator) {
+                final Double v0 = calc0.evaluate(evaluator);
+                final Double v1 = calc1.evaluate(evaluator);
+                if (v0 == FunUtil.DOUBLE_NULL || v0 == null) {
+                    return v1;
+                } else if (v1 == FunUtil.DOUBLE_NULL || v1 == null) {
+                    return v0;
+                }
+                return v0 + v1;
+            }
+
+            @Override
+            public double evaluateDouble(Evaluator evaluator) {
+                return DoubleCalc.unbox(evaluate(evaluator));
+            }
+        };
+    }
+
+    private static DoubleCalc primitivePlus(DoubleCalc calc0, DoubleCalc calc1) {
+        return new AbstractProfilingNestedDoubleCalc<DoubleCalc>(NumericType.INSTANCE,
+            new DoubleCalc[] { calc0, calc1 }) {
+            @Override
+            public double evaluateDouble(Evaluator evaluator) {
+                final double v0 = calc0.evaluateDouble(evaluator);
+                final double v1 = calc1.evaluateDouble(evaluator);
+                if (DoubleCalc.isNull(v0)) {
+                    return v1;
+                } else if (DoubleCalc.isNull(v1)) {
+                    return v0;
+                }
+                return v0 + v1;
+            }
+        };
+    }
+
+    @Benchmark
+    public Double boxedEvaluate() {
+        return boxed.evaluate(null);
+    }
+
+    @Benchmark
+    public double primitiveEvaluateDouble() {
+        return primitive.evaluateDouble(null);
+    }
+
+    public static void main(String... args) throws Exception {
+        Options opts = new OptionsBuilder()
+            .include(DoubleCalcPerformanceTest.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .forks(1)
+            .build();
+
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.mdx.performance;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.eclipse.daanse.olap.api.element.Dimension;
+import org.eclipse.daanse.olap.api.element.Member;
+import org.eclipse.daanse.olap.impl.WritebackIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import mondrian.rolap.RolapHierarchy;
+import mondrian.rolap.RolapLevel;
+import mondrian.rolap.RolapMember;
+import mondrian.rolap.RolapMemberBase;
+
+/**
+ * Compares finding the writeback cells related to a cell through the
+ * {@link WritebackIndex} with checking every writeback cell, as a scenario
+ * does for each cell it evaluates.
+ */
+@State(Scope.Benchmark)
+public class WritebackIndexPerformanceTest {
+
+    private static final int HIERARCHY_COUNT = 4;
+
+    private static final int FAN_OUT = 10;
+
+    @Param({ "10", "100", "1000" })
+    private int writebackCellCount;
+
+    private List<Member[]> writebackCells;
+    private WritebackIndex<Member[]> index;
+    private Member[][] cells;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final List<List<Member>> membersByHierarchy = new ArrayList<>();
+        for (int i = 0; i < HIERARCHY_COUNT; i++) {
+            membersByHierarchy.add(members("H" + i));
+        }
+        writebackCells = new ArrayList<>();
+        for (int k = 0; k < writebackCellCount; k++) {
+            writebackCells.add(coordinates(membersByHierarchy, random));
+        }
+        index = new WritebackIndex<>(0, writebackCells, Function.identity());
+        cells = new Member[1000][];
+        for (int k = 0; k < cells.length; k++) {
+            cells[k] = coordinates(membersByHierarchy, random);
+        }
+    }
+
+    /**
+     * Returns the members of a hierarchy with an all member and two levels
+     * below it.
+     */
+    private static List<Member> members(String hierarchyName) {
+        final RolapLevel level = mock(RolapLevel.class);
+        final RolapHierarchy hierarchy = mock(RolapHierarchy.class);
+        final Dimension dimension = mock(Dimension.class);
+        when(level.getHierarchy()).thenReturn(hierarchy);
+        when(hierarchy.getDimension()).thenReturn(dimension);
+        when(hierarchy.getUniqueName()).thenReturn("[" + hierarchyName + "]");
+        final List<Member> members = new ArrayList<>();
+        final RolapMember all =
+            member(null, level, "All", Member.MemberType.ALL);
+        members.add(all);
+        for (int i = 0; i < FAN_OUT; i++) {
+            final RolapMember child =
+                member(all, level, "C" + i, Member.MemberType.REGULAR);
+            members.add(child);
+            for (int j = 0; j < FAN_OUT; j++) {
+                members.add(
+                    member(child, level, "C" + i + "." + j,
+                        Member.MemberType.REGULAR));
+            }
+        }
+        return members;
+    }
+
+    private static RolapMember member(
+        RolapMember parent, RolapLevel level, String key,
+        Member.MemberType memberType)
+    {
+        return new RolapMemberBase(parent, level, key, null, memberType) { };
+    }
+
+    private static Member[] coordinates(
+        List<List<Member>> membersByHierarchy, Random random)
+    {
+        final Member[] members = new Member[membersByHierarchy.size()];
+        for (int i = 0; i < members.length; i++) {
+            final List<Member> hierarchyMembers = membersByHierarchy.get(i);
+            members[i] =
+                hierarchyMembers.get(random.nextInt(hierarchyMembers.size()));
+        }
+        return members;
+    }
+
+    /**
+     * Returns whether a writeback cell is equal to, above or below a cell.
+     * As the relation check of the scenario, a writeback cell which is above
+     * the cell for one hierarchy and below it for another is not related.
+     */
+    private static boolean isRelated(Member[] writebackCell, Member[] cell) {
+        int aboveCount = 0;
+        int belowCount = 0;
+        for (int i = 0; i < cell.length; i++) {
+            if (cell[i].isChildOrEqualTo(writebackCell[i])) {
+                if (!cell[i].equals(writebackCell[i])) {
+                    ++aboveCount;
+                }
+            } else if (writebackCell[i].isChildOrEqualTo(cell[i])) {
+                ++belowCount;
+            } else {
+                return false;
+            }
+        }
+        return aboveCount == 0 || belowCount == 0;
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int related = 0;
+        for (Member[] cell : cells) {
+            for (Member[] writebackCell : writebackCells) {
+                if (isRelated(writebackCell, cell)) {
+                    ++related;
+                }
+            }
+        }
+        return related;
+    }
+
+    @Benchmark
+    public int indexLookup() {
+        int related = 0;
+        for (Member[] cell : cells) {
+            final BitSet candidates = index.getCandidates(cell);
+            for (int k = candidates.nextSetBit(0);
+                k >= 0;
+                k = candidates.nextSetBit(k + 1))
+            {
+                if (isRelated(index.get(k), cell)) {
+                    ++related;
+                }
+            }
+        }
+        return related;
+    }
+
+    public static void main(String... args) throws Exception {
+        Options opts = new OptionsBuilder()
+            .include(WritebackIndexPerformanceTest.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .forks(1)
+            .build();
+
+        new Runner(opts).run();
+    }
+}
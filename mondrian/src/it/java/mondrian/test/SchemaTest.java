@@ -1590,7 +1590,7 @@ class SchemaTest extends FoodMartTestCase {
             + "  </CalculatedMember>");
         testContext.assertQueryThrows(
             "select from [Sales]",
-            "Unknown aggregator 'invalidAggregator'; valid aggregators are: 'sum', 'count', 'min', 'max', 'avg', 'distinct-count'");
+            "Unknown aggregator 'invalidAggregator'; valid aggregators are: 'sum', 'count', 'min', 'max', 'avg', 'distinct-count', 'approx-distinct-count'");
     }
 
     /**
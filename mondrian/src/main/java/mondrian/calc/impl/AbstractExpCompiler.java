@@ -14,7 +14,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 
 import mondrian.olap.MondrianException;
 import org.eclipse.daanse.olap.api.Evaluator;
@@ -660,17 +659,26 @@ public class AbstractExpCompiler implements ExpressionCompiler {
 			Object o = getFirstChildCalc().evaluate(evaluator);
 			if (o == null) {
 				return FunUtil.DOUBLE_NULL;
-				// null;
-				// TODO: !!! JUST REFACTORING 0 must be null
-			} else  if(Objects.equals(o, FunUtil.DOUBLE_NULL)){
-				return FunUtil.DOUBLE_NULL;
-			}else if (o instanceof Double d) {
+			} else if (o instanceof Double d) {
+				// keeps the identity of DOUBLE_NULL and of the value not ready marker
 				return d;
 			} else if (o instanceof Number n) {
 				return n.doubleValue();
 			}
 			throw evaluator.newEvalException(null, "wrtong typed, was: " + o);
 		}
+
+		@Override
+		public double evaluateDouble(Evaluator evaluator) {
+
+			Object o = getFirstChildCalc().evaluate(evaluator);
+			if (o == null || o == FunUtil.DOUBLE_NULL) {
+				return NULL_VALUE;
+			} else if (o instanceof Number n) {
+				return n.doubleValue();
+			}
+			throw evaluator.newEvalException(null, "wrtong typed, was: " + o);
+		}
 	}
 
 
@@ -11,6 +11,7 @@
 
 package mondrian.olap;
 
+import java.time.Instant;
 import java.util.List;
 
 import mondrian.olap.exceptions.FailedToParseQueryException;
@@ -20,6 +21,11 @@ import org.eclipse.daanse.olap.api.Connection;
 import org.eclipse.daanse.olap.api.Statement;
 import org.eclipse.daanse.olap.api.element.Schema;
 import org.eclipse.daanse.olap.api.function.FunctionTable;
+import org.eclipse.daanse.olap.api.monitor.event.ConnectionEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.EventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.MdxStatementCacheEvent;
+import org.eclipse.daanse.olap.api.monitor.event.MdxStatementEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.ServertEventCommon;
 import org.eclipse.daanse.olap.api.query.ExpressionProvider;
 import org.eclipse.daanse.olap.api.query.QueryProvider;
 import org.eclipse.daanse.olap.api.query.component.QueryComponent;
@@ -82,15 +88,56 @@ public abstract class ConnectionBase implements Connection {
             getLogger().debug(s);
         }
 
+        MdxStatement mdxStatement = parseMdxStatement(statement, query, funTable);
         try {
-            MdxParser parser = getContext().getMdxParserProvider().newParser(query, funTable.getPropertyWords());
-            MdxStatement mdxStatement  = parser.parseMdxStatement();
             return getQueryProvider().createQuery(statement, mdxStatement, strictValidation);
         } catch (Exception e) {
             throw new FailedToParseQueryException(query, e);
         }
     }
 
+    /**
+     * Parses an MDX text, taking the parse tree from the context's
+     * {@link MdxStatementCache} if the same text has been parsed before.
+     * The cache is only used with the context's own function table, because
+     * the property words of the function table affect the parse tree. The
+     * query is still validated and compiled by the caller.
+     */
+    private MdxStatement parseMdxStatement(
+        Statement statement,
+        String query,
+        FunctionTable funTable)
+    {
+        final MdxStatementCache cache = getContext().getMdxStatementCache();
+        if (cache == null || funTable != getContext().getFunctionService()) {
+            return parse(query, funTable);
+        }
+        final MdxStatementCache.Lookup lookup =
+            cache.lookup(query, mdx -> parse(mdx, funTable));
+        getContext().getMonitor().accept(
+            new MdxStatementCacheEvent(
+                new MdxStatementEventCommon(
+                    new ConnectionEventCommon(
+                        new ServertEventCommon(
+                            new EventCommon(Instant.now()),
+                            getContext().getName()),
+                        getId()),
+                    statement == null ? -1 : statement.getId()),
+                lookup.hit(),
+                lookup.hitCount(),
+                lookup.missCount()));
+        return lookup.mdxStatement();
+    }
+
+    private MdxStatement parse(String query, FunctionTable funTable) {
+        try {
+            MdxParser parser = getContext().getMdxParserProvider().newParser(query, funTable.getPropertyWords());
+            return parser.parseMdxStatement();
+        } catch (Exception e) {
+            throw new FailedToParseQueryException(query, e);
+        }
+    }
+
     @Override
     public List<Schema> getSchemas() {
         return List.of(getSchema());
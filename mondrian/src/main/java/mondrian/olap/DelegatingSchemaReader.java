@@ -340,6 +340,14 @@ public abstract class DelegatingSchemaReader implements SchemaReader {
             parent, childNames, matchType);
     }
 
+    @Override
+	public List<Member> lookupMembersChildrenByNames(
+        List<Member> parents, List<NameSegment> childNames, MatchType matchType)
+    {
+        return schemaReader.lookupMembersChildrenByNames(
+            parents, childNames, matchType);
+    }
+
     @Override
 	public NativeEvaluator getNativeSetEvaluator(
         FunctionDefinition fun, Expression[] args, Evaluator evaluator, Calc calc)
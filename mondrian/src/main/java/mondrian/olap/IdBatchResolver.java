@@ -16,6 +16,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,6 +31,7 @@ import org.eclipse.daanse.olap.api.Segment;
 import org.eclipse.daanse.olap.api.element.Cube;
 import org.eclipse.daanse.olap.api.element.Dimension;
 import org.eclipse.daanse.olap.api.element.Hierarchy;
+import org.eclipse.daanse.olap.api.element.Level;
 import org.eclipse.daanse.olap.api.element.Member;
 import org.eclipse.daanse.olap.api.element.OlapElement;
 import org.eclipse.daanse.olap.api.query.component.DimensionExpression;
@@ -157,8 +160,9 @@ public final class IdBatchResolver {
     }
 
     /**
-     *  Loops through the SortedSet of Ids, attempting to load sets of
-     *  children of parent Ids.
+     *  Loops through the SortedSet of Ids one generation at a time, that is,
+     *  all Ids with the same number of segments, attempting to load the
+     *  children of the parent Ids resolved in the previous generation.
      *  The loop below assumes the the SortedSet is ordered by segment
      *  size from smallest to largest, such that parent identifiers will
      *  occur before their children.
@@ -168,47 +172,111 @@ public final class IdBatchResolver {
     {
         final Map<QueryComponent, QueryComponent> resolvedIdentifiers =
             new HashMap<>();
+        // members of the resolved Ids, keyed by their segments
+        final Map<List<Segment>, Member> resolvedMembers = new HashMap<>();
 
         while (!identifiers.isEmpty()) {
-            Id parent = identifiers.first();
-            identifiers.remove(parent);
+            final List<Id> generation = pollGeneration(identifiers);
+            batchResolveChildren(
+                generation, resolvedMembers, resolvedIdentifiers);
 
-            if (!supportedIdentifier(parent)) {
-                continue;
-            }
-            Expression exp = (Expression)resolvedIdentifiers.get(parent);
-            if (exp == null) {
-                exp = lookupExp(parent);
-            }
-            Member parentMember = getMemberFromExp(exp);
-            if (!supportedMember(parentMember)) {
-                continue;
+            for (Id id : generation) {
+                if (!supportedIdentifier(id)) {
+                    continue;
+                }
+                Expression exp = (Expression)resolvedIdentifiers.get(id);
+                if (exp == null) {
+                    exp = lookupExp(id);
+                }
+                Member member = getMemberFromExp(exp);
+                if (!supportedMember(member)) {
+                    continue;
+                }
+                resolvedIdentifiers.put(id, (QueryComponent)exp);
+                resolvedMembers.put(id.getSegments(), member);
             }
-            resolvedIdentifiers.put(parent, (QueryComponent)exp);
-            batchResolveChildren(
-                parent, parentMember, identifiers, resolvedIdentifiers);
         }
         return resolvedIdentifiers;
     }
 
     /**
-     * Find the children of Id parent in the identifiers set and resolves
-     * all supported children together, adding them to the resolvedIdentifiers
-     * map.
+     * Removes the Ids with the fewest segments from the set and returns them.
+     */
+    private List<Id> pollGeneration(SortedSet<Id> identifiers) {
+        final List<Id> generation = new ArrayList<>();
+        final int size = identifiers.first().getSegments().size();
+        while (!identifiers.isEmpty()
+            && identifiers.first().getSegments().size() == size)
+        {
+            generation.add(identifiers.first());
+            identifiers.remove(identifiers.first());
+        }
+        return generation;
+    }
+
+    /**
+     * Finds the Ids of a generation whose parent has been resolved and
+     * resolves all supported children together, adding them to the
+     * resolvedIdentifiers map.
+     *
+     * <p>Children are grouped by the level of their parent, and the
+     * children of all parents of the same level are looked up at once, so
+     * that a set such as
+     *   { [Store].[USA].[CA].[Alameda], [Store].[USA].[OR].[Portland] }
+     * costs one query rather than one per state.</p>
      */
     private void batchResolveChildren(
-        Id parent, Member parentMember, SortedSet<Id> identifiers,
+        List<Id> generation, Map<List<Segment>, Member> resolvedMembers,
         Map<QueryComponent, QueryComponent> resolvedIdentifiers)
     {
-        final List<Id> children = findChildIds(parent, identifiers);
-        final List<NameSegment> childNameSegments =
-            collectChildrenNameSegments(parentMember, children);
-
-        if (!childNameSegments.isEmpty()) {
-            List<Member> childMembers =
-                lookupChildrenByNames(parentMember, childNameSegments);
-            addChildrenToResolvedMap(
-                resolvedIdentifiers, children, childMembers);
+        final Map<Level, Map<Member, List<Id>>> childIdsByLevel =
+            new LinkedHashMap<>();
+        for (Id id : generation) {
+            final List<Segment> segments = id.getSegments();
+            final Member parentMember =
+                resolvedMembers.get(segments.subList(0, segments.size() - 1));
+            if (parentMember == null
+                || Util.matches(parentMember, segments)
+                || !supportedIdentifier(id))
+            {
+                continue;
+            }
+            childIdsByLevel
+                .computeIfAbsent(
+                    parentMember.getLevel(), k -> new LinkedHashMap<>())
+                .computeIfAbsent(parentMember, k -> new ArrayList<>())
+                .add(id);
+        }
+
+        for (Map<Member, List<Id>> childIdsByParent
+            : childIdsByLevel.values())
+        {
+            final Set<NameSegment> childNameSegments = new LinkedHashSet<>();
+            for (List<Id> childIds : childIdsByParent.values()) {
+                for (Id childId : childIds) {
+                    childNameSegments.add((NameSegment) getLastSegment(childId));
+                }
+            }
+            if (childIdsByParent.size() == 1) {
+                final Map.Entry<Member, List<Id>> entry =
+                    childIdsByParent.entrySet().iterator().next();
+                List<Member> childMembers = lookupChildrenByNames(
+                    entry.getKey(), new ArrayList<>(childNameSegments));
+                addChildrenToResolvedMap(
+                    resolvedIdentifiers, entry.getValue(), childMembers);
+            } else {
+                List<Member> childMembers = lookupChildrenByNames(
+                    new ArrayList<>(childIdsByParent.keySet()),
+                    new ArrayList<>(childNameSegments));
+                for (Member child : childMembers) {
+                    final List<Id> childIds =
+                        childIdsByParent.get(child.getParentMember());
+                    if (childIds != null) {
+                        addChildrenToResolvedMap(
+                            resolvedIdentifiers, childIds, List.of(child));
+                    }
+                }
+            }
         }
     }
 
@@ -271,15 +339,26 @@ public final class IdBatchResolver {
     }
 
     /**
-     * Filters the children list to those that contain identifiers
-     * we think we can batch resolve, then transforms the Id list
-     * to the corresponding NameSegment.
+     * Performs a lookup of a set of children under several parent members
+     * of the same level.
      */
-    private List<NameSegment> collectChildrenNameSegments(
-        final Member parentMember, List<Id> children)
+    private List<Member> lookupChildrenByNames(
+        List<Member> parentMembers,
+        List<NameSegment> childNameSegments)
     {
-		return children.stream().filter(id -> !Util.matches(parentMember, id.getSegments()) && supportedIdentifier(id))
-				.map(this::getLastSegment).map(s -> (NameSegment) s).toList();
+        try {
+            return query.getSchemaReader(true)
+                .lookupMembersChildrenByNames(
+                    parentMembers,
+                    childNameSegments, MatchType.EXACT);
+        } catch (Exception e) {
+            LOGGER.info(
+                String.format(
+                    "Failure while looking up children of %s during  batch member resolution.  Child member refs:  %s",
+                    parentMembers,
+                    Arrays.toString(childNameSegments.toArray())), e);
+        }
+        return Collections.emptyList();
     }
 
     private Segment getLastSegment(Id id) {
@@ -406,22 +485,6 @@ public final class IdBatchResolver {
             .getCalculatedMember(checkSegments) != null;
     }
 
-    private List<Id> findChildIds(Id parent, SortedSet<Id> identifiers) {
-        List<Id> childIds = new ArrayList<>();
-        for (Id id : identifiers) {
-            final List<Segment> idSeg = id.getSegments();
-            final List<Segment> parentSegments = parent.getSegments();
-            final int parentSegSize = parentSegments.size();
-            if (idSeg.size() == parentSegSize + 1
-                && parent.getSegments().equals(
-                    idSeg.subList(0, parentSegSize)))
-            {
-                childIds.add(id);
-            }
-        }
-        return childIds;
-    }
-
     /**
      * Adds each parent segment to the set.
      */
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.eclipse.daanse.mdx.model.api.MdxStatement;
+
+/**
+ * Bounded cache of parsed MDX statements, keyed by normalized statement text.
+ *
+ * <p>Client tools send the same MDX texts over and over again. This cache
+ * saves only the parsing of a statement. Validation and compilation of the
+ * {@link mondrian.olap.QueryImpl} are still done on every execution: a query
+ * is bound to the {@link org.eclipse.daanse.olap.api.Statement} it was
+ * created for, and holds per-execution state such as its result style,
+ * parameter values and evaluation cache, so it cannot be shared between
+ * executions.</p>
+ *
+ * <p>The parse tree depends only on the text and on the property words of
+ * the function table, not on the schema, the role or the values of
+ * parameters. The key is therefore the text alone, and a parse tree is
+ * shared by all connections of a context. Statements parsed with another
+ * function table than the context's are not cached.</p>
+ *
+ * <p>The cache is cleared when the schema cache of the context is flushed.</p>
+ *
+ * <p>The cache is thread safe.</p>
+ */
+public class MdxStatementCache {
+
+    private final int maxSize;
+    private final Map<String, MdxStatement> map;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates a MdxStatementCache.
+     *
+     * @param maxSize Maximum number of statements held; 0 disables the cache
+     */
+    public MdxStatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                Map.Entry<String, MdxStatement> eldest)
+            {
+                return size() > MdxStatementCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed statement for a given MDX text, parsing it if it is
+     * not in the cache.
+     *
+     * @param mdx MDX text
+     * @param parser Parses the MDX text, on a cache miss
+     * @return Result of the lookup
+     */
+    public Lookup lookup(String mdx, Function<String, MdxStatement> parser) {
+        if (maxSize <= 0) {
+            return new Lookup(
+                parser.apply(mdx), false, hitCount.get(),
+                missCount.incrementAndGet());
+        }
+        final String key = normalize(mdx);
+        MdxStatement mdxStatement;
+        synchronized (map) {
+            mdxStatement = map.get(key);
+        }
+        if (mdxStatement != null) {
+            return new Lookup(
+                mdxStatement, true, hitCount.incrementAndGet(),
+                missCount.get());
+        }
+        // Parse outside the lock. Two threads may parse the same statement
+        // concurrently; the last one wins, which is harmless.
+        mdxStatement = parser.apply(mdx);
+        synchronized (map) {
+            map.put(key, mdxStatement);
+        }
+        return new Lookup(
+            mdxStatement, false, hitCount.get(), missCount.incrementAndGet());
+    }
+
+    /**
+     * Removes all statements from the cache.
+     */
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Normalizes an MDX text, so that statements that differ only in
+     * white space share a cache entry.
+     *
+     * <p>Runs of white space are collapsed into one space, and leading and
+     * trailing white space is removed. White space inside string literals,
+     * bracketed identifiers and line comments is kept, as is the case of all
+     * characters. Inside a bracketed identifier, {@code ]]} is an escaped
+     * {@code ]} and does not end the identifier.</p>
+     *
+     * @param mdx MDX text
+     * @return Normalized text
+     */
+    public static String normalize(String mdx) {
+        final StringBuilder buf = new StringBuilder(mdx.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < mdx.length(); i++) {
+            final char c = mdx.charAt(i);
+            if (quote != 0) {
+                buf.append(c);
+                if (c == ']'
+                    && quote == ']'
+                    && i + 1 < mdx.length()
+                    && mdx.charAt(i + 1) == ']')
+                {
+                    // Escaped ']' inside a bracketed identifier.
+                    buf.append(']');
+                    ++i;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if ((c == '-' || c == '/')
+                && i + 1 < mdx.length()
+                && mdx.charAt(i + 1) == c)
+            {
+                // Line comment; it ends at the next line break, which
+                // therefore must be kept.
+                if (pendingSpace) {
+                    buf.append(' ');
+                    pendingSpace = false;
+                }
+                buf.append(c);
+                quote = '\n';
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = buf.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                buf.append(' ');
+                pendingSpace = false;
+            }
+            buf.append(c);
+            switch (c) {
+            case '\'', '"':
+                quote = c;
+                break;
+            case '[':
+                quote = ']';
+                break;
+            default:
+                break;
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Result of {@link #lookup}.
+     *
+     * @param mdxStatement Parsed statement
+     * @param hit Whether the statement came from the cache
+     * @param hitCount Number of hits so far, including this lookup
+     * @param missCount Number of misses so far, including this lookup
+     */
+    public record Lookup(
+        MdxStatement mdxStatement, boolean hit, long hitCount, long missCount)
+    {
+    }
+}
@@ -47,13 +47,13 @@ public Calc compileCall( ResolvedFunCall call, ExpressionCompiler compiler ) {
         call.getArgCount() > 1 ? compiler.compileScalar( call.getArg( 1 ), true ) : new ValueCalc( call.getType() );
     return new AbstractProfilingNestedDoubleCalc( call.getType(), new Calc[] { tupleListCalc, calc } ) {
       @Override
-	public Double evaluate( Evaluator evaluator ) {
+	public double evaluateDouble( Evaluator evaluator ) {
         evaluator.getTiming().markStart( AvgFunDef.TIMING_NAME );
         final int savepoint = evaluator.savepoint();
         try {
           TupleList memberList = AbstractAggregateFunDef.evaluateCurrentList( tupleListCalc, evaluator );
           evaluator.setNonEmpty( false );
-          return (Double) FunUtil.avg( evaluator, memberList, calc );
+          return FunUtil.avgDouble( evaluator, memberList, calc );
         } finally {
           evaluator.restore( savepoint );
           evaluator.getTiming().markEnd( AvgFunDef.TIMING_NAME );
@@ -1536,18 +1536,18 @@ public class BuiltinFunTable extends FunTableImpl {
                 final DoubleCalc calc1 = compiler.compileDouble(call.getArg(1));
                 return new AbstractProfilingNestedDoubleCalc(call.getType(), new Calc[] {calc0, calc1}) {
                     @Override
-					public Double evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
+					public double evaluateDouble(Evaluator evaluator) {
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
 
-                        if (v0 == FunUtil.DOUBLE_NULL || v0 == null) {
-                            if (v1 == FunUtil.DOUBLE_NULL || v1 == null) {
-                                return FunUtil.DOUBLE_NULL;
+                        if (DoubleCalc.isNull(v0)) {
+                            if (DoubleCalc.isNull(v1)) {
+                                return DoubleCalc.NULL_VALUE;
                             } else {
                                 return v1;
                             }
                         } else {
-                            if (v1 == FunUtil.DOUBLE_NULL || v1 == null) {
+                            if (DoubleCalc.isNull(v1)) {
                                 return v0;
                             } else {
                                 return v0 + v1;
@@ -1572,17 +1572,17 @@ public class BuiltinFunTable extends FunTableImpl {
                 final DoubleCalc calc1 = compiler.compileDouble(call.getArg(1));
                 return new AbstractProfilingNestedDoubleCalc(call.getType(), new Calc[] {calc0, calc1}) {
                     @Override
-					public Double evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
-                        if (v0 == FunUtil.DOUBLE_NULL || v0 == null) {
-                            if (v1 == FunUtil.DOUBLE_NULL || v1 == null) {
-                                return FunUtil.DOUBLE_NULL;
+					public double evaluateDouble(Evaluator evaluator) {
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
+                        if (DoubleCalc.isNull(v0)) {
+                            if (DoubleCalc.isNull(v1)) {
+                                return DoubleCalc.NULL_VALUE;
                             } else {
                                 return - v1;
                             }
                         } else {
-                            if (v1 == FunUtil.DOUBLE_NULL || v1 == null) {
+                            if (DoubleCalc.isNull(v1)) {
                                 return v0;
                             } else {
                                 return v0 - v1;
@@ -1607,13 +1607,13 @@ public class BuiltinFunTable extends FunTableImpl {
                 final DoubleCalc calc1 = compiler.compileDouble(call.getArg(1));
                 return new AbstractProfilingNestedDoubleCalc(call.getType(), new Calc[] {calc0, calc1}) {
                     @Override
-					public Double evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
+					public double evaluateDouble(Evaluator evaluator) {
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
                         // Multiply and divide return null if EITHER arg is
                         // null.
-                        if (v0 == FunUtil.DOUBLE_NULL || v1 == FunUtil.DOUBLE_NULL || v0 == null|| v1 == null) {
-                            return FunUtil.DOUBLE_NULL;
+                        if (DoubleCalc.isNull(v0) || DoubleCalc.isNull(v1)) {
+                            return DoubleCalc.NULL_VALUE;
                         } else {
                             return v0 * v1;
                         }
@@ -1651,14 +1651,14 @@ public class BuiltinFunTable extends FunTableImpl {
                         call.getType(), new Calc[] {calc0, calc1})
                     {
                         @Override
-						public Double evaluate(Evaluator evaluator) {
-                            final Double v0 = calc0.evaluate(evaluator);
-                            final Double v1 = calc1.evaluate(evaluator);
+						public double evaluateDouble(Evaluator evaluator) {
+                            final double v0 = calc0.evaluateDouble(evaluator);
+                            final double v1 = calc1.evaluateDouble(evaluator);
                             // Null in numerator always returns DoubleNull.
                             //
-                            if (v0 == FunUtil.DOUBLE_NULL || v0 == null) {
-                                return FunUtil.DOUBLE_NULL;
-                            } else if (v1 == FunUtil.DOUBLE_NULL || v1 == null) {
+                            if (DoubleCalc.isNull(v0)) {
+                                return DoubleCalc.NULL_VALUE;
+                            } else if (DoubleCalc.isNull(v1)) {
                                 // Null only in denominator returns Infinity.
                                 return Double.POSITIVE_INFINITY;
                             } else {
@@ -1671,13 +1671,13 @@ public class BuiltinFunTable extends FunTableImpl {
                         call.getType(), new Calc[] {calc0, calc1})
                     {
                         @Override
-						public Double evaluate(Evaluator evaluator) {
-                            final Double v0 = calc0.evaluate(evaluator);
-                            final Double v1 = calc1.evaluate(evaluator);
+						public double evaluateDouble(Evaluator evaluator) {
+                            final double v0 = calc0.evaluateDouble(evaluator);
+                            final double v1 = calc1.evaluateDouble(evaluator);
                             // Null in numerator or denominator returns
                             // DoubleNull.
-                            if (v0 == FunUtil.DOUBLE_NULL || v1 == FunUtil.DOUBLE_NULL || v0 == null || v1 == null) {
-                                return FunUtil.DOUBLE_NULL;
+                            if (DoubleCalc.isNull(v0) || DoubleCalc.isNull(v1)) {
+                                return DoubleCalc.NULL_VALUE;
                             } else {
                                 return v0 / v1;
                             }
@@ -1700,10 +1700,10 @@ public class BuiltinFunTable extends FunTableImpl {
                 final DoubleCalc calc = compiler.compileDouble(call.getArg(0));
                 return new AbstractProfilingNestedDoubleCalc(call.getType(), new Calc[] {calc}) {
                     @Override
-					public Double evaluate(Evaluator evaluator) {
-                        final Double v = calc.evaluate(evaluator);
-                        if (v == FunUtil.DOUBLE_NULL || v == null) {
-                            return FunUtil.DOUBLE_NULL;
+					public double evaluateDouble(Evaluator evaluator) {
+                        final double v = calc.evaluateDouble(evaluator);
+                        if (DoubleCalc.isNull(v)) {
+                            return DoubleCalc.NULL_VALUE;
                         } else {
                             return - v;
                         }
@@ -1910,16 +1910,16 @@ public class BuiltinFunTable extends FunTableImpl {
                 {
                     @Override
 					public Boolean evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
                         if (Double.isNaN(v0)
                             || Double.isNaN(v1)
-                            || v0 == FunUtil.DOUBLE_NULL
-                            || v1 == FunUtil.DOUBLE_NULL)
+                            || DoubleCalc.isNull(v0)
+                            || DoubleCalc.isNull(v1))
                         {
                             return FunUtil.BOOLEAN_NULL;
                         }
-                        return Objects.equals(v0, v1);
+                        return v0 == v1;
                     }
                 };
             }
@@ -1968,16 +1968,16 @@ public class BuiltinFunTable extends FunTableImpl {
                 {
                     @Override
 					public Boolean evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
                         if (Double.isNaN(v0)
                             || Double.isNaN(v1)
-                            || v0 == FunUtil.DOUBLE_NULL
-                            || v1 == FunUtil.DOUBLE_NULL)
+                            || DoubleCalc.isNull(v0)
+                            || DoubleCalc.isNull(v1))
                         {
                             return FunUtil.BOOLEAN_NULL;
                         }
-                        return !Objects.equals(v0, v1);
+                        return v0 != v1;
                     }
                 };
             }
@@ -1999,12 +1999,12 @@ public class BuiltinFunTable extends FunTableImpl {
                 {
                     @Override
 					public Boolean evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
                         if (Double.isNaN(v0)
                             || Double.isNaN(v1)
-                            || v0 == FunUtil.DOUBLE_NULL
-                            || v1 == FunUtil.DOUBLE_NULL)
+                            || DoubleCalc.isNull(v0)
+                            || DoubleCalc.isNull(v1))
                         {
                             return FunUtil.BOOLEAN_NULL;
                         }
@@ -2057,12 +2057,12 @@ public class BuiltinFunTable extends FunTableImpl {
                 {
                     @Override
 					public Boolean evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
                         if (Double.isNaN(v0)
                             || Double.isNaN(v1)
-                            || v0 == FunUtil.DOUBLE_NULL
-                            || v1 == FunUtil.DOUBLE_NULL)
+                            || DoubleCalc.isNull(v0)
+                            || DoubleCalc.isNull(v1))
                         {
                             return FunUtil.BOOLEAN_NULL;
                         }
@@ -2115,12 +2115,12 @@ public class BuiltinFunTable extends FunTableImpl {
                 {
                     @Override
 					public Boolean evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
                         if (Double.isNaN(v0)
                             || Double.isNaN(v1)
-                            || v0 == FunUtil.DOUBLE_NULL
-                            || v1 == FunUtil.DOUBLE_NULL)
+                            || DoubleCalc.isNull(v0)
+                            || DoubleCalc.isNull(v1))
                         {
                             return FunUtil.BOOLEAN_NULL;
                         }
@@ -2173,12 +2173,12 @@ public class BuiltinFunTable extends FunTableImpl {
                 {
                     @Override
 					public Boolean evaluate(Evaluator evaluator) {
-                        final Double v0 = calc0.evaluate(evaluator);
-                        final Double v1 = calc1.evaluate(evaluator);
+                        final double v0 = calc0.evaluateDouble(evaluator);
+                        final double v1 = calc1.evaluateDouble(evaluator);
                         if (Double.isNaN(v0)
                             || Double.isNaN(v1)
-                            || v0 == FunUtil.DOUBLE_NULL
-                            || v1 == FunUtil.DOUBLE_NULL)
+                            || DoubleCalc.isNull(v0)
+                            || DoubleCalc.isNull(v1))
                         {
                             return FunUtil.BOOLEAN_NULL;
                         }
@@ -904,14 +904,15 @@ public class FunUtil extends Util {
     Evaluator evaluator,
     TupleList members,
     Calc calc ) {
-    SetWrapper sw = FunUtil.evaluateSet( evaluator, members, calc );
-    if ( sw.errorCount > 0 ) {
-      return Double.NaN;
-    } else {
-        return (sw.v.isEmpty())
-            ? Util.nullValue
-            : Double.valueOf(FunUtil.avg(sw));
-    }
+    double d = FunUtil.avgDouble( evaluator, members, calc );
+    return DoubleCalc.isNull( d ) ? Util.nullValue : Double.valueOf( d );
+  }
+
+  public static double avgDouble(
+    Evaluator evaluator,
+    TupleList members,
+    Calc calc ) {
+    return FunUtil.sumDouble( evaluator, members, calc, true );
   }
 
   // TODO: parameterize inclusion of nulls; also, maybe make _avg a method of
@@ -930,42 +931,84 @@ public class FunUtil extends Util {
     TupleList members,
     Calc exp ) {
     double d = FunUtil.sumDouble( evaluator, members, exp );
-    return d == FunUtil.DOUBLE_NULL ? Util.nullValue : Double.valueOf( d );
+    return DoubleCalc.isNull( d ) ? Util.nullValue : Double.valueOf( d );
   }
 
   public static double sumDouble(
     Evaluator evaluator,
     TupleList members,
     Calc exp ) {
-    SetWrapper sw = FunUtil.evaluateSet( evaluator, members, exp );
-    if ( sw.errorCount > 0 ) {
-      return Double.NaN;
-    } else if ( sw.v.isEmpty() ) {
-      return FunUtil.DOUBLE_NULL;
-    } else {
-      double sum = 0.0;
-      for ( int i = 0; i < sw.v.size(); i++ ) {
-        sum += ( (Number) sw.v.get( i ) ).doubleValue();
-      }
-      return sum;
-    }
+    return FunUtil.sumDouble( evaluator, members, exp, false );
   }
 
   public static double sumDouble(
     Evaluator evaluator,
     TupleIterable iterable,
     Calc exp ) {
-    SetWrapper sw = FunUtil.evaluateSet( evaluator, iterable, exp );
-    if ( sw.errorCount > 0 ) {
+    return FunUtil.sumDouble( evaluator, iterable, exp, false );
+  }
+
+  /**
+   * Sums, or averages, the numeric values of an expression over a set.
+   *
+   * <p>Unlike {@link #evaluateSet(Evaluator, TupleIterable, Calc)}, the values
+   * are accumulated as they are evaluated, and not boxed and collected first.
+   *
+   * <p>A {@link DoubleCalc} evaluates a cell which is not loaded yet to 0, so
+   * for it a value counts as not ready if the cell reader of the evaluator
+   * missed a cell while evaluating it.
+   *
+   * @return the sum or average; {@link Double#NaN} if a value is not ready yet;
+   *   {@link DoubleCalc#NULL_VALUE} if all values are null
+   */
+  private static double sumDouble(
+    Evaluator evaluator,
+    TupleIterable iterable,
+    Calc exp,
+    boolean average ) {
+    assert iterable != null;
+    assert exp != null;
+    final TupleCursor cursor = iterable.tupleCursor();
+    int currentIteration = 0;
+    Execution execution =
+      evaluator.getQuery().getStatement().getCurrentExecution();
+    double sum = 0.0;
+    int count = 0;
+    int errorCount = 0;
+    while ( cursor.forward() ) {
+      CancellationChecker.checkCancelOrTimeout(
+        currentIteration++, execution );
+      cursor.setContext( evaluator );
+      if ( exp instanceof DoubleCalc doubleCalc ) {
+        final int missCount = evaluator.getMissCount();
+        final double d = doubleCalc.evaluateDouble( evaluator );
+        if ( evaluator.getMissCount() != missCount ) {
+          errorCount++;
+        } else if ( !DoubleCalc.isNull( d ) ) {
+          sum += d;
+          count++;
+        }
+        continue;
+      }
+      Object o = exp.evaluate( evaluator );
+      if ( o == null || o == Util.nullValue ) {
+        // skip nulls
+      } else if ( o == RolapUtil.valueNotReadyException ) {
+        // Carry on summing, so that if we are running in a
+        // BatchingCellReader, we find out all the dependent cells we
+        // need
+        errorCount++;
+      } else {
+        sum += ( (Number) o ).doubleValue();
+        count++;
+      }
+    }
+    if ( errorCount > 0 ) {
       return Double.NaN;
-    } else if ( sw.v.isEmpty() ) {
-      return FunUtil.DOUBLE_NULL;
+    } else if ( count == 0 ) {
+      return DoubleCalc.NULL_VALUE;
     } else {
-      double sum = 0.0;
-      for ( int i = 0; i < sw.v.size(); i++ ) {
-        sum += ( (Number) sw.v.get( i ) ).doubleValue();
-      }
-      return sum;
+      return average ? sum / count : sum;
     }
   }
 
@@ -17,6 +17,7 @@ import java.util.Set;
 
 import org.eclipse.daanse.olap.api.Evaluator;
 import org.eclipse.daanse.olap.api.Execution;
+import org.eclipse.daanse.olap.api.NativeEvaluator;
 import org.eclipse.daanse.olap.api.Validator;
 import org.eclipse.daanse.olap.api.element.Hierarchy;
 import org.eclipse.daanse.olap.api.element.Member;
@@ -25,6 +26,7 @@ import org.eclipse.daanse.olap.api.query.component.Expression;
 import org.eclipse.daanse.olap.api.query.component.ResolvedFunCall;
 import org.eclipse.daanse.olap.api.type.Type;
 import org.eclipse.daanse.olap.calc.api.Calc;
+import org.eclipse.daanse.olap.calc.api.ResultStyle;
 import org.eclipse.daanse.olap.calc.api.StringCalc;
 import org.eclipse.daanse.olap.calc.api.compiler.ExpressionCompiler;
 import org.eclipse.daanse.olap.calc.api.todo.TupleCursor;
@@ -123,7 +125,35 @@ class GenerateFunDef extends AbstractFunctionDefinition {
         }
     }
 
+    /**
+     * Returns whether the second set of Generate is a TopCount or BottomCount,
+     * optionally crossjoined with another set. Only such calls can be
+     * evaluated natively.
+     */
+    private static boolean isTopCountOrBottomCount(Expression expr) {
+        if (expr instanceof ResolvedFunCall crossJoin
+            && crossJoin.getArgCount() == 2
+            && isFunction(crossJoin, "CrossJoin", "*"))
+        {
+            expr = crossJoin.getArg(1);
+        }
+        return expr instanceof ResolvedFunCall call
+            && isFunction(call, "TopCount", "BottomCount");
+    }
+
+    private static boolean isFunction(
+        ResolvedFunCall call,
+        String name1,
+        String name2)
+    {
+        final String name =
+            call.getFunDef().getFunctionMetaData().operationAtom().name();
+        return name1.equalsIgnoreCase(name) || name2.equalsIgnoreCase(name);
+    }
+
     private static class GenerateListCalcImpl extends AbstractListCalc {
+        private final ResolvedFunCall call;
+        private final boolean nativeCandidate;
         private final TupleIteratorCalc iterCalc1;
         private final TupleListCalc listCalc2;
         private final int arityOut;
@@ -137,6 +167,8 @@ class GenerateFunDef extends AbstractFunctionDefinition {
             boolean all)
         {
             super(call.getType(), new Calc[]{tupleIteratorCalc, listCalc2});
+            this.call = call;
+            this.nativeCandidate = isTopCountOrBottomCount(call.getArg(1));
             this.iterCalc1 = tupleIteratorCalc;
             this.listCalc2 = listCalc2;
             this.arityOut = arityOut;
@@ -145,6 +177,18 @@ class GenerateFunDef extends AbstractFunctionDefinition {
 
         @Override
 		public TupleList evaluateList(Evaluator evaluator) {
+            // Use a native evaluator, if more efficient; that is, if the
+            // second set is a TopCount or BottomCount. Other calls do not
+            // look for one, so they do not pay for analyzing the first set.
+            if (nativeCandidate) {
+                final NativeEvaluator nativeEvaluator =
+                    evaluator.getSchemaReader().getNativeSetEvaluator(
+                        call.getFunDef(), call.getArgs(), evaluator, this);
+                if (nativeEvaluator != null) {
+                    return (TupleList) nativeEvaluator.execute(
+                        ResultStyle.LIST);
+                }
+            }
             final int savepoint = evaluator.savepoint();
             try {
                 evaluator.setNonEmpty(false);
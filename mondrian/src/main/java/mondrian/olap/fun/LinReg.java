@@ -324,6 +324,11 @@ public abstract class LinReg extends AbstractFunctionDefinition {
             // use first arg to generate y position
             return xPoint * value.getSlope() + value.getIntercept();
         }
+
+        @Override
+		public double evaluateDouble(Evaluator evaluator) {
+            return DoubleCalc.unbox(evaluate(evaluator));
+        }
     }
 
     /**
@@ -625,5 +630,10 @@ public abstract class LinReg extends AbstractFunctionDefinition {
                 throw Util.newInternal("unexpected value " + regType);
             }
         }
+
+        @Override
+		public double evaluateDouble(Evaluator evaluator) {
+            return DoubleCalc.unbox(evaluate(evaluator));
+        }
     }
 }
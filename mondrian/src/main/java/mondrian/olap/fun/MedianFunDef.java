@@ -14,6 +14,7 @@ import org.eclipse.daanse.olap.api.element.Hierarchy;
 import org.eclipse.daanse.olap.api.function.FunctionMetaData;
 import org.eclipse.daanse.olap.api.query.component.ResolvedFunCall;
 import org.eclipse.daanse.olap.calc.api.Calc;
+import org.eclipse.daanse.olap.calc.api.DoubleCalc;
 import org.eclipse.daanse.olap.calc.api.compiler.ExpressionCompiler;
 import org.eclipse.daanse.olap.calc.api.todo.TupleList;
 import org.eclipse.daanse.olap.calc.api.todo.TupleListCalc;
@@ -64,6 +65,11 @@ class MedianFunDef extends AbstractAggregateFunDef {
                 }
             }
 
+            @Override
+			public double evaluateDouble(Evaluator evaluator) {
+                return DoubleCalc.unbox(evaluate(evaluator));
+            }
+
             @Override
 			public boolean dependsOn(Hierarchy hierarchy) {
                 return HirarchyDependsChecker.checkAnyDependsButFirst(getChildCalcs(), hierarchy);
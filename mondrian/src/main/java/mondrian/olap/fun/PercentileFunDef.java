@@ -77,6 +77,11 @@ class PercentileFunDef extends AbstractAggregateFunDef {
                 }
             }
 
+            @Override
+			public double evaluateDouble(Evaluator evaluator) {
+                return DoubleCalc.unbox(evaluate(evaluator));
+            }
+
             @Override
 			public boolean dependsOn(Hierarchy hierarchy) {
                 return HirarchyDependsChecker.checkAnyDependsButFirst(getChildCalcs(), hierarchy);
@@ -97,7 +97,7 @@ public Calc compileCall( ResolvedFunCall call, ExpressionCompiler compiler ) {
   protected Calc genIterCalc( final ResolvedFunCall call, final TupleIteratorCalc tupleIteratorCalc, final Calc calc ) {
     return new AbstractProfilingNestedDoubleCalc( call.getType(), new Calc[] { tupleIteratorCalc, calc } ) {
       @Override
-	public Double evaluate( Evaluator evaluator ) {
+	public double evaluateDouble( Evaluator evaluator ) {
         evaluator.getTiming().markStart( SumFunDef.TIMING_NAME );
         final int savepoint = evaluator.savepoint();
         try {
@@ -119,7 +119,7 @@ public Calc compileCall( ResolvedFunCall call, ExpressionCompiler compiler ) {
   protected Calc genListCalc( final ResolvedFunCall call, final TupleListCalc tupleListCalc, final Calc calc ) {
     return new AbstractProfilingNestedDoubleCalc( call.getType(), new Calc[] { tupleListCalc, calc } ) {
       @Override
-	public Double evaluate( Evaluator evaluator ) {
+	public double evaluateDouble( Evaluator evaluator ) {
         evaluator.getTiming().markStart( SumFunDef.TIMING_NAME );
         final int savepoint = evaluator.savepoint();
         try {
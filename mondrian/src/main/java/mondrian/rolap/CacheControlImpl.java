@@ -231,10 +231,29 @@ public class CacheControlImpl implements CacheControl {
             throw new MondrianException(cacheFlushRegionMustContainMembers);
         }
         final UnionCellRegion union = normalize((CellRegionImpl) region);
+        final Set<RolapStar> starSet = new HashSet<>();
         for (CellRegionImpl cellRegion : union.regions) {
             // Figure out the bits.
             flushNonUnion(cellRegion);
+            starSet.addAll(getStarList(cellRegion));
         }
+        // New segments of the flushed stars start with empty dictionaries;
+        // the old ones go away with the segments which still use them.
+        for (RolapStar star : starSet) {
+            star.clearValueDictionaries();
+        }
+        // Remove cached query results after the segments, so that a query
+        // which read a flushed segment cannot put its result afterwards.
+        final QueryResultCache resultCache = getQueryResultCache();
+        if (resultCache != null) {
+            resultCache.invalidate(starSet);
+        }
+    }
+
+    private QueryResultCache getQueryResultCache() {
+        return connection == null
+            ? null
+            : connection.getContext().getQueryResultCache();
     }
 
     /**
@@ -291,6 +310,15 @@ public class CacheControlImpl implements CacheControl {
     @Override
 	public void flushSchemaCache() {
         RolapSchemaPool.instance().clear();
+        if (connection != null
+            && connection.getContext().getMdxStatementCache() != null)
+        {
+            connection.getContext().getMdxStatementCache().clear();
+        }
+        final QueryResultCache resultCache = getQueryResultCache();
+        if (resultCache != null) {
+            resultCache.clear();
+        }
         // In some cases, the request might originate from a reference
         // to the schema which isn't in the pool anymore. We must also call
         // the cleanup procedure on the current connection.
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.daanse.olap.api.Execution;
+import org.eclipse.daanse.olap.api.element.Hierarchy;
+import org.eclipse.daanse.olap.api.element.Member;
+import org.eclipse.daanse.olap.api.result.AllocationPolicy;
+import org.eclipse.daanse.olap.api.result.Axis;
+import org.eclipse.daanse.olap.api.result.Cell;
+import org.eclipse.daanse.olap.api.result.Result;
+import org.eclipse.daanse.olap.api.result.Scenario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mondrian.calc.impl.TupleCollections;
+import mondrian.olap.Property;
+import mondrian.olap.ResultBase;
+import mondrian.olap.SystemWideProperties;
+
+/**
+ * Immutable snapshot of the result of a query, as held by the
+ * {@link QueryResultCache}.
+ *
+ * <p>The axes and the value, formatted value and format string of every cell
+ * are copied when the snapshot is taken, so that any number of callers can
+ * read them concurrently. A {@link RolapResult} cannot be shared that way:
+ * it evaluates some cells and properties on demand, with an evaluator whose
+ * context it changes.</p>
+ *
+ * <p>Each caller gets its own instance, bound to its own {@link Execution}
+ * by {@link #rebind(Execution)}; the instances share the copied axes and
+ * cells. The few operations that still need an evaluator, such as drill
+ * through and custom cell properties, are delegated to the original result,
+ * one caller at a time.</p>
+ */
+public class CachedResult extends ResultBase {
+
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(CachedResult.class);
+
+    private final Result source;
+    private final Modulos modulos;
+    private final CachedCell[] cells;
+
+    private CachedResult(
+        Execution execution,
+        Axis[] axes,
+        Axis slicerAxis,
+        Result source,
+        Modulos modulos,
+        CachedCell[] cells)
+    {
+        super(execution, axes);
+        this.slicerAxis = slicerAxis;
+        this.source = source;
+        this.modulos = modulos;
+        this.cells = cells;
+    }
+
+    /**
+     * Takes a snapshot of a result.
+     *
+     * @param result Result, fully evaluated
+     * @return Snapshot, bound to the execution of the result
+     */
+    public static CachedResult snapshot(Result result) {
+        final Axis[] sourceAxes = result.getAxes();
+        final Axis[] axes = new Axis[sourceAxes.length];
+        for (int i = 0; i < axes.length; i++) {
+            axes[i] = copy(sourceAxes[i]);
+        }
+        final Axis slicerAxis = copy(result.getSlicerAxis());
+        final Modulos modulos = Modulos.Generator.create(axes);
+        int cellCount = 1;
+        for (Axis axis : axes) {
+            cellCount *= axis.getTupleList().size();
+        }
+        final CachedResult snapshot =
+            new CachedResult(
+                result.getExecution(), axes, slicerAxis, result, modulos,
+                new CachedCell[cellCount]);
+        for (int ordinal = 0; ordinal < cellCount; ordinal++) {
+            final int[] pos = modulos.getCellPos(ordinal);
+            snapshot.cells[ordinal] =
+                snapshot.new CachedCell(ordinal, pos, result.getCell(pos));
+        }
+        return snapshot;
+    }
+
+    private static Axis copy(Axis axis) {
+        return new RolapAxis(
+            TupleCollections.unmodifiableList(
+                TupleCollections.materialize(axis.getTupleList(), true)
+                    .copyList(-1)));
+    }
+
+    /**
+     * Returns an instance of this snapshot bound to another execution. The
+     * instances share the axes and cells.
+     *
+     * @param execution Execution of the caller
+     * @return Snapshot bound to the execution
+     */
+    public CachedResult rebind(Execution execution) {
+        return new CachedResult(
+            execution, axes, slicerAxis, source, modulos, cells);
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOGGER;
+    }
+
+    @Override
+    public Cell getCell(int[] pos) {
+        return cells[modulos.getCellOrdinal(pos)];
+    }
+
+    @Override
+    public RolapMember[] getCellMembers(int[] coordinates) {
+        synchronized (source) {
+            return source.getCellMembers(coordinates);
+        }
+    }
+
+    /**
+     * Cell of a {@link CachedResult}, shared by all instances of the
+     * snapshot.
+     */
+    private class CachedCell implements Cell {
+        private final int ordinal;
+        private final List<Integer> coordinates;
+        private final Object value;
+        private final boolean isNull;
+        private final boolean isError;
+        private final String cachedFormatString;
+        private final String formatString;
+        private final String formattedValue;
+
+        CachedCell(int ordinal, int[] pos, Cell cell) {
+            this.ordinal = ordinal;
+            final List<Integer> list = new ArrayList<>(pos.length);
+            for (int p : pos) {
+                list.add(p);
+            }
+            this.coordinates = Collections.unmodifiableList(list);
+            this.value = cell.getValue();
+            this.isNull = cell.isNull();
+            this.isError = cell.isError();
+            this.formattedValue = cell.getFormattedValue();
+            this.formatString =
+                (String) cell.getPropertyValue(Property.FORMAT_STRING.name);
+            this.cachedFormatString = cell.getCachedFormatString();
+        }
+
+        private Cell sourceCell() {
+            final int[] pos = new int[coordinates.size()];
+            for (int i = 0; i < pos.length; i++) {
+                pos[i] = coordinates.get(i);
+            }
+            return source.getCell(pos);
+        }
+
+        @Override
+        public List<Integer> getCoordinateList() {
+            return coordinates;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public String getCachedFormatString() {
+            return cachedFormatString;
+        }
+
+        @Override
+        public String getFormattedValue() {
+            return formattedValue;
+        }
+
+        @Override
+        public boolean isNull() {
+            return isNull;
+        }
+
+        @Override
+        public boolean isError() {
+            return isError;
+        }
+
+        @Override
+        public String getDrillThroughSQL(boolean extendedContext) {
+            synchronized (source) {
+                return sourceCell().getDrillThroughSQL(extendedContext);
+            }
+        }
+
+        @Override
+        public boolean canDrillThrough() {
+            synchronized (source) {
+                return sourceCell().canDrillThrough();
+            }
+        }
+
+        @Override
+        public int getDrillThroughCount() {
+            synchronized (source) {
+                return sourceCell().getDrillThroughCount();
+            }
+        }
+
+        @Override
+        public Object getPropertyValue(String propertyName) {
+            final Property property =
+                Property.lookup(
+                    propertyName, SystemWideProperties.instance().CaseSensitive);
+            if (property != null) {
+                switch (property.ordinal) {
+                case Property.CELL_ORDINAL_ORDINAL:
+                    return ordinal;
+                case Property.VALUE_ORDINAL:
+                    return value;
+                case Property.FORMAT_STRING_ORDINAL:
+                    return formatString;
+                case Property.FORMATTED_VALUE_ORDINAL:
+                    return formattedValue;
+                default:
+                    // fall through
+                }
+            }
+            synchronized (source) {
+                return sourceCell().getPropertyValue(propertyName);
+            }
+        }
+
+        @Override
+        public Member getContextMember(Hierarchy hierarchy) {
+            synchronized (source) {
+                return sourceCell().getContextMember(hierarchy);
+            }
+        }
+
+        @Override
+        public void setValue(
+            Scenario scenario,
+            Object newValue,
+            AllocationPolicy allocationPolicy,
+            Object... allocationArgs)
+        {
+            synchronized (source) {
+                sourceCell().setValue(
+                    scenario, newValue, allocationPolicy, allocationArgs);
+            }
+        }
+    }
+}
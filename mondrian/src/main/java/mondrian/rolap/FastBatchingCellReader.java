@@ -19,12 +19,14 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
 
 import org.eclipse.daanse.db.dialect.api.Dialect;
 import org.eclipse.daanse.olap.api.Execution;
@@ -109,6 +111,14 @@ public class FastBatchingCellReader implements CellReader {
 
     private final List<CellRequest> cellRequests = new ArrayList<>();
 
+    /**
+     * Stars whose cells have been requested from this reader, whether or not
+     * they were in the cache. The star of the previous request is kept aside,
+     * because consecutive requests usually belong to the same star.
+     */
+    private final Set<RolapStar> stars = new HashSet<>();
+    private RolapStar lastStar;
+
     private final Execution execution;
 
     /**
@@ -149,6 +159,12 @@ public class FastBatchingCellReader implements CellReader {
             return Util.nullValue; // request not satisfiable.
         }
 
+        final RolapStar star = request.getMeasure().getStar();
+        if (star != lastStar) {
+            stars.add(star);
+            lastStar = star;
+        }
+
         // Try to retrieve a cell and simultaneously pin the segment which
         // contains it.
         final Object o = aggMgr.getCellFromCache(request, pinnedSegments);
@@ -210,6 +226,31 @@ public class FastBatchingCellReader implements CellReader {
         }
     }
 
+    /**
+     * Moves the cell requests recorded by another reader into this reader.
+     * The other reader evaluated part of a stripe in parallel; its requests
+     * are loaded in the next call to {@link #loadAggregations()}.
+     *
+     * @param reader Reader whose requests to take over
+     */
+    void merge(FastBatchingCellReader reader) {
+        missCount += reader.missCount;
+        hitCount += reader.hitCount;
+        pendingCount += reader.pendingCount;
+        dirty |= reader.dirty;
+        stars.addAll(reader.stars);
+        cellRequests.addAll(reader.cellRequests);
+        reader.cellRequests.clear();
+    }
+
+    /**
+     * Returns the stars whose cells have been requested from this reader or
+     * from the readers merged into it.
+     */
+    Set<RolapStar> getStars() {
+        return stars;
+    }
+
     /**
      * Returns whether this reader has told a lie. This is the case if there
      * are pending batches to load or if {@link #setDirty(boolean)} has been
@@ -220,6 +261,46 @@ public class FastBatchingCellReader implements CellReader {
         return dirty || !cellRequests.isEmpty();
     }
 
+    /**
+     * Sends cell requests to the cache manager.
+     *
+     * <p>Each star is owned by one partition of the cache manager, so the
+     * requests are split by star (the requests of a virtual cube may span
+     * several stars) and each group is sent to its own partition. The
+     * responses are merged.</p>
+     *
+     * @param requests Cell requests
+     * @return Response
+     */
+    private BatchLoader.LoadBatchResponse loadBatch(
+        List<CellRequest> requests)
+    {
+        final Map<RolapStar, List<CellRequest>> requestsByStar =
+            new LinkedHashMap<>();
+        for (CellRequest request : requests) {
+            requestsByStar.computeIfAbsent(
+                request.getMeasure().getStar(),
+                star -> new ArrayList<>())
+                .add(request);
+        }
+        final List<BatchLoader.LoadBatchResponse> responses =
+            new ArrayList<>(requestsByStar.size());
+        for (Map.Entry<RolapStar, List<CellRequest>> entry
+            : requestsByStar.entrySet())
+        {
+            responses.add(
+                cacheMgr.execute(
+                    entry.getKey(),
+                    new BatchLoader.LoadBatchCommand(
+                        LocusImpl.peek(),
+                        cacheMgr,
+                        getDialect(),
+                        cube,
+                        Collections.unmodifiableList(entry.getValue()))));
+        }
+        return BatchLoader.LoadBatchResponse.merge(responses);
+    }
+
     /**
      * Resolves any pending cell reads using the cache. After calling this
      * method, all cells requested in a given batch are loaded into this
@@ -274,13 +355,7 @@ public class FastBatchingCellReader implements CellReader {
 
         for (int iteration = 0;; ++iteration) {
             final BatchLoader.LoadBatchResponse response =
-                cacheMgr.execute(
-                    new BatchLoader.LoadBatchCommand(
-                        LocusImpl.peek(),
-                        cacheMgr,
-                        getDialect(),
-                        cube,
-                        Collections.unmodifiableList(cellRequests1)));
+                loadBatch(cellRequests1);
 
             int failureCount = 0;
 
@@ -371,6 +446,7 @@ public class FastBatchingCellReader implements CellReader {
                 if (!cacheMgr.getContext().getConfig().disableCaching()) {
                     final Locus locus = LocusImpl.peek();
                     cacheMgr.execute(
+                        segmentWithData.getStar(),
                         new SegmentCacheManager.Command<Void>() {
                             @Override
 							public Void call() throws Exception {
@@ -628,6 +704,10 @@ class BatchLoader {
             && dialect.supportsGroupingSets();
     }
 
+    final boolean shouldGroupByCost() {
+        return cube.getSchema().getInternalConnection().getContext().getConfig().groupingSetsByCost();
+    }
+
     private void recordCellRequest2(final CellRequest request) {
         // If there is a segment matching these criteria, write it to the list
         // of found segments, and remove the cell request from the list.
@@ -929,7 +1009,10 @@ class BatchLoader {
             new ArrayList<>();
         if (shouldUseGroupingFunction()) {
             LOGGER.debug("Using grouping sets");
-            List<CompositeBatch> groupedBatches = groupBatches(batchList);
+            List<CompositeBatch> groupedBatches =
+                shouldGroupByCost()
+                    ? groupBatchesByCost(batchList)
+                    : groupBatches(batchList);
             for (CompositeBatch batch : groupedBatches) {
                 batch.load(segmentMapFutures);
             }
@@ -960,16 +1043,42 @@ class BatchLoader {
     }
 
     static List<CompositeBatch> groupBatches(List<Batch> batchList) {
+        return groupBatches(batchList, Batch::canBatch);
+    }
+
+    /**
+     * Groups batches as {@link #groupBatches(List)} does, but also batches
+     * that would be answered from different tables; then keeps each summary
+     * batch in the query of its detailed batch only if that is estimated to
+     * be cheaper than a query of its own. Summary batches that are not kept
+     * are loaded by queries of their own.
+     */
+    static List<CompositeBatch> groupBatchesByCost(List<Batch> batchList) {
+        final List<CompositeBatch> compositeBatches = new ArrayList<>();
+        for (CompositeBatch compositeBatch
+            : groupBatches(batchList, Batch::canGroup))
+        {
+            compositeBatches.add(compositeBatch);
+            compositeBatches.addAll(compositeBatch.planByCost());
+        }
+        compositeBatches.sort(CompositeBatchComparator.instance);
+        return compositeBatches;
+    }
+
+    private static List<CompositeBatch> groupBatches(
+        List<Batch> batchList,
+        BiPredicate<Batch, Batch> canGroup)
+    {
         Map<AggregationKey, CompositeBatch> batchGroups =
             new HashMap<>();
         for (int i = 0; i < batchList.size(); i++) {
             for (int j = i + 1; j < batchList.size();) {
                 final Batch iBatch = batchList.get(i);
                 final Batch jBatch = batchList.get(j);
-                if (iBatch.canBatch(jBatch)) {
+                if (canGroup.test(iBatch, jBatch)) {
                     batchList.remove(j);
                     addToCompositeBatch(batchGroups, iBatch, jBatch);
-                } else if (jBatch.canBatch(iBatch)) {
+                } else if (canGroup.test(jBatch, iBatch)) {
                     batchList.set(i, jBatch);
                     batchList.remove(j);
                     addToCompositeBatch(batchGroups, jBatch, iBatch);
@@ -1070,6 +1179,9 @@ class BatchLoader {
         /** Batches whose data can be fetched using rollup on detailed batch */
         final List<Batch> summaryBatches = new ArrayList<>();
 
+        /** Description of the plan, if it was chosen by cost */
+        String plan;
+
         CompositeBatch(Batch detailedBatch) {
             this.detailedBatch = detailedBatch;
         }
@@ -1100,9 +1212,66 @@ class BatchLoader {
                 cellRequestCount,
                 batchCollector.getGroupingSets(),
                 detailedBatch.batchKey.getCompoundPredicateList(),
+                plan,
                 segmentFutures);
         }
 
+        /**
+         * Removes the summary batches that are cheaper to load by queries of
+         * their own, and describes the plan.
+         *
+         * <p>Each row that the query of the detailed batch reads is grouped
+         * once more for each summary batch. A summary batch stays if that
+         * costs less than a query of its own, which may read a smaller
+         * aggregate table.</p>
+         *
+         * @return Composite batches of the removed summary batches
+         */
+        List<CompositeBatch> planByCost() {
+            final List<CompositeBatch> separateBatches = new ArrayList<>();
+            if (summaryBatches.isEmpty()) {
+                return separateBatches;
+            }
+            final double detailedCost = detailedBatch.estimateCost();
+            double groupedCost = detailedCost;
+            double separateCost = detailedCost;
+            for (Iterator<Batch> iterator = summaryBatches.iterator();
+                iterator.hasNext();)
+            {
+                final Batch batch = iterator.next();
+                final double cost = batch.estimateCost();
+                final double rollupCost = detailedBatch.estimateRollupCost(batch);
+                if (rollupCost < cost) {
+                    groupedCost += rollupCost;
+                    separateCost += cost;
+                } else {
+                    iterator.remove();
+                    final CompositeBatch separateBatch =
+                        new CompositeBatch(batch);
+                    separateBatch.plan =
+                        "separate query, estimated cost " + Math.round(cost)
+                        + " (" + Math.round(rollupCost)
+                        + " in grouping sets)";
+                    separateBatches.add(separateBatch);
+                }
+            }
+            if (summaryBatches.isEmpty()) {
+                plan = "separate query, estimated cost "
+                    + Math.round(detailedCost);
+            } else {
+                plan = "grouping sets of " + (summaryBatches.size() + 1)
+                    + " batches, estimated cost " + Math.round(groupedCost)
+                    + " (" + Math.round(separateCost)
+                    + " in separate queries)";
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(
+                    "Plan for {}: {}; {} summary batches in separate queries",
+                    detailedBatch.batchKey, plan, separateBatches.size());
+            }
+            return separateBatches;
+        }
+
         SegmentLoader getSegmentLoader() {
             return new SegmentLoader(detailedBatch.getCacheMgr());
         }
@@ -1183,6 +1352,40 @@ class BatchLoader {
             this.futures = futures;
         }
 
+        /**
+         * Merges the responses of several partitions of the cache manager
+         * into one.
+         */
+        static LoadBatchResponse merge(List<LoadBatchResponse> responses) {
+            if (responses.size() == 1) {
+                return responses.get(0);
+            }
+            final List<CellRequest> cellRequests = new ArrayList<>();
+            final List<SegmentHeader> cacheSegments = new ArrayList<>();
+            final List<RollupInfo> rollups = new ArrayList<>();
+            final Map<List, SegmentBuilder.SegmentConverter> converterMap =
+                new HashMap<>();
+            final List<Future<Map<Segment, SegmentWithData>>>
+                sqlSegmentMapFutures = new ArrayList<>();
+            final Map<SegmentHeader, Future<SegmentBody>> futures =
+                new HashMap<>();
+            for (LoadBatchResponse response : responses) {
+                cellRequests.addAll(response.cellRequests);
+                cacheSegments.addAll(response.cacheSegments);
+                rollups.addAll(response.rollups);
+                converterMap.putAll(response.converterMap);
+                sqlSegmentMapFutures.addAll(response.sqlSegmentMapFutures);
+                futures.putAll(response.futures);
+            }
+            return new LoadBatchResponse(
+                cellRequests,
+                cacheSegments,
+                rollups,
+                converterMap,
+                sqlSegmentMapFutures,
+                futures);
+        }
+
         public SegmentWithData convert(
             SegmentHeader header,
             SegmentBody body)
@@ -1206,6 +1409,13 @@ class BatchLoader {
         private int cellRequestCount;
         private List<StarColumnPredicate[]> tuples =
             new ArrayList<>();
+        // The aggregate table that the query of this batch reads, and whether
+        // its rows are rolled up, as found by getAgg. Batches are compared
+        // pairwise when they are grouped, so it is found once, and again
+        // only after the measures change.
+        private AggStar agg;
+        private boolean aggRollup;
+        private boolean aggFound;
 
         public Batch(CellRequest request) {
             columns = request.getConstrainedColumns();
@@ -1251,6 +1461,7 @@ class BatchLoader {
                            == (measuresList.get(0)).getStar())
                     : "Measure must belong to same star as other measures";
                 measuresList.add(measure);
+                aggFound = false;
             }
         }
 
@@ -1262,7 +1473,7 @@ class BatchLoader {
          *
          * @return the RolapStar associated with the Batch's first Measure
          */
-        private RolapStar getStar() {
+        RolapStar getStar() {
             RolapStar.Measure measure = measuresList.get(0);
             return measure.getStar();
         }
@@ -1317,6 +1528,13 @@ class BatchLoader {
                     segmentFutures, optimizePredicates);
             }
 
+            // Sketch measures group by their operand, so each operand needs a
+            // query of its own.
+            doSpecialHandlingOfSketchMeasures(
+                predicates,
+                groupingSetsCollector,
+                segmentFutures, optimizePredicates);
+
             // Load agg(distinct <SQL expression>) measures individually
             // for DBs that does allow multiple distinct SQL measures.
             if (!dialect.allowsMultipleDistinctSqlMeasures()) {
@@ -1343,6 +1561,7 @@ class BatchLoader {
                         segmentFutures,
                         optimizePredicates);
                     measuresList.remove(measure);
+                    aggFound = false;
                 }
             }
 
@@ -1391,6 +1610,7 @@ class BatchLoader {
                         .equals(expr))
                     {
                         measuresList.remove(i);
+                        aggFound = false;
                         distinctMeasuresList.add(distinctMeasure);
                     } else {
                         i++;
@@ -1412,6 +1632,53 @@ class BatchLoader {
             }
         }
 
+        private void doSpecialHandlingOfSketchMeasures(
+            StarColumnPredicate[] predicates,
+            GroupingSetsCollector groupingSetsCollector,
+            List<Future<Map<Segment, SegmentWithData>>> segmentFutures,
+            boolean optimizePredicates)
+        {
+            while (true) {
+                RolapStar.Measure sketchMeasure = null;
+                for (RolapStar.Measure measure : measuresList) {
+                    if (measure.getAggregator().isSketch()) {
+                        sketchMeasure = measure;
+                        break;
+                    }
+                }
+                if (sketchMeasure == null) {
+                    break;
+                }
+                final String expr =
+                    genericExpression(sketchMeasure.getExpression());
+                final List<RolapStar.Measure> sketchMeasuresList =
+                    new ArrayList<>();
+                for (int i = 0; i < measuresList.size();) {
+                    final RolapStar.Measure measure = measuresList.get(i);
+                    if (measure.getAggregator().isSketch()
+                        && genericExpression(measure.getExpression())
+                        .equals(expr))
+                    {
+                        measuresList.remove(i);
+                        aggFound = false;
+                        sketchMeasuresList.add(measure);
+                    } else {
+                        i++;
+                    }
+                }
+                AggregationManager.loadAggregation(
+                    cacheMgr,
+                    cellRequestCount,
+                    sketchMeasuresList,
+                    columns,
+                    batchKey,
+                    predicates,
+                    groupingSetsCollector,
+                    segmentFutures,
+                    optimizePredicates);
+            }
+        }
+
         private StarColumnPredicate[] initPredicates() {
             StarColumnPredicate[] predicates =
                 new StarColumnPredicate[columns.length];
@@ -1550,10 +1817,99 @@ class BatchLoader {
                 && hasSameMeasureList(other)
                 && !hasDistinctCountMeasure()
                 && !other.hasDistinctCountMeasure()
+                && !hasSketchMeasure()
+                && !other.hasSketchMeasure()
                 && haveSameStarAndAggregation(other)
                 && haveSameClosureColumns(other);
         }
 
+        /**
+         * Returns whether another Batch can be loaded in the query of this
+         * Batch if GROUPING SETS are planned by cost.
+         *
+         * <p>Unlike {@link #canBatch}, the batches need not be answered from
+         * the same table, provided that the rows of the table of this batch
+         * are rolled up and both have the same compound predicates. Whether
+         * they are grouped is then decided by
+         * {@link CompositeBatch#planByCost()}.
+         */
+        boolean canGroup(Batch other) {
+            return hasOverlappingBitKeys(other)
+                && constraintsMatch(other)
+                && hasSameMeasureList(other)
+                && !hasDistinctCountMeasure()
+                && !other.hasDistinctCountMeasure()
+                && !hasSketchMeasure()
+                && !other.hasSketchMeasure()
+                && (haveSameStarAndAggregation(other)
+                    || getStar().equals(other.getStar())
+                    && equalConstraint(
+                        batchKey.getCompoundPredicateList(),
+                        other.batchKey.getCompoundPredicateList())
+                    && isRolledUp())
+                && haveSameClosureColumns(other);
+        }
+
+        /**
+         * Estimates the cost of loading this batch by a query of its own: the
+         * number of rows read, plus, if they are rolled up, the number of
+         * rows grouped and of groups produced.
+         */
+        double estimateCost() {
+            final boolean[] rollup = {false};
+            final AggStar aggStar = getSourceAgg(rollup);
+            final long rowCount =
+                AggregationManager.getRowCount(getStar(), aggStar);
+            if (!rollup[0]) {
+                return rowCount;
+            }
+            return 2d * rowCount
+                + AggregationManager.estimateGroupCount(
+                    getStar(), getConstrainedColumnsBitKey(), rowCount);
+        }
+
+        /**
+         * Estimates the additional cost of loading another batch in the query
+         * of this batch, as a grouping set: the rows read for this batch are
+         * grouped once more.
+         */
+        double estimateRollupCost(Batch summaryBatch) {
+            final AggStar aggStar = getSourceAgg(new boolean[] {false});
+            final long rowCount =
+                AggregationManager.getRowCount(getStar(), aggStar);
+            return rowCount
+                + AggregationManager.estimateGroupCount(
+                    getStar(), summaryBatch.getConstrainedColumnsBitKey(),
+                    rowCount);
+        }
+
+        private boolean isRolledUp() {
+            final boolean[] rollup = {false};
+            getSourceAgg(rollup);
+            return rollup[0];
+        }
+
+        /**
+         * Returns the aggregate table that the query of this batch reads, as
+         * {@link AggregationManager#generateSql} chooses it.
+         *
+         * @param rollup Out parameter, is set to true if the rows of the
+         *   table are rolled up
+         * @return Aggregate table, or null for the fact table
+         */
+        private AggStar getSourceAgg(boolean[] rollup) {
+            if (cube.getSchema().getInternalConnection().getContext().getConfig().useAggregates()
+                && batchKey.getCompoundPredicateList().isEmpty())
+            {
+                final AggStar aggStar = getAgg(rollup);
+                if (aggStar != null) {
+                    return aggStar;
+                }
+            }
+            rollup[0] = true;
+            return null;
+        }
+
         /**
          * Returns whether the constraints on this Batch subsume the constraints
          * on another Batch and therefore the other Batch can be subsumed into
@@ -1625,6 +1981,20 @@ class BatchLoader {
             return getDistinctMeasureCount(measuresList) > 0;
         }
 
+        /**
+         * Returns whether this batch has a measure whose cells are sketches.
+         * Such a measure groups by its operand, so it cannot share a query
+         * with GROUPING SETS.
+         */
+        boolean hasSketchMeasure() {
+            for (RolapStar.Measure measure : measuresList) {
+                if (measure.getAggregator().isSketch()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         boolean hasSameCompoundPredicate(Batch other) {
             final StarPredicate starPredicate = compoundPredicate();
             final StarPredicate otherStarPredicate = other.compoundPredicate();
@@ -1706,15 +2076,26 @@ class BatchLoader {
         }
 
         /**
+         * Returns the aggregate table that answers this batch, as
+         * {@link AggregationManager#findAgg} finds it. The result is
+         * remembered until the measures of the batch change.
+         *
          * @param rollup Out parameter
          * @return AggStar
          */
         private AggStar getAgg(boolean[] rollup) {
-            return AggregationManager.findAgg(
-                getStar(),
-                getConstrainedColumnsBitKey(),
-                makeMeasureBitKey(),
-                rollup);
+            if (!aggFound) {
+                final boolean[] findRollup = {false};
+                agg = AggregationManager.findAgg(
+                    getStar(),
+                    getConstrainedColumnsBitKey(),
+                    makeMeasureBitKey(),
+                    findRollup);
+                aggRollup = findRollup[0];
+                aggFound = true;
+            }
+            rollup[0] = aggRollup;
+            return agg;
         }
 
         private BitKey makeMeasureBitKey() {
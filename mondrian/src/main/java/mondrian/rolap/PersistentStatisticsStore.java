@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Row counts and distinct counts kept in a file, so that they survive a
+ * restart.
+ *
+ * <p>{@link RolapStatisticsCache} consults the store before it asks a
+ * statistics provider, and records each estimate it obtains, with the time
+ * it was obtained. Unknown estimates are not recorded, so they are retried
+ * after a restart. Estimates older than a given age can be ignored, so that
+ * they are obtained again.</p>
+ *
+ * <p>Keys are hashes of their parts, so that an estimate of a query does not
+ * store the text of the query. Each estimate is appended to the file as a
+ * line; the last line of a key wins when the file is read. When the file
+ * holds more replaced lines than estimates, it is rewritten with one line
+ * per estimate. There is one instance per file, shared by all stars that use
+ * it.</p>
+ */
+public class PersistentStatisticsStore {
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(PersistentStatisticsStore.class);
+
+    private static final Map<Path, PersistentStatisticsStore> STORES =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Number of replaced lines the file may hold, however few estimates it
+     * has, before it is rewritten.
+     */
+    static final int MIN_REPLACED_LINES = 64;
+
+    private final Path file;
+    // Guarded by this.
+    private final Properties properties = new Properties();
+    // Number of estimate lines in the file. Guarded by this.
+    private int lineCount;
+
+    PersistentStatisticsStore(Path file) {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+                lineCount = countLines(file);
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.warn("Cannot read statistics from {}", file, e);
+                properties.clear();
+                lineCount = 0;
+            }
+        }
+    }
+
+    private static int countLines(Path file) throws IOException {
+        int count = 0;
+        for (String line
+            : Files.readAllLines(file, StandardCharsets.ISO_8859_1))
+        {
+            final String trimmed = line.strip();
+            if (!trimmed.isEmpty()
+                && !trimmed.startsWith("#")
+                && !trimmed.startsWith("!"))
+            {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the store of a file.
+     *
+     * @param fileName Name of the file, or null or empty for none
+     * @return Store, or null if no file is given
+     */
+    public static PersistentStatisticsStore forFile(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return null;
+        }
+        return STORES.computeIfAbsent(
+            Path.of(fileName).toAbsolutePath().normalize(),
+            PersistentStatisticsStore::new);
+    }
+
+    /**
+     * Builds the key of an estimate from its parts, for instance the kind of
+     * estimate, and the schema, table and column names, or the text of a
+     * query. The key is the SHA-256 hash of the parts, in hex, so its length
+     * does not depend on the parts.
+     */
+    public static String key(String... parts) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String part : parts) {
+            // A null part differs from an empty one, and the length prefix
+            // keeps the parts apart.
+            if (part == null) {
+                digest.update((byte) 0);
+            } else {
+                final byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                digest.update((byte) 1);
+                digest.update(Integer.toString(bytes.length)
+                    .getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte) ':');
+                digest.update(bytes);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns an estimate, however old it is.
+     *
+     * @param key Key
+     * @return Estimate, or -1 if the store has none
+     */
+    public long get(String key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Returns an estimate, unless it is older than a given age.
+     *
+     * @param key          Key
+     * @param maxAgeMillis Maximum age of the estimate, in milliseconds, or 0
+     *                     for any age
+     * @return Estimate, or -1 if the store has none, or only an older one
+     */
+    public long get(String key, long maxAgeMillis) {
+        return get(key, maxAgeMillis, System.currentTimeMillis());
+    }
+
+    synchronized long get(String key, long maxAgeMillis, long nowMillis) {
+        final String value = properties.getProperty(key);
+        if (value != null) {
+            try {
+                // Value is "count,time"; files written before estimates had
+                // a time hold only the count, and are as old as can be.
+                final int comma = value.indexOf(',');
+                final long count =
+                    Long.parseLong(comma < 0 ? value : value.substring(0, comma));
+                final long time =
+                    comma < 0 ? 0 : Long.parseLong(value.substring(comma + 1));
+                if (maxAgeMillis <= 0 || nowMillis - time <= maxAgeMillis) {
+                    return count;
+                }
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records an estimate, obtained now, and appends it to the file. Negative
+     * estimates are ignored.
+     *
+     * @param key   Key
+     * @param value Estimate
+     */
+    public void put(String key, long value) {
+        put(key, value, System.currentTimeMillis());
+    }
+
+    synchronized void put(String key, long value, long nowMillis) {
+        if (value < 0) {
+            return;
+        }
+        final String entry = value + "," + nowMillis;
+        properties.setProperty(key, entry);
+        if (lineCount - properties.size()
+            >= Math.max(MIN_REPLACED_LINES, properties.size()))
+        {
+            save();
+        } else {
+            append(key, entry);
+        }
+    }
+
+    /**
+     * Returns the number of estimate lines in the file.
+     */
+    synchronized int getLineCount() {
+        return lineCount;
+    }
+
+    private void append(String key, String entry) {
+        try {
+            final Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer out = Files.newBufferedWriter(
+                file, StandardCharsets.ISO_8859_1, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND))
+            {
+                out.write(escape(key) + "=" + entry + "\n");
+            }
+            ++lineCount;
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write statistics to {}", file, e);
+        }
+    }
+
+    /**
+     * Escapes a key as {@link Properties#store} does, so that
+     * {@link Properties#load} reads it back.
+     */
+    private static String escape(String key) {
+        final StringBuilder buf = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            final char c = key.charAt(i);
+            switch (c) {
+            case ' ', '=', ':', '#', '!', '\\':
+                buf.append('\\').append(c);
+                break;
+            case '\t':
+                buf.append("\\t");
+                break;
+            case '\n':
+                buf.append("\\n");
+                break;
+            case '\r':
+                buf.append("\\r");
+                break;
+            case '\f':
+                buf.append("\\f");
+                break;
+            default:
+                if (c < 0x20 || c > 0x7e) {
+                    buf.append(String.format("\\u%04X", (int) c));
+                } else {
+                    buf.append(c);
+                }
+            }
+        }
+        return buf.toString();
+    }
+
+    private void save() {
+        try {
+            final Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            // Write a temporary file and move it into place, so that a
+            // reader never sees a partly written file.
+            final Path tmp = Files.createTempFile(
+                parent, file.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, "Mondrian statistics");
+            }
+            try {
+                Files.move(
+                    tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            lineCount = properties.size();
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write statistics to {}", file, e);
+        }
+    }
+}
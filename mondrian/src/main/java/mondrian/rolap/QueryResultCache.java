@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.daanse.olap.api.access.Role;
+import org.eclipse.daanse.olap.api.element.Member;
+import org.eclipse.daanse.olap.api.element.NamedSet;
+import org.eclipse.daanse.olap.api.query.component.MemberExpression;
+import org.eclipse.daanse.olap.api.query.component.NamedSetExpression;
+import org.eclipse.daanse.olap.api.query.component.Query;
+import org.eclipse.daanse.olap.api.query.component.ResolvedFunCall;
+import org.eclipse.daanse.olap.api.query.component.UnresolvedFunCall;
+import org.eclipse.daanse.olap.api.result.Axis;
+import org.eclipse.daanse.olap.api.result.Result;
+
+import mondrian.mdx.MdxVisitorImpl;
+
+/**
+ * Bounded cache of the results of whole queries.
+ *
+ * <p>A result is held as an immutable {@link CachedResult}, which each hit
+ * rebinds to the execution of the caller, so that callers never share the
+ * mutable state of a {@link RolapResult}.</p>
+ *
+ * <p>A result is keyed by the schema, the unparsed text of the query, the
+ * role and the locale of the connection that executed it. Only queries
+ * without parameters, executed by connections without an active scenario,
+ * are cached; see {@link RolapConnection#execute}. Queries that call a
+ * volatile function, such as {@code Now()} or {@code CurrentDateMember},
+ * are not cached either; see {@link #isVolatile(Query)}.</p>
+ *
+ * <p>Each entry records the stars whose cells the result was computed from,
+ * including the stars of the constituent cubes of a virtual cube.
+ * When {@link CacheControlImpl} flushes a region, the entries that depend on
+ * a star of the region are removed; flushing the schema cache removes all
+ * entries. Each invalidation increments the data version of the cache. A
+ * result computed while the data version changed is not cached, because it
+ * may contain cells read before the flush.</p>
+ *
+ * <p>The size of the cache is bounded by the total number of cells of the
+ * results it holds. When a new result does not fit, the least recently used
+ * results are removed.</p>
+ *
+ * <p>The cache is thread safe.</p>
+ */
+public class QueryResultCache {
+
+    /**
+     * Names of the functions whose value may change between executions of
+     * the same query, in upper case.
+     */
+    private static final Set<String> VOLATILE_FUNCTIONS = Set.of(
+        "NOW", "DATE", "TIME", "TIMER",
+        "CURRENTDATEMEMBER", "CURRENTDATESTRING");
+
+    private volatile long maxCells;
+    // Access-ordered, so that iteration starts at the least recently used
+    // entry. Guarded by itself.
+    private final LinkedHashMap<Key, Entry> map =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private long cellCount;
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * Creates a QueryResultCache.
+     *
+     * @param maxCells Maximum total number of cells of the results held;
+     *                 0 disables the cache
+     */
+    public QueryResultCache(long maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    public boolean isEnabled() {
+        return maxCells > 0;
+    }
+
+    /**
+     * Changes the maximum total number of cells of the results held,
+     * removing the least recently used results that no longer fit.
+     *
+     * @param maxCells Maximum total number of cells; 0 disables the cache
+     */
+    public void setMaxCells(long maxCells) {
+        if (maxCells == this.maxCells) {
+            return;
+        }
+        synchronized (map) {
+            this.maxCells = maxCells;
+            evict();
+        }
+    }
+
+    /**
+     * Returns whether a result is small enough to be cached. Check it
+     * before taking a snapshot of the result.
+     *
+     * @param result Result
+     * @return Whether the result fits
+     */
+    public boolean fits(Result result) {
+        return countCells(result) <= maxCells;
+    }
+
+    /**
+     * Returns the current data version. Pass it to
+     * {@link #put(Key, CachedResult, Set, long)} after computing a result.
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Looks up a result.
+     *
+     * @param key Key
+     * @return Cached result, bound to the execution which computed it; or
+     *     null
+     */
+    public CachedResult get(Key key) {
+        final Entry entry;
+        synchronized (map) {
+            entry = map.get(key);
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.result;
+    }
+
+    /**
+     * Adds a result to the cache.
+     *
+     * @param key         Key
+     * @param result      Snapshot of the result
+     * @param stars       Stars whose cells the result was computed from
+     * @param dataVersion Data version when the computation started
+     * @return Whether the result was added
+     */
+    public boolean put(
+        Key key,
+        CachedResult result,
+        Set<RolapStar> stars,
+        long dataVersion)
+    {
+        final long cells = countCells(result);
+        if (cells > maxCells) {
+            return false;
+        }
+        synchronized (map) {
+            // Check the version inside the lock; invalidation also holds it.
+            if (dataVersion != this.dataVersion.get()) {
+                return false;
+            }
+            final Entry previous =
+                map.put(key, new Entry(result, stars, cells));
+            if (previous != null) {
+                cellCount -= previous.cells;
+            }
+            cellCount += cells;
+            evict();
+        }
+        return true;
+    }
+
+    // Called with the lock on map held.
+    private void evict() {
+        final Iterator<Entry> iterator = map.values().iterator();
+        while (cellCount > maxCells && iterator.hasNext()) {
+            final Entry eldest = iterator.next();
+            iterator.remove();
+            cellCount -= eldest.cells;
+        }
+    }
+
+    /**
+     * Removes the results that depend on any of the given stars.
+     *
+     * @param stars Stars whose cells have been flushed
+     */
+    public void invalidate(Collection<RolapStar> stars) {
+        synchronized (map) {
+            dataVersion.incrementAndGet();
+            final Iterator<Entry> iterator = map.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (!Collections.disjoint(entry.stars, stars)) {
+                    iterator.remove();
+                    cellCount -= entry.cells;
+                    invalidationCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all results from the cache.
+     */
+    public void clear() {
+        synchronized (map) {
+            dataVersion.incrementAndGet();
+            invalidationCount.addAndGet(map.size());
+            map.clear();
+            cellCount = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Returns the total number of cells of the results in the cache.
+     */
+    public long getCellCount() {
+        synchronized (map) {
+            return cellCount;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of results removed because the data they depend
+     * on was flushed.
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 0 if there have been no
+     * lookups.
+     */
+    public double getHitRate() {
+        final long hits = hitCount.get();
+        final long lookups = hits + missCount.get();
+        return lookups == 0 ? 0d : (double) hits / lookups;
+    }
+
+    /**
+     * Returns whether a query calls a volatile function, whose value may
+     * change between executions, such as {@code Now()} or
+     * {@code CurrentDateMember}. The calls in the calculated members and
+     * named sets that the query uses are included, so that a time-relative
+     * member of the schema is found as well.
+     *
+     * @param query Resolved query
+     * @return Whether the result of the query must not be cached
+     */
+    public static boolean isVolatile(Query query) {
+        final VolatileFunctionFinder finder = new VolatileFunctionFinder();
+        query.accept(finder);
+        return finder.found;
+    }
+
+    private static long countCells(Result result) {
+        long cells = 1;
+        for (Axis axis : result.getAxes()) {
+            cells *= Math.max(1, axis.getPositions().size());
+        }
+        return cells;
+    }
+
+    /**
+     * Key of a cached result.
+     *
+     * <p>Schemas are equal if they have the same key, and roles if they
+     * grant the same access, so a result is shared by all connections of a
+     * context that see the same data.</p>
+     *
+     * @param schema Schema
+     * @param mdx    Unparsed query
+     * @param role   Role of the connection
+     * @param locale Locale of the connection, which affects formatted values
+     */
+    public record Key(RolapSchema schema, String mdx, Role role, Locale locale) {
+    }
+
+    /**
+     * Visitor that looks for calls to {@link #VOLATILE_FUNCTIONS}, following
+     * calculated members and named sets.
+     */
+    private static class VolatileFunctionFinder extends MdxVisitorImpl {
+        private final Set<Object> visited = new HashSet<>();
+        private boolean found;
+
+        @Override
+        public Object visitResolvedFunCall(ResolvedFunCall call) {
+            check(call.getOperationAtom().name());
+            return null;
+        }
+
+        @Override
+        public Object visitUnresolvedFunCall(UnresolvedFunCall call) {
+            check(call.getOperationAtom().name());
+            return null;
+        }
+
+        @Override
+        public Object visitMemberExpression(MemberExpression memberExpr) {
+            final Member member = memberExpr.getMember();
+            if (member.isCalculated()
+                && member.getExpression() != null
+                && visited.add(member))
+            {
+                member.getExpression().accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Object visitNamedSetExpression(
+            NamedSetExpression namedSetExpr)
+        {
+            final NamedSet namedSet = namedSetExpr.getNamedSet();
+            if (namedSet.getExp() != null && visited.add(namedSet)) {
+                namedSet.getExp().accept(this);
+            }
+            return null;
+        }
+
+        private void check(String name) {
+            if (name != null
+                && VOLATILE_FUNCTIONS.contains(name.toUpperCase(Locale.ROOT)))
+            {
+                found = true;
+                turnOffVisitChildren();
+            }
+        }
+    }
+
+    private record Entry(
+        CachedResult result, Set<RolapStar> stars, long cells)
+    {
+    }
+}
@@ -16,11 +16,14 @@ import org.eclipse.daanse.db.dialect.api.Datatype;
 import org.eclipse.daanse.olap.api.Evaluator;
 import org.eclipse.daanse.olap.api.rolap.agg.Aggregator;
 import org.eclipse.daanse.olap.calc.api.Calc;
+import org.eclipse.daanse.olap.calc.api.todo.TupleCursor;
 import org.eclipse.daanse.olap.calc.api.todo.TupleList;
 
 import mondrian.olap.EnumeratedValues;
 import mondrian.olap.MondrianException;
+import mondrian.olap.Util;
 import mondrian.olap.fun.FunUtil;
+import mondrian.util.HyperLogLog;
 
 /**
  * Describes an aggregation operator, such as "sum" or "count".
@@ -48,6 +51,21 @@ public abstract class RolapAggregator extends EnumeratedValues.BasicValue implem
       }
     };
 
+    @Override
+	public boolean supportsPrimitiveRollup( Datatype dataType ) {
+      return supportsFastAggregates( dataType );
+    }
+
+    @Override
+	public double combine( double a, double b ) {
+      return a + b;
+    }
+
+    @Override
+	public int combine( int a, int b ) {
+      return a + b;
+    }
+
     @Override
 	public Object aggregate( List<Object> rawData, Datatype datatype ) {
       assert rawData.size() > 0;
@@ -113,6 +131,21 @@ public abstract class RolapAggregator extends EnumeratedValues.BasicValue implem
       }
     };
 
+    @Override
+	public boolean supportsPrimitiveRollup( Datatype dataType ) {
+      return supportsFastAggregates( dataType );
+    }
+
+    @Override
+	public double combine( double a, double b ) {
+      return Math.min( a, b );
+    }
+
+    @Override
+	public int combine( int a, int b ) {
+      return Math.min( a, b );
+    }
+
     @Override
 	public Object aggregate( List<Object> rawData, Datatype datatype ) {
       assert rawData.size() > 0;
@@ -157,6 +190,21 @@ public abstract class RolapAggregator extends EnumeratedValues.BasicValue implem
       }
     };
 
+    @Override
+	public boolean supportsPrimitiveRollup( Datatype dataType ) {
+      return supportsFastAggregates( dataType );
+    }
+
+    @Override
+	public double combine( double a, double b ) {
+      return Math.max( a, b );
+    }
+
+    @Override
+	public int combine( int a, int b ) {
+      return Math.max( a, b );
+    }
+
     @Override
 	public Object aggregate( List<Object> rawData, Datatype datatype ) {
       assert rawData.size() > 0;
@@ -233,11 +281,76 @@ public abstract class RolapAggregator extends EnumeratedValues.BasicValue implem
     };
   };
 
+  /**
+   * Approximate distinct count. Cell values are {@link HyperLogLog} sketches of the distinct values of the operand,
+   * whose {@link Number} value is the estimate; see {@link HyperLogLog} for the error bound. Unlike
+   * {@link #DistinctCount}, sketches can be rolled up, in memory or from the sketch column of an aggregate table.
+   * The cells of a result hold the estimate, not the sketch.
+   *
+   * <p>SQL cannot build sketches portably, so the operand is grouped by and each row is added to the sketch of its
+   * cell as the segment is loaded. A segment load from the fact table therefore returns one row for each distinct
+   * value of the operand in each cell, as many as a load without aggregation would; only the memory of the loaded
+   * segment is bounded. To load large cardinalities quickly, use an aggregate table whose measure column stores
+   * the text of each sketch, as written by {@link HyperLogLog#toString()}.
+   */
+  public static final RolapAggregator ApproxDistinctCount = new RolapAggregator( "approx-distinct-count", index++,
+      false ) {
+    @Override
+	public Object aggregate( Evaluator evaluator, TupleList members, Calc exp ) {
+      HyperLogLog union = null;
+      int errorCount = 0;
+      final TupleCursor cursor = members.tupleCursor();
+      while ( cursor.forward() ) {
+        cursor.setContext( evaluator );
+        final Object o = exp.evaluate( evaluator );
+        if ( o == RolapUtil.valueNotReadyException ) {
+          errorCount++;
+        } else if ( o instanceof HyperLogLog sketch ) {
+          union = union == null ? sketch.copy() : union.merge( sketch );
+        } else if ( o != null && o != Util.nullValue ) {
+          throw new MondrianException( new StringBuilder( "Aggregator " ).append( this.name )
+              .append( " cannot roll up value " ).append( o ).toString() );
+        }
+      }
+      if ( errorCount > 0 ) {
+        // Not all sketches are loaded yet; the cell is evaluated again.
+        return RolapUtil.valueNotReadyException;
+      }
+      return union == null ? Util.nullValue : union;
+    }
+
+    @Override
+    public StringBuilder getExpression( CharSequence operand ) {
+      // Not aggregated in SQL; see isSketch.
+      return new StringBuilder( operand );
+    }
+
+    @Override
+    public boolean isSketch() {
+      return true;
+    }
+
+    @Override
+	public boolean supportsFastAggregates( Datatype dataType ) {
+      return true;
+    }
+
+    @Override
+	public Object aggregate( List<Object> rawData, Datatype datatype ) {
+      HyperLogLog union = null;
+      for ( Object data : rawData ) {
+        union = addToSketch( union, data );
+      }
+      return union;
+    }
+  };
+
   /**
    * List of all valid aggregation operators.
    */
   public static final EnumeratedValues<RolapAggregator> enumeration =
-      new EnumeratedValues<>( new RolapAggregator[] { Sum, Count, Min, Max, Avg, DistinctCount } );
+      new EnumeratedValues<>( new RolapAggregator[] { Sum, Count, Min, Max, Avg, DistinctCount,
+          ApproxDistinctCount } );
 
   /**
    * This is the base class for implementing aggregators over sum and average columns in an aggregate table. These
@@ -439,4 +552,63 @@ public abstract class RolapAggregator extends EnumeratedValues.BasicValue implem
   public Object aggregate( List<Object> rawData, Datatype datatype ) {
     throw new UnsupportedOperationException();
   }
+
+  /**
+   * Returns whether the cell values of this aggregator are sketches, which are built as a segment is loaded from rows
+   * grouped by the operand, rather than aggregated in SQL.
+   */
+  public boolean isSketch() {
+    return false;
+  }
+
+  /**
+   * Adds a value to the sketch of a cell of a {@link #isSketch() sketch} aggregator. A sketch, or the text of a
+   * sketch read from an aggregate table, is merged; any other value is added as one of the distinct values.
+   *
+   * @param sketch Sketch of the cell, or null if the cell has none yet
+   * @param value  Value
+   * @return Sketch of the cell; null if both are null
+   */
+  public static HyperLogLog addToSketch( HyperLogLog sketch, Object value ) {
+    if ( value == null || value == Util.nullValue ) {
+      return sketch;
+    }
+    HyperLogLog other = value instanceof HyperLogLog h ? h
+        : value instanceof String s ? HyperLogLog.parse( s ) : null;
+    if ( sketch == null ) {
+      sketch = new HyperLogLog( other == null ? HyperLogLog.DEFAULT_PRECISION : other.getPrecision() );
+    }
+    if ( other != null ) {
+      sketch.merge( other );
+    } else {
+      sketch.add( value );
+    }
+    return sketch;
+  }
+
+  /**
+   * Tells whether this aggregator can roll up dense segments of native
+   * values of a given type without boxing them, by combining non-null cell
+   * values pairwise with {@link #combine(double, double)} or
+   * {@link #combine(int, int)}.
+   *
+   * <p>By default, primitive rollup is not supported.
+   */
+  public boolean supportsPrimitiveRollup( Datatype dataType ) {
+    return false;
+  }
+
+  /**
+   * Combines two non-null values of a primitive rollup.
+   */
+  public double combine( double a, double b ) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Combines two non-null values of a primitive rollup.
+   */
+  public int combine( int a, int b ) {
+    throw new UnsupportedOperationException();
+  }
 }
@@ -33,10 +33,12 @@ import java.io.PrintWriter;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -305,6 +307,35 @@ public Result execute( Query query ) {
    */
   @Override
   public Result execute( final Execution execution ) {
+    final QueryResultCache cache = context.getQueryResultCache();
+    final QueryResultCache.Key key =
+      cache == null || !cache.isEnabled() ? null : resultCacheKey( execution );
+    if ( key == null ) {
+      return shepherdExecution( execution );
+    }
+    final CachedResult cached = cache.get( key );
+    if ( cached != null ) {
+      if ( LOGGER.isDebugEnabled() ) {
+        LOGGER.debug( "Query result cache hit: {}", key.mdx() );
+      }
+      return cached.rebind( execution );
+    }
+    final long dataVersion = cache.getDataVersion();
+    final Result result = shepherdExecution( execution );
+    final RolapResult rolapResult = unwrap( result );
+    if ( rolapResult != null
+      && cache.fits( result )
+      && dataVersion == cache.getDataVersion() ) {
+      final RolapCube cube =
+        (RolapCube) execution.getMondrianStatement().getQuery().getCube();
+      cache.put(
+        key, CachedResult.snapshot( result ), getStars( cube, rolapResult ),
+        dataVersion );
+    }
+    return result;
+  }
+
+  private Result shepherdExecution( final Execution execution ) {
     return
       context.getResultShepherd()
         .shepherdExecution(
@@ -317,6 +348,56 @@ public Result execute( Query query ) {
           } );
   }
 
+  /**
+   * Returns the key under which the result of an execution is held in the
+   * {@link QueryResultCache}, or null if the result must not be cached.
+   * Queries with parameters or volatile functions, and connections with an
+   * active scenario, are not cached, because their results depend on more
+   * than the query text.
+   */
+  private QueryResultCache.Key resultCacheKey( Execution execution ) {
+    final Query query = execution.getMondrianStatement().getQuery();
+    if ( query == null
+      || scenario != null
+      || !( query.getCube() instanceof RolapCube )
+      || query.getParameters().length > 0
+      || QueryResultCache.isVolatile( query ) ) {
+      return null;
+    }
+    return new QueryResultCache.Key(
+      schema, Util.unparse( query ), getRole(), getLocale() );
+  }
+
+  private static RolapResult unwrap( Result result ) {
+    while ( result instanceof NonEmptyResult nonEmptyResult ) {
+      result = nonEmptyResult.underlying;
+    }
+    return result instanceof RolapResult rolapResult ? rolapResult : null;
+  }
+
+  /**
+   * Returns the stars a result depends on: the stars whose cells it read, and the stars of the cubes the query is
+   * based on, whose fact tables native evaluation may have read. For a virtual cube, these are the stars of all its
+   * constituent cubes.
+   */
+  private static Set<RolapStar> getStars( RolapCube cube, RolapResult result ) {
+    final Set<RolapStar> stars = new HashSet<>( result.getStars() );
+    final List<RolapCube> cubes = new ArrayList<>( cube.getBaseCubes() );
+    if ( cube.isVirtual() ) {
+      for ( RolapCube schemaCube : cube.getSchema().getCubeList() ) {
+        if ( !schemaCube.isVirtual() && cube.usesCube( schemaCube.getName() ) ) {
+          cubes.add( schemaCube );
+        }
+      }
+    }
+    for ( RolapCube baseCube : cubes ) {
+      if ( baseCube.getStar() != null ) {
+        stars.add( baseCube.getStar() );
+      }
+    }
+    return stars;
+  }
+
   private Result executeInternal( final Execution execution ) {
     final Statement statement = execution.getMondrianStatement();
     // Cleanup any previous executions still running
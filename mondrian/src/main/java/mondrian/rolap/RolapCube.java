@@ -2326,6 +2326,16 @@ public class RolapCube extends CubeBase {
             && cubeUsages.shouldIgnoreUnrelatedDimensions(baseCubeName);
     }
 
+    /**
+     * Returns whether this is a virtual cube which uses a given base cube.
+     *
+     * @param baseCubeName name of the base cube
+     * @return boolean
+     */
+    public boolean usesCube(String baseCubeName) {
+        return cubeUsages != null && cubeUsages.usesCube(baseCubeName);
+    }
+
     /**
      * Returns a list of all hierarchies in this cube, in order of dimension.
      *
@@ -30,6 +30,18 @@ public class RolapCubeUsages {
         this.cubeUsages = cubeUsage;
     }
 
+    public boolean usesCube(String baseCubeName) {
+        if (cubeUsages == null) {
+            return false;
+        }
+        for (MappingCubeUsage usage : cubeUsages) {
+            if (usage.cubeName().equals(baseCubeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean shouldIgnoreUnrelatedDimensions(String baseCubeName) {
         if (cubeUsages == null) {
             return false;
@@ -39,6 +39,7 @@ public class RolapNativeRegistry extends RolapNative {
         register("NonEmptyCrossJoin".toUpperCase(), new RolapNativeCrossJoin(enableNativeCrossJoin));
         register("CrossJoin".toUpperCase(), new RolapNativeCrossJoin(enableNativeCrossJoin));
         register("TopCount".toUpperCase(), new RolapNativeTopCount(enableNativeTopCount));
+        register("Generate".toUpperCase(), new RolapNativeTopCount(enableNativeTopCount));
         register("Filter".toUpperCase(), new RolapNativeFilter(enableNativeFilter));
     }
 
@@ -12,24 +12,49 @@
 package mondrian.rolap;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.eclipse.daanse.db.dialect.api.Dialect;
 import org.eclipse.daanse.olap.api.Context;
 import org.eclipse.daanse.olap.api.NativeEvaluator;
 import org.eclipse.daanse.olap.api.SchemaReader;
+import org.eclipse.daanse.olap.api.element.Hierarchy;
+import org.eclipse.daanse.olap.api.element.Member;
 import org.eclipse.daanse.olap.api.function.FunctionDefinition;
 import org.eclipse.daanse.olap.api.query.component.Expression;
 import org.eclipse.daanse.olap.api.query.component.MemberExpression;
 import org.eclipse.daanse.olap.api.query.component.NumericLiteral;
+import org.eclipse.daanse.olap.api.query.component.ResolvedFunCall;
+import org.eclipse.daanse.olap.calc.api.ResultStyle;
+import org.eclipse.daanse.olap.calc.api.todo.TupleList;
 
+import mondrian.calc.impl.TupleCollections;
 import mondrian.olap.Util;
+import mondrian.olap.fun.SetFunDef;
+import mondrian.olap.fun.sort.Sorter;
+import mondrian.olap.type.MemberType;
+import mondrian.olap.type.SetType;
 import mondrian.rolap.aggmatcher.AggStar;
 import mondrian.rolap.sql.CrossJoinArg;
 import mondrian.rolap.sql.SqlQuery;
+import mondrian.rolap.sql.TupleConstraint;
 
 /**
  * Computes a TopCount in SQL.
  *
+ * <p>Also computes a TopCount or BottomCount that is evaluated for each
+ * member of a level, such as the top ten products of each region,
+ *
+ * <blockquote><pre>Generate(
+ *     [Store].[Store State].Members,
+ *     {[Store].CurrentMember}
+ *     * TopCount([Product].[Product Name].Members, 10, [Measures].[Unit Sales]))</pre></blockquote>
+ *
+ * <p>in one statement, if the dialect supports window functions: the rows of
+ * each member of the level are ranked with {@code ROW_NUMBER()}.</p>
+ *
  * @author av
  * @since Nov 21, 2005
  */
@@ -103,22 +128,7 @@ public class RolapNativeTopCount extends RolapNativeSet {
         {
             assert isValid();
             if (orderByExpr != null) {
-                RolapNativeSql sql =
-                    new RolapNativeSql(
-                        sqlQuery, aggStar, getEvaluator(), null);
-                final StringBuilder orderBySql =
-                    sql.generateTopCountOrderBy(orderByExpr);
-                boolean nullable =
-                    deduceNullability(orderByExpr);
-                final String orderByAlias =
-                    sqlQuery.addSelect(orderBySql, null);
-                sqlQuery.addOrderBy(
-                    orderBySql,
-                    orderByAlias,
-                    ascending,
-                    true,
-                    nullable,
-                    true);
+                addOrderBy(sqlQuery, aggStar);
             }
             if (isJoinRequired()) {
                 super.addConstraint(sqlQuery, baseCube, aggStar);
@@ -127,7 +137,29 @@ public class RolapNativeTopCount extends RolapNativeSet {
             }
         }
 
-        private boolean deduceNullability(Expression expr) {
+        /**
+         * Selects the order by expression, and sorts by it.
+         */
+        protected void addOrderBy(SqlQuery sqlQuery, AggStar aggStar) {
+            RolapNativeSql sql =
+                new RolapNativeSql(
+                    sqlQuery, aggStar, getEvaluator(), null);
+            final StringBuilder orderBySql =
+                sql.generateTopCountOrderBy(orderByExpr);
+            boolean nullable =
+                deduceNullability(orderByExpr);
+            final String orderByAlias =
+                sqlQuery.addSelect(orderBySql, null);
+            sqlQuery.addOrderBy(
+                orderBySql,
+                orderByAlias,
+                ascending,
+                true,
+                nullable,
+                true);
+        }
+
+        boolean deduceNullability(Expression expr) {
             if (!(expr instanceof MemberExpression memberExpr)) {
                 return true;
             }
@@ -160,6 +192,131 @@ public class RolapNativeTopCount extends RolapNativeSet {
         }
     }
 
+    /**
+     * Constraint of a TopCount or BottomCount that is evaluated for each
+     * member of a level. The first arg is that level; the rows of each of its
+     * members are ranked by the order by expression, and the first
+     * <code>topCount</code> rows of each member are kept.
+     */
+    static class PartitionedTopCountConstraint extends TopCountConstraint {
+        private final RolapLevel partitionLevel;
+        // Number of select items of the partition level. Set while the
+        // statement is generated, before addConstraint is called.
+        private int partitionColumnCount;
+
+        PartitionedTopCountConstraint(
+            int count,
+            CrossJoinArg[] args, RolapEvaluator evaluator,
+            Expression orderByExpr, boolean ascending)
+        {
+            super(count, args, evaluator, orderByExpr, ascending);
+            this.partitionLevel = args[0].getLevel();
+        }
+
+        @Override
+        protected boolean isValid() {
+            return orderByExpr != null && super.isValid();
+        }
+
+        @Override
+        public boolean supportsAggTables() {
+            // A level that is collapsed into an aggregate table does not
+            // call addLevelConstraint, so its select items would not be
+            // counted.
+            return false;
+        }
+
+        @Override
+        public void addLevelConstraint(
+            SqlQuery sqlQuery,
+            RolapCube baseCube,
+            AggStar aggStar,
+            RolapLevel level)
+        {
+            super.addLevelConstraint(sqlQuery, baseCube, aggStar, level);
+            // The partition level is the first target, so every select item
+            // so far belongs to it or to its ancestors.
+            if (level.getHierarchy().equals(partitionLevel.getHierarchy())
+                && level.getDepth() == partitionLevel.getDepth())
+            {
+                partitionColumnCount = sqlQuery.getCurrentSelectListSize();
+            }
+        }
+
+        @Override
+        protected void addOrderBy(SqlQuery sqlQuery, AggStar aggStar) {
+            RolapNativeSql sql =
+                new RolapNativeSql(
+                    sqlQuery, aggStar, getEvaluator(), null);
+            final StringBuilder orderBySql =
+                sql.generateTopCountOrderBy(orderByExpr);
+            final String orderByAlias =
+                sqlQuery.addSelect(orderBySql, null);
+            sqlQuery.setPartitionRowLimit(
+                partitionColumnCount,
+                orderByAlias,
+                ascending,
+                deduceNullability(orderByExpr),
+                topCount);
+        }
+
+        @Override
+        public Object getCacheKey() {
+            List<Object> key = new ArrayList<>();
+            key.add(super.getCacheKey());
+            key.add(partitionLevel);
+            return key;
+        }
+    }
+
+    /**
+     * Reads the tuples of a partitioned TopCount, and returns them as
+     * Generate does: the tuples of each member of the partition level in
+     * turn, members in their natural order.
+     */
+    private class PartitionedSetEvaluator extends SetEvaluator {
+        private final boolean includePartition;
+        private final boolean all;
+
+        PartitionedSetEvaluator(
+            CrossJoinArg[] args,
+            SchemaReader schemaReader,
+            TupleConstraint constraint,
+            boolean includePartition,
+            boolean all)
+        {
+            super(args, schemaReader, constraint);
+            this.includePartition = includePartition;
+            this.all = all;
+        }
+
+        @Override
+        public Object execute(ResultStyle desiredResultStyle) {
+            final TupleList tuples =
+                (TupleList) super.execute(desiredResultStyle);
+            // The statement returns the rows of each member in rank order,
+            // but sorts the members by key, which need not be their order.
+            // The sort is stable, so ranks stay in order.
+            final List<List<Member>> sorted = new ArrayList<>(tuples);
+            sorted.sort(
+                (t1, t2) ->
+                    Sorter.compareHierarchically(t1.get(0), t2.get(0), false));
+            final int arity =
+                includePartition ? tuples.getArity() : tuples.getArity() - 1;
+            final TupleList result = TupleCollections.createList(arity);
+            final Set<List<Member>> emitted = new HashSet<>();
+            for (List<Member> tuple : sorted) {
+                final List<Member> row = includePartition
+                    ? tuple
+                    : new ArrayList<>(tuple.subList(1, tuple.size()));
+                if (all || emitted.add(row)) {
+                    result.add(row);
+                }
+            }
+            return result;
+        }
+    }
+
     @Override
 	protected boolean restrictMemberTypes() {
         return true;
@@ -178,7 +335,10 @@ public class RolapNativeTopCount extends RolapNativeSet {
         // is this "TopCount(<set>, <count>, [<numeric expr>])"
         boolean ascending;
         String funName = fun.getFunctionMetaData().operationAtom().name();
-        if ("TopCount".equalsIgnoreCase(funName)) {
+        if ("Generate".equalsIgnoreCase(funName)) {
+            return createPartitionedEvaluator(
+                evaluator, args, enableNativeFilter);
+        } else if ("TopCount".equalsIgnoreCase(funName)) {
             ascending = false;
         } else if ("BottomCount".equalsIgnoreCase(funName)) {
             ascending = true;
@@ -284,6 +444,196 @@ public class RolapNativeTopCount extends RolapNativeSet {
         }
     }
 
+    /**
+     * Returns a native evaluator for
+     * "Generate(&lt;level members&gt;, [{&lt;hierarchy&gt;.CurrentMember} *]
+     * TopCount(&lt;set&gt;, &lt;count&gt;, &lt;numeric expr&gt;)[, ALL])",
+     * or null if the call has another form or cannot be evaluated in SQL.
+     */
+    private NativeEvaluator createPartitionedEvaluator(
+        RolapEvaluator evaluator,
+        Expression[] args,
+        boolean enableNativeFilter)
+    {
+        if (args.length < 2
+            || args.length > 3
+            || !(args[1].getType() instanceof SetType))
+        {
+            return null;
+        }
+        final String alertNativeEvaluationUnsupported =
+            evaluator.getSchemaReader().getContext().getConfig()
+                .alertNativeEvaluationUnsupported();
+        final Dialect dialect =
+            evaluator.getSchemaReader().getContext().getDialect();
+        if (!dialect.supportsWindowFunctions() || !dialect.allowsFieldAs()) {
+            return null;
+        }
+        // Only a non-empty TopCount can be read in SQL: there is no way to
+        // complete the members of a partition with empty ones.
+        if (!evaluator.isNonEmpty() || evaluator.getCube().isVirtual()) {
+            return null;
+        }
+
+        // "Generate(<set>, <set>, ALL)" keeps duplicate tuples.
+        final boolean all = args.length == 3;
+        Expression setExpr = args[1];
+        Expression currentMemberExpr = null;
+        if (setExpr instanceof ResolvedFunCall crossJoin
+            && crossJoin.getArgCount() == 2
+            && isCrossJoin(crossJoin))
+        {
+            currentMemberExpr = crossJoin.getArg(0);
+            setExpr = crossJoin.getArg(1);
+        }
+        if (!(setExpr instanceof ResolvedFunCall topCountCall)
+            || topCountCall.getArgCount() != 3)
+        {
+            return null;
+        }
+        final boolean ascending;
+        final String funName = topCountCall.getFunDef().getFunctionMetaData()
+            .operationAtom().name();
+        if ("TopCount".equalsIgnoreCase(funName)) {
+            ascending = false;
+        } else if ("BottomCount".equalsIgnoreCase(funName)) {
+            ascending = true;
+        } else {
+            return null;
+        }
+
+        // extract the level to partition by
+        final List<CrossJoinArg[]> partitionArgs =
+            crossJoinArgFactory().checkCrossJoinArg(
+                evaluator, args[0], enableNativeFilter);
+        if (partitionArgs == null
+            || partitionArgs.size() != 1
+            || partitionArgs.get(0) == null
+            || partitionArgs.get(0).length != 1)
+        {
+            alertNonNativeTopCount(
+                "Set in 1st argument of Generate does not support native eval.",
+                alertNativeEvaluationUnsupported);
+            return null;
+        }
+        final CrossJoinArg partitionArg = partitionArgs.get(0)[0];
+        final RolapLevel partitionLevel = partitionArg.getLevel();
+        if (partitionLevel == null
+            || partitionLevel.isAll()
+            || partitionArg.getMembers() != null)
+        {
+            return null;
+        }
+        final Hierarchy partitionHierarchy = partitionLevel.getHierarchy();
+        if (currentMemberExpr != null
+            && !isCurrentMember(currentMemberExpr, partitionHierarchy))
+        {
+            return null;
+        }
+
+        // extract the set expression of the TopCount
+        final List<CrossJoinArg[]> allArgs =
+            crossJoinArgFactory().checkCrossJoinArg(
+                evaluator, topCountCall.getArg(0), enableNativeFilter);
+        if (allArgs == null || allArgs.isEmpty() || allArgs.get(0) == null) {
+            alertNonNativeTopCount(
+                "Set in 1st argument does not support native eval.",
+                alertNativeEvaluationUnsupported);
+            return null;
+        }
+        for (CrossJoinArg arg : allArgs.get(0)) {
+            // The TopCount must not be over the partition level itself.
+            if (arg.getLevel() == null
+                || arg.getLevel().getHierarchy().equals(partitionHierarchy))
+            {
+                return null;
+            }
+        }
+        final CrossJoinArg[] cjArgs =
+            Util.appendArrays(new CrossJoinArg[] {partitionArg}, allArgs.get(0));
+        if (isPreferInterpreter(cjArgs, false)) {
+            alertNonNativeTopCount(
+                "One or more args prefer non-native.",
+                alertNativeEvaluationUnsupported);
+            return null;
+        }
+
+        if (!(topCountCall.getArg(1) instanceof NumericLiteral numericLiteral)) {
+            alertNonNativeTopCount(
+                "TopCount value cannot be determined.",
+                alertNativeEvaluationUnsupported);
+            return null;
+        }
+        final int count = numericLiteral.getIntValue();
+
+        SchemaReader schemaReader = evaluator.getSchemaReader();
+        SqlQuery sqlQuery =
+            SqlQuery.newQuery(schemaReader.getContext(), "NativeTopCount");
+        RolapNativeSql sql =
+            new RolapNativeSql(
+                sqlQuery, null, evaluator, null);
+        final Expression orderByExpr = topCountCall.getArg(2);
+        if (sql.generateTopCountOrderBy(orderByExpr) == null) {
+            alertNonNativeTopCount(
+                "Cannot convert order by expression to SQL.",
+                alertNativeEvaluationUnsupported);
+            return null;
+        }
+
+        final int savepoint = evaluator.savepoint();
+        try {
+            overrideContext(evaluator, cjArgs, sql.getStoredMeasure());
+
+            CrossJoinArg[] combinedArgs = cjArgs;
+            if (allArgs.size() == 2 && allArgs.get(1) != null) {
+                combinedArgs = Util.appendArrays(cjArgs, allArgs.get(1));
+            }
+            PartitionedTopCountConstraint constraint =
+                new PartitionedTopCountConstraint(
+                    count, combinedArgs, evaluator, orderByExpr, ascending);
+            if (!constraint.isValid()) {
+                alertNonNativeTopCount(
+                    "Constraint constructed cannot be used for native eval.",
+                    alertNativeEvaluationUnsupported);
+                return null;
+            }
+            LOGGER.debug("using native partitioned topcount");
+            return new PartitionedSetEvaluator(
+                cjArgs, schemaReader, constraint,
+                currentMemberExpr != null, all);
+        } finally {
+            evaluator.restore(savepoint);
+        }
+    }
+
+    private static boolean isCrossJoin(ResolvedFunCall call) {
+        final String name =
+            call.getFunDef().getFunctionMetaData().operationAtom().name();
+        return "CrossJoin".equalsIgnoreCase(name) || "*".equals(name);
+    }
+
+    /**
+     * Returns whether an expression is "&lt;hierarchy&gt;.CurrentMember",
+     * optionally in braces.
+     */
+    private static boolean isCurrentMember(
+        Expression expr,
+        Hierarchy hierarchy)
+    {
+        if (expr instanceof ResolvedFunCall braces
+            && braces.getFunDef() instanceof SetFunDef
+            && braces.getArgCount() == 1)
+        {
+            expr = braces.getArg(0);
+        }
+        return expr instanceof ResolvedFunCall call
+            && call.getArgCount() == 1
+            && "CurrentMember".equalsIgnoreCase(
+                call.getFunDef().getFunctionMetaData().operationAtom().name())
+            && call.getType() instanceof MemberType memberType
+            && hierarchy.equals(memberType.getHierarchy());
+    }
+
     private void alertNonNativeTopCount(String msg, String alertNativeEvaluationUnsupported) {
         RolapUtil.alertNonNative("TopCount", msg, alertNativeEvaluationUnsupported);
     }
@@ -14,6 +14,7 @@ package mondrian.rolap;
 import java.io.PrintWriter;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,6 +25,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.eclipse.daanse.olap.api.Evaluator;
 import org.eclipse.daanse.olap.api.Execution;
@@ -38,6 +42,7 @@ import org.eclipse.daanse.olap.api.element.Member;
 import org.eclipse.daanse.olap.api.element.NamedSet;
 import org.eclipse.daanse.olap.api.query.component.DimensionExpression;
 import org.eclipse.daanse.olap.api.query.component.Expression;
+import org.eclipse.daanse.olap.api.query.component.Formula;
 import org.eclipse.daanse.olap.api.query.component.HierarchyExpression;
 import org.eclipse.daanse.olap.api.query.component.MemberExpression;
 import org.eclipse.daanse.olap.api.query.component.Query;
@@ -86,10 +91,12 @@ import mondrian.olap.type.SetType;
 import mondrian.olap.type.TypeWrapperExp;
 import mondrian.rolap.agg.AggregationManager;
 import mondrian.rolap.agg.CellRequestQuantumExceededException;
+import mondrian.rolap.agg.SegmentWithData;
 import mondrian.server.LocusImpl;
 import mondrian.spi.CellFormatter;
 import mondrian.util.CancellationChecker;
 import mondrian.util.Format;
+import mondrian.util.HyperLogLog;
 import mondrian.util.ObjectPool;
 
 /**
@@ -1079,11 +1086,16 @@ public Cell getCell( int[] pos ) {
     // Compute the cells several times. The first time, use a dummy
     // evaluator which collects requests.
     int count = 0;
+    final int taskCount = getStripeTaskCount( evaluator, query );
     final int savepoint = evaluator.savepoint();
     while ( true ) {
       evaluator.setCellReader( batchingReader );
       try {
-        executeStripe( query.getAxes().length - 1, evaluator, pos );
+        if ( taskCount > 1 ) {
+          executeStripeParallel( taskCount, evaluator, pos );
+        } else {
+          executeStripe( query.getAxes().length - 1, evaluator, pos, point, cellInfos, true );
+        }
       } catch ( CellRequestQuantumExceededException e ) {
         // Safe to ignore. Need to call 'phase' and loop again.
         // Decrement count because it wasn't a recursive formula that
@@ -1142,7 +1154,9 @@ public Cell getCell( int[] pos ) {
    *          Evaluation context (optional)
    * @return Result
    */
-  Object evaluateExp( Calc calc, RolapEvaluator slicerEvaluator, Evaluator contextEvaluator ) {
+  // Synchronized because named sets of the cube may be evaluated by the tasks
+  // of a parallel cell evaluation.
+  synchronized Object evaluateExp( Calc calc, RolapEvaluator slicerEvaluator, Evaluator contextEvaluator ) {
     int attempt = 0;
 
     RolapEvaluator evaluatorInner = slicerEvaluator.push();
@@ -1197,7 +1211,212 @@ public Cell getCell( int[] pos ) {
     }
   }
 
-  private void executeStripe( int axisOrdinal, RolapEvaluator revaluator, final int[] pos ) {
+  /**
+   * Returns the number of tasks that evaluate the cells of a query in parallel, or 1 if the cells must be evaluated
+   * sequentially.
+   *
+   * <p>
+   * Evaluators which are not plain {@link RolapEvaluator}s, query-level named sets, parameters and compound slicers keep
+   * state that is shared by the whole statement, so such queries are always evaluated sequentially.
+   */
+  private int getStripeTaskCount( RolapEvaluator evaluator, Query query ) {
+    final int taskCount = query.getConnection().getContext().getConfig().parallelCellEvaluationTasks();
+    if ( taskCount <= 1 || axes.length == 0 || evaluator.getClass() != RolapEvaluator.class
+        || query.getParameters().length > 0 || evaluator.getSlicerTuples() != null
+        || ( evaluator.getAggregationLists() != null && !evaluator.getAggregationLists().isEmpty() ) ) {
+      return 1;
+    }
+    for ( Formula formula : query.getFormulas() ) {
+      if ( !formula.isMember() ) {
+        return 1;
+      }
+    }
+    return Math.min( taskCount, ( (RolapAxis) axes[axes.length - 1] ).getTupleList().size() );
+  }
+
+  /**
+   * Evaluates the cells of the query using several tasks, each of which evaluates a contiguous chunk of the positions
+   * of the outermost axis.
+   *
+   * <p>
+   * Each task has its own evaluator and its own cell reader. When all tasks have finished, their cells and cell
+   * requests are merged into this result in the order of the positions, so that the next {@link #phase()} loads the
+   * same batches as a sequential evaluation would.
+   *
+   * @param taskCount
+   *          Number of tasks
+   * @param evaluator
+   *          Evaluator with the slicer context
+   * @param pos
+   *          Cell position
+   * @throws CellRequestQuantumExceededException
+   *           if any task recorded enough cell requests to fill a batch
+   */
+  private void executeStripeParallel( int taskCount, RolapEvaluator evaluator, final int[] pos ) {
+    final int axisOrdinal = axes.length - 1;
+    final TupleList tupleList = ( (RolapAxis) axes[axisOrdinal] ).getTupleList();
+
+    // Distinct-count measures modify the members of the axes, so prepare
+    // them before the tasks start.
+    for ( int i = axisOrdinal; i >= 0; i-- ) {
+      processDistinctMeasures( ( (RolapAxis) axes[i] ).getTupleList() );
+    }
+
+    // The tasks run on other threads, whose local caches do not have the
+    // segments that were loaded for this statement. Hand them over in one go
+    // rather than asking the cache manager for them cell by cell.
+    final Map<RolapStar, List<SegmentWithData>> segments = new HashMap<>();
+    for ( RolapStar star : getCube().getSchema().getStars() ) {
+      final List<SegmentWithData> starSegments = star.getLocalSegments();
+      if ( !starSegments.isEmpty() ) {
+        segments.put( star, starSegments );
+      }
+    }
+
+    final int size = tupleList.size();
+    final int chunkSize = ( size + taskCount - 1 ) / taskCount;
+    final List<StripeTask> tasks = new ArrayList<>( taskCount );
+    for ( int start = 0; start < size; start += chunkSize ) {
+      tasks.add( new StripeTask( evaluator, tupleList, start, Math.min( size, start + chunkSize ), pos, segments ) );
+    }
+
+    final AggregationManager aggMgr =
+        execution.getMondrianStatement().getMondrianConnection().getContext().getAggregationManager();
+    final List<Future<StripeTask>> futures;
+    try {
+      futures = aggMgr.getCellExecutor().invokeAll( tasks );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw Util.newError( e, "Interrupted while evaluating cells" );
+    }
+
+    boolean quantumExceeded = false;
+    for ( Future<StripeTask> future : futures ) {
+      final StripeTask task;
+      try {
+        task = future.get();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw Util.newError( e, "Interrupted while evaluating cells" );
+      } catch ( ExecutionException e ) {
+        if ( e.getCause() instanceof RuntimeException runtimeException ) {
+          throw runtimeException;
+        }
+        if ( e.getCause() instanceof Error error ) {
+          throw error;
+        }
+        throw Util.newError( e.getCause(), "Error while evaluating cells" );
+      }
+      for ( int i = 0; i < task.cells.positions.size(); i++ ) {
+        point.setOrdinals( task.cells.positions.get( i ) );
+        final CellInfo taskCellInfo = task.cells.cellInfos.get( i );
+        final CellInfo ci = cellInfos.create( point.getOrdinals() );
+        ci.value = taskCellInfo.value;
+        ci.formatString = taskCellInfo.formatString;
+        ci.valueFormatter = taskCellInfo.valueFormatter;
+      }
+      batchingReader.merge( task.reader );
+      quantumExceeded |= task.quantumExceeded;
+    }
+    if ( quantumExceeded ) {
+      throw CellRequestQuantumExceededException.INSTANCE;
+    }
+  }
+
+  /**
+   * Task that evaluates the cells of a chunk of positions of the outermost axis.
+   */
+  private class StripeTask implements Callable<StripeTask> {
+    private final RolapEvaluator evaluator;
+    private final TupleList tupleList;
+    private final int start;
+    private final int end;
+    private final int[] pos;
+    private final Map<RolapStar, List<SegmentWithData>> segments;
+    private final Locus locus = LocusImpl.peek();
+    private final Thread callerThread = Thread.currentThread();
+    private final CellKey taskPoint = CellKey.Generator.newCellKey( axes.length );
+    private final CellInfoList cells = new CellInfoList();
+    private final FastBatchingCellReader reader;
+    private boolean quantumExceeded;
+
+    StripeTask(
+        RolapEvaluator evaluator, TupleList tupleList, int start, int end, int[] pos,
+        Map<RolapStar, List<SegmentWithData>> segments ) {
+      this.evaluator = evaluator;
+      this.tupleList = tupleList;
+      this.start = start;
+      this.end = end;
+      this.pos = pos;
+      this.segments = segments;
+      this.reader = new FastBatchingCellReader(
+          execution, getCube(), execution.getMondrianStatement().getMondrianConnection().getContext()
+              .getAggregationManager() );
+    }
+
+    @Override
+    public StripeTask call() {
+      LocusImpl.push( locus );
+      try {
+        if ( Thread.currentThread() != callerThread ) {
+          for ( Map.Entry<RolapStar, List<SegmentWithData>> entry : segments.entrySet() ) {
+            for ( SegmentWithData segment : entry.getValue() ) {
+              entry.getKey().register( segment );
+            }
+          }
+        }
+        // The task gets its own root, because the expression caches of a
+        // root are not thread-safe.
+        final RolapEvaluator taskEvaluator =
+            new RolapEvaluator( new RolapResultEvaluatorRoot( RolapResult.this ), evaluator, null );
+        taskEvaluator.setCellReader( reader );
+        final int axisOrdinal = axes.length - 1;
+        try {
+          for ( int i = start; i < end; i++ ) {
+            taskPoint.setAxis( axisOrdinal, i );
+            final int savepoint = taskEvaluator.savepoint();
+            try {
+              taskEvaluator.setEvalAxes( true );
+              taskEvaluator.setContext( tupleList.get( i ) );
+              execution.checkCancelOrTimeout();
+              executeStripe( axisOrdinal - 1, taskEvaluator, pos, taskPoint, cells, false );
+            } finally {
+              taskEvaluator.restore( savepoint );
+            }
+          }
+        } catch ( CellRequestQuantumExceededException e ) {
+          quantumExceeded = true;
+        }
+        return this;
+      } finally {
+        if ( Thread.currentThread() != callerThread ) {
+          // Segments handed to or found by the task were registered in the
+          // local cache of this worker thread; do not let them outlive the
+          // task.
+          for ( RolapStar star : getCube().getSchema().getStars() ) {
+            star.remove();
+          }
+        }
+        LocusImpl.pop( locus );
+      }
+    }
+  }
+
+  private void processDistinctMeasures( TupleList tupleList ) {
+    for ( List<Member> tuple : tupleList ) {
+      List<Member> measures = new ArrayList<>( statement.getQuery().getMeasuresMembers() );
+      for ( Member measure : measures ) {
+        if ( measure instanceof RolapBaseCubeMeasure baseCubeMeasure
+            && baseCubeMeasure.getAggregator() == RolapAggregator.DistinctCount) {
+            processDistinctMeasureExpr( tuple, baseCubeMeasure );
+        }
+      }
+    }
+  }
+
+  private void executeStripe(
+      int axisOrdinal, RolapEvaluator revaluator, final int[] pos, CellKey point, CellInfoContainer cellInfos,
+      boolean processDistinctMeasures ) {
     if ( axisOrdinal < 0 ) {
       RolapAxis axis = (RolapAxis) slicerAxis;
       TupleList tupleList = axis.getTupleList();
@@ -1268,7 +1487,8 @@ public Cell getCell( int[] pos ) {
         }
 
         if (ci != null && o != RolapUtil.valueNotReadyException ) {
-          ci.value = o;
+          // A cell shows the estimate of a sketch, not the sketch.
+          ci.value = o instanceof HyperLogLog sketch ? sketch.estimate() : o;
         }
       }
     } else {
@@ -1276,14 +1496,8 @@ public Cell getCell( int[] pos ) {
       TupleList tupleList = axis.getTupleList();
      tupleList.size();  // force materialize
 
-        for ( List<Member> tuple : tupleList ) {
-          List<Member> measures = new ArrayList<>( statement.getQuery().getMeasuresMembers() );
-          for ( Member measure : measures ) {
-            if ( measure instanceof RolapBaseCubeMeasure baseCubeMeasure
-                && baseCubeMeasure.getAggregator() == RolapAggregator.DistinctCount) {
-                processDistinctMeasureExpr( tuple, baseCubeMeasure );
-            }
-          }
+        if ( processDistinctMeasures ) {
+          processDistinctMeasures( tupleList );
         }
 
         int tupleIndex = 0;
@@ -1294,7 +1508,7 @@ public Cell getCell( int[] pos ) {
             revaluator.setEvalAxes( true );
             revaluator.setContext( tuple );
             execution.checkCancelOrTimeout();
-            executeStripe( axisOrdinal - 1, revaluator, pos );
+            executeStripe( axisOrdinal - 1, revaluator, pos, point, cellInfos, processDistinctMeasures );
           } finally {
             revaluator.restore( savepoint );
           }
@@ -1455,6 +1669,15 @@ public Cell getCell( int[] pos ) {
     return evaluator;
   }
 
+  /**
+   * Returns the stars whose cells this result has read, including the stars of the constituent cubes of a virtual cube.
+   *
+   * @return Stars read, or an empty set if the evaluation did not complete
+   */
+  Set<RolapStar> getStars() {
+    return batchingReader == null ? Set.of() : batchingReader.getStars();
+  }
+
   Evaluator getEvaluator( int[] pos ) {
     // Set up evaluator's context, so that context-dependent format
     // strings work properly.
@@ -2021,6 +2244,50 @@ public Cell getCell( int[] pos ) {
     }
   }
 
+  /**
+   * Implementation of {@link CellInfoContainer} which records CellInfo objects and their positions in the order they
+   * were created. Used by the tasks which evaluate cells in parallel; their cells are later copied into the container
+   * of the result.
+   */
+  static class CellInfoList implements CellInfoContainer {
+    private final List<int[]> positions = new ArrayList<>();
+    private final List<CellInfo> cellInfos = new ArrayList<>();
+
+    @Override
+	public int size() {
+      return this.cellInfos.size();
+    }
+
+    @Override
+	public void trimToSize() {
+      // empty
+    }
+
+    @Override
+	public void clear() {
+      this.positions.clear();
+      this.cellInfos.clear();
+    }
+
+    @Override
+	public CellInfo create( int[] pos ) {
+      CellInfo ci = new CellInfo( 0 );
+      this.positions.add( pos.clone() );
+      this.cellInfos.add( ci );
+      return ci;
+    }
+
+    @Override
+	public CellInfo lookup( int[] pos ) {
+      for ( int i = 0; i < this.positions.size(); i++ ) {
+        if ( Arrays.equals( this.positions.get( i ), pos ) ) {
+          return this.cellInfos.get( i );
+        }
+      }
+      return null;
+    }
+  }
+
   /**
    * Implementation of {@link CellInfoContainer} which uses an {@link ObjectPool} to store {@link CellInfo} Objects.
    *
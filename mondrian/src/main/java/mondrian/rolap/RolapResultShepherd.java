@@ -10,17 +10,14 @@
 package mondrian.rolap;
 
 import java.text.MessageFormat;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.daanse.olap.api.Execution;
 import org.eclipse.daanse.olap.api.ResultShepherd;
@@ -31,7 +28,7 @@ import mondrian.olap.QueryCanceledException;
 import mondrian.olap.QueryTimeoutException;
 import mondrian.olap.ResourceLimitExceededException;
 import mondrian.olap.Util;
-import mondrian.util.Pair;
+import mondrian.util.VirtualThreadExecutor;
 
 /**
  * A utility class for {@link RolapConnection}. It specializes in
@@ -44,29 +41,49 @@ import mondrian.util.Pair;
  * <li>Gracefully cancel all SQL statements and cleanup in the background.</li>
  * </ul>
  *
+ * <p>The user thread waits for the result in slices of the polling
+ * interval, and checks between slices whether the execution has been
+ * canceled or has timed out. There is no shared list of running tasks and
+ * no timer thread.</p>
+ *
+ * <p>Executions run either on a fixed-size pool of platform threads, or,
+ * in virtual thread mode, each on its own virtual thread. In that mode the
+ * number of threads does not limit the number of concurrent executions; a
+ * semaphore does.</p>
+ *
  * @author LBoudreau
  */
 public class RolapResultShepherd implements ResultShepherd {
 
+    private static final String NAME =
+        "mondrian.rolap.RolapResultShepherd$executor";
+
     /**
-     * An executor service used for both the shepherd thread and the
-     * Execution objects.
+     * An executor service used for the Execution objects.
      */
     private final ExecutorService executor;
 
     /**
-     * List of tasks that should be monitored by the shepherd thread.
+     * Interval, in milliseconds, at which a waiting user thread checks
+     * whether its execution has been canceled or has timed out.
      */
-    private final List<Pair<FutureTask<Result>, Execution>> tasks =
-        new CopyOnWriteArrayList<>();
-
-    private final Timer timer =
-    		new Timer("mondrian.rolap.RolapResultShepherd#timer", true);
+    private final long pollingIntervalMillis;
 
     public RolapResultShepherd(final long rolapConnectionShepherdThreadPollingInterval, TimeUnit rolapConnectionShepherdThreadPollingIntervalUnit, final int rolapConnectionShepherdNbThreads) {
+        this(rolapConnectionShepherdThreadPollingInterval, rolapConnectionShepherdThreadPollingIntervalUnit, rolapConnectionShepherdNbThreads, false);
+    }
+
+    public RolapResultShepherd(final long rolapConnectionShepherdThreadPollingInterval, TimeUnit rolapConnectionShepherdThreadPollingIntervalUnit, final int rolapConnectionShepherdNbThreads, boolean virtualThreads) {
+        this.pollingIntervalMillis = Math.max(1,
+            rolapConnectionShepherdThreadPollingIntervalUnit.toMillis(rolapConnectionShepherdThreadPollingInterval));
 
-        final int maximumPoolSize = rolapConnectionShepherdNbThreads;
-        executor =
+        this.executor = virtualThreads
+            ? new VirtualThreadExecutor(NAME, rolapConnectionShepherdNbThreads)
+            : createThreadPool(rolapConnectionShepherdNbThreads);
+    }
+
+    private static ExecutorService createThreadPool(final int maximumPoolSize) {
+        return
             Util.getExecutorService(
                  // We use the same value for coreSize and maxSize
                 // because that's the behavior we want. All extra
@@ -74,7 +91,7 @@ public class RolapResultShepherd implements ResultShepherd {
                 maximumPoolSize,
                 maximumPoolSize,
                 1000000,
-                "mondrian.rolap.RolapResultShepherd$executor",
+                NAME,
                 new RejectedExecutionHandler() {
                     private final static String queryLimitReached = """
                     The number of concurrent MDX statements that can be processed simultaneously by this Mondrian server instance ({0,number}) has been reached. To change the limit, set the ''{1}'' property.
@@ -90,37 +107,6 @@ public class RolapResultShepherd implements ResultShepherd {
                             "rolapConnectionShepherdNbThreads"));
                     }
                 });
-
-        long period = rolapConnectionShepherdThreadPollingIntervalUnit.toMillis(rolapConnectionShepherdThreadPollingInterval);
-        timer.schedule(
-            new TimerTask() {
-                @Override
-				public void run() {
-                    for (final Pair<FutureTask<Result>, Execution> task
-                        : tasks)
-                    {
-                        if (task.left.isDone()) {
-                            tasks.remove(task);
-                            continue;
-                        }
-                        if (task.right.isCancelOrTimeout()) {
-                            // Remove it from the list so that we know
-                            // it was cleaned once.
-                            tasks.remove(task);
-
-                            // Cancel the FutureTask for which
-                            // the user thread awaits. The user
-                            // thread will call
-                            // Execution.checkCancelOrTimeout
-                            // later and take care of sending
-                            // an exception on the user thread.
-                            task.left.cancel(false);
-                        }
-                    }
-                }
-            },
-            period,
-            period);
     }
 
     /**
@@ -150,17 +136,10 @@ public class RolapResultShepherd implements ResultShepherd {
         // to monitor, cancel and detach from it.
         FutureTask<Result> task = new FutureTask<>(callable);
 
-        // Register this task with the shepherd thread
-        final Pair<FutureTask<Result>, Execution> pair =
-            new Pair<>(
-                task,
-                execution);
-        tasks.add(pair);
-
         try {
             // Now run it.
             executor.execute(task);
-            return task.get();
+            return await(task, execution);
         } catch (Throwable e) {
             // Make sure to clean up pending SQL queries.
             execution.cancelSqlStatements();
@@ -215,11 +194,31 @@ public class RolapResultShepherd implements ResultShepherd {
         }
     }
 
+    /**
+     * Waits for a task to complete. If its execution is canceled or times
+     * out first, cancels the task, so that the user thread returns at once;
+     * the execution thread will notice the state of the execution at its
+     * next check and stop.
+     */
+    private Result await(FutureTask<Result> task, Execution execution)
+        throws InterruptedException, ExecutionException
+    {
+        while (true) {
+            try {
+                return task.get(pollingIntervalMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (execution.isCancelOrTimeout()) {
+                    task.cancel(false);
+                    // Throws CancellationException.
+                    return task.get();
+                }
+            }
+        }
+    }
+
     @Override
 	public void shutdown() {
-        this.timer.cancel();
         this.executor.shutdown();
-        this.tasks.clear();
     }
 }
 
@@ -601,6 +601,47 @@ public class RolapSchemaReader
         return childMembers;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Reads the children of all parents with one SQL statement, which
+     * restricts both the parents and the child names. Lists longer than
+     * the {@code maxConstraints} property are split, so a very large lookup
+     * may issue several statements.</p>
+     */
+    @Override
+	public List<Member> lookupMembersChildrenByNames(
+        List<Member> parents, List<NameSegment> childNames, MatchType matchType)
+    {
+        if (parents.isEmpty() || childNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<RolapMember> rolapParents = Util.cast(parents);
+        final MemberReader memberReader =
+            getMemberReader(parents.get(0).getHierarchy());
+        final int maxConstraints =
+            Math.max(1, context.getConfig().maxConstraints());
+        final List<Member> childMembers = new ArrayList<>();
+        for (int i = 0; i < childNames.size(); i += maxConstraints) {
+            final MemberChildrenConstraint constraint = sqlConstraintFactory
+                .getChildrenByNamesConstraint(
+                    rolapParents.get(0),
+                    childNames.subList(
+                        i, Math.min(childNames.size(), i + maxConstraints)),
+                    context.getConfig().levelPreCacheThreshold());
+            for (int j = 0; j < rolapParents.size(); j += maxConstraints) {
+                final List<RolapMember> children = new ArrayList<>();
+                memberReader.getMemberChildren(
+                    rolapParents.subList(
+                        j, Math.min(rolapParents.size(), j + maxConstraints)),
+                    children,
+                    constraint);
+                childMembers.addAll(children);
+            }
+        }
+        return childMembers;
+    }
+
     @Override
 	public Member getCalculatedMember(List<Segment> nameParts) {
         // There are no calculated members defined against a schema.
@@ -74,6 +74,7 @@ import mondrian.rolap.agg.Aggregation;
 import mondrian.rolap.agg.AggregationKey;
 import mondrian.rolap.agg.AggregationManager;
 import mondrian.rolap.agg.CellRequest;
+import mondrian.rolap.agg.ColumnValueDictionary;
 import mondrian.rolap.agg.SegmentWithData;
 import mondrian.rolap.aggmatcher.AggStar;
 import mondrian.rolap.sql.SqlQuery;
@@ -124,6 +125,12 @@ public class RolapStar {
      */
     private final List<AggStar> aggStars = new LinkedList<>();
 
+    /**
+     * Total size of the columns of the fact table, read with the aggregate
+     * tables; 0 if not known.
+     */
+    private int factTableColumnSize;
+
 
     // temporary model, should eventually use RolapStar.Table and
     // RolapStar.Column
@@ -188,6 +195,8 @@ public class RolapStar {
         AggregationKey aggregationKey = new AggregationKey(request);
 
         final Bar bar = localBars.get();
+        ColumnValueDictionary[] dictionaries = null;
+        int[] codes = null;
         for (SegmentWithData segment : Util.GcIterator.over(bar.segmentRefs)) {
             if (!segment.getConstrainedColumnsBitKey().equals(
                     request.getConstrainedColumnsBitKey()))
@@ -199,7 +208,22 @@ public class RolapStar {
                 continue;
             }
 
-            Object o = segment.getCellValue(request.getSingleValues());
+            if (codes == null) {
+                // Encode the values once; each segment then looks the cell
+                // up by code.
+                final RolapStar.Column[] columns =
+                    request.getConstrainedColumns();
+                final Object[] values = request.getSingleValues();
+                dictionaries = new ColumnValueDictionary[columns.length];
+                codes = new int[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    dictionaries[i] = columns[i].getValueDictionary();
+                    codes[i] = dictionaries[i].lookup(values[i]);
+                }
+            }
+            Object o =
+                segment.getCellValue(
+                    request.getSingleValues(), dictionaries, codes);
             if (o != null) {
                 if (pinSet != null) {
                     ((AggregationManager.PinSetImpl) pinSet).add(segment);
@@ -236,6 +260,23 @@ public class RolapStar {
             new SoftReference<>(segment));
     }
 
+    /**
+     * Returns the segments that are registered in the local cache of the
+     * current thread, so that they can be registered in the local cache of
+     * another thread that works on behalf of the same statement.
+     *
+     * @return Segments in the local cache of the current thread
+     */
+    public List<SegmentWithData> getLocalSegments() {
+        final List<SegmentWithData> segments = new ArrayList<>();
+        for (SegmentWithData segment
+            : Util.GcIterator.over(localBars.get().segmentRefs))
+        {
+            segments.add(segment);
+        }
+        return segments;
+    }
+
     public RolapStatisticsCache getStatisticsCache() {
         return statisticsCache;
     }
@@ -501,6 +542,21 @@ public class RolapStar {
         }
     }
 
+    /**
+     * Returns the total size of the columns of the fact table, or 0 if it is
+     * not known.
+     */
+    public int getFactTableColumnSize() {
+        return factTableColumnSize;
+    }
+
+    /**
+     * Sets the total size of the columns of the fact table.
+     */
+    public void setFactTableColumnSize(int factTableColumnSize) {
+        this.factTableColumnSize = factTableColumnSize;
+    }
+
     /**
      * Returns this RolapStar's aggregate table AggStars, ordered in ascending
      * order of size.
@@ -743,6 +799,17 @@ public class RolapStar {
         return columnList.get(bitPos);
     }
 
+    /**
+     * Replaces the value dictionaries of all columns of this star by empty
+     * ones. Called when the star is flushed, so that the dictionaries do not
+     * keep the values of segments which are no longer cached.
+     */
+    public void clearValueDictionaries() {
+        for (Column column : columnList) {
+            column.clearValueDictionary();
+        }
+    }
+
     public RolapSchema getSchema() {
         return schema;
     }
@@ -871,6 +938,13 @@ public class RolapStar {
         private AtomicLong approxCardinality = new AtomicLong(
             Long.MIN_VALUE);
 
+        /**
+         * Codes of the values of this column in the segments of the star
+         * which have been created since the star was last flushed.
+         */
+        private volatile ColumnValueDictionary valueDictionary =
+            new ColumnValueDictionary();
+
         private Column(
             String name,
             Table table,
@@ -1002,6 +1076,39 @@ public class RolapStar {
             return RolapStar.generateExprString(getExpression(), query);
         }
 
+        /**
+         * Returns the dictionary which encodes the values of this column in
+         * the segments of the star.
+         *
+         * @return Value dictionary
+         */
+        public ColumnValueDictionary getValueDictionary() {
+            ColumnValueDictionary dictionary = valueDictionary;
+            if (dictionary.size() >= ColumnValueDictionary.MAX_SIZE) {
+                synchronized (this) {
+                    dictionary = valueDictionary;
+                    if (dictionary.size() >= ColumnValueDictionary.MAX_SIZE) {
+                        // Segments which were encoded with the full
+                        // dictionary keep it; new segments start afresh.
+                        dictionary = new ColumnValueDictionary();
+                        valueDictionary = dictionary;
+                    }
+                }
+            }
+            return dictionary;
+        }
+
+        /**
+         * Replaces the value dictionary of this column by an empty one.
+         *
+         * <p>Existing segments keep the dictionary their keys were encoded
+         * with, so the old dictionary is garbage collected once they are
+         * gone.</p>
+         */
+        public void clearValueDictionary() {
+            valueDictionary = new ColumnValueDictionary();
+        }
+
         /**
          * Get column cardinality from the schema cache if possible;
          * otherwise issue a select count(distinct) query to retrieve
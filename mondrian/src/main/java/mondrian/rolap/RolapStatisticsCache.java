@@ -15,10 +15,14 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 
 import javax.sql.DataSource;
 
 import org.eclipse.daanse.db.dialect.api.Dialect;
+import org.eclipse.daanse.db.statistics.api.StatisticsProvider;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.MappingColumn;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.MappingExpression;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.MappingRelationQuery;
@@ -31,14 +35,22 @@ import mondrian.spi.impl.SqlStatisticsProviderNew;
 /**
  * Provides and caches statistics.
  *
- * <p>Wrapper around a chain of {@link mondrian.spi.StatisticsProvider}s,
- * followed by a cache to store the results.</p>
+ * <p>Wrapper around a chain of statistics providers, followed by a cache to
+ * store the results. The statistics provider of the context, for instance
+ * one that reads JDBC metadata, is asked first; if it has no estimate, the
+ * estimate is computed by SQL queries.</p>
+ *
+ * <p>If the {@code statisticsCacheFile} property is set, estimates are also
+ * kept in a {@link PersistentStatisticsStore}, and are not computed again
+ * after a restart. If the {@code statisticsCacheTimeToLive} property is set,
+ * estimates older than it are obtained again, so that the statistics follow
+ * the growth of the tables.</p>
  */
 public class RolapStatisticsCache {
     private final RolapStar star;
-    private final Map<List, Long> columnMap = new HashMap<>();
-    private final Map<List, Long> tableMap = new HashMap<>();
-    private final Map<String, Long> queryMap =
+    private final Map<List, Estimate> columnMap = new HashMap<>();
+    private final Map<List, Estimate> tableMap = new HashMap<>();
+    private final Map<String, Estimate> queryMap =
         new HashMap<>();
 
     public RolapStatisticsCache(RolapStar star) {
@@ -69,65 +81,33 @@ public class RolapStatisticsCache {
         String schema,
         String table)
     {
-        final List<String> key = Arrays.asList(catalog, schema, table);
-        long rowCount = -1;
-        if (tableMap.containsKey(key)) {
-            rowCount = tableMap.get(key);
-        } else {
-            final Dialect dialect = star.getSqlQueryDialect();
-            //final List<StatisticsProvider> statisticsProviders =
-            //    dialect.getStatisticsProviders();
-            final List<SqlStatisticsProviderNew> statisticsProviders = List.of(new SqlStatisticsProviderNew());
-            final ExecutionImpl execution =
-                new ExecutionImpl(
-                    star.getSchema().getInternalConnection()
-                        .getInternalStatement(),
-                    star.getSchema().getInternalConnection().getContext().getConfig().executeDurationValue());
-            for (SqlStatisticsProviderNew statisticsProvider : statisticsProviders) {
-                rowCount = statisticsProvider.getTableCardinality(
-                    star.getContext(),
-                    catalog,
-                    schema,
-                    table,
-                    execution);
-                if (rowCount >= 0) {
-                    break;
-                }
-            }
-
-            // Note: If all providers fail, we put -1 into the cache, to ensure
-            // that we won't try again.
-            tableMap.put(key, rowCount);
-        }
-        return rowCount;
+        return getCardinality(
+            tableMap,
+            Arrays.asList(catalog, schema, table),
+            PersistentStatisticsStore.key(
+                star.getContext().getName(), "table", catalog, schema, table),
+            statisticsProvider ->
+                statisticsProvider.getTableCardinality(catalog, schema, table),
+            () -> new SqlStatisticsProviderNew().getTableCardinality(
+                star.getContext(),
+                catalog,
+                schema,
+                table,
+                createExecution()));
     }
 
     private long getQueryCardinality(String sql) {
-        long rowCount = -1;
-        if (queryMap.containsKey(sql)) {
-            rowCount = queryMap.get(sql);
-        } else {
-            final Dialect dialect = star.getSqlQueryDialect();
-            //final List<StatisticsProvider> statisticsProviders =
-            //    dialect.getStatisticsProviders();
-            final List<SqlStatisticsProviderNew> statisticsProviders = List.of(new SqlStatisticsProviderNew());
-            final ExecutionImpl execution =
-                new ExecutionImpl(
-                    star.getSchema().getInternalConnection()
-                        .getInternalStatement(),
-                    star.getSchema().getInternalConnection().getContext().getConfig().executeDurationValue());
-            for (SqlStatisticsProviderNew statisticsProvider : statisticsProviders) {
-                rowCount = statisticsProvider.getQueryCardinality( star.getContext(), sql, execution);
-                if (rowCount >= 0) {
-                    break;
-                }
-            }
-
-            // Note: If all providers fail, we put -1 into the cache, to ensure
-            // that we won't try again.
-            queryMap.put(sql, rowCount);
-        }
-        return rowCount;
+        // Queries are cached by the hash of their text, not by the text.
+        final String key =
+            PersistentStatisticsStore.key(
+                star.getContext().getName(), "query", sql);
+        return getCardinality(
+            queryMap,
+            key,
+            key,
+            statisticsProvider -> statisticsProvider.getQueryCardinality(sql),
+            () -> new SqlStatisticsProviderNew().getQueryCardinality(
+                star.getContext(), sql, createExecution()));
     }
 
     public long getColumnCardinality(
@@ -161,40 +141,93 @@ public class RolapStatisticsCache {
         String table,
         String column)
     {
-        final List<String> key = Arrays.asList(catalog, schema, table, column);
-        long rowCount = -1;
-        if (columnMap.containsKey(key)) {
-            rowCount = columnMap.get(key);
-        } else {
-            final Dialect dialect = star.getSqlQueryDialect();
-            final List<SqlStatisticsProviderNew> statisticsProviders = List.of(new SqlStatisticsProviderNew());
-            //final List<StatisticsProvider> statisticsProviders =
-            //    dialect.getStatisticsProviders();
-            final ExecutionImpl execution =
-                new ExecutionImpl(
-                    star.getSchema().getInternalConnection()
-                        .getInternalStatement(),
-                    star.getSchema().getInternalConnection().getContext().getConfig().executeDurationValue());
-            for (SqlStatisticsProviderNew statisticsProvider : statisticsProviders) {
-                rowCount = statisticsProvider.getColumnCardinality(
-                    star.getContext(),
-                    catalog,
-                    schema,
-                    table,
-                    column,
-                    execution);
-                if (rowCount >= 0) {
-                    break;
-                }
-            }
-
-            // Note: If all providers fail, we put -1 into the cache, to ensure
-            // that we won't try again.
-            columnMap.put(key, rowCount);
+        return getCardinality(
+            columnMap,
+            Arrays.asList(catalog, schema, table, column),
+            PersistentStatisticsStore.key(
+                star.getContext().getName(), "column", catalog, schema,
+                table, column),
+            statisticsProvider -> statisticsProvider.getColumnCardinality(
+                catalog, schema, table, column),
+            () -> new SqlStatisticsProviderNew().getColumnCardinality(
+                star.getContext(),
+                catalog,
+                schema,
+                table,
+                column,
+                createExecution()));
+    }
+
+    /**
+     * Returns an estimate from the memory cache, the persistent store, the
+     * statistics provider of the context or SQL queries, whichever has it
+     * first. Estimates older than the {@code statisticsCacheTimeToLive} of
+     * the context are obtained again.
+     */
+    private <K> long getCardinality(
+        Map<K, Estimate> map,
+        K key,
+        String storeKey,
+        ToLongFunction<StatisticsProvider> providerEstimate,
+        LongSupplier sqlEstimate)
+    {
+        final long timeToLiveMillis = getTimeToLiveMillis();
+        final long now = System.currentTimeMillis();
+        final Estimate estimate = map.get(key);
+        if (estimate != null
+            && (timeToLiveMillis <= 0
+                || now - estimate.timeMillis() <= timeToLiveMillis))
+        {
+            return estimate.count();
+        }
+        long rowCount = getStoredCardinality(storeKey, timeToLiveMillis);
+        final StatisticsProvider statisticsProvider =
+            star.getContext().getStatisticsProvider();
+        if (rowCount < 0 && statisticsProvider != null) {
+            rowCount = providerEstimate.applyAsLong(statisticsProvider);
         }
+        if (rowCount < 0) {
+            rowCount = sqlEstimate.getAsLong();
+        }
+        storeCardinality(storeKey, rowCount);
+
+        // Note: If all providers fail, we put -1 into the cache, to ensure
+        // that we won't try again until the estimate expires.
+        map.put(key, new Estimate(rowCount, now));
         return rowCount;
     }
 
+    private long getTimeToLiveMillis() {
+        return TimeUnit.SECONDS.toMillis(
+            star.getContext().getConfig().statisticsCacheTimeToLive());
+    }
+
+    private ExecutionImpl createExecution() {
+        return new ExecutionImpl(
+            star.getSchema().getInternalConnection().getInternalStatement(),
+            star.getSchema().getInternalConnection().getContext().getConfig()
+                .executeDurationValue());
+    }
+
+    private long getStoredCardinality(String storeKey, long maxAgeMillis) {
+        final PersistentStatisticsStore store =
+            PersistentStatisticsStore.forFile(
+                star.getContext().getConfig().statisticsCacheFile());
+        return store == null ? -1 : store.get(storeKey, maxAgeMillis);
+    }
+
+    private void storeCardinality(String storeKey, long cardinality) {
+        final PersistentStatisticsStore store =
+            PersistentStatisticsStore.forFile(
+                star.getContext().getConfig().statisticsCacheFile());
+        if (store != null) {
+            store.put(storeKey, cardinality);
+        }
+    }
+
+    private record Estimate(long count, long timeMillis) {
+    }
+
     public int getColumnCardinality2(
         DataSource dataSource,
         Dialect dialect,
@@ -37,6 +37,7 @@ import org.eclipse.daanse.olap.api.monitor.event.SqlStatementEvent.Purpose;
 import org.eclipse.daanse.olap.api.monitor.event.SqlStatementEventCommon;
 import org.eclipse.daanse.olap.api.monitor.event.SqlStatementExecuteEvent;
 import org.eclipse.daanse.olap.api.monitor.event.SqlStatementStartEvent;
+import org.eclipse.daanse.olap.core.BasicContextConfig;
 
 import mondrian.olap.Util;
 import mondrian.server.LocusImpl;
@@ -87,6 +88,7 @@ public class SqlStatement {
   private final int resultSetType;
   private final int resultSetConcurrency;
   private boolean haveSemaphore;
+  private boolean autoCommitChanged;
   public int rowCount;
   private Instant startTime=null;
   private final List<Accessor> accessors = new ArrayList<>();
@@ -187,6 +189,7 @@ public class SqlStatement {
       if ( maxRows > 0 ) {
         statement.setMaxRows( maxRows );
       }
+      applyFetchSize( statement );
 
       // First make sure to register with the execution instance.
       if ( getPurpose() != Purpose.CELL_SEGMENT ) {
@@ -200,7 +203,7 @@ public class SqlStatement {
 		long mdxStatementId = SqlStatementEventCommon.mdxStatementIdOf(locus);
 		SqlStatementStartEvent event = new SqlStatementStartEvent(//
 				new SqlStatementEventCommon(new EventCommon(startTime), id, mdxStatementId, sql, getPurpose()),
-				getCellRequestCount());
+				getCellRequestCount(), getBatchPlan());
 		locus.getContext().getMonitor().accept(event);
 
 //        new SqlStatementStartEvent(
@@ -284,6 +287,42 @@ public class SqlStatement {
     }
   }
 
+  /**
+   * Sets the fetch size of a statement, and enables streaming of its rows
+   * if the dialect supports it.
+   *
+   * <p>The fetch size is {@link BasicContextConfig#sqlFetchSize()}, or the
+   * dialect's default if that is negative. Rows are only streamed from
+   * forward-only, read-only result sets; some drivers, such as
+   * PostgreSQL's, only stream with auto-commit off, which is restored by
+   * {@link #close()}.
+   */
+  private void applyFetchSize( Statement statement ) throws SQLException {
+    final Dialect dialect = context.getDialect();
+    int fetchSize = context.getConfig().sqlFetchSize();
+    if ( fetchSize < 0 ) {
+      fetchSize = dialect.getDefaultFetchSize();
+    }
+    final boolean streaming =
+      context.getConfig().sqlStreamingResultSets()
+        && ( resultSetType < 0
+          || resultSetType == ResultSet.TYPE_FORWARD_ONLY )
+        && ( resultSetConcurrency < 0
+          || resultSetConcurrency == ResultSet.CONCUR_READ_ONLY );
+    if ( streaming ) {
+      if ( dialect.requiresAutoCommitOffForStreaming()
+        && jdbcConnection.getAutoCommit() )
+      {
+        jdbcConnection.setAutoCommit( false );
+        autoCommitChanged = true;
+      }
+      fetchSize = dialect.getStreamingFetchSize( fetchSize );
+    }
+    if ( fetchSize != 0 ) {
+      statement.setFetchSize( fetchSize );
+    }
+  }
+
   /**
    * Closes all resources (statement, result set) held by this SqlStatement.
    *
@@ -308,7 +347,21 @@ public class SqlStatement {
     // its result sets, and closing a connection automatically closes its
     // statements. But let's be conservative and close everything
     // explicitly.
-    SQLException ex = Util.close( resultSet, null, jdbcConnection );
+    SQLException ex = Util.close( resultSet, null, null );
+    if ( autoCommitChanged ) {
+      autoCommitChanged = false;
+      try {
+        jdbcConnection.setAutoCommit( true );
+      } catch ( SQLException e ) {
+        if ( ex == null ) {
+          ex = e;
+        }
+      }
+    }
+    SQLException connectionEx = Util.close( null, null, jdbcConnection );
+    if ( ex == null ) {
+      ex = connectionEx;
+    }
     resultSet = null;
     jdbcConnection = null;
 
@@ -531,6 +584,14 @@ public class SqlStatement {
     }
   }
 
+  private String getBatchPlan() {
+    if ( locus instanceof StatementLocus statementLocus) {
+      return statementLocus.batchPlan;
+    } else {
+      return null;
+    }
+  }
+
   /**
    * The approximate JDBC type of a column.
    *
@@ -625,6 +686,7 @@ public class SqlStatement {
   public static class StatementLocus extends LocusImpl {
     private final SqlStatementEvent.Purpose purpose;
     private final int cellRequestCount;
+    private final String batchPlan;
 
     public StatementLocus(
       Execution execution,
@@ -632,12 +694,29 @@ public class SqlStatement {
       String message,
       SqlStatementEvent.Purpose purpose,
       int cellRequestCount ) {
+      this( execution, component, message, purpose, cellRequestCount, null );
+    }
+
+    /**
+     * Creates a StatementLocus.
+     *
+     * @param batchPlan Description of how the cell requests were batched
+     *                  into the statement, or null
+     */
+    public StatementLocus(
+      Execution execution,
+      String component,
+      String message,
+      SqlStatementEvent.Purpose purpose,
+      int cellRequestCount,
+      String batchPlan ) {
       super(
         execution,
         component,
         message );
       this.purpose = purpose;
       this.cellRequestCount = cellRequestCount;
+      this.batchPlan = batchPlan;
     }
   }
 
@@ -83,6 +83,17 @@ public abstract class AbstractQuerySpec implements QuerySpec {
                 ? "*"
                 : measure.generateExprString(sqlQuery);
         StringBuilder exprOuter = measure.getAggregator().getExpression(exprInner);
+        if (measure.getAggregator().isSketch()) {
+            // The segment loader adds each distinct value of the operand to
+            // the sketch of its cell. The query returns a row for each of
+            // them; see RolapAggregator.ApproxDistinctCount.
+            final String alias = sqlQuery.addSelect(
+                exprOuter, BestFitColumnType.OBJECT, getMeasureAlias(i));
+            if (isAggregate()) {
+                sqlQuery.addGroupBy(exprInner, alias);
+            }
+            return;
+        }
         sqlQuery.addSelect(
             exprOuter,
             measure.getInternalType(),
@@ -147,6 +147,14 @@ class AggQuerySpec {
         } else {
             expr = column.generateExprString(query);
         }
+        if (column.getAggregator().isSketch()) {
+            // Sketches are merged by the segment loader.
+            alias = query.addSelect(expr, BestFitColumnType.OBJECT, alias);
+            if (rollup) {
+                query.addGroupBy(expr, alias);
+            }
+            return;
+        }
         query.addSelect(expr, null, alias);
     }
 
@@ -20,6 +20,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import org.eclipse.daanse.db.dialect.api.BestFitColumnType;
@@ -42,6 +43,7 @@ import mondrian.rolap.StarPredicate;
 import mondrian.rolap.aggmatcher.AggStar;
 import mondrian.server.LocusImpl;
 import mondrian.util.Pair;
+import mondrian.util.VirtualThreadExecutor;
 
 /**
  * <code>RolapAggregationManager</code> manages all {@link Aggregation}s
@@ -61,6 +63,12 @@ public class AggregationManager extends RolapAggregationManager {
 
     private Context context;
 
+    /**
+     * Executor with which to evaluate the cells of a query in parallel, or
+     * null until it is first needed. Guarded by this.
+     */
+    private ExecutorService cellExecutor;
+
     /**
      * Creates the AggregationManager.
      */
@@ -131,12 +139,10 @@ public class AggregationManager extends RolapAggregationManager {
 			protected void flushNonUnion(final CellRegion region) {
                 SegmentCacheManager segmentCacheManager = getCacheMgr(connection);
                 final SegmentCacheManager.FlushResult result =
-                    segmentCacheManager.execute(
-                        new SegmentCacheManager.FlushCommand(
-                            LocusImpl.peek(),
-                            segmentCacheManager,
-                            region,
-                            this));
+                    segmentCacheManager.flush(
+                        LocusImpl.peek(),
+                        region,
+                        this);
                 final List<Future<Boolean>> futures =
                     new ArrayList<>();
                 for (Callable<Boolean> task : result.tasks) {
@@ -340,6 +346,9 @@ public class AggregationManager extends RolapAggregationManager {
      * If one or more of the measures are distinct-count measures
      * rollup is possible only in limited circumstances.
      *
+     * <p>If aggregate tables are chosen by cost, returns the cheapest one,
+     * and null if it is not cheaper than the fact table.
+     *
      * @param star Star
      * @param levelBitKey Set of levels
      * @param measureBitKey Set of measures
@@ -372,147 +381,314 @@ public class AggregationManager extends RolapAggregationManager {
         final BitKey expandedLevelBitKey = expandLevelBitKey(
             star, levelBitKey.copy());
 
-        // The AggStars are already ordered from smallest to largest so
-        // we need only find the first one and return it.
+        // The AggStars are already ordered from smallest to largest so,
+        // unless they are chosen by cost, we need only find the first one
+        // and return it.
+        final boolean chooseByCost =
+            star.getContext().getConfig().chooseAggregateByCost();
+        AggStar bestAggStar = null;
+        boolean bestRollup = false;
+        double bestCost = Double.MAX_VALUE;
         for (AggStar aggStar : star.getAggStars()) {
-            // superset match
-            if (!aggStar.superSetMatch(fullBitKey)) {
+            final Boolean aggRollup = matchAgg(
+                aggStar, levelBitKey, measureBitKey, fullBitKey,
+                expandedLevelBitKey);
+            if (aggRollup == null) {
                 continue;
             }
-            boolean isDistinct = measureBitKey.intersects(
-                aggStar.getDistinctMeasureBitKey());
-
-            // The AggStar has no "distinct count" measures so
-            // we can use it without looking any further.
-            if (!isDistinct) {
-                // Need to use SUM if the query levels don't match
-                // the agg stars levels, or if the agg star is not
-                // fully collapsed.
-                rollup[0] = !aggStar.isFullyCollapsed()
-                    || aggStar.hasIgnoredColumns()
-                    || (levelBitKey.isEmpty()
-                    || !aggStar.getLevelBitKey().equals(levelBitKey));
+            if (!chooseByCost) {
+                rollup[0] = aggRollup;
                 return aggStar;
-            } else if (aggStar.hasIgnoredColumns()) {
-                // we cannot safely pull a distinct count from an agg
-                // table if ignored columns are present since granularity
-                // may not be at the level of the dc measure
-                LOGGER.info("{} cannot be used for distinct-count measures since it has unused or ignored columns.",
-                    aggStar.getFactTable().getName());
-                continue;
             }
+            final double cost =
+                estimateCost(star, aggStar, levelBitKey, aggRollup);
+            if (cost < bestCost) {
+                bestAggStar = aggStar;
+                bestRollup = aggRollup;
+                bestCost = cost;
+            }
+        }
+        if (bestAggStar == null
+            || bestCost >= estimateFactTableCost(star, levelBitKey))
+        {
+            // Reading the fact table is no more expensive.
+            return null;
+        }
+        rollup[0] = bestRollup;
+        return bestAggStar;
+    }
 
-            // If there are distinct measures, we can only rollup in limited
-            // circumstances.
-
-            // No foreign keys (except when its used as a distinct count
-            //   measure).
-            // Level key exact match.
-            // Measure superset match.
-
-            // Compute the core levels -- those which can be safely
-            // rolled up to. For example,
-            // if the measure is 'distinct customer count',
-            // and the agg table has levels customer_id,
-            // then gender is a core level.
-            final BitKey distinctMeasuresBitKey =
-                measureBitKey.and(aggStar.getDistinctMeasureBitKey());
-            final BitSet distinctMeasures = distinctMeasuresBitKey.toBitSet();
-            BitKey combinedLevelBitKey = null;
-            for (int k = distinctMeasures.nextSetBit(0); k >= 0;
-                k = distinctMeasures.nextSetBit(k + 1))
-            {
-                final AggStar.FactTable.Measure distinctMeasure =
-                    aggStar.lookupMeasure(k);
-                BitKey rollableLevelBitKey =
-                    distinctMeasure.getRollableLevelBitKey();
-                if (combinedLevelBitKey == null) {
-                    combinedLevelBitKey = rollableLevelBitKey;
-                } else {
-                    // TODO use '&=' to remove unnecessary copy
-                    combinedLevelBitKey =
-                        combinedLevelBitKey.and(rollableLevelBitKey);
-                }
+    /**
+     * Checks whether an aggregate table can answer a request, and whether
+     * its rows have to be rolled up.
+     *
+     * @return Whether rollup is required, or null if the aggregate table is
+     *   not suitable
+     */
+    private static Boolean matchAgg(
+        AggStar aggStar,
+        BitKey levelBitKey,
+        BitKey measureBitKey,
+        BitKey fullBitKey,
+        BitKey expandedLevelBitKey)
+    {
+        // superset match
+        if (!aggStar.superSetMatch(fullBitKey)) {
+            return null;
+        }
+        boolean isDistinct = measureBitKey.intersects(
+            aggStar.getDistinctMeasureBitKey());
+
+        // The AggStar has no "distinct count" measures so
+        // we can use it without looking any further.
+        if (!isDistinct) {
+            // Need to use SUM if the query levels don't match
+            // the agg stars levels, or if the agg star is not
+            // fully collapsed.
+            return !aggStar.isFullyCollapsed()
+                || aggStar.hasIgnoredColumns()
+                || (levelBitKey.isEmpty()
+                || !aggStar.getLevelBitKey().equals(levelBitKey));
+        } else if (aggStar.hasIgnoredColumns()) {
+            // we cannot safely pull a distinct count from an agg
+            // table if ignored columns are present since granularity
+            // may not be at the level of the dc measure
+            LOGGER.info("{} cannot be used for distinct-count measures since it has unused or ignored columns.",
+                aggStar.getFactTable().getName());
+            return null;
+        }
+
+        // If there are distinct measures, we can only rollup in limited
+        // circumstances.
+
+        // No foreign keys (except when its used as a distinct count
+        //   measure).
+        // Level key exact match.
+        // Measure superset match.
+
+        // Compute the core levels -- those which can be safely
+        // rolled up to. For example,
+        // if the measure is 'distinct customer count',
+        // and the agg table has levels customer_id,
+        // then gender is a core level.
+        final BitKey distinctMeasuresBitKey =
+            measureBitKey.and(aggStar.getDistinctMeasureBitKey());
+        final BitSet distinctMeasures = distinctMeasuresBitKey.toBitSet();
+        BitKey combinedLevelBitKey = null;
+        for (int k = distinctMeasures.nextSetBit(0); k >= 0;
+            k = distinctMeasures.nextSetBit(k + 1))
+        {
+            final AggStar.FactTable.Measure distinctMeasure =
+                aggStar.lookupMeasure(k);
+            BitKey rollableLevelBitKey =
+                distinctMeasure.getRollableLevelBitKey();
+            if (combinedLevelBitKey == null) {
+                combinedLevelBitKey = rollableLevelBitKey;
+            } else {
+                // TODO use '&=' to remove unnecessary copy
+                combinedLevelBitKey =
+                    combinedLevelBitKey.and(rollableLevelBitKey);
             }
+        }
 
-            if (aggStar.hasForeignKeys()) {
+        if (aggStar.hasForeignKeys()) {
 /*
-                    StringBuilder buf = new StringBuilder(256);
-                    buf.append("");
-                    buf.append(star.getFactTable().getAlias());
-                    buf.append(Util.nl);
-                    buf.append("foreign =");
-                    buf.append(levelBitKey);
-                    buf.append(Util.nl);
-                    buf.append("measure =");
-                    buf.append(measureBitKey);
-                    buf.append(Util.nl);
-                    buf.append("aggstar =");
-                    buf.append(aggStar.getBitKey());
-                    buf.append(Util.nl);
-                    buf.append("distinct=");
-                    buf.append(aggStar.getDistinctMeasureBitKey());
+                StringBuilder buf = new StringBuilder(256);
+                buf.append("");
+                buf.append(star.getFactTable().getAlias());
+                buf.append(Util.nl);
+                buf.append("foreign =");
+                buf.append(levelBitKey);
+                buf.append(Util.nl);
+                buf.append("measure =");
+                buf.append(measureBitKey);
+                buf.append(Util.nl);
+                buf.append("aggstar =");
+                buf.append(aggStar.getBitKey());
+                buf.append(Util.nl);
+                buf.append("distinct=");
+                buf.append(aggStar.getDistinctMeasureBitKey());
+                buf.append(Util.nl);
+                buf.append("AggStar=");
+                buf.append(aggStar.getFactTable().getName());
+                buf.append(Util.nl);
+                for (Iterator columnIter =
+                        aggStar.getFactTable().getColumns().iterator();
+                     columnIter.hasNext();) {
+                    AggStar.Table.Column column =
+                            (AggStar.Table.Column) columnIter.next();
+                    buf.append("   ");
+                    buf.append(column);
                     buf.append(Util.nl);
-                    buf.append("AggStar=");
-                    buf.append(aggStar.getFactTable().getName());
-                    buf.append(Util.nl);
-                    for (Iterator columnIter =
-                            aggStar.getFactTable().getColumns().iterator();
-                         columnIter.hasNext();) {
-                        AggStar.Table.Column column =
-                                (AggStar.Table.Column) columnIter.next();
-                        buf.append("   ");
-                        buf.append(column);
-                        buf.append(Util.nl);
-                    }
+                }
 System.out.println(buf.toString());
 */
-                // This is a little pessimistic. If the measure is
-                // 'count(distinct customer_id)' and one of the foreign keys is
-                // 'customer_id' then it is OK to roll up.
-
-                // Some of the measures in this query are distinct count.
-                // Get all of the foreign key columns.
-                // For each such measure, is it based upon a foreign key.
-                // Are there any foreign keys left over. No, can use AggStar.
-                BitKey fkBitKey = aggStar.getForeignKeyBitKey().copy();
-                for (AggStar.FactTable.Measure measure
-                    : aggStar.getFactTable().getMeasures())
-                {
-                    if (measure.isDistinct()) {
-                        if (measureBitKey.get(measure.getBitPosition())) {
-                            fkBitKey.clear(measure.getBitPosition());
-                        }
+            // This is a little pessimistic. If the measure is
+            // 'count(distinct customer_id)' and one of the foreign keys is
+            // 'customer_id' then it is OK to roll up.
+
+            // Some of the measures in this query are distinct count.
+            // Get all of the foreign key columns.
+            // For each such measure, is it based upon a foreign key.
+            // Are there any foreign keys left over. No, can use AggStar.
+            BitKey fkBitKey = aggStar.getForeignKeyBitKey().copy();
+            for (AggStar.FactTable.Measure measure
+                : aggStar.getFactTable().getMeasures())
+            {
+                if (measure.isDistinct()) {
+                    if (measureBitKey.get(measure.getBitPosition())) {
+                        fkBitKey.clear(measure.getBitPosition());
                     }
                 }
-                if (!fkBitKey.isEmpty()) {
-                    // there are foreign keys left so we can not use this
-                    // AggStar.
-                    continue;
-                }
             }
-
-            // We can use the expandedLevelBitKey here because
-            // presence of parent level columns won't effect granularity,
-            // so will still be an allowable agg match
-            if (!aggStar.select(
-                    expandedLevelBitKey, combinedLevelBitKey, measureBitKey))
-            {
-                continue;
+            if (!fkBitKey.isEmpty()) {
+                // there are foreign keys left so we can not use this
+                // AggStar.
+                return null;
             }
+        }
 
-            if (expandedLevelBitKey.isEmpty()) {
-                // We won't be able to resolve a distinct count measure like
-                // this. We need to resolve the distinct values but we don't
-                // have any levels for which we constraint on. This would
-                // result in either a bloated value (non-distinct) or
-                // only the first (non-rolled-up) to be returned.
-                continue;
+        // We can use the expandedLevelBitKey here because
+        // presence of parent level columns won't effect granularity,
+        // so will still be an allowable agg match
+        if (!aggStar.select(
+                expandedLevelBitKey, combinedLevelBitKey, measureBitKey))
+        {
+            return null;
+        }
+
+        if (expandedLevelBitKey.isEmpty()) {
+            // We won't be able to resolve a distinct count measure like
+            // this. We need to resolve the distinct values but we don't
+            // have any levels for which we constraint on. This would
+            // result in either a bloated value (non-distinct) or
+            // only the first (non-rolled-up) to be returned.
+            return null;
+        }
+        return !aggStar.getLevelBitKey().equals(expandedLevelBitKey);
+    }
+
+    /**
+     * Estimates the cost of answering a request from an aggregate table.
+     *
+     * <p>The cost is the number of rows handled times the cost of handling
+     * one row. The table is scanned; if its rows have to be rolled up, each
+     * row read is also grouped, and one row is produced per group. The
+     * number of groups is estimated as the product of the distinct counts
+     * of the requested columns, which come from the statistics of the star,
+     * but cannot exceed the number of rows read.</p>
+     *
+     * <p>The cost of handling one row is 1, or, if aggregate tables are
+     * chosen by volume, the total size of the columns of the table, so that
+     * its cost is its volume if it is only scanned. Scanning and grouping
+     * are thus measured in the same unit.</p>
+     */
+    private static double estimateCost(
+        RolapStar star,
+        AggStar aggStar,
+        BitKey levelBitKey,
+        boolean rollup)
+    {
+        return estimateCost(
+            star,
+            levelBitKey,
+            getRowCount(star, aggStar),
+            aggStar.getFactTable().getTotalColumnSize(),
+            rollup);
+    }
+
+    /**
+     * Estimates the cost of answering a request from the fact table, in the
+     * unit of {@link #estimateCost(RolapStar, AggStar, BitKey, boolean)}.
+     * The rows of the fact table are always rolled up.
+     *
+     * <p>If aggregate tables are chosen by volume but the size of the
+     * columns of the fact table is not known, returns
+     * {@link Double#MAX_VALUE}, so that the aggregate tables are not
+     * compared with the fact table.</p>
+     */
+    private static double estimateFactTableCost(
+        RolapStar star,
+        BitKey levelBitKey)
+    {
+        final int columnSize = star.getFactTableColumnSize();
+        if (columnSize <= 0
+            && star.getContext().getConfig().chooseAggregateByVolume())
+        {
+            return Double.MAX_VALUE;
+        }
+        return estimateCost(
+            star, levelBitKey, getRowCount(star, null), columnSize, true);
+    }
+
+    private static double estimateCost(
+        RolapStar star,
+        BitKey levelBitKey,
+        long rowCount,
+        long totalColumnSize,
+        boolean rollup)
+    {
+        final double rowCost =
+            star.getContext().getConfig().chooseAggregateByVolume()
+                ? Math.max(1, totalColumnSize)
+                : 1d;
+        double rows = rowCount;
+        if (rollup) {
+            rows += rowCount + estimateGroupCount(star, levelBitKey, rowCount);
+        }
+        return rows * rowCost;
+    }
+
+    /**
+     * Returns the number of rows of the table that answers a request.
+     *
+     * @param star Star
+     * @param aggStar Aggregate table, or null for the fact table
+     * @return Number of rows, at least 1
+     */
+    public static long getRowCount(RolapStar star, AggStar aggStar) {
+        if (aggStar != null) {
+            return Math.max(1, aggStar.getFactTable().getNumberOfRows());
+        }
+        final RolapStar.Table factTable = star.getFactTable();
+        return Math.max(
+            1,
+            star.getStatisticsCache().getRelationCardinality(
+                factTable.getRelation(), factTable.getAlias(), -1));
+    }
+
+    /**
+     * Estimates the number of groups that rolling up rows to a set of
+     * columns produces: the product of the distinct counts of the columns,
+     * but no more than the number of rows.
+     *
+     * @param star Star
+     * @param levelBitKey Columns
+     * @param rowCount Number of rows that are rolled up
+     * @return Estimated number of groups
+     */
+    public static double estimateGroupCount(
+        RolapStar star,
+        BitKey levelBitKey,
+        long rowCount)
+    {
+        double groupCount = 1;
+        final BitSet levels = levelBitKey.toBitSet();
+        for (int k = levels.nextSetBit(0); k >= 0;
+            k = levels.nextSetBit(k + 1))
+        {
+            final long cardinality =
+                star.getColumn(k).getCardinality();
+            if (cardinality <= 0) {
+                // Unknown; assume that nothing is collapsed.
+                return rowCount;
+            }
+            groupCount *= cardinality;
+            if (groupCount >= rowCount) {
+                return rowCount;
             }
-            rollup[0] = !aggStar.getLevelBitKey().equals(expandedLevelBitKey);
-            return aggStar;
         }
-        return null;
+        return groupCount;
     }
 
     /**
@@ -545,7 +721,34 @@ System.out.println(buf.toString());
         return new PinSetImpl();
     }
 
+    /**
+     * Returns the executor with which to evaluate the cells of a query in
+     * parallel. It has one thread per processor, shared by all statements of
+     * the context, and is separate from the executor of the statements, so
+     * that a statement waiting for its cells never waits for a thread that
+     * another statement holds.
+     *
+     * @return Executor for cell evaluation tasks
+     */
+    public synchronized ExecutorService getCellExecutor() {
+        if (cellExecutor == null) {
+            final String name =
+                "mondrian.rolap.agg.AggregationManager$cellExecutor";
+            final int threadCount = Runtime.getRuntime().availableProcessors();
+            cellExecutor = context.getConfig().virtualThreads()
+                ? new VirtualThreadExecutor(name, threadCount)
+                : Util.getExecutorService(
+                    threadCount, threadCount, 1, name, null);
+        }
+        return cellExecutor;
+    }
+
     public void shutdown() {
+        synchronized (this) {
+            if (cellExecutor != null) {
+                cellExecutor.shutdown();
+            }
+        }
         // Send a shutdown command and wait for it to return.
         cacheMgr.shutdown();
         // Now we can cleanup.
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dictionary which assigns a dense integer code to each distinct value of a
+ * column of a star.
+ *
+ * <p>Each {@link mondrian.rolap.RolapStar.Column} has one dictionary, shared
+ * by all segments of the star. A {@link SegmentAxis} records the codes of its
+ * keys, so that a cell lookup converts each key to its code once and then
+ * works with integers only.</p>
+ *
+ * <p>Codes are never reused or removed, so a code remains valid for the life
+ * of the dictionary. A column does not keep a dictionary for the life of the
+ * star, though: it replaces it by an empty one when the star is flushed and
+ * when the dictionary has reached {@link #MAX_SIZE} values. Each segment axis
+ * keeps the dictionary its keys were encoded with, so an old dictionary is
+ * garbage collected with the last segment which uses it, and a lookup whose
+ * codes come from another dictionary falls back to the key values.</p>
+ *
+ * <p>The dictionary is thread safe.</p>
+ */
+public final class ColumnValueDictionary {
+
+    /**
+     * Code returned by {@link #lookup(Object)} for a value that has no code.
+     */
+    public static final int NO_CODE = -1;
+
+    /**
+     * Number of values after which a column replaces its dictionary by an
+     * empty one. The limit is soft: a dictionary may exceed it by the keys of
+     * the segments which are being loaded while it is replaced.
+     */
+    public static final int MAX_SIZE = 1 << 20;
+
+    private final ConcurrentMap<Object, Integer> codes =
+        new ConcurrentHashMap<>();
+    private final AtomicInteger nextCode = new AtomicInteger();
+
+    /**
+     * Returns the code of a value, assigning a new code if the value has
+     * none.
+     *
+     * @param value Value, not null
+     * @return Code
+     */
+    public int encode(Object value) {
+        final Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        return codes.computeIfAbsent(value, v -> nextCode.getAndIncrement());
+    }
+
+    /**
+     * Returns the code of a value, or {@link #NO_CODE} if the value has not
+     * been encoded.
+     *
+     * @param value Value
+     * @return Code, or {@link #NO_CODE}
+     */
+    public int lookup(Object value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        final Integer code = codes.get(value);
+        return code == null ? NO_CODE : code;
+    }
+
+    /**
+     * Returns the number of values in this dictionary.
+     */
+    public int size() {
+        return codes.size();
+    }
+}
@@ -53,6 +53,7 @@ final class GroupingSetsList {
 
     private final List<GroupingSet> groupingSets;
     private final int groupingBitKeyIndex;
+    private final String batchPlan;
 
     /**
      * Creates a GroupingSetsList.
@@ -64,7 +65,19 @@ final class GroupingSetsList {
      * @param groupingSets List of groups of columns
      */
     public GroupingSetsList(List<GroupingSet> groupingSets) {
+        this(groupingSets, null);
+    }
+
+    /**
+     * Creates a GroupingSetsList whose grouping sets were chosen by a
+     * planner.
+     *
+     * @param groupingSets List of groups of columns
+     * @param batchPlan Description of the plan, or null
+     */
+    public GroupingSetsList(List<GroupingSet> groupingSets, String batchPlan) {
         this.groupingSets = groupingSets;
+        this.batchPlan = batchPlan;
         this.useGroupingSet = groupingSets.size() > 1;
         if (useGroupingSet) {
             this.groupingSetsColumns = getGroupingColumnsList(groupingSets);
@@ -94,6 +107,14 @@ final class GroupingSetsList {
         return groupingColumns;
     }
 
+    /**
+     * Returns the description of the plan that chose these grouping sets,
+     * or null if they were not chosen by a planner.
+     */
+    public String getBatchPlan() {
+        return batchPlan;
+    }
+
     public int getGroupingBitKeyIndex() {
         return groupingBitKeyIndex;
     }
@@ -11,14 +11,13 @@
 
 package mondrian.rolap.agg;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 
+import mondrian.rolap.RolapStar;
 import mondrian.rolap.RolapUtil;
 import mondrian.rolap.StarColumnPredicate;
 import mondrian.util.ArraySortedSet;
@@ -43,12 +42,29 @@ public class SegmentAxis {
     private final Set<Object> predicateValues;
 
     /**
-     * Map holding the position of each key value.
-     *
-     * <p>TODO: Hold keys in a sorted array, then deduce ordinal by doing
-     * binary search.
+     * Dictionary of the values of the constrained column.
+     */
+    private final ColumnValueDictionary dictionary;
+
+    /**
+     * Smallest code of the keys.
+     */
+    private final int minCode;
+
+    /**
+     * Position of each key, indexed by its code minus {@link #minCode}, or
+     * -1 if no key has that code. Used if the codes of the keys are dense;
+     * otherwise null.
      */
-    private final Map<Comparable, Integer> mapKeyToOffset;
+    private final int[] offsetByCode;
+
+    /**
+     * Codes of the keys in ascending order, and the position of the key
+     * with each code. Used if the codes of the keys are sparse; otherwise
+     * null.
+     */
+    private final int[] sortedCodes;
+    private final int[] sortedCodeOffsets;
 
     /**
      * Actual key values retrieved.
@@ -58,6 +74,7 @@ public class SegmentAxis {
     private static final Integer ZERO = Integer.valueOf(0);
     private static final Integer ONE = Integer.valueOf(1);
     private static final Comparable[] NO_COMPARABLES = new Comparable[0];
+    private static final int[] NO_INTS = new int[0];
 
     /**
      * Internal constructor.
@@ -72,18 +89,51 @@ public class SegmentAxis {
             predicate instanceof LiteralStarPredicate
             && ((LiteralStarPredicate) predicate).getValue();
         this.predicateValues = predicateValueSet(predicate);
+        final RolapStar.Column column = predicate.getConstrainedColumn();
+        this.dictionary = column == null
+            ? new ColumnValueDictionary()
+            : column.getValueDictionary();
         if (keys.length == 0) {
             // Optimize the case where axis is empty. Not that infrequent:
             // it records that mondrian has looked in the database and found
             // nothing.
             this.keys = NO_COMPARABLES;
-            this.mapKeyToOffset = Collections.emptyMap();
+            this.minCode = 0;
+            this.offsetByCode = NO_INTS;
+            this.sortedCodes = null;
+            this.sortedCodeOffsets = null;
         } else {
             this.keys = keys;
-            mapKeyToOffset =
-                new HashMap<>(keys.length * 3 / 2);
+            final int[] codes = new int[keys.length];
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
             for (int i = 0; i < keys.length; i++) {
-                mapKeyToOffset.put(keys[i], i);
+                codes[i] = dictionary.encode(keys[i]);
+                min = Math.min(min, codes[i]);
+                max = Math.max(max, codes[i]);
+            }
+            this.minCode = min;
+            if ((long) max - min < 2L * keys.length + 16) {
+                this.offsetByCode = new int[max - min + 1];
+                Arrays.fill(offsetByCode, -1);
+                for (int i = 0; i < codes.length; i++) {
+                    offsetByCode[codes[i] - min] = i;
+                }
+                this.sortedCodes = null;
+                this.sortedCodeOffsets = null;
+            } else {
+                final long[] pairs = new long[codes.length];
+                for (int i = 0; i < codes.length; i++) {
+                    pairs[i] = ((long) codes[i] << 32) | i;
+                }
+                Arrays.sort(pairs);
+                this.offsetByCode = null;
+                this.sortedCodes = new int[pairs.length];
+                this.sortedCodeOffsets = new int[pairs.length];
+                for (int i = 0; i < pairs.length; i++) {
+                    sortedCodes[i] = (int) (pairs[i] >>> 32);
+                    sortedCodeOffsets[i] = (int) pairs[i];
+                }
             }
         }
         assert predicate != null;
@@ -186,11 +236,47 @@ public class SegmentAxis {
         if (keys.length == 1) {
             return keys[0].equals(key) ? 0 : -1;
         }
-        Integer ordinal = mapKeyToOffset.get(key);
-        if (ordinal == null) {
+        return getOffsetOfCode(dictionary.lookup(key));
+    }
+
+    /**
+     * Returns the position of a key whose code in a given dictionary is
+     * already known, or -1 if the axis has no such key.
+     *
+     * <p>The code is used only if it comes from the dictionary of this axis;
+     * if the column has replaced its dictionary since this axis was created,
+     * the key is looked up by value.</p>
+     *
+     * @param key Key
+     * @param dictionary Dictionary which encoded the key
+     * @param code Code of the key in the dictionary
+     * @return Position of key, or -1
+     */
+    final int getOffset(
+        Comparable key, ColumnValueDictionary dictionary, int code)
+    {
+        return dictionary == this.dictionary
+            ? getOffsetOfCode(code)
+            : getOffset(key);
+    }
+
+    /**
+     * Returns the position of the key with a given code in the value
+     * dictionary of the column, or -1 if the axis has no such key.
+     *
+     * @param code Code, or {@link ColumnValueDictionary#NO_CODE}
+     * @return Position of key, or -1
+     */
+    final int getOffsetOfCode(int code) {
+        if (code < 0) {
             return -1;
         }
-        return ordinal;
+        if (offsetByCode != null) {
+            final int i = code - minCode;
+            return i >= 0 && i < offsetByCode.length ? offsetByCode[i] : -1;
+        }
+        final int i = Arrays.binarySearch(sortedCodes, code);
+        return i < 0 ? -1 : sortedCodeOffsets[i];
     }
 
     /**
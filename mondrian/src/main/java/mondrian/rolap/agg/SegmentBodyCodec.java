@@ -0,0 +1,563 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+import mondrian.rolap.CellKey;
+import mondrian.spi.SegmentBody;
+import mondrian.util.ArraySortedSet;
+import mondrian.util.HyperLogLog;
+import mondrian.util.Pair;
+
+/**
+ * Encodes {@link SegmentBody} objects into a compact binary layout, and
+ * decodes them again.
+ *
+ * <p>Unlike Java serialization, the layout holds no class descriptors and
+ * writes primitive cell values as raw numbers, so that an encoded body can be
+ * kept outside the Java heap and rehydrated only when it is needed. Every
+ * value type has its own tag; a value of any other type cannot be encoded,
+ * and {@link #encode} throws. Nothing is ever read back by Java
+ * deserialization, so an encoded body from an untrusted store cannot
+ * instantiate arbitrary classes.</p>
+ *
+ * <p>Counts, ordinals and integer values are written as variable-length
+ * integers. Axes of integer values are delta-encoded, and axes of strings
+ * share prefixes with the preceding value, taking advantage of the sorted
+ * order of axis values. Null indicators are written as runs of clear and set
+ * bits.</p>
+ *
+ * <p>Dense bodies keep their representation; bodies of any other class are
+ * decoded as sparse bodies.</p>
+ *
+ * <p>The layout carries no version; see {@link mondrian.spi.SegmentCodec} for
+ * the versioned format that external caches should use.</p>
+ */
+public final class SegmentBodyCodec {
+
+    private static final byte DENSE_DOUBLE = 1;
+    private static final byte DENSE_INT = 2;
+    private static final byte DENSE_OBJECT = 3;
+    private static final byte SPARSE = 4;
+
+    private static final byte AXIS_VALUES = 0;
+    private static final byte AXIS_INT_DELTAS = 1;
+    private static final byte AXIS_LONG_DELTAS = 2;
+    private static final byte AXIS_STRING_PREFIXES = 3;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BIG_DECIMAL = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte FLOAT = 7;
+    private static final byte SHORT = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte SQL_DATE = 10;
+    private static final byte SQL_TIMESTAMP = 11;
+    private static final byte BYTE = 12;
+    private static final byte SQL_TIME = 13;
+    private static final byte DATE = 14;
+    private static final byte LOCAL_DATE = 15;
+    private static final byte LOCAL_DATE_TIME = 16;
+    private static final byte CHARACTER = 17;
+    private static final byte BYTES = 18;
+    private static final byte HYPER_LOG_LOG = 19;
+
+    private SegmentBodyCodec() {
+    }
+
+    /**
+     * Encodes a segment body.
+     *
+     * @param body Segment body
+     * @return Encoded body
+     * @throws IllegalArgumentException if a cell or axis value is of a type
+     *     that the layout does not know
+     */
+    public static byte[] encode(SegmentBody body) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (body instanceof DenseDoubleSegmentBody) {
+                out.writeByte(DENSE_DOUBLE);
+                writeAxes(out, body);
+                final double[] values = (double[]) body.getValueArray();
+                writeVarLong(out, values.length);
+                for (double value : values) {
+                    out.writeDouble(value);
+                }
+                writeBitSet(out, body.getNullValueIndicators());
+            } else if (body instanceof DenseIntSegmentBody) {
+                out.writeByte(DENSE_INT);
+                writeAxes(out, body);
+                final int[] values = (int[]) body.getValueArray();
+                writeVarLong(out, values.length);
+                for (int value : values) {
+                    writeSignedVarLong(out, value);
+                }
+                writeBitSet(out, body.getNullValueIndicators());
+            } else if (body instanceof DenseObjectSegmentBody) {
+                out.writeByte(DENSE_OBJECT);
+                writeAxes(out, body);
+                final Object[] values = (Object[]) body.getValueArray();
+                writeVarLong(out, values.length);
+                for (Object value : values) {
+                    writeValue(out, value);
+                }
+            } else {
+                out.writeByte(SPARSE);
+                writeAxes(out, body);
+                final Map<CellKey, Object> map = body.getValueMap();
+                writeVarLong(out, map.size());
+                writeVarLong(out, body.getAxisValueSets().length);
+                for (Map.Entry<CellKey, Object> entry : map.entrySet()) {
+                    for (int ordinal : entry.getKey().getOrdinals()) {
+                        writeVarLong(out, ordinal);
+                    }
+                    writeValue(out, entry.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a segment body.
+     *
+     * <p>Reads from the current position of the buffer, and advances the
+     * position past the encoded body.</p>
+     *
+     * @param buffer Buffer containing an encoded body
+     * @return Segment body
+     */
+    public static SegmentBody decode(ByteBuffer buffer) {
+        final byte kind = buffer.get();
+        final List<Pair<SortedSet<Comparable>, Boolean>> axes =
+            readAxes(buffer);
+        switch (kind) {
+        case DENSE_DOUBLE: {
+            final double[] values = new double[readVarInt(buffer)];
+            buffer.asDoubleBuffer().get(values);
+            buffer.position(buffer.position() + values.length * Double.BYTES);
+            return new DenseDoubleSegmentBody(readBitSet(buffer), values, axes);
+        }
+        case DENSE_INT: {
+            final int[] values = new int[readVarInt(buffer)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (int) readSignedVarLong(buffer);
+            }
+            return new DenseIntSegmentBody(readBitSet(buffer), values, axes);
+        }
+        case DENSE_OBJECT: {
+            final Object[] values = new Object[readVarInt(buffer)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readValue(buffer);
+            }
+            return new DenseObjectSegmentBody(values, axes);
+        }
+        case SPARSE: {
+            final int size = readVarInt(buffer);
+            final int arity = readVarInt(buffer);
+            final Map<CellKey, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                final int[] ordinals = new int[arity];
+                for (int j = 0; j < arity; j++) {
+                    ordinals[j] = readVarInt(buffer);
+                }
+                map.put(CellKey.Generator.newCellKey(ordinals), readValue(buffer));
+            }
+            return new SparseSegmentBody(map, axes);
+        }
+        default:
+            throw new IllegalArgumentException(
+                "Unknown segment body kind " + kind);
+        }
+    }
+
+    private static void writeAxes(DataOutputStream out, SegmentBody body)
+        throws IOException
+    {
+        final SortedSet<Comparable>[] axisValueSets = body.getAxisValueSets();
+        final boolean[] nullAxisFlags = body.getNullAxisFlags();
+        writeVarLong(out, axisValueSets.length);
+        for (int i = 0; i < axisValueSets.length; i++) {
+            out.writeBoolean(nullAxisFlags[i]);
+            writeAxisValues(out, axisValueSets[i]);
+        }
+    }
+
+    private static List<Pair<SortedSet<Comparable>, Boolean>> readAxes(
+        ByteBuffer buffer)
+    {
+        final int axisCount = readVarInt(buffer);
+        final List<Pair<SortedSet<Comparable>, Boolean>> axes =
+            new ArrayList<>(axisCount);
+        for (int i = 0; i < axisCount; i++) {
+            final boolean nullAxisFlag = buffer.get() != 0;
+            // Values were written in the order of the sorted set, so the
+            // array is already sorted.
+            //noinspection unchecked
+            axes.add(
+                Pair.of(new ArraySortedSet(readAxisValues(buffer)), nullAxisFlag));
+        }
+        return axes;
+    }
+
+    /**
+     * Writes the values of an axis, which are in ascending order. Integer
+     * values are written as differences to their predecessor, strings as the
+     * length of the prefix they share with their predecessor plus the rest.
+     */
+    static void writeAxisValues(
+        DataOutputStream out, Collection<? extends Comparable> values)
+        throws IOException
+    {
+        final Class<?> type = commonClass(values);
+        writeVarLong(out, values.size());
+        if (type == Integer.class || type == Long.class) {
+            out.writeByte(type == Integer.class ? AXIS_INT_DELTAS : AXIS_LONG_DELTAS);
+            long previous = 0;
+            for (Comparable value : values) {
+                final long l = ((Number) value).longValue();
+                writeSignedVarLong(out, l - previous);
+                previous = l;
+            }
+        } else if (type == String.class) {
+            out.writeByte(AXIS_STRING_PREFIXES);
+            String previous = "";
+            for (Comparable value : values) {
+                final String s = (String) value;
+                int prefix = 0;
+                final int max = Math.min(s.length(), previous.length());
+                while (prefix < max && s.charAt(prefix) == previous.charAt(prefix)) {
+                    ++prefix;
+                }
+                if (prefix > 0 && Character.isHighSurrogate(s.charAt(prefix - 1))) {
+                    // Do not split a surrogate pair.
+                    --prefix;
+                }
+                writeVarLong(out, prefix);
+                writeBytes(out, s.substring(prefix).getBytes(StandardCharsets.UTF_8));
+                previous = s;
+            }
+        } else {
+            out.writeByte(AXIS_VALUES);
+            for (Comparable value : values) {
+                writeValue(out, value);
+            }
+        }
+    }
+
+    static Comparable[] readAxisValues(ByteBuffer buffer) {
+        final Comparable[] values = new Comparable[readVarInt(buffer)];
+        final byte layout = buffer.get();
+        switch (layout) {
+        case AXIS_INT_DELTAS:
+        case AXIS_LONG_DELTAS: {
+            long previous = 0;
+            for (int i = 0; i < values.length; i++) {
+                previous += readSignedVarLong(buffer);
+                values[i] = layout == AXIS_INT_DELTAS
+                    ? Integer.valueOf((int) previous)
+                    : Long.valueOf(previous);
+            }
+            break;
+        }
+        case AXIS_STRING_PREFIXES: {
+            String previous = "";
+            for (int i = 0; i < values.length; i++) {
+                final int prefix = readVarInt(buffer);
+                previous = previous.substring(0, prefix)
+                    + new String(readBytes(buffer), StandardCharsets.UTF_8);
+                values[i] = previous;
+            }
+            break;
+        }
+        case AXIS_VALUES:
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (Comparable) readValue(buffer);
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown axis layout " + layout);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the class of all values, or null if the values are of
+     * different classes, or there are none.
+     */
+    private static Class<?> commonClass(Collection<?> values) {
+        Class<?> type = null;
+        for (Object value : values) {
+            if (value == null || (type != null && value.getClass() != type)) {
+                return null;
+            }
+            type = value.getClass();
+        }
+        return type;
+    }
+
+    /**
+     * Writes a bit set as its length followed by the lengths of alternating
+     * runs of clear and set bits, starting with clear bits. Null indicators
+     * are mostly long runs, so this is much smaller than the words of the
+     * bit set.
+     */
+    static void writeBitSet(DataOutputStream out, BitSet bitSet)
+        throws IOException
+    {
+        final int length = bitSet.length();
+        writeVarLong(out, length);
+        boolean set = false;
+        for (int i = 0; i < length;) {
+            final int next = set ? bitSet.nextClearBit(i) : bitSet.nextSetBit(i);
+            writeVarLong(out, next - i);
+            i = next;
+            set = !set;
+        }
+    }
+
+    static BitSet readBitSet(ByteBuffer buffer) {
+        final int length = readVarInt(buffer);
+        final BitSet bitSet = new BitSet(length);
+        boolean set = false;
+        for (int i = 0; i < length;) {
+            final int run = readVarInt(buffer);
+            if (set) {
+                bitSet.set(i, i + run);
+            }
+            i += run;
+            set = !set;
+        }
+        return bitSet;
+    }
+
+    static void writeValue(DataOutputStream out, Object value)
+        throws IOException
+    {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Integer i) {
+            out.writeByte(INTEGER);
+            writeSignedVarLong(out, i);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            writeSignedVarLong(out, l);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof BigDecimal bd) {
+            out.writeByte(BIG_DECIMAL);
+            writeSignedVarLong(out, bd.scale());
+            writeBytes(out, bd.unscaledValue().toByteArray());
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof Float f) {
+            out.writeByte(FLOAT);
+            out.writeFloat(f);
+        } else if (value instanceof Short s) {
+            out.writeByte(SHORT);
+            out.writeShort(s);
+        } else if (value instanceof BigInteger bi) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, bi.toByteArray());
+        } else if (value.getClass() == java.sql.Date.class) {
+            out.writeByte(SQL_DATE);
+            writeSignedVarLong(out, ((java.sql.Date) value).getTime());
+        } else if (value.getClass() == java.sql.Timestamp.class) {
+            final java.sql.Timestamp timestamp = (java.sql.Timestamp) value;
+            out.writeByte(SQL_TIMESTAMP);
+            writeSignedVarLong(out, timestamp.getTime());
+            writeVarLong(out, timestamp.getNanos());
+        } else if (value instanceof Byte b) {
+            out.writeByte(BYTE);
+            out.writeByte(b);
+        } else if (value.getClass() == java.sql.Time.class) {
+            out.writeByte(SQL_TIME);
+            writeSignedVarLong(out, ((java.sql.Time) value).getTime());
+        } else if (value.getClass() == java.util.Date.class) {
+            out.writeByte(DATE);
+            writeSignedVarLong(out, ((java.util.Date) value).getTime());
+        } else if (value instanceof LocalDate date) {
+            out.writeByte(LOCAL_DATE);
+            writeSignedVarLong(out, date.toEpochDay());
+        } else if (value instanceof LocalDateTime dateTime) {
+            out.writeByte(LOCAL_DATE_TIME);
+            writeSignedVarLong(out, dateTime.toLocalDate().toEpochDay());
+            writeVarLong(out, dateTime.toLocalTime().toNanoOfDay());
+        } else if (value instanceof Character c) {
+            out.writeByte(CHARACTER);
+            out.writeChar(c);
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(BYTES);
+            writeBytes(out, bytes);
+        } else if (value instanceof HyperLogLog sketch) {
+            // The text of a sketch is its precision and its registers.
+            out.writeByte(HYPER_LOG_LOG);
+            writeBytes(
+                out, sketch.toString().getBytes(StandardCharsets.US_ASCII));
+        } else {
+            throw new IllegalArgumentException(
+                "Cannot encode cell value of " + value.getClass());
+        }
+    }
+
+    static Object readValue(ByteBuffer buffer) {
+        final byte type = buffer.get();
+        switch (type) {
+        case NULL:
+            return null;
+        case STRING:
+            return new String(readBytes(buffer), StandardCharsets.UTF_8);
+        case INTEGER:
+            return (int) readSignedVarLong(buffer);
+        case LONG:
+            return readSignedVarLong(buffer);
+        case DOUBLE:
+            return buffer.getDouble();
+        case BIG_DECIMAL: {
+            final int scale = (int) readSignedVarLong(buffer);
+            return new BigDecimal(new BigInteger(readBytes(buffer)), scale);
+        }
+        case BOOLEAN:
+            return buffer.get() != 0;
+        case FLOAT:
+            return buffer.getFloat();
+        case SHORT:
+            return buffer.getShort();
+        case BIG_INTEGER:
+            return new BigInteger(readBytes(buffer));
+        case SQL_DATE:
+            return new java.sql.Date(readSignedVarLong(buffer));
+        case SQL_TIMESTAMP: {
+            final java.sql.Timestamp timestamp =
+                new java.sql.Timestamp(readSignedVarLong(buffer));
+            timestamp.setNanos(readVarInt(buffer));
+            return timestamp;
+        }
+        case BYTE:
+            return buffer.get();
+        case SQL_TIME:
+            return new java.sql.Time(readSignedVarLong(buffer));
+        case DATE:
+            return new java.util.Date(readSignedVarLong(buffer));
+        case LOCAL_DATE:
+            return LocalDate.ofEpochDay(readSignedVarLong(buffer));
+        case LOCAL_DATE_TIME: {
+            final LocalDate date = LocalDate.ofEpochDay(readSignedVarLong(buffer));
+            return date.atTime(
+                LocalTime.ofNanoOfDay(readVarLong(buffer)));
+        }
+        case CHARACTER:
+            return buffer.getChar();
+        case BYTES:
+            return readBytes(buffer);
+        case HYPER_LOG_LOG: {
+            final HyperLogLog sketch = HyperLogLog.parse(
+                new String(readBytes(buffer), StandardCharsets.US_ASCII));
+            if (sketch == null) {
+                throw new IllegalArgumentException("Malformed sketch");
+            }
+            return sketch;
+        }
+        default:
+            throw new IllegalArgumentException("Unknown value type " + type);
+        }
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes)
+        throws IOException
+    {
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(ByteBuffer buffer) {
+        final byte[] bytes = new byte[readVarInt(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes a non-negative number in 7-bit groups, least significant group
+     * first; the high bit of each byte says whether more bytes follow.
+     */
+    static void writeVarLong(DataOutputStream out, long value)
+        throws IOException
+    {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length number");
+    }
+
+    static int readVarInt(ByteBuffer buffer) {
+        return Math.toIntExact(readVarLong(buffer));
+    }
+
+    /**
+     * Writes a number that may be negative, zig-zag encoded so that numbers
+     * of small magnitude take few bytes.
+     */
+    static void writeSignedVarLong(DataOutputStream out, long value)
+        throws IOException
+    {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSignedVarLong(ByteBuffer buffer) {
+        final long value = readVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
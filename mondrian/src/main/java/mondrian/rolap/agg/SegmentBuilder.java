@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import mondrian.olap.Util;
 import mondrian.rolap.BitKey;
 import mondrian.rolap.CellKey;
+import mondrian.rolap.RolapAggregator;
 import mondrian.rolap.RolapSchema;
 import mondrian.rolap.RolapStar;
 import mondrian.rolap.StarColumnPredicate;
@@ -238,7 +239,7 @@ public class SegmentBuilder {
             UnmodifiableArrayList.of(map.entrySet());
         final SegmentHeader firstHeader = segments.get(0).getKey();
         final List<AxisInfo> axes = new ArrayList<>(keepColumns.size());
-        int z = 0, j = 0;
+        int j = 0;
         List<SegmentColumn> firstHeaderConstrainedColumns =
             firstHeader.getConstrainedColumns();
         for (SegmentColumn column : firstHeaderConstrainedColumns) {
@@ -321,25 +322,155 @@ public class SegmentBuilder {
                 axis.valueSet.toArray(new Comparable[axis.valueSet.size()]);
         }
 
+        // Build the axis list.
+        final List<Pair<SortedSet<Comparable>, Boolean>> axisList =
+            new ArrayList<>();
+        BigInteger bigValueCount = BigInteger.ONE;
+        for (AxisInfo axis : axes) {
+            axisList.add(Pair.of(axis.valueSet, axis.hasNull));
+            int size = axis.values.length;
+            bigValueCount = bigValueCount.multiply(
+                BigInteger.valueOf(axis.hasNull ? size + 1 : size));
+        }
+
+        final Comparable[][] axisValues = new Comparable[axes.size()][];
+        final boolean[] axisHasNull = new boolean[axes.size()];
+        final int[] axisSources = new int[axes.size()];
+        for (int i = 0; i < axes.size(); i++) {
+            axisValues[i] = axes.get(i).values;
+            axisHasNull[i] = axes.get(i).hasNull;
+            axisSources[i] = axes.get(i).src;
+        }
+
+        SegmentBody body = null;
+        if (rollupAggregator instanceof RolapAggregator rolapAggregator
+            && rolapAggregator.supportsPrimitiveRollup(datatype))
+        {
+            body = rollupPrimitive(
+                segments, axisSources, axisValues, axisHasNull, axisList,
+                bigValueCount, rolapAggregator, datatype,
+                sparseSegmentCountThreshold, sparseSegmentDensityThreshold);
+        }
+        if (body == null) {
+            body = rollupBoxed(
+                map, keepColumns, firstHeaderConstrainedColumns, axisValues,
+                axisHasNull, axisList, bigValueCount, rollupAggregator,
+                datatype, sparseSegmentCountThreshold,
+                sparseSegmentDensityThreshold);
+        }
+
+        // Create header.
+        final List<SegmentColumn> constrainedColumns =
+            new ArrayList<>();
+        for (int i = 0; i < axes.size(); i++) {
+            AxisInfo axisInfo = axes.get(i);
+
+            constrainedColumns.add(
+                new SegmentColumn(
+                    axisInfo.column.getColumnExpression(),
+                    axisInfo.column.getValueCount(),
+                    axisInfo.lostPredicate
+                        ? axisList.get(i).left
+                        : axisInfo.column.values));
+        }
+        final SegmentHeader header =
+            new SegmentHeader(
+                firstHeader.schemaName,
+                firstHeader.schemaChecksum,
+                firstHeader.cubeName,
+                firstHeader.measureName,
+                constrainedColumns,
+                firstHeader.compoundPredicates,
+                firstHeader.rolapStarFactTableName,
+                targetBitkey,
+                Collections.<SegmentColumn>emptyList());
+        if (LOGGER.isDebugEnabled()) {
+            StringBuilder builder = new StringBuilder();
+            builder.append("SegmentBuilder.rollup: done rolling up segments with parameters: \n");
+            builder.append("keepColumns=").append(keepColumns).append("\n");
+            builder.append("aggregator=").append(rollupAggregator).append("\n");
+            builder.append("datatype=").append(datatype).append("\n");
+            for (Map.Entry<SegmentHeader, SegmentBody > segment : segments) {
+                builder.append(segment.getKey()).append("\n");
+            }
+            if (LOGGER.isTraceEnabled()) {
+              builder.append("AxisInfos constructed:");
+              for (AxisInfo axis : axes) {
+                  SortedSet<Comparable> colVals = axis.column.getValues();
+                  builder.append(
+                      String.format(
+                          LOG_FORMAT_STRING,
+                          axis.column.columnExpression,
+                          axis.column.getValueCount(),
+                          Arrays.toString(
+                              colVals == null ? null
+                              : colVals.toArray()),
+                          axis.requestedValues,
+                          axis.valueSet,
+                          Arrays.asList(axis.values),
+                          axis.hasNull,
+                          axis.src,
+                          axis.lostPredicate));
+              }
+            }
+            builder.append("Resulted in Segment:  \n");
+            builder.append(header);
+            if (LOGGER.isTraceEnabled()) {
+              builder.append(body.toString());
+            }
+            builder.append(", ").append(System.currentTimeMillis() - startTime).append(" ms \n");
+            LOGGER.debug(builder.toString());
+        }
+        return Pair.of(header, body);
+    }
+
+    private static boolean allHeadersHaveSameDimensionality(
+        Set<SegmentHeader> headers)
+    {
+        final Iterator<SegmentHeader> headerIter = headers.iterator();
+        final SegmentHeader firstHeader = headerIter.next();
+        BitKey bitKey = firstHeader.getConstrainedColumnsBitKey();
+        while (headerIter.hasNext()) {
+            final SegmentHeader nextHeader = headerIter.next();
+            if (!bitKey.equals(nextHeader.getConstrainedColumnsBitKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rolls up segments of any type by reading their cells as a map of
+     * boxed values.
+     */
+    private static SegmentBody rollupBoxed(
+        Map<SegmentHeader, SegmentBody> map,
+        Set<String> keepColumns,
+        List<SegmentColumn> firstHeaderConstrainedColumns,
+        Comparable[][] axisValues,
+        boolean[] axisHasNull,
+        List<Pair<SortedSet<Comparable>, Boolean>> axisList,
+        BigInteger bigValueCount,
+        Aggregator rollupAggregator,
+        Datatype datatype,
+        int sparseSegmentCountThreshold,
+        double sparseSegmentDensityThreshold)
+    {
+        int z;
         // Populate cells.
         //
-        // (This is a rough implementation, very inefficient. It makes all
-        // segment types pretend to be sparse, for purposes of reading. It
-        // maps all axis ordinals to a value, then back to an axis ordinal,
-        // even if this translation were not necessary, say if the source and
-        // target axes had the same set of values. And it always creates a
-        // sparse segment.
-        //
-        // We should do really efficient rollup if the source is an array: we
-        // should box values (e.g double to Double and back), and we should read
-        // a stripe of values from the and add them up into a single cell.
+        // (This implementation makes all segment types pretend to be sparse,
+        // for purposes of reading. It maps all axis ordinals to a value, then
+        // back to an axis ordinal, and boxes every value. Dense segments of
+        // native values are rolled up by rollupPrimitive instead, unless they
+        // overlap.)
         final Map<CellKey, List<Object>> cellValues =
             new HashMap<>();
         TreeSet<ColumnValues> addedIntersections =
             new TreeSet <>();
 
         for (Map.Entry<SegmentHeader, SegmentBody> entry : map.entrySet()) {
-            final int[] pos = new int[axes.size()];
+            final int[] pos = new int[axisValues.length];
             final Comparable[][] valueArrays =
                 new Comparable[firstHeaderConstrainedColumns.size()][];
             final SegmentBody body = entry.getValue();
@@ -366,17 +497,17 @@ public class SegmentBuilder {
                     }
                     final int ordinal = vEntry.getKey().getOrdinals()[i];
                     final int targetOrdinal;
-                    if (axes.get(z).hasNull && ordinal == valueArray.length) {
-                        targetOrdinal = axes.get(z).valueSet.size();
+                    if (axisHasNull[z] && ordinal == valueArray.length) {
+                        targetOrdinal = axisValues[z].length;
                     } else {
                         final Comparable value = valueArray[ordinal];
                         if (value == null) {
-                            targetOrdinal = axes.get(z).valueSet.size();
+                            targetOrdinal = axisValues[z].length;
                         } else {
                             targetOrdinal =
                                 Util.binarySearch(
-                                    axes.get(z).values,
-                                    0, axes.get(z).values.length,
+                                    axisValues[z],
+                                    0, axisValues[z].length,
                                     value);
                         }
                     }
@@ -415,17 +546,6 @@ public class SegmentBuilder {
             }
         }
 
-        // Build the axis list.
-        final List<Pair<SortedSet<Comparable>, Boolean>> axisList =
-            new ArrayList<>();
-        BigInteger bigValueCount = BigInteger.ONE;
-        for (AxisInfo axis : axes) {
-            axisList.add(Pair.of(axis.valueSet, axis.hasNull));
-            int size = axis.values.length;
-            bigValueCount = bigValueCount.multiply(
-                BigInteger.valueOf(axis.hasNull ? size + 1 : size));
-        }
-
         // The logic used here for the sparse check follows
         // SegmentLoader.setAxisDataAndDecideSparseUse.
         // The two methods use different data structures (AxisInfo/SegmentAxis)
@@ -471,7 +591,11 @@ public class SegmentBuilder {
         } else {
             final BitSet nullValues;
             final int valueCount = bigValueCount.intValue();
-            switch (datatype) {
+            // Sketches are objects, whatever the datatype of the measure.
+            final boolean sketch =
+                rollupAggregator instanceof RolapAggregator rolapAggregator
+                && rolapAggregator.isSketch();
+            switch (sketch ? Datatype.STRING : datatype) {
             case INTEGER:
                 final int[] ints = new int[valueCount];
                 nullValues = Util.bitSetBetween(0, valueCount);
@@ -540,84 +664,239 @@ public class SegmentBuilder {
             }
         }
 
-        // Create header.
-        final List<SegmentColumn> constrainedColumns =
-            new ArrayList<>();
-        for (int i = 0; i < axes.size(); i++) {
-            AxisInfo axisInfo = axes.get(i);
+        return body;
+    }
 
-            constrainedColumns.add(
-                new SegmentColumn(
-                    axisInfo.column.getColumnExpression(),
-                    axisInfo.column.getValueCount(),
-                    axisInfo.lostPredicate
-                        ? axisList.get(i).left
-                        : axisInfo.column.values));
+    /**
+     * Rolls up dense segments of native values without boxing them.
+     *
+     * <p>For each axis of each source segment, maps every ordinal once to
+     * its contribution to the offset of the target cell, then walks the
+     * source array one stripe of the innermost axis at a time and combines
+     * the values straight into a {@code double[]} or {@code int[]} target
+     * using the aggregator's primitive combine.</p>
+     *
+     * @return Rolled up body, or null if a source is not a dense segment of
+     * native values that this method can read, if the target would be
+     * larger than the sources, or if the sources overlap and cells would
+     * have to be de-duplicated
+     */
+    private static SegmentBody rollupPrimitive(
+        List<Map.Entry<SegmentHeader, SegmentBody>> segments,
+        int[] axisSources,
+        Comparable[][] axisValues,
+        boolean[] axisHasNull,
+        List<Pair<SortedSet<Comparable>, Boolean>> axisList,
+        BigInteger bigValueCount,
+        RolapAggregator aggregator,
+        Datatype datatype,
+        int sparseSegmentCountThreshold,
+        double sparseSegmentDensityThreshold)
+    {
+        final boolean intTarget = datatype == Datatype.INTEGER;
+        long sourceCellCount = 0;
+        for (Map.Entry<SegmentHeader, SegmentBody> entry : segments) {
+            final SegmentBody body = entry.getValue();
+            if (body instanceof DenseIntSegmentBody) {
+                sourceCellCount += ((int[]) body.getValueArray()).length;
+            } else if (body instanceof DenseDoubleSegmentBody && !intTarget) {
+                sourceCellCount += ((double[]) body.getValueArray()).length;
+            } else {
+                return null;
+            }
+            if (body.getAxisValueSets().length == 0) {
+                return null;
+            }
         }
-        final SegmentHeader header =
-            new SegmentHeader(
-                firstHeader.schemaName,
-                firstHeader.schemaChecksum,
-                firstHeader.cubeName,
-                firstHeader.measureName,
-                constrainedColumns,
-                firstHeader.compoundPredicates,
-                firstHeader.rolapStarFactTableName,
-                targetBitkey,
-                Collections.<SegmentColumn>emptyList());
-        if (LOGGER.isDebugEnabled()) {
-            StringBuilder builder = new StringBuilder();
-            builder.append("SegmentBuilder.rollup: done rolling up segments with parameters: \n");
-            builder.append("keepColumns=").append(keepColumns).append("\n");
-            builder.append("aggregator=").append(rollupAggregator).append("\n");
-            builder.append("datatype=").append(datatype).append("\n");
-            for (Map.Entry<SegmentHeader, SegmentBody > segment : segments) {
-                builder.append(segment.getKey()).append("\n");
+        if (bigValueCount.compareTo(BigInteger.valueOf(sourceCellCount)) > 0
+            || bigValueCount.compareTo(BigInteger.valueOf(Integer.MAX_VALUE))
+                > 0
+            || segmentsOverlap(segments))
+        {
+            return null;
+        }
+
+        final int valueCount = bigValueCount.intValue();
+        final int[] targetMultipliers = computeAxisMultipliers(axisList);
+        final double[] doubles = intTarget ? null : new double[valueCount];
+        final int[] ints = intTarget ? new int[valueCount] : null;
+        final BitSet present = new BitSet(valueCount);
+
+        for (Map.Entry<SegmentHeader, SegmentBody> entry : segments) {
+            final SegmentBody body = entry.getValue();
+            final SortedSet<Comparable>[] sourceValueSets =
+                body.getAxisValueSets();
+            final boolean[] sourceNullAxisFlags = body.getNullAxisFlags();
+
+            // Contribution of each ordinal of each source axis to the offset
+            // of the target cell, or -1 if the target has no such value.
+            // Axes that are projected away contribute 0.
+            final int[][] contributions = new int[sourceValueSets.length][];
+            for (int i = 0; i < sourceValueSets.length; i++) {
+                contributions[i] =
+                    new int[sourceValueSets[i].size()
+                        + (sourceNullAxisFlags[i] ? 1 : 0)];
             }
-            if (LOGGER.isTraceEnabled()) {
-              builder.append("AxisInfos constructed:");
-              for (AxisInfo axis : axes) {
-                  SortedSet<Comparable> colVals = axis.column.getValues();
-                  builder.append(
-                      String.format(
-                          LOG_FORMAT_STRING,
-                          axis.column.columnExpression,
-                          axis.column.getValueCount(),
-                          Arrays.toString(
-                              colVals == null ? null
-                              : colVals.toArray()),
-                          axis.requestedValues,
-                          axis.valueSet,
-                          Arrays.asList(axis.values),
-                          axis.hasNull,
-                          axis.src,
-                          axis.lostPredicate));
-              }
+            for (int z = 0; z < axisSources.length; z++) {
+                final int i = axisSources[z];
+                final int[] contribution = contributions[i];
+                final int nullOrdinal = axisValues[z].length;
+                int ordinal = 0;
+                for (Comparable value : sourceValueSets[i]) {
+                    final int targetOrdinal =
+                        value == null
+                            ? (axisHasNull[z] ? nullOrdinal : -1)
+                            : Util.binarySearch(
+                                axisValues[z], 0, axisValues[z].length, value);
+                    contribution[ordinal++] =
+                        targetOrdinal < 0
+                            ? -1
+                            : targetOrdinal * targetMultipliers[z];
+                }
+                if (sourceNullAxisFlags[i]) {
+                    contribution[ordinal] =
+                        axisHasNull[z]
+                            ? nullOrdinal * targetMultipliers[z]
+                            : -1;
+                }
             }
-            builder.append("Resulted in Segment:  \n");
-            builder.append(header);
-            if (LOGGER.isTraceEnabled()) {
-              builder.append(body.toString());
+
+            final BitSet sourceNullValues = body.getNullValueIndicators();
+            final int[] sourceInts = body instanceof DenseIntSegmentBody
+                ? (int[]) body.getValueArray()
+                : null;
+            final double[] sourceDoubles = sourceInts == null
+                ? (double[]) body.getValueArray()
+                : null;
+            final int sourceLength = sourceInts != null
+                ? sourceInts.length
+                : sourceDoubles.length;
+            if (sourceLength == 0) {
+                continue;
+            }
+
+            final int last = contributions.length - 1;
+            final int[] stripe = contributions[last];
+            final int[] ordinals = new int[last];
+            int offset = 0;
+            while (true) {
+                int base = 0;
+                for (int i = 0; i < last && base >= 0; i++) {
+                    final int contribution = contributions[i][ordinals[i]];
+                    base = contribution < 0 ? -1 : base + contribution;
+                }
+                // The value array may be shorter than the axes imply; the
+                // missing trailing cells are null.
+                final int stripeLength =
+                    Math.min(stripe.length, sourceLength - offset);
+                if (base >= 0) {
+                    for (int k = 0; k < stripeLength; k++) {
+                        if (stripe[k] < 0) {
+                            continue;
+                        }
+                        final int source = offset + k;
+                        final int target = base + stripe[k];
+                        if (intTarget) {
+                            final int value = sourceInts[source];
+                            if (value == 0 && sourceNullValues.get(source)) {
+                                continue;
+                            }
+                            ints[target] = present.get(target)
+                                ? aggregator.combine(ints[target], value)
+                                : value;
+                        } else {
+                            final double value = sourceInts != null
+                                ? sourceInts[source]
+                                : sourceDoubles[source];
+                            if (value == 0d && sourceNullValues.get(source)) {
+                                continue;
+                            }
+                            doubles[target] = present.get(target)
+                                ? aggregator.combine(doubles[target], value)
+                                : value;
+                        }
+                        present.set(target);
+                    }
+                }
+                offset += stripe.length;
+                if (offset >= sourceLength) {
+                    break;
+                }
+
+                // Move to the next stripe.
+                int i = last - 1;
+                while (i >= 0 && ++ordinals[i] == contributions[i].length) {
+                    ordinals[i] = 0;
+                    --i;
+                }
+                if (i < 0) {
+                    break;
+                }
             }
-            builder.append(", ").append(System.currentTimeMillis() - startTime).append(" ms \n");
-            LOGGER.debug(builder.toString());
         }
-        return Pair.of(header, body);
+
+        final int cellCount = present.cardinality();
+        if (cellCount == 0) {
+            return new DenseObjectSegmentBody(new Object[0], axisList);
+        }
+        if (SegmentLoader.useSparse(
+                bigValueCount.doubleValue(),
+                cellCount,
+                sparseSegmentCountThreshold,
+                sparseSegmentDensityThreshold))
+        {
+            final Map<CellKey, Object> data = new HashMap<>();
+            final int[] pos = new int[axisList.size()];
+            for (int offset = present.nextSetBit(0); offset >= 0;
+                offset = present.nextSetBit(offset + 1))
+            {
+                int remainder = offset;
+                for (int z = 0; z < pos.length; z++) {
+                    pos[z] = remainder / targetMultipliers[z];
+                    remainder %= targetMultipliers[z];
+                }
+                data.put(
+                    CellKey.Generator.newCellKey(pos),
+                    intTarget ? (Object) ints[offset] : doubles[offset]);
+            }
+            return new SparseSegmentBody(data, axisList);
+        }
+        final BitSet nullValues = Util.bitSetBetween(0, valueCount);
+        nullValues.andNot(present);
+        return intTarget
+            ? new DenseIntSegmentBody(nullValues, ints, axisList)
+            : new DenseDoubleSegmentBody(nullValues, doubles, axisList);
     }
 
-    private static boolean allHeadersHaveSameDimensionality(
-        Set<SegmentHeader> headers)
+    /**
+     * Returns whether any two segments have a cell in common, in which case
+     * the cell must be counted only once when they are rolled up together.
+     */
+    private static boolean segmentsOverlap(
+        List<Map.Entry<SegmentHeader, SegmentBody>> segments)
     {
-        final Iterator<SegmentHeader> headerIter = headers.iterator();
-        final SegmentHeader firstHeader = headerIter.next();
-        BitKey bitKey = firstHeader.getConstrainedColumnsBitKey();
-        while (headerIter.hasNext()) {
-            final SegmentHeader nextHeader = headerIter.next();
-            if (!bitKey.equals(nextHeader.getConstrainedColumnsBitKey())) {
-                return false;
+        for (int a = 0; a < segments.size(); a++) {
+            final SegmentBody bodyA = segments.get(a).getValue();
+            for (int b = a + 1; b < segments.size(); b++) {
+                final SegmentBody bodyB = segments.get(b).getValue();
+                boolean overlap = true;
+                for (int i = 0;
+                    overlap && i < bodyA.getAxisValueSets().length;
+                    i++)
+                {
+                    overlap =
+                        (bodyA.getNullAxisFlags()[i]
+                            && bodyB.getNullAxisFlags()[i])
+                        || !Util.intersect(
+                            bodyA.getAxisValueSets()[i],
+                            bodyB.getAxisValueSets()[i]).isEmpty();
+                }
+                if (overlap) {
+                    return true;
+                }
             }
         }
-        return true;
+        return false;
     }
 
     private static int[] computeAxisMultipliers(
@@ -10,6 +10,7 @@
 package mondrian.rolap.agg;
 
 import java.io.PrintWriter;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -19,15 +20,18 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
-
+import java.util.function.IntFunction;
 import org.eclipse.daanse.olap.api.CacheControl.CellRegion;
 import org.eclipse.daanse.olap.api.Context;
 import org.eclipse.daanse.olap.api.Locus;
@@ -55,6 +59,8 @@ import mondrian.rolap.RolapStoredMeasure;
 import mondrian.rolap.RolapUtil;
 import mondrian.rolap.SchemaKey;
 import mondrian.rolap.cache.MemorySegmentCache;
+import mondrian.rolap.cache.DiskSegmentCache;
+import mondrian.rolap.cache.OffHeapSegmentCache;
 import mondrian.rolap.cache.SegmentCacheIndex;
 import mondrian.rolap.cache.SegmentCacheIndexImpl;
 import mondrian.server.ExecutionImpl;
@@ -65,6 +71,7 @@ import mondrian.spi.SegmentColumn;
 import mondrian.spi.SegmentHeader;
 import mondrian.util.BlockingHashMap;
 import mondrian.util.Pair;
+import mondrian.util.VirtualThreadExecutor;
 
 @SuppressWarnings( { "JavaDoc", "squid:S1192", "squid:S4274" } )
 // suppressing warnings for asserts, duplicated string constants
@@ -73,6 +80,16 @@ import mondrian.util.Pair;
  * Active object that maintains the "global cache" (in JVM, but shared between connections using a particular schema)
  * and "external cache" (as implemented by a {@link mondrian.spi.SegmentCache}.
  *
+ * <p>The manager is partitioned by fact table. Each partition has its own
+ * actor thread, its own queue and its own {@link SegmentCacheIndex}es, so
+ * commands and events for unrelated stars do not queue behind each other.
+ * A command that works on the index of a star must be sent to the partition of
+ * that star, via {@link #execute(RolapStar, Command)}. Commands that span
+ * several stars (flush, cancellation) are broadcast to every partition, and
+ * each partition only touches the stars it owns. The number of partitions is
+ * set by {@code segmentCacheManagerNumberActors}; by default there is a
+ * single partition, which owns every star.</p>
+ *
  * <p>Segment states</p>
  *
  * <table>
@@ -249,7 +266,21 @@ import mondrian.util.Pair;
  */
 public class SegmentCacheManager {
   private final Handler handler = new Handler();
-  private final Actor actor;
+
+  /**
+   * One actor per partition. Partition 0 is the default partition, which
+   * receives commands that are not bound to a star.
+   */
+  private final Actor[] actors;
+
+  /**
+   * Threads of the partition actors, indexed by partition.
+   */
+  private final List<Thread> threads;
+
+  /**
+   * Thread of the default partition.
+   */
   public final Thread thread;
   private final Set<String> starFactTablesToSync;
 
@@ -266,6 +297,14 @@ public class SegmentCacheManager {
    */
   public ExecutorService sqlExecutor;
 
+  /**
+   * Semaphores that limit concurrent SQL segment loads per data source, if
+   * executors use virtual threads. Keyed by data source, or by context if
+   * the context has none. Guarded by itself.
+   */
+  private static final Map<Object, SqlPermits> SQL_PERMITS =
+    new WeakHashMap<>();
+
   // NOTE: This list is only mutable for testing purposes. Would rather it
   // were immutable.
   public final List<SegmentCacheWorker> segmentCacheWorkers =
@@ -288,11 +327,20 @@ public class SegmentCacheManager {
     this.context = context;
     this.sqlExecutor = createSqlExecutor(context);
     this.cacheExecutor = createCacheExecutor(context);
-    actor = new Actor();
-    thread = new Thread(
-      actor, "mondrian.rolap.agg.SegmentCacheManager$ACTOR" );
-    thread.setDaemon( true );
-    thread.start();
+    final int actorCount =
+      Math.max( 1, context.getConfig().segmentCacheManagerNumberActors() );
+    actors = new Actor[ actorCount ];
+    final List<Thread> threadList = new ArrayList<>( actorCount );
+    for ( int i = 0; i < actorCount; i++ ) {
+      actors[ i ] = new Actor();
+      final Thread actorThread = new Thread(
+        actors[ i ], "mondrian.rolap.agg.SegmentCacheManager$ACTOR-" + i );
+      actorThread.setDaemon( true );
+      actorThread.start();
+      threadList.add( actorThread );
+    }
+    threads = Collections.unmodifiableList( threadList );
+    thread = threads.get( 0 );
 
     // Create the index registry.
     this.indexRegistry = new SegmentCacheIndexRegistry();
@@ -300,9 +348,34 @@ public class SegmentCacheManager {
     // Add a local cache, if needed.
     if ( !context.getConfig().disableLocalSegmentCache()
       && !context.getConfig().disableCaching() ) {
-      final MemorySegmentCache cache = new MemorySegmentCache();
+      final long offHeapBytes = context.getConfig().segmentCacheOffHeapBytes();
+      final SegmentCache cache;
+      if ( offHeapBytes > 0 ) {
+        cache = new OffHeapSegmentCache( offHeapBytes );
+        // The off-heap cache evicts segments by itself. Its eviction events
+        // are not local, so the listener removes them from the index.
+        cache.addListener(
+          new AsyncCacheListener( this, context ) );
+      } else {
+        cache = new MemorySegmentCache();
+      }
       segmentCacheWorkers.add(
-        new SegmentCacheWorker( cache, thread ) );
+        new SegmentCacheWorker( cache, threads ) );
+    }
+
+    // Add a disk cache of this context, if configured.
+    final String diskDirectory = context.getConfig().segmentCacheDiskDirectory();
+    if ( diskDirectory != null && !diskDirectory.isEmpty() ) {
+      final SegmentCache cache =
+        DiskSegmentCache.forContext(
+          Paths.get( diskDirectory ), context.getName(),
+          context.getConfig().segmentCacheDiskMaxBytes() );
+      segmentCacheWorkers.add(
+        new SegmentCacheWorker( cache, threads ) );
+      // Segments found on disk, and segments the cache evicts, update the
+      // segment index.
+      cache.addListener(
+        new AsyncCacheListener( this, context ) );
     }
 
     // Add an external cache, if configured.
@@ -310,7 +383,7 @@ public class SegmentCacheManager {
     for ( SegmentCache cache : externalCache ) {
       // Create a worker for this external cache
       segmentCacheWorkers.add(
-        new SegmentCacheWorker( cache, thread ) );
+        new SegmentCacheWorker( cache, threads ) );
       // Hook up a listener so it can update
       // the segment index.
       cache.addListener(
@@ -329,6 +402,13 @@ public class SegmentCacheManager {
   }
 
     private ExecutorService createCacheExecutor(Context context) {
+        final String name =
+            "mondrian.rolap.agg.SegmentCacheManager$cacheExecutor";
+        if ( context.getConfig().virtualThreads() ) {
+            return new VirtualThreadExecutor(
+                name,
+                context.getConfig().segmentCacheManagerNumberCacheThreads() );
+        }
         return Util.getExecutorService(
             // We use the same value for coreSize and maxSize
             // because that's the behavior we want. All extra
@@ -338,13 +418,18 @@ public class SegmentCacheManager {
             context.getConfig()
                 .segmentCacheManagerNumberCacheThreads(),
             1,
-            "mondrian.rolap.agg.SegmentCacheManager$cacheExecutor",
+            name,
             ( r, executor ) -> {
                 throw new MondrianException(segmentCacheLimitReached);
             } );
     }
 
     private ExecutorService createSqlExecutor(Context context) {
+        final String name =
+            "mondrian.rolap.agg.SegmentCacheManager$sqlExecutor";
+        if ( context.getConfig().virtualThreads() ) {
+            return new VirtualThreadExecutor( name, getSqlPermits( context ) );
+        }
         return Util.getExecutorService(
             // We use the same value for coreSize and maxSize
             // because that's the behavior we want. All extra
@@ -354,12 +439,59 @@ public class SegmentCacheManager {
             context.getConfig()
                 .segmentCacheManagerNumberSqlThreads(),
             1,
-            "mondrian.rolap.agg.SegmentCacheManager$sqlExecutor",
+            name,
             ( r, executor ) -> {
                 throw new MondrianException(sqlQueryLimitReached);
             } );
     }
 
+    /**
+     * Returns the semaphore that limits the number of concurrent SQL segment
+     * loads on the data source of a context. All segment cache managers of
+     * all contexts that use the data source share it.
+     *
+     * <p>The limit is the smallest {@code segmentCacheManagerNumberSqlThreads}
+     * of the contexts that use the data source with virtual threads. If it
+     * changes, loads which start afterwards use a new semaphore with the new
+     * limit.</p>
+     */
+    static Semaphore getSqlPermits( Context context ) {
+        final int permits =
+            context.getConfig().segmentCacheManagerNumberSqlThreads();
+        if ( permits <= 0 ) {
+            return null;
+        }
+        final Object key = context.getDataSource() == null
+            ? context
+            : context.getDataSource();
+        synchronized ( SQL_PERMITS ) {
+            SqlPermits sqlPermits =
+                SQL_PERMITS.computeIfAbsent( key, k -> new SqlPermits() );
+            sqlPermits.limits.put( context, permits );
+            final int limit = Collections.min( sqlPermits.limits.values() );
+            if ( sqlPermits.semaphore == null || sqlPermits.permits != limit ) {
+                if ( sqlPermits.semaphore != null ) {
+                    LOGGER.info(
+                        "Limit of concurrent SQL segment loads on the data source of context {} changed from {} to {}",
+                        context.getName(), sqlPermits.permits, limit );
+                }
+                sqlPermits.semaphore = new Semaphore( limit, true );
+                sqlPermits.permits = limit;
+            }
+            return sqlPermits.semaphore;
+        }
+    }
+
+    /**
+     * Limit of concurrent SQL segment loads on a data source, and the limits
+     * configured by the contexts that use it.
+     */
+    private static class SqlPermits {
+        private final Map<Context, Integer> limits = new WeakHashMap<>();
+        private Semaphore semaphore;
+        private int permits;
+    }
+
     /**
    * Load external cached elements for received star. Similar to {@link #externalSegmentCreated(SegmentHeader,
    * MondrianServer) externalSegmentCreated} but the index is created if not there.
@@ -399,8 +531,133 @@ public class SegmentCacheManager {
     return false;
   }
 
+  /**
+   * Executes a command on the default partition.
+   *
+   * <p>Use this only for commands that do not access the index of a star;
+   * otherwise use {@link #execute(RolapStar, Command)}.</p>
+   */
   public <T> T execute( Command<T> command ) {
-    return actor.execute( handler, command );
+    return actors[ 0 ].execute( handler, command );
+  }
+
+  /**
+   * Executes a command on the partition that owns a given star.
+   *
+   * @param star    Star whose segment index the command accesses
+   * @param command Command
+   * @return Result of the command
+   */
+  public <T> T execute( RolapStar star, Command<T> command ) {
+    return actorFor( star ).execute( handler, command );
+  }
+
+  /**
+   * Executes one command on every partition, and waits for all of them.
+   *
+   * <p>All commands are queued before the first response is awaited, so the
+   * partitions work in parallel.</p>
+   *
+   * @param commandFactory Creates the command for a given partition
+   * @return Results, indexed by partition
+   */
+  private <T> List<T> executeOnAllPartitions(
+    IntFunction<Command<T>> commandFactory ) {
+    final List<Command<T>> commands = new ArrayList<>( actors.length );
+    for ( int i = 0; i < actors.length; i++ ) {
+      final Command<T> command = commandFactory.apply( i );
+      actors[ i ].submit( handler, command );
+      commands.add( command );
+    }
+    final List<T> results = new ArrayList<>( actors.length );
+    for ( int i = 0; i < actors.length; i++ ) {
+      results.add( actors[ i ].awaitResponse( commands.get( i ) ) );
+    }
+    return results;
+  }
+
+  /**
+   * Returns the number of partitions (actors) of this cache manager.
+   */
+  public int getPartitionCount() {
+    return actors.length;
+  }
+
+  /**
+   * Returns the actor threads, indexed by partition.
+   */
+  List<Thread> getThreads() {
+    return threads;
+  }
+
+  /**
+   * Returns the partition that owns the segments of a given fact table.
+   *
+   * @param factTableAlias Alias of the fact table of a star
+   * @return Partition ordinal
+   */
+  int partitionOf( String factTableAlias ) {
+    if ( factTableAlias == null ) {
+      return 0;
+    }
+    return Math.floorMod( factTableAlias.hashCode(), actors.length );
+  }
+
+  private Actor actorFor( RolapStar star ) {
+    return actors[ partitionOf( star.getFactTable().getAlias() ) ];
+  }
+
+  private Actor actorFor( SegmentHeader header ) {
+    return actors[ partitionOf( header.rolapStarFactTableName ) ];
+  }
+
+  /**
+   * Flushes a region from all partitions.
+   *
+   * <p>Each partition flushes the segments of the stars it owns. The
+   * returned result contains the tasks of all partitions.</p>
+   *
+   * @param locus            Locus
+   * @param region           Region to flush
+   * @param cacheControlImpl Cache control, for tracing
+   * @return Tasks that flush the segments from the external caches
+   */
+  public FlushResult flush(
+    Locus locus,
+    CellRegion region,
+    CacheControlImpl cacheControlImpl ) {
+    final List<Callable<Boolean>> tasks = new ArrayList<>();
+    for ( FlushResult result : executeOnAllPartitions(
+      partition -> new FlushCommand(
+        locus, this, region, cacheControlImpl, partition ) ) ) {
+      tasks.addAll( result.tasks );
+    }
+    return new FlushResult( tasks );
+  }
+
+  /**
+   * Unregisters an execution from the segments it is waiting for, in all
+   * partitions.
+   *
+   * @param locus     Locus
+   * @param execution Execution
+   */
+  public void cancelExecutionSegments(
+    final Locus locus,
+    final ExecutionImpl execution ) {
+    executeOnAllPartitions(
+      partition -> new Command<Void>() {
+        @Override
+        public Void call() {
+          indexRegistry.cancelExecutionSegments( execution, partition );
+          return null;
+        }
+
+        @Override
+        public Locus getLocus() {
+          return locus;
+        }
+      } );
   }
 
   public SegmentCacheIndexRegistry getIndexRegistry() {
@@ -423,7 +680,7 @@ public class SegmentCacheManager {
     SegmentHeader header,
     SegmentBody body ) {
     final Locus locus = LocusImpl.peek();
-    actor.event(
+    actorFor( star ).event(
       handler,
       new SegmentLoadSucceededEvent(
     	Instant.now(),
@@ -452,7 +709,7 @@ public class SegmentCacheManager {
     SegmentHeader header,
     Throwable throwable ) {
     final Locus locus = LocusImpl.peek();
-    actor.event(
+    actorFor( star ).event(
       handler,
       new SegmentLoadFailedEvent(
         System.currentTimeMillis(),
@@ -480,7 +737,7 @@ public class SegmentCacheManager {
     RolapStar star,
     SegmentHeader header ) {
     final Locus locus = LocusImpl.peek();
-    actor.event(
+    actorFor( star ).event(
       handler,
       new SegmentRemoveEvent(
 	    Instant.now(),
@@ -505,7 +762,7 @@ public class SegmentCacheManager {
       // Ignore cache requests.
       return;
     }
-    actor.event(
+    actorFor( header ).event(
       handler,
       new ExternalSegmentCreatedEvent(
     	Instant.now(),
@@ -528,7 +785,7 @@ public class SegmentCacheManager {
       // Ignore cache requests.
       return;
     }
-    actor.event(
+    actorFor( header ).event(
       handler,
       new ExternalSegmentDeletedEvent(
     	Instant.now(),
@@ -545,16 +802,21 @@ public class SegmentCacheManager {
     CellRegion region,
     PrintWriter pw,
     Locus locus ) {
-    actor.execute(
-      handler,
-      new PrintCacheStateCommand( region, pw, locus ) );
+    final List<RolapStar> starList =
+      CacheControlImpl.getStarList( region );
+    starList.sort( Comparator.comparing( o -> o.getFactTable().getAlias() ) );
+    for ( RolapStar star : starList ) {
+      execute( star, new PrintCacheStateCommand( star, pw, locus ) );
+    }
   }
 
   /**
    * Shuts down this cache manager and all active threads and indexes.
    */
   public void shutdown() {
-    execute( new ShutdownCommand() );
+    for ( Actor actor : actors ) {
+      actor.execute( handler, new ShutdownCommand() );
+    }
     cacheExecutor.shutdown();
     sqlExecutor.shutdown();
   }
@@ -599,6 +861,7 @@ public class SegmentCacheManager {
     }
     final SegmentCacheManager.PeekResponse response =
       execute(
+        request.getMeasure().getStar(),
         new PeekCommand( request, locus ) );
     for ( SegmentHeader header : response.headerMap.keySet() ) {
       final SegmentBody body = compositeCache.get( header );
@@ -834,16 +1097,31 @@ public class SegmentCacheManager {
     private final CacheControlImpl cacheControlImpl;
     private final Locus locus;
     private final SegmentCacheManager cacheMgr;
+    private final int partition;
 
+    /**
+     * Creates a FlushCommand.
+     *
+     * <p>The command only flushes the stars owned by {@code partition}, and
+     * must be executed on that partition. Use
+     * {@link SegmentCacheManager#flush} to flush all partitions.</p>
+     */
     public FlushCommand(
       Locus locus,
       SegmentCacheManager mgr,
       CellRegion region,
-      CacheControlImpl cacheControlImpl ) {
+      CacheControlImpl cacheControlImpl,
+      int partition ) {
       this.locus = locus;
       this.cacheMgr = mgr;
       this.region = region;
       this.cacheControlImpl = cacheControlImpl;
+      this.partition = partition;
+    }
+
+    private boolean owns( RolapStar star ) {
+      return cacheMgr.partitionOf( star.getFactTable().getAlias() )
+        == partition;
     }
 
     @Override
@@ -855,7 +1133,12 @@ public class SegmentCacheManager {
 	public FlushResult call() {
       final List<Member> measures = CacheControlImpl.findMeasures( region );
       final SegmentColumn[] flushRegion = CacheControlImpl.findAxisValues( region );
-      final List<RolapStar> starList = CacheControlImpl.getStarList( region );
+      final List<RolapStar> starList = new ArrayList<>();
+      for ( RolapStar star : CacheControlImpl.getStarList( region ) ) {
+        if ( owns( star ) ) {
+          starList.add( star );
+        }
+      }
 
       final List<SegmentHeader> headers = getIntersectingHeaders( measures, flushRegion );
 
@@ -970,6 +1253,9 @@ public class SegmentCacheManager {
           continue;
         }
         final RolapStar star = storedMeasure.getCube().getStar();
+        if ( !owns( star ) ) {
+          continue;
+        }
         final SegmentCacheIndex index =
           cacheMgr.indexRegistry.getIndex( star );
         headers.addAll(
@@ -994,26 +1280,21 @@ public class SegmentCacheManager {
     extends SegmentCacheManager.Command<Void> {
     private final PrintWriter pw;
     private final Locus locus;
-    private final CellRegion region;
+    private final RolapStar star;
 
     public PrintCacheStateCommand(
-      CellRegion region,
+      RolapStar star,
       PrintWriter pw,
       Locus locus ) {
-      this.region = region;
+      this.star = star;
       this.pw = pw;
       this.locus = locus;
     }
 
     @Override
 	public Void call() {
-      final List<RolapStar> starList =
-        CacheControlImpl.getStarList( region );
-      starList.sort( Comparator.comparing( o -> o.getFactTable().getAlias() ) );
-      for ( RolapStar star : starList ) {
-        indexRegistry.getIndex( star )
-          .printCacheState( pw );
-      }
+      indexRegistry.getIndex( star )
+        .printCacheState( pw );
       return null;
     }
 
@@ -1153,6 +1434,11 @@ public class SegmentCacheManager {
     }
 
     <T> T execute( Handler handler, Command<T> command ) {
+      submit( handler, command );
+      return awaitResponse( command );
+    }
+
+    void submit( Handler handler, Command<?> command ) {
       if ( shuttingDown.get() ) {
         throw Util.newError( "Command submitted after shutdown " + command );
       }
@@ -1162,6 +1448,9 @@ public class SegmentCacheManager {
         Thread.currentThread().interrupt();
         throw Util.newError( e, "Exception while executing " + command );
       }
+    }
+
+    <T> T awaitResponse( Command<T> command ) {
       try {
         final Pair<Object, Throwable> pair =
           responseMap.get( command );
@@ -1661,12 +1950,13 @@ public class SegmentCacheManager {
   /**
    * Registry of all the indexes that were created for this cache manager, per {@link RolapStar}.
    * <p>
-   * The index is based off the checksum of the schema.
+   * The index is based off the checksum of the schema and the alias of the
+   * fact table. Each index is bound to the thread of the partition that owns
+   * its fact table.
    */
   public class SegmentCacheIndexRegistry {
-    private final Map<SchemaKey, SegmentCacheIndex> indexes =
-      Collections.synchronizedMap(
-        new HashMap<>() );
+    private final Map<Pair<SchemaKey, String>, SegmentCacheIndex> indexes =
+      new ConcurrentHashMap<>();
 
     /**
      * Returns the {@link SegmentCacheIndex} for a given {@link RolapStar}.
@@ -1676,16 +1966,19 @@ public class SegmentCacheManager {
         "SegmentCacheManager.SegmentCacheIndexRegistry.getIndex:"
           + System.identityHashCode( star ) );
 
-      if ( !indexes.containsKey( star.getSchema().getKey() ) ) {
-        final SegmentCacheIndexImpl index =
-          new SegmentCacheIndexImpl( thread );
-        LOGGER.trace(
-          "SegmentCacheManager.SegmentCacheIndexRegistry.getIndex:Creating New Index {}"
-            + System.identityHashCode( index ) );
-        indexes.put( star.getSchema().getKey(), index );
-      }
+      final String factTableAlias = star.getFactTable().getAlias();
       final SegmentCacheIndex index =
-        indexes.get( star.getSchema().getKey() );
+        indexes.computeIfAbsent(
+          Pair.of( star.getSchema().getKey(), factTableAlias ),
+          key -> {
+            final SegmentCacheIndexImpl newIndex =
+              new SegmentCacheIndexImpl(
+                threads.get( partitionOf( factTableAlias ) ) );
+            LOGGER.trace(
+              "SegmentCacheManager.SegmentCacheIndexRegistry.getIndex:Creating New Index {}",
+                System.identityHashCode( newIndex ) );
+            return newIndex;
+          } );
       LOGGER.trace(
         "SegmentCacheManager.SegmentCacheIndexRegistry.getIndex:Returning Index {}",
           System.identityHashCode( index ) );
@@ -1708,9 +2001,16 @@ public class SegmentCacheManager {
       }
     }
 
-    public void cancelExecutionSegments( ExecutionImpl exec ) {
-      for ( SegmentCacheIndex index : indexes.values() ) {
-        index.cancel( exec );
+    /**
+     * Cancels the registrations of an execution in the indexes owned by a
+     * partition. Must be called on the thread of that partition.
+     */
+    public void cancelExecutionSegments( ExecutionImpl exec, int partition ) {
+      for ( Map.Entry<Pair<SchemaKey, String>, SegmentCacheIndex> entry
+        : indexes.entrySet() ) {
+        if ( partitionOf( entry.getKey().right ) == partition ) {
+          entry.getValue().cancel( exec );
+        }
       }
     }
   }
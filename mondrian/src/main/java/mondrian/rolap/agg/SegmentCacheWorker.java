@@ -10,6 +10,7 @@
 package mondrian.rolap.agg;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import mondrian.olap.MondrianException;
@@ -45,7 +46,7 @@ public final class SegmentCacheWorker {
     """;
 
     final SegmentCache cache;
-    private final Thread cacheMgrThread;
+    private final Collection<Thread> cacheMgrThreads;
     private final boolean supportsRichIndex;
     private final static String segmentCacheFailedToDeleteSegment =
         "An exception was encountered while deleting a segment from the SegmentCache.";
@@ -56,14 +57,17 @@ public final class SegmentCacheWorker {
      * Creates a worker.
      *
      * @param cache Cache managed by this worker
-     * @param cacheMgrThread Thread that the cache manager actor is running on,
-     *                       and which therefore should not be used for
+     * @param cacheMgrThreads Threads that the cache manager actors are running
+     *                       on, and which therefore should not be used for
      *                       potentially long-running calls this this cache.
      *                       Pass null if methods can be called from any thread.
      */
-    public SegmentCacheWorker(SegmentCache cache, Thread cacheMgrThread) {
+    public SegmentCacheWorker(
+        SegmentCache cache,
+        Collection<Thread> cacheMgrThreads)
+    {
         this.cache = cache;
-        this.cacheMgrThread = cacheMgrThread;
+        this.cacheMgrThreads = cacheMgrThreads;
 
         // no need to call checkThread(): supportsRichIndex is a fast call
         this.supportsRichIndex = cache.supportsRichIndex();
@@ -218,8 +222,9 @@ public final class SegmentCacheWorker {
     }
 
     private void checkThread() {
-        assert cacheMgrThread != Thread.currentThread()
+        assert cacheMgrThreads == null
+            || !cacheMgrThreads.contains(Thread.currentThread())
             : new StringBuilder("this method is potentially slow; you should not call it from ")
-            .append("the cache manager thread, ").append(cacheMgrThread);
+            .append("a cache manager thread, ").append(Thread.currentThread());
     }
 }
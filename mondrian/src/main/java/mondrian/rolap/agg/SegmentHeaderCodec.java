@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SortedSet;
+
+import mondrian.rolap.BitKey;
+import mondrian.spi.SegmentColumn;
+import mondrian.spi.SegmentHeader;
+import mondrian.util.ArraySortedSet;
+import mondrian.util.ByteString;
+
+/**
+ * Encodes {@link SegmentHeader} objects into a compact binary layout, and
+ * decodes them again.
+ *
+ * <p>Uses the same value, number and axis layouts as
+ * {@link SegmentBodyCodec}.</p>
+ */
+public final class SegmentHeaderCodec {
+
+    private SegmentHeaderCodec() {
+    }
+
+    /**
+     * Encodes a segment header.
+     *
+     * @param header Segment header
+     * @return Encoded header
+     */
+    public static byte[] encode(SegmentHeader header) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            SegmentBodyCodec.writeValue(out, header.schemaName);
+            final ByteString checksum = header.schemaChecksum;
+            final byte[] checksumBytes = new byte[checksum.length()];
+            for (int i = 0; i < checksumBytes.length; i++) {
+                checksumBytes[i] = checksum.byteAt(i);
+            }
+            SegmentBodyCodec.writeBytes(out, checksumBytes);
+            SegmentBodyCodec.writeValue(out, header.cubeName);
+            SegmentBodyCodec.writeValue(out, header.measureName);
+            writeColumns(out, header.getConstrainedColumns());
+            SegmentBodyCodec.writeVarLong(out, header.compoundPredicates.size());
+            for (String compoundPredicate : header.compoundPredicates) {
+                SegmentBodyCodec.writeValue(out, compoundPredicate);
+            }
+            SegmentBodyCodec.writeValue(out, header.rolapStarFactTableName);
+            writeBitKey(out, header.constrainedColsBitKey);
+            writeColumns(out, header.getExcludedRegions());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a segment header.
+     *
+     * <p>Reads from the current position of the buffer, and advances the
+     * position past the encoded header.</p>
+     *
+     * @param buffer Buffer containing an encoded header
+     * @return Segment header
+     */
+    public static SegmentHeader decode(ByteBuffer buffer) {
+        final String schemaName = (String) SegmentBodyCodec.readValue(buffer);
+        final ByteString schemaChecksum =
+            new ByteString(SegmentBodyCodec.readBytes(buffer));
+        final String cubeName = (String) SegmentBodyCodec.readValue(buffer);
+        final String measureName = (String) SegmentBodyCodec.readValue(buffer);
+        final List<SegmentColumn> constrainedColumns = readColumns(buffer);
+        final int compoundPredicateCount = SegmentBodyCodec.readVarInt(buffer);
+        final List<String> compoundPredicates =
+            new ArrayList<>(compoundPredicateCount);
+        for (int i = 0; i < compoundPredicateCount; i++) {
+            compoundPredicates.add((String) SegmentBodyCodec.readValue(buffer));
+        }
+        final String rolapStarFactTableName =
+            (String) SegmentBodyCodec.readValue(buffer);
+        final BitKey constrainedColsBitKey = readBitKey(buffer);
+        final List<SegmentColumn> excludedRegions = readColumns(buffer);
+        return new SegmentHeader(
+            schemaName,
+            schemaChecksum,
+            cubeName,
+            measureName,
+            constrainedColumns,
+            compoundPredicates,
+            rolapStarFactTableName,
+            constrainedColsBitKey,
+            excludedRegions);
+    }
+
+    private static void writeColumns(
+        DataOutputStream out, List<SegmentColumn> columns)
+        throws IOException
+    {
+        SegmentBodyCodec.writeVarLong(out, columns.size());
+        for (SegmentColumn column : columns) {
+            SegmentBodyCodec.writeValue(out, column.columnExpression);
+            SegmentBodyCodec.writeSignedVarLong(out, column.valueCount);
+            out.writeBoolean(column.values != null);
+            if (column.values != null) {
+                SegmentBodyCodec.writeAxisValues(out, column.values);
+            }
+        }
+    }
+
+    private static List<SegmentColumn> readColumns(ByteBuffer buffer) {
+        final int columnCount = SegmentBodyCodec.readVarInt(buffer);
+        final List<SegmentColumn> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            final String columnExpression =
+                (String) SegmentBodyCodec.readValue(buffer);
+            final long valueCount = SegmentBodyCodec.readSignedVarLong(buffer);
+            SortedSet<Comparable> values = null;
+            if (buffer.get() != 0) {
+                //noinspection unchecked
+                values = new ArraySortedSet(
+                    SegmentBodyCodec.readAxisValues(buffer));
+            }
+            columns.add(new SegmentColumn(columnExpression, valueCount, values));
+        }
+        return columns;
+    }
+
+    private static void writeBitKey(DataOutputStream out, BitKey bitKey)
+        throws IOException
+    {
+        // Keep the capacity class of the key, so that the decoded key
+        // combines with keys of the star like the original one.
+        final BitSet bitSet = bitKey.toBitSet();
+        final int size;
+        if (bitKey instanceof BitKey.Small) {
+            size = 0;
+        } else if (bitKey instanceof BitKey.Mid128) {
+            size = 64;
+        } else {
+            size = Math.max(128, bitSet.length());
+        }
+        SegmentBodyCodec.writeVarLong(out, size);
+        final long[] words = bitSet.toLongArray();
+        SegmentBodyCodec.writeVarLong(out, words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitKey readBitKey(ByteBuffer buffer) {
+        final BitKey bitKey =
+            BitKey.Factory.makeBitKey(SegmentBodyCodec.readVarInt(buffer));
+        final long[] words = new long[SegmentBodyCodec.readVarInt(buffer)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        final BitSet bitSet = BitSet.valueOf(words);
+        for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+            bitKey.set(i);
+        }
+        return bitKey;
+    }
+}
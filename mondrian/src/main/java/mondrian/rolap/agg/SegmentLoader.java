@@ -41,6 +41,8 @@ import mondrian.olap.ResourceLimitExceededException;
 import mondrian.olap.SystemWideProperties;
 import mondrian.olap.Util;
 import mondrian.rolap.BitKey;
+import mondrian.rolap.CellKey;
+import mondrian.rolap.RolapAggregator;
 import mondrian.rolap.RolapStar;
 import mondrian.rolap.RolapUtil;
 import mondrian.rolap.SqlStatement;
@@ -52,6 +54,7 @@ import mondrian.spi.SegmentBody;
 import mondrian.spi.SegmentColumn;
 import mondrian.spi.SegmentHeader;
 import mondrian.util.CancellationChecker;
+import mondrian.util.HyperLogLog;
 import mondrian.util.Pair;
 
 /**
@@ -123,6 +126,26 @@ public class SegmentLoader {
    */
   public void load( int cellRequestCount, List<GroupingSet> groupingSets, List<StarPredicate> compoundPredicateList,
       List<Future<Map<Segment, SegmentWithData>>> segmentFutures ) {
+    load( cellRequestCount, groupingSets, compoundPredicateList, null, segmentFutures );
+  }
+
+  /**
+   * Loads data for all the segments of the GroupingSets, as chosen by a planner.
+   *
+   * @param cellRequestCount
+   *          Number of missed cells that led to this request
+   * @param groupingSets
+   *          List of grouping sets whose segments are loaded
+   * @param compoundPredicateList
+   *          Compound predicates
+   * @param batchPlan
+   *          Description of the plan that chose the grouping sets, which is reported in the start event of the SQL
+   *          statement; may be null
+   * @param segmentFutures
+   *          List of futures wherein each statement will place a list of the segments it has loaded, when it completes
+   */
+  public void load( int cellRequestCount, List<GroupingSet> groupingSets, List<StarPredicate> compoundPredicateList,
+      String batchPlan, List<Future<Map<Segment, SegmentWithData>>> segmentFutures ) {
     if ( !cacheMgr.getContext().getConfig().disableCaching() ) {
       for ( GroupingSet groupingSet : groupingSets ) {
         for ( Segment segment : groupingSet.getSegments() ) {
@@ -137,7 +160,7 @@ public class SegmentLoader {
     }
     try {
       segmentFutures.add( cacheMgr.sqlExecutor.submit( new SegmentLoadCommand( LocusImpl.peek(), this, cellRequestCount,
-          groupingSets, compoundPredicateList ) ) );
+          groupingSets, compoundPredicateList, batchPlan ) ) );
     } catch ( Exception e ) {
       throw new MondrianException( e );
     }
@@ -149,14 +172,16 @@ public class SegmentLoader {
     private final int cellRequestCount;
     private final List<GroupingSet> groupingSets;
     private final List<StarPredicate> compoundPredicateList;
+    private final String batchPlan;
 
     public SegmentLoadCommand( Locus locus, SegmentLoader segmentLoader, int cellRequestCount,
-        List<GroupingSet> groupingSets, List<StarPredicate> compoundPredicateList ) {
+        List<GroupingSet> groupingSets, List<StarPredicate> compoundPredicateList, String batchPlan ) {
       this.locus = locus;
       this.segmentLoader = segmentLoader;
       this.cellRequestCount = cellRequestCount;
       this.groupingSets = groupingSets;
       this.compoundPredicateList = compoundPredicateList;
+      this.batchPlan = batchPlan;
     }
 
     @Override
@@ -164,7 +189,7 @@ public class SegmentLoader {
       LocusImpl.push( locus );
       try {
           boolean useAggregates = locus.getExecution().getMondrianStatement().getMondrianConnection().getContext().getConfig().useAggregates();
-        return segmentLoader.loadImpl( cellRequestCount, groupingSets, compoundPredicateList, useAggregates,
+        return segmentLoader.loadImpl( cellRequestCount, groupingSets, compoundPredicateList, batchPlan, useAggregates,
             locus.getExecution().getMondrianStatement().getMondrianConnection().getContext().getConfig().sparseSegmentCountThreshold(),
             locus.getExecution().getMondrianStatement().getMondrianConnection().getContext().getConfig().sparseSegmentDensityThreshold());
       } finally {
@@ -174,10 +199,10 @@ public class SegmentLoader {
   }
 
   private Map<Segment, SegmentWithData> loadImpl( int cellRequestCount, List<GroupingSet> groupingSets,
-      List<StarPredicate> compoundPredicateList, boolean useAggregates, int sparseSegmentCountThreshold,
+      List<StarPredicate> compoundPredicateList, String batchPlan, boolean useAggregates, int sparseSegmentCountThreshold,
                                                   double sparseSegmentDensityThreshold) {
     SqlStatement stmt = null;
-    GroupingSetsList groupingSetsList = new GroupingSetsList( groupingSets );
+    GroupingSetsList groupingSetsList = new GroupingSetsList( groupingSets, batchPlan );
     RolapStar.Column[] defaultColumns = groupingSetsList.getDefaultColumns();
 
     final Map<Segment, SegmentWithData> segmentMap = new HashMap<>();
@@ -277,6 +302,10 @@ public class SegmentLoader {
 
     final List<BestFitColumnType> types = rows.getTypes();
     final boolean useGroupingSet = groupingSetsList.useGroupingSets();
+    final boolean[] sketch = new boolean[segmentLength];
+    for ( int j = 0; j < segmentLength; j++ ) {
+      sketch[j] = groupingSetsList.getDefaultSegments().get( j ).measure.getAggregator().isSketch();
+    }
     for ( rows.first(); rows.next(); ) {
       final BitKey groupingBitKey;
       final GroupingSetsList.Cohort cohort;
@@ -319,7 +348,28 @@ public class SegmentLoader {
       }
 
       for ( int j = 0; j < segmentLength; j++ ) {
-        cohort.segmentDatasetList.get( j ).populateFrom( pos, rows, arity + j );
+        if ( sketch[j] ) {
+          addToSketch( cohort.segmentDatasetList.get( j ), pos, rows.getObject( arity + j ) );
+        } else {
+          cohort.segmentDatasetList.get( j ).populateFrom( pos, rows, arity + j );
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the value of a row to the sketch of its cell. There is a row for each distinct value of the operand in a
+   * cell, or, if the rows come from an aggregate table that is rolled up, for each sketch to be merged.
+   */
+  private static void addToSketch( SegmentDataset dataset, int[] pos, Object value ) {
+    final CellKey key = CellKey.Generator.newCellKey( pos );
+    final Object o = dataset.getObject( key );
+    final HyperLogLog sketch = RolapAggregator.addToSketch( o instanceof HyperLogLog h ? h : null, value );
+    if ( sketch != null && sketch != o ) {
+      if ( dataset instanceof SparseSegmentDataset sparse ) {
+        sparse.put( key, sketch );
+      } else {
+        ( (DenseObjectSegmentDataset) dataset ).put( key, sketch );
       }
     }
   }
@@ -467,7 +517,7 @@ public class SegmentLoader {
         AggregationManager.generateSql( groupingSetsList, compoundPredicateList, useAggregates );
     final LocusImpl locus =
         new SqlStatement.StatementLocus( LocusImpl.peek().getExecution(), "Segment.load", "Error while loading segment",
-            SqlStatementEvent.Purpose.CELL_SEGMENT, cellRequestCount );
+            SqlStatementEvent.Purpose.CELL_SEGMENT, cellRequestCount, groupingSetsList.getBatchPlan() );
 
     // When caching is enabled, we must register the SQL statement
     // in the index. We don't want to cancel SQL statements that are shared
@@ -475,7 +525,7 @@ public class SegmentLoader {
     final Consumer<Statement>  callbackWithCaching = new Consumer<> () {
       @Override
 	public void accept( final Statement stmt ) {
-        cacheMgr.execute( new SegmentCacheManager.Command<Void>() {
+        cacheMgr.execute( groupingSetsList.getStar(), new SegmentCacheManager.Command<Void>() {
           @Override
 		public Void call() throws Exception {
             boolean atLeastOneActive = false;
@@ -655,7 +705,7 @@ public class SegmentLoader {
       final boolean[] numeric = new boolean[measureCount];
       int k = 0;
       for ( Segment segment : segments ) {
-        numeric[k++] = segment.measure.getDatatype().isNumeric();
+        numeric[k++] = segment.measure.getDatatype().isNumeric() && !segment.measure.getAggregator().isSketch();
       }
 
       // get the measure
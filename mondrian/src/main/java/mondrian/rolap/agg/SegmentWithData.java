@@ -154,12 +154,32 @@ public class SegmentWithData extends Segment {
      *
      */
     public Object getCellValue(Object[] keys) {
+        return getCellValue(keys, null, null);
+    }
+
+    /**
+     * Retrieves the value at the location identified by <code>keys</code>,
+     * whose codes in the value dictionaries of their columns are already
+     * known.
+     *
+     * @param keys  Key values
+     * @param dictionaries Dictionaries which encoded the key values; or null
+     * @param codes Codes of the key values, from the
+     *              {@link ColumnValueDictionary} of each column; or null
+     * @return Cell value, as {@link #getCellValue(Object[])}
+     */
+    public Object getCellValue(
+        Object[] keys, ColumnValueDictionary[] dictionaries, int[] codes)
+    {
         assert keys.length == axes.length;
+        assert codes == null || codes.length == axes.length;
         int missed = 0;
         CellKey cellKey = CellKey.Generator.newCellKey(axes.length);
         for (int i = 0; i < keys.length; i++) {
             Comparable key = (Comparable) keys[i];
-            int offset = axes[i].getOffset(key);
+            int offset = codes == null
+                ? axes[i].getOffset(key)
+                : axes[i].getOffset(key, dictionaries[i], codes[i]);
             if (offset < 0) {
                 if (axes[i].wouldContain(key)) {
                     // see whether this segment should contain this value
@@ -14,7 +14,9 @@ import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -201,6 +203,14 @@ public class AggTableManager {
                 // loads tables, not their columns
                 db.load(connectionProps);
 
+                // Load the columns of all tables that the stars may match
+                // in one go, rather than one table after another as they
+                // are matched.
+                db.loadColumns(
+                    getCandidateTables(db, rules),
+                    schema.getInternalConnection().getContext().getConfig()
+                        .segmentCacheManagerNumberSqlThreads());
+
                 for (RolapStar star : getStars()) {
                     // This removes any AggStars from any previous invocation of
                     // this method (if any)
@@ -225,6 +235,8 @@ public class AggTableManager {
                     // are measure or foreign key columns
 
                     bindToStar(dbFactTable, star, msgRecorder);
+                    star.setFactTableColumnSize(
+                        dbFactTable.getTotalColumnSize());
                     String schemaInner = dbFactTable.table.getSchema();
 
                     // Now look at all tables in the database and per table,
@@ -318,6 +330,44 @@ public class AggTableManager {
         }
     }
 
+    /**
+     * Returns the fact tables of the stars, and the tables that match the
+     * name of an aggregate table of a star by the explicit or default rules.
+     * These are the tables whose columns {@link #loadRolapStarAggregates}
+     * reads.
+     */
+    private Set<JdbcSchema.Table> getCandidateTables(
+        JdbcSchema db,
+        DefaultRules rules)
+    {
+        final boolean readAggregates =
+            schema.getInternalConnection().getContext().getConfig()
+                .readAggregates();
+        final Set<JdbcSchema.Table> candidates = new LinkedHashSet<>();
+        for (RolapStar star : getStars()) {
+            String factTableName = getFactTableName(star);
+            JdbcSchema.Table dbFactTable = db.getTable(factTableName);
+            if (dbFactTable == null) {
+                continue;
+            }
+            candidates.add(dbFactTable);
+            List<ExplicitRules.Group> aggGroups = getAggGroups(star);
+            for (JdbcSchema.Table dbTable : db.getTables()) {
+                String name = dbTable.getName();
+                if (ExplicitRules.excludeTable(name, aggGroups)) {
+                    continue;
+                }
+                if (ExplicitRules.getIncludeByTableDef(name, aggGroups) != null
+                    || readAggregates
+                    && rules.matchesTableName(factTableName, name))
+                {
+                    candidates.add(dbTable);
+                }
+            }
+        }
+        return candidates;
+    }
+
     private Collection<RolapStar> getStars() {
         return schema.getStars();
     }
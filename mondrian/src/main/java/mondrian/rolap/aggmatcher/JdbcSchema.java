@@ -25,11 +25,18 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
@@ -45,6 +52,7 @@ import org.slf4j.LoggerFactory;
 import mondrian.rolap.RolapAggregator;
 import mondrian.rolap.RolapLevel;
 import mondrian.rolap.RolapStar;
+import mondrian.util.VirtualThreadExecutor;
 
 /**
  * Metadata gleaned from JDBC about the tables and columns in the star schema.
@@ -62,7 +70,14 @@ import mondrian.rolap.RolapStar;
  * Since, the AggTableManager first attempts table name matches (recognition)
  * most tables do not match, so why load their columnIter.
  * Of course, as a result, there are a host of methods that can throw an
- * {@link SQLException}, rats.
+ * {@link SQLException}, rats. Callers that know which tables they need can
+ * load their columns in one go with {@link #loadColumns(Collection, int)}.
+ *
+ * <p>There is one JdbcSchema per DataSource, which is kept, as a snapshot of
+ * the catalog, until {@link #clearDB(DataSource)} or
+ * {@link #removeDB(DataSource)} is called; call {@link #clearDB(DataSource)}
+ * to refresh it after tables have been created or altered. Looking up the
+ * JdbcSchema of one DataSource does not wait for that of another.
  *
  * @author Richard M. Emberson
  */
@@ -83,14 +98,21 @@ public class JdbcSchema {
         void removeDB(JdbcSchema db);
     }
 
-    private static final Map<DataSource, SoftReference<JdbcSchema>> dbMap =
-        new HashMap<>();
+    private static final ConcurrentMap<DataSource, SoftReference<JdbcSchema>>
+        dbMap = new ConcurrentHashMap<>();
 
     /**
      * How often between sweeping through the dbMap looking for nulls.
      */
     private static final int SWEEP_COUNT = 10;
-    private static int sweepDBCount = 0;
+    private static final AtomicInteger sweepDBCount = new AtomicInteger();
+
+    /**
+     * Number of tables from which {@link #loadColumns(Collection, int)}
+     * reads the columns of all tables with one call, rather than one call
+     * per table.
+     */
+    private static final int BULK_COLUMN_LOAD_THRESHOLD = 20;
 
     public static class StdFactory implements Factory {
         StdFactory() {
@@ -109,15 +131,17 @@ public class JdbcSchema {
         }
     }
 
-    private static Factory factory;
+    private static volatile Factory factory;
 
-    private static synchronized void makeFactory() {
+    private static void makeFactory() {
         if (factory != null) {
             return;
         }
-
-            factory = new StdFactory();
-
+        synchronized (JdbcSchema.class) {
+            if (factory == null) {
+                factory = new StdFactory();
+            }
+        }
     }
 
     /**
@@ -127,22 +151,23 @@ public class JdbcSchema {
      * @param dataSource DataSource
      * @return instance of the JdbcSchema for the given DataSource
      */
-    public static synchronized JdbcSchema makeDB(DataSource dataSource) {
+    public static JdbcSchema makeDB(DataSource dataSource) {
         makeFactory();
 
-        JdbcSchema db = null;
-        SoftReference<JdbcSchema> ref = dbMap.get(dataSource);
-        if (ref != null) {
-            db = ref.get();
-        }
-        if (db == null) {
-            db = factory.makeDB(dataSource);
-            dbMap.put(dataSource, new SoftReference<>(db));
-        }
+        // Only callers for the same DataSource wait for each other.
+        final JdbcSchema[] db = {null};
+        dbMap.compute(dataSource, (ds, ref) -> {
+            db[0] = ref == null ? null : ref.get();
+            if (db[0] != null) {
+                return ref;
+            }
+            db[0] = factory.makeDB(ds);
+            return new SoftReference<>(db[0]);
+        });
 
         sweepDB();
 
-        return db;
+        return db[0];
     }
 
     /**
@@ -150,7 +175,7 @@ public class JdbcSchema {
      *
      * @param dataSource DataSource
      */
-    public static synchronized void clearDB(DataSource dataSource) {
+    public static void clearDB(DataSource dataSource) {
         makeFactory();
 
         SoftReference<JdbcSchema> ref = dbMap.get(dataSource);
@@ -160,7 +185,7 @@ public class JdbcSchema {
                 factory.clearDB(db);
                 db.clear();
             } else {
-                dbMap.remove(dataSource);
+                dbMap.remove(dataSource, ref);
             }
         }
         sweepDB();
@@ -171,7 +196,7 @@ public class JdbcSchema {
      *
      * @param dataSource DataSource
      */
-    public static synchronized void removeDB(DataSource dataSource) {
+    public static void removeDB(DataSource dataSource) {
         makeFactory();
 
         SoftReference<JdbcSchema> ref = dbMap.remove(dataSource);
@@ -191,22 +216,10 @@ public class JdbcSchema {
      * or those with SoftReference with null content.
      */
     private static void sweepDB() {
-        if (sweepDBCount++ > SWEEP_COUNT) {
-            Iterator<SoftReference<JdbcSchema>> it = dbMap.values().iterator();
-            while (it.hasNext()) {
-                SoftReference<JdbcSchema> ref = it.next();
-                if ((ref == null) || (ref.get() == null)) {
-                    try {
-                        it.remove();
-                    } catch (Exception ex) {
-                        // Should not happen, but might still like to
-                        // know that something's funky.
-                        LOGGER.warn("",ex);
-                    }
-                }
-            }
+        if (sweepDBCount.incrementAndGet() > SWEEP_COUNT) {
             // reset
-            sweepDBCount = 0;
+            sweepDBCount.set(0);
+            dbMap.values().removeIf(ref -> ref == null || ref.get() == null);
         }
     }
 
@@ -1061,26 +1074,7 @@ public class JdbcSchema {
                             tableName,
                             columnNamePattern);
                         while (rs.next()) {
-                            String nameInner = rs.getString(4);
-                            int type = rs.getInt(5);
-                            String typeName = rs.getString(6);
-                            int columnSize = getSafeInt(rs, 7);
-                            int decimalDigits = getSafeInt(rs, 9);
-                            int numPrecRadix = rs.getInt(10);
-                            int charOctetLength = rs.getInt(16);
-                            String isNullable = rs.getString(18);
-
-                            Column column = new Column(nameInner);
-                            column.setType(type);
-                            column.setTypeName(typeName);
-                            column.setColumnSize(columnSize);
-                            column.setDecimalDigits(decimalDigits);
-                            column.setNumPrecRadix(numPrecRadix);
-                            column.setCharOctetLength(charOctetLength);
-                            column.setIsNullable(!"NO".equals(isNullable));
-
-                            map.put(nameInner, column);
-                            totalColumnSize += column.getColumnSize();
+                            addColumn(map, rs);
                         }
                     } finally {
                         if (rs != null) {
@@ -1099,6 +1093,35 @@ public class JdbcSchema {
             }
         }
 
+        /**
+         * Adds a column from a row of
+         * {@link DatabaseMetaData#getColumns(String, String, String, String)}.
+         */
+        private void addColumn(Map<String, Column> map, ResultSet rs)
+            throws SQLException
+        {
+            String nameInner = rs.getString(4);
+            int type = rs.getInt(5);
+            String typeName = rs.getString(6);
+            int columnSize = getSafeInt(rs, 7);
+            int decimalDigits = getSafeInt(rs, 9);
+            int numPrecRadix = rs.getInt(10);
+            int charOctetLength = rs.getInt(16);
+            String isNullable = rs.getString(18);
+
+            Column column = new Column(nameInner);
+            column.setType(type);
+            column.setTypeName(typeName);
+            column.setColumnSize(columnSize);
+            column.setDecimalDigits(decimalDigits);
+            column.setNumPrecRadix(numPrecRadix);
+            column.setCharOctetLength(charOctetLength);
+            column.setIsNullable(!"NO".equals(isNullable));
+
+            map.put(nameInner, column);
+            totalColumnSize += column.getColumnSize();
+        }
+
         public Map<String, Column> getColumnMap() {
             if (columnMap == null) {
                 columnMap = new HashMap<>();
@@ -1111,6 +1134,9 @@ public class JdbcSchema {
     private String schema;
     private String catalog;
     private boolean allTablesLoaded;
+    // Schema and catalog whose tables were loaded.
+    private String scanSchema;
+    private String scanCatalog;
 
     /**
      * Tables by name. We use a sorted map so {@link #getTables()}'s output
@@ -1137,6 +1163,8 @@ public class JdbcSchema {
         allTablesLoaded = false;
         schema = null;
         catalog = null;
+        scanSchema = null;
+        scanCatalog = null;
         tables.clear();
     }
 
@@ -1295,6 +1323,8 @@ public class JdbcSchema {
                     scanSchemaProp,
                     scanCatalogProp);
             }
+            scanSchema = scanSchemaProp;
+            scanCatalog = scanCatalogProp;
             allTablesLoaded = true;
         } finally {
             if (conn != null) {
@@ -1349,6 +1379,95 @@ public class JdbcSchema {
         }
     }
 
+    /**
+     * Loads the columns of tables whose columns are not loaded yet.
+     *
+     * <p>If there are many such tables, the columns of all tables are read
+     * with a single call to
+     * {@link DatabaseMetaData#getColumns(String, String, String, String)}.
+     * Otherwise the tables are loaded in parallel, each on its own
+     * connection from the DataSource.
+     *
+     * @param tablesToLoad Tables
+     * @param parallelism  Maximum number of tables to load at the same time;
+     *                     0 or negative for no limit
+     * @throws SQLException if the columns cannot be read
+     */
+    public void loadColumns(Collection<Table> tablesToLoad, int parallelism)
+        throws SQLException
+    {
+        final Set<Table> pending = new LinkedHashSet<>();
+        for (Table table : tablesToLoad) {
+            if (!table.allColumnsLoaded) {
+                pending.add(table);
+            }
+        }
+        if (pending.size() >= BULK_COLUMN_LOAD_THRESHOLD) {
+            loadAllColumns();
+        } else if (pending.size() == 1 || parallelism == 1) {
+            for (Table table : pending) {
+                table.load();
+            }
+        } else if (!pending.isEmpty()) {
+            loadColumnsInParallel(pending, parallelism);
+        }
+    }
+
+    /**
+     * Reads the columns of all tables with one call, and marks every table
+     * as loaded.
+     */
+    private void loadAllColumns() throws SQLException {
+        getLogger().debug(
+            "Getting columns of all tables from catalog {} schema {}",
+            scanCatalog, scanSchema);
+        try (Connection conn = getDataSource().getConnection();
+            ResultSet rs = conn.getMetaData().getColumns(
+                scanCatalog, scanSchema, "%", "%"))
+        {
+            while (rs.next()) {
+                Table table = tables.get(rs.getString(3));
+                if (table != null && !table.allColumnsLoaded) {
+                    table.addColumn(table.getColumnMap(), rs);
+                }
+            }
+        }
+        for (Table table : tables.values()) {
+            table.allColumnsLoaded = true;
+        }
+    }
+
+    private void loadColumnsInParallel(Set<Table> pending, int parallelism)
+        throws SQLException
+    {
+        final ExecutorService executor = new VirtualThreadExecutor(
+            "mondrian.rolap.aggmatcher.JdbcSchema$columnLoader",
+            parallelism);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (Table table : pending) {
+                futures.add(
+                    executor.submit(() -> {
+                        table.load();
+                        return null;
+                    }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new SQLException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Makes a Table from an ResultSet: the table's name is the ResultSet third
      * entry.
@@ -0,0 +1,580 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mondrian.spi.SegmentBody;
+import mondrian.spi.SegmentCache;
+import mondrian.spi.SegmentCodec;
+import mondrian.spi.SegmentHeader;
+import mondrian.util.ByteString;
+
+/**
+ * Implementation of {@link mondrian.spi.SegmentCache} that stores segments
+ * in files, so that they survive a restart of the server.
+ *
+ * <p>Each segment is written to its own file, which holds the encoded header
+ * followed by the encoded body (see {@link SegmentCodec}). Bodies are
+ * compressed. A file is memory-mapped when its body is first read, and the
+ * mapping is kept for later reads.
+ * When the cache is created, the headers of all files in the directory are
+ * read, so that the segment cache manager can index them once the schema is
+ * loaded.</p>
+ *
+ * <p>The total size of the files is bounded by a byte budget. When it is
+ * exceeded, the least recently used segments are deleted, and listeners are
+ * told about the deletion by non-local events. Segments of a schema that has
+ * since changed are never matched, because the header contains the schema
+ * checksum; when a segment of a new version of a schema is written, the files
+ * of the other versions of that schema are deleted.</p>
+ *
+ * <p>The segment cache manager of a context creates this cache when the
+ * <code>segmentCacheDiskDirectory</code> property of the context is set,
+ * bounded by its <code>segmentCacheDiskMaxBytes</code> property. Each
+ * context gets its own subdirectory, see {@link #forContext}, so that
+ * contexts neither share the budget nor delete each other's segments.</p>
+ *
+ * <p>Directories are created readable by their owner only, and a cache
+ * refuses a directory that it cannot make so. A segment file whose body
+ * cannot be decoded is deleted; the codec never uses Java deserialization,
+ * so a file planted in the directory cannot instantiate arbitrary
+ * classes.</p>
+ */
+public class DiskSegmentCache implements SegmentCache {
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(DiskSegmentCache.class);
+
+    private static final int MAGIC = 0x4d534547; // "MSEG"
+    private static final int VERSION = SegmentCodec.VERSION;
+    private static final String SUFFIX = ".seg";
+    private static final int PREFIX_BYTES = 8;
+    private static final int HEADER_READ_BYTES = 4096;
+    private static final Set<PosixFilePermission> OWNER_ONLY =
+        PosixFilePermissions.fromString("rwx------");
+
+    private final Path directory;
+    private final long maxBytes;
+    // Access-ordered, so that iteration starts at the least recently used
+    // entry. Guarded by itself.
+    private final LinkedHashMap<SegmentHeader, Entry> map =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    private final List<SegmentCacheListener> listeners =
+        new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates the DiskSegmentCache of a context, in a subdirectory of a given
+     * directory that no other context uses.
+     *
+     * @param directory Directory shared by contexts
+     * @param contextName Name of the context
+     * @param maxBytes Maximum total size of the segment files of the
+     *     context; zero or less means no limit
+     * @return Cache
+     */
+    public static DiskSegmentCache forContext(
+        Path directory, String contextName, long maxBytes)
+    {
+        return new DiskSegmentCache(
+            directory.resolve(contextDirectoryName(contextName)), maxBytes);
+    }
+
+    /**
+     * Returns the name of the subdirectory of a context: the letters and
+     * digits of its name, to be readable, and a digest of the whole name, so
+     * that names that differ in other characters do not collide.
+     */
+    static String contextDirectoryName(String contextName) {
+        final String digest =
+            digest(contextName.getBytes(StandardCharsets.UTF_8))
+                .substring(0, 16);
+        final String readable =
+            contextName.replaceAll("[^A-Za-z0-9_-]", "_");
+        return readable.isEmpty() ? digest : readable + '-' + digest;
+    }
+
+    /**
+     * Creates a DiskSegmentCache in a given directory without a byte budget,
+     * and loads the headers of the segments already stored there.
+     *
+     * @param directory Directory
+     */
+    public DiskSegmentCache(Path directory) {
+        this(directory, 0);
+    }
+
+    /**
+     * Creates a DiskSegmentCache in a given directory, and loads the headers
+     * of the segments already stored there.
+     *
+     * @param directory Directory
+     * @param maxBytes Maximum total size of the segment files; zero or less
+     *     means no limit
+     */
+    public DiskSegmentCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+        try {
+            createPrivateDirectory(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        load();
+    }
+
+    /**
+     * Creates a directory and its missing parents readable by the owner
+     * only, where the file system has POSIX permissions. If the directory
+     * exists, its permissions are restricted, which fails unless it belongs
+     * to the current user.
+     */
+    private static void createPrivateDirectory(Path directory)
+        throws IOException
+    {
+        if (!directory.getFileSystem().supportedFileAttributeViews()
+            .contains("posix"))
+        {
+            Files.createDirectories(directory);
+            return;
+        }
+        Files.createDirectories(
+            directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        Files.setPosixFilePermissions(directory, OWNER_ONLY);
+    }
+
+    private void load() {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                 Files.newDirectoryStream(directory, "*" + SUFFIX))
+        {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Until segments are read again, the least recently written ones are
+        // the first to go.
+        files.sort(Comparator.comparing(DiskSegmentCache::lastModified));
+        synchronized (map) {
+            for (Path file : files) {
+                try {
+                    final long size = Files.size(file);
+                    final ByteBuffer buffer = readHeader(file, size);
+                    if (buffer == null) {
+                        LOGGER.warn(
+                            "Ignoring segment file of unknown format: {}", file);
+                        continue;
+                    }
+                    final SegmentHeader header =
+                        SegmentCodec.decodeHeader(buffer);
+                    map.put(header, new Entry(file, buffer.position(), size));
+                    usedBytes += size;
+                } catch (RuntimeException | IOException e) {
+                    LOGGER.warn("Deleting unreadable segment file: " + file, e);
+                    deleteFile(file);
+                }
+            }
+            // No listener can have been added yet.
+            evict(null, new ArrayList<>());
+        }
+        LOGGER.debug(
+            "Loaded {} segment headers from {}", map.size(), directory);
+    }
+
+    /**
+     * Reads the start of a file, enough to decode its header, without
+     * mapping the file.
+     *
+     * @return Buffer positioned after the prefix, or null if the file is not
+     *     a segment file
+     */
+    private static ByteBuffer readHeader(Path file, long size)
+        throws IOException
+    {
+        try (FileChannel channel =
+                 FileChannel.open(file, StandardOpenOption.READ))
+        {
+            int length = (int) Math.min(size, HEADER_READ_BYTES);
+            while (true) {
+                final ByteBuffer buffer = ByteBuffer.allocate(length);
+                int n;
+                do {
+                    n = channel.read(buffer, buffer.position());
+                } while (n >= 0 && buffer.hasRemaining());
+                buffer.flip();
+                if (buffer.remaining() < PREFIX_BYTES
+                    || buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION)
+                {
+                    return null;
+                }
+                try {
+                    // Decode on a copy, to find out whether the header fits.
+                    SegmentCodec.decodeHeader(buffer.duplicate());
+                    return buffer;
+                } catch (BufferUnderflowException e) {
+                    if (length >= size) {
+                        throw e;
+                    }
+                    length = (int) Math.min(size, 2L * length);
+                }
+            }
+        }
+    }
+
+    @Override
+    public SegmentBody get(SegmentHeader header) {
+        final Entry entry;
+        synchronized (map) {
+            entry = map.get(header);
+        }
+        if (entry == null) {
+            return null;
+        }
+        try {
+            final ByteBuffer buffer = entry.buffer();
+            buffer.position(entry.bodyOffset);
+            return SegmentCodec.decodeBody(buffer);
+        } catch (IOException e) {
+            // The file was removed concurrently, or cannot be read.
+            LOGGER.debug("Cannot read segment file " + entry.file, e);
+            forget(header, entry);
+            return null;
+        } catch (RuntimeException e) {
+            // The body is corrupt, or holds a value that the codec does not
+            // accept. Reading it again would fail again.
+            LOGGER.warn("Deleting unreadable segment file: " + entry.file, e);
+            if (forget(header, entry)) {
+                deleteFile(entry.file);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Removes an entry that cannot be read.
+     *
+     * @return Whether the entry was still in the cache
+     */
+    private boolean forget(SegmentHeader header, Entry entry) {
+        synchronized (map) {
+            if (map.remove(header, entry)) {
+                usedBytes -= entry.size;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public List<SegmentHeader> getSegmentHeaders() {
+        synchronized (map) {
+            return new ArrayList<>(map.keySet());
+        }
+    }
+
+    @Override
+    public boolean put(final SegmentHeader header, SegmentBody body) {
+        assert header != null;
+        assert body != null;
+        final byte[] headerBytes = SegmentCodec.encodeHeader(header);
+        final byte[] bodyBytes =
+            SegmentCodec.encodeBody(body, SegmentCodec.Compression.DEFLATE);
+        final long size =
+            (long) PREFIX_BYTES + headerBytes.length + bodyBytes.length;
+        if (size > maxBytes) {
+            return false;
+        }
+        final Path file = directory.resolve(fileName(headerBytes));
+        try {
+            final Path tmp =
+                Files.createTempFile(directory, "segment", ".tmp");
+            try (FileChannel channel =
+                     FileChannel.open(tmp, StandardOpenOption.WRITE))
+            {
+                final ByteBuffer prefix = ByteBuffer.allocate(PREFIX_BYTES);
+                prefix.putInt(MAGIC).putInt(VERSION).flip();
+                final ByteBuffer[] buffers = {
+                    prefix, ByteBuffer.wrap(headerBytes),
+                    ByteBuffer.wrap(bodyBytes)
+                };
+                while (buffers[2].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(false);
+            }
+            // Readers see either the old file or the complete new one.
+            try {
+                Files.move(
+                    tmp, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write segment file " + file, e);
+            return false;
+        }
+        final List<SegmentHeader> evicted = new ArrayList<>();
+        synchronized (map) {
+            final Entry previous = map.put(
+                header,
+                new Entry(file, PREFIX_BYTES + headerBytes.length, size));
+            if (previous != null) {
+                usedBytes -= previous.size;
+            }
+            usedBytes += size;
+            // Segments of other versions of the schema are never read again.
+            final Iterator<Map.Entry<SegmentHeader, Entry>> iterator =
+                map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<SegmentHeader, Entry> e = iterator.next();
+                final SegmentHeader h = e.getKey();
+                if (h.schemaName.equals(header.schemaName)
+                    && !h.schemaChecksum.equals(header.schemaChecksum))
+                {
+                    iterator.remove();
+                    usedBytes -= e.getValue().size;
+                    deleteFile(e.getValue().file);
+                    evicted.add(h);
+                }
+            }
+            evict(header, evicted);
+        }
+        fireSegmentCacheEvent(
+            header,
+            SegmentCacheListener.SegmentCacheEvent.EventType.ENTRY_CREATED,
+            true);
+        for (SegmentHeader evictedHeader : evicted) {
+            fireSegmentCacheEvent(
+                evictedHeader,
+                SegmentCacheListener.SegmentCacheEvent.EventType.ENTRY_DELETED,
+                false);
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the least recently used segments until the files fit in the
+     * byte budget. Must be called while holding the lock on {@link #map}.
+     *
+     * @param keep Header not to delete, or null
+     * @param evicted List to which the deleted headers are added
+     */
+    private void evict(SegmentHeader keep, List<SegmentHeader> evicted) {
+        final Iterator<Map.Entry<SegmentHeader, Entry>> iterator =
+            map.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            final Map.Entry<SegmentHeader, Entry> e = iterator.next();
+            if (e.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            usedBytes -= e.getValue().size;
+            deleteFile(e.getValue().file);
+            evicted.add(e.getKey());
+        }
+    }
+
+    @Override
+    public boolean remove(final SegmentHeader header) {
+        final Entry entry;
+        synchronized (map) {
+            entry = map.remove(header);
+            if (entry != null) {
+                usedBytes -= entry.size;
+            }
+        }
+        if (entry == null) {
+            return false;
+        }
+        deleteFile(entry.file);
+        fireSegmentCacheEvent(
+            header,
+            SegmentCacheListener.SegmentCacheEvent.EventType.ENTRY_DELETED,
+            true);
+        return true;
+    }
+
+    /**
+     * Releases the cache. The files are kept, so that a cache created on
+     * the same directory finds the segments again.
+     */
+    @Override
+    public void tearDown() {
+        synchronized (map) {
+            map.clear();
+            usedBytes = 0;
+        }
+        listeners.clear();
+    }
+
+    @Override
+    public void addListener(SegmentCacheListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(SegmentCacheListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public boolean supportsRichIndex() {
+        return true;
+    }
+
+    /**
+     * Returns the total size of the segment files.
+     *
+     * @return Number of bytes used
+     */
+    public long getUsedBytes() {
+        synchronized (map) {
+            return usedBytes;
+        }
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel =
+                 FileChannel.open(file, StandardOpenOption.READ))
+        {
+            // The mapping stays valid after the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete segment file " + file, e);
+        }
+    }
+
+    private static String fileName(byte[] headerBytes) {
+        return digest(headerBytes) + SUFFIX;
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return new ByteString(digest.digest(bytes)).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void fireSegmentCacheEvent(
+        final SegmentHeader header,
+        final SegmentCacheListener.SegmentCacheEvent.EventType eventType,
+        final boolean local)
+    {
+        final SegmentCacheListener.SegmentCacheEvent evt =
+            new SegmentCacheListener.SegmentCacheEvent() {
+                @Override
+                public boolean isLocal() {
+                    return local;
+                }
+                @Override
+                public SegmentHeader getSource() {
+                    return header;
+                }
+                @Override
+                public EventType getEventType() {
+                    return eventType;
+                }
+            };
+        for (SegmentCacheListener listener : listeners) {
+            listener.handle(evt);
+        }
+    }
+
+    /**
+     * Location of a stored segment, and the mapping of its file, which is
+     * created when the body is first read.
+     */
+    private static class Entry {
+        private final Path file;
+        private final int bodyOffset;
+        private final long size;
+        private volatile MappedByteBuffer buffer;
+
+        /**
+         * Creates an Entry.
+         *
+         * @param file Segment file
+         * @param bodyOffset Offset of the encoded body in the file
+         * @param size Size of the file
+         */
+        Entry(Path file, int bodyOffset, long size) {
+            this.file = file;
+            this.bodyOffset = bodyOffset;
+            this.size = size;
+        }
+
+        /**
+         * Returns a private view of the mapping of the file, mapping it if
+         * this is the first read.
+         */
+        ByteBuffer buffer() throws IOException {
+            MappedByteBuffer b = buffer;
+            if (b == null) {
+                synchronized (this) {
+                    b = buffer;
+                    if (b == null) {
+                        b = map(file);
+                        buffer = b;
+                    }
+                }
+            }
+            return b.duplicate();
+        }
+    }
+}
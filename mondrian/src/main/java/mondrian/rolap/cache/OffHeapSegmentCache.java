@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.cache;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import mondrian.spi.SegmentBody;
+import mondrian.spi.SegmentCache;
+import mondrian.spi.SegmentCodec;
+import mondrian.spi.SegmentHeader;
+
+/**
+ * Implementation of {@link mondrian.spi.SegmentCache} that stores segment
+ * bodies outside the Java heap.
+ *
+ * <p>Bodies are encoded by {@link SegmentCodec} into native memory segments,
+ * so the garbage collector does not need to trace their cell values and axis
+ * values. A body is decoded again each time it is read from the cache.</p>
+ *
+ * <p>Each body has its own {@link Arena}, which is closed as soon as the body
+ * is replaced, removed or evicted, or the cache is torn down. The native
+ * memory in use therefore follows the byte budget, and does not wait for the
+ * garbage collector as the memory of a direct buffer does. A reader copies
+ * the bytes of a body while it holds the lock, so that an arena is never
+ * closed under it.</p>
+ *
+ * <p>The total size of the encoded bodies is bounded by a byte budget. When a
+ * new body does not fit, the least recently used bodies are removed, and
+ * listeners are told about the removal. Unlike the events of {@link #put} and
+ * {@link #remove}, which the caller already knows about, eviction events are
+ * not local, so that a listener such as the segment cache manager removes the
+ * evicted headers from its index.</p>
+ */
+public class OffHeapSegmentCache implements SegmentCache {
+    private final long maxBytes;
+    // Access-ordered, so that iteration starts at the least recently used
+    // entry. Guarded by itself.
+    private final LinkedHashMap<SegmentHeader, Entry> map =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private final List<SegmentCacheListener> listeners =
+        new CopyOnWriteArrayList<>();
+    private long usedBytes;
+
+    /**
+     * Creates an OffHeapSegmentCache.
+     *
+     * @param maxBytes Maximum number of bytes of encoded bodies held
+     */
+    public OffHeapSegmentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public SegmentBody get(SegmentHeader header) {
+        final byte[] bytes;
+        synchronized (map) {
+            final Entry entry = map.get(header);
+            if (entry == null) {
+                return null;
+            }
+            bytes = entry.segment.toArray(ValueLayout.JAVA_BYTE);
+        }
+        // Decode outside the lock.
+        return SegmentCodec.decodeBody(ByteBuffer.wrap(bytes));
+    }
+
+    public boolean contains(SegmentHeader header) {
+        synchronized (map) {
+            return map.containsKey(header);
+        }
+    }
+
+    @Override
+    public List<SegmentHeader> getSegmentHeaders() {
+        synchronized (map) {
+            return new ArrayList<>(map.keySet());
+        }
+    }
+
+    @Override
+    public boolean put(final SegmentHeader header, SegmentBody body) {
+        assert header != null;
+        assert body != null;
+        final byte[] bytes =
+            SegmentCodec.encodeBody(body, SegmentCodec.Compression.NONE);
+        if (bytes.length > maxBytes) {
+            return false;
+        }
+        final Entry newEntry = Entry.of(bytes);
+        final List<SegmentHeader> evicted = new ArrayList<>();
+        synchronized (map) {
+            final Entry previous = map.put(header, newEntry);
+            if (previous != null) {
+                usedBytes -= previous.size();
+                previous.close();
+            }
+            usedBytes += newEntry.size();
+            final Iterator<Map.Entry<SegmentHeader, Entry>> iterator =
+                map.entrySet().iterator();
+            while (usedBytes > maxBytes && iterator.hasNext()) {
+                final Map.Entry<SegmentHeader, Entry> entry =
+                    iterator.next();
+                if (entry.getKey().equals(header)) {
+                    continue;
+                }
+                usedBytes -= entry.getValue().size();
+                entry.getValue().close();
+                evicted.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+        fireSegmentCacheEvent(
+            header,
+            SegmentCacheListener.SegmentCacheEvent.EventType.ENTRY_CREATED,
+            true);
+        for (SegmentHeader evictedHeader : evicted) {
+            fireSegmentCacheEvent(
+                evictedHeader,
+                SegmentCacheListener.SegmentCacheEvent.EventType.ENTRY_DELETED,
+                false);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(final SegmentHeader header) {
+        final Entry entry;
+        synchronized (map) {
+            entry = map.remove(header);
+            if (entry != null) {
+                usedBytes -= entry.size();
+                entry.close();
+            }
+        }
+        if (entry == null) {
+            return false;
+        }
+        fireSegmentCacheEvent(
+            header,
+            SegmentCacheListener.SegmentCacheEvent.EventType.ENTRY_DELETED,
+            true);
+        return true;
+    }
+
+    @Override
+    public void tearDown() {
+        synchronized (map) {
+            for (Entry entry : map.values()) {
+                entry.close();
+            }
+            map.clear();
+            usedBytes = 0;
+        }
+        listeners.clear();
+    }
+
+    @Override
+    public void addListener(SegmentCacheListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(SegmentCacheListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public boolean supportsRichIndex() {
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes of encoded bodies currently held.
+     *
+     * @return Number of bytes used
+     */
+    public long getUsedBytes() {
+        synchronized (map) {
+            return usedBytes;
+        }
+    }
+
+    private void fireSegmentCacheEvent(
+        final SegmentHeader header,
+        final SegmentCacheListener.SegmentCacheEvent.EventType eventType,
+        final boolean local)
+    {
+        final SegmentCacheListener.SegmentCacheEvent evt =
+            new SegmentCacheListener.SegmentCacheEvent() {
+                @Override
+                public boolean isLocal() {
+                    return local;
+                }
+                @Override
+                public SegmentHeader getSource() {
+                    return header;
+                }
+                @Override
+                public EventType getEventType() {
+                    return eventType;
+                }
+            };
+        for (SegmentCacheListener listener : listeners) {
+            listener.handle(evt);
+        }
+    }
+
+    /**
+     * Encoded body in native memory, and the arena that owns it.
+     */
+    private record Entry(Arena arena, MemorySegment segment) {
+        static Entry of(byte[] bytes) {
+            // Shared, because the body may be removed by another thread than
+            // the one that put it.
+            final Arena arena = Arena.ofShared();
+            final MemorySegment segment = arena.allocate(bytes.length);
+            MemorySegment.copy(
+                bytes, 0, segment, ValueLayout.JAVA_BYTE, 0, bytes.length);
+            return new Entry(arena, segment);
+        }
+
+        long size() {
+            return segment.byteSize();
+        }
+
+        void close() {
+            arena.close();
+        }
+    }
+}
@@ -110,6 +110,12 @@ public class SqlQuery {
     private final List<BestFitColumnType> types =
         new ArrayList<>();
 
+    /** Aliases of the select items, in order; null for an item without. */
+    private final List<String> selectAliases = new ArrayList<>();
+
+    /** Limit of rows per partition; null if the rows are not limited. */
+    private PartitionRowLimit partitionRowLimit;
+
     /** Controls whether table optimization hints are used */
     private boolean allowHints;
 
@@ -532,6 +538,7 @@ public class SqlQuery {
         }
 
         select.add(buf.toString());
+        selectAliases.add(alias);
         addType(type);
         columnAliases.put(expression.toString(), alias);
         return alias;
@@ -659,6 +666,22 @@ public class SqlQuery {
      * @param prefix Prefix for each line
      */
     public void toBuffer(StringBuilder buf, String prefix) {
+        if (partitionRowLimit != null) {
+            partitionRowLimitToBuffer(buf, prefix);
+            return;
+        }
+        bodyToBuffer(buf, prefix);
+        orderBy.toBuffer(
+            buf, generateFormattedSql, prefix, " order by ", ", ", "", "");
+        rowLimit.toBuffer(
+                buf, generateFormattedSql, prefix, " ", ", ", "", "");
+    }
+
+    /**
+     * Writes the clauses of this SqlQuery up to, but not including, the ORDER
+     * BY clause.
+     */
+    private void bodyToBuffer(StringBuilder buf, String prefix) {
         final String first = distinct ? "select distinct " : "select ";
         select.toBuffer(buf, generateFormattedSql, prefix, first, ", ", "", "");
         groupingFunctionsToBuffer(buf, prefix);
@@ -681,10 +704,81 @@ public class SqlQuery {
         }
         having.toBuffer(
             buf, generateFormattedSql, prefix, " having ", " and ", "", "");
-        orderBy.toBuffer(
-            buf, generateFormattedSql, prefix, " order by ", ", ", "", "");
-        rowLimit.toBuffer(
-                buf, generateFormattedSql, prefix, " ", ", ", "", "");
+    }
+
+    /**
+     * Writes this SqlQuery inside a query that numbers the rows of each
+     * partition and keeps the first ones. For instance,
+     *
+     * <blockquote><pre>
+     * select "r"."c0", "r"."c1", "r"."c2"
+     * from (select "q".*, row_number() over (
+     *     partition by "q"."c0" order by "q"."c2" DESC, "q"."c1" ASC) as "rn"
+     *   from (select ... group by ...) as "q") as "r"
+     * where "r"."rn" &lt;= 10
+     * order by "r"."c0" ASC, "r"."rn"</pre></blockquote>
+     */
+    private void partitionRowLimitToBuffer(StringBuilder buf, String prefix) {
+        final PartitionRowLimit limit = partitionRowLimit;
+        final String nl = generateFormattedSql ? Util.NL + prefix : " ";
+        final String as = dialect.allowsAs() ? " as " : " ";
+        final String rank = dialect.quoteIdentifier("r", "rn");
+        final StringBuilder partitionBy = new StringBuilder();
+        final StringBuilder orderBy = new StringBuilder();
+        for (int i = 0; i < limit.columnCount(); i++) {
+            final String alias = selectAliases.get(i);
+            if (i > 0) {
+                partitionBy.append(", ");
+            }
+            partitionBy.append(dialect.quoteIdentifier("q", alias));
+            orderBy.append(
+                dialect.generateOrderItem(
+                    dialect.quoteIdentifier("r", alias), true, true, true))
+                .append(", ");
+        }
+        orderBy.append(rank);
+
+        buf.append("select ");
+        for (int i = 0; i < selectAliases.size(); i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append(dialect.quoteIdentifier("r", selectAliases.get(i)));
+        }
+        buf.append(nl).append("from (select ");
+        dialect.quoteIdentifier(buf, "q");
+        buf.append(".*, row_number() over (partition by ")
+            .append(partitionBy)
+            .append(" order by ")
+            .append(
+                dialect.generateOrderItem(
+                    dialect.quoteIdentifier("q", limit.orderAlias()),
+                    limit.nullable(),
+                    limit.ascending(),
+                    true));
+        // Rows with the same value rank in the order of their other select
+        // items, as a stable sort of the rows in that order would rank them.
+        for (int i = limit.columnCount(); i < selectAliases.size(); i++) {
+            final String alias = selectAliases.get(i);
+            if (alias != null && !alias.equals(limit.orderAlias())) {
+                buf.append(", ")
+                    .append(
+                        dialect.generateOrderItem(
+                            dialect.quoteIdentifier("q", alias),
+                            true, true, true));
+            }
+        }
+        buf.append(")").append(as);
+        dialect.quoteIdentifier(buf, "rn");
+        buf.append(nl).append("from (");
+        bodyToBuffer(buf, prefix + INDENT);
+        buf.append(")").append(as);
+        dialect.quoteIdentifier(buf, "q");
+        buf.append(")").append(as);
+        dialect.quoteIdentifier(buf, "r");
+        buf.append(nl).append("where ").append(rank).append(" <= ")
+            .append(limit.limit());
+        buf.append(nl).append("order by ").append(orderBy);
     }
 
     private void groupingFunctionsToBuffer(StringBuilder buf, String prefix) {
@@ -1050,6 +1144,53 @@ public class SqlQuery {
         }
     }
 
+    /**
+     * Keeps only the first rows of each partition of the result, for
+     * instance the ten products with the highest sales in each region.
+     *
+     * <p>Rows are in the same partition if they have the same values of the
+     * leading select items. Within a partition, rows are ranked by another
+     * select item with {@code ROW_NUMBER()}; rows with the same value rank
+     * in the order of the other select items. The result is ordered by
+     * partition, then by rank; any ORDER BY clause of this query is
+     * ignored.</p>
+     *
+     * <p>Requires a dialect that supports window functions and column
+     * aliases, and a query without GROUPING SETS.</p>
+     *
+     * @param columnCount Number of leading select items that identify a
+     *                    partition
+     * @param orderAlias Alias of the select item that rows are ranked by
+     * @param ascending Whether the row with the lowest value ranks first
+     * @param nullable Whether the ranked select item might be null
+     * @param limit Number of rows to keep of each partition
+     */
+    public void setPartitionRowLimit(
+        int columnCount,
+        String orderAlias,
+        boolean ascending,
+        boolean nullable,
+        int limit)
+    {
+        assert dialect.supportsWindowFunctions();
+        assert columnCount > 0 && columnCount <= selectAliases.size();
+        assert !selectAliases.subList(0, columnCount).contains(null);
+        assert orderAlias != null;
+        assert groupingSets.isEmpty();
+        this.partitionRowLimit =
+            new PartitionRowLimit(
+                columnCount, orderAlias, ascending, nullable, limit);
+    }
+
+    private record PartitionRowLimit(
+        int columnCount,
+        String orderAlias,
+        boolean ascending,
+        boolean nullable,
+        int limit)
+    {
+    }
+
     public void addRowLimit(int maxRowCount) {
         if(this.dialect.requiresDrillthroughMaxRowsInLimit()) {
             this.rowLimit.add("LIMIT " + Integer.toString(maxRowCount));
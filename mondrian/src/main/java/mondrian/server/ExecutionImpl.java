@@ -351,18 +351,7 @@ public class ExecutionImpl implements Execution{
     // We also have to cancel all requests for the current segments.
     final LocusImpl locus = new LocusImpl( this, "Execution.unregisterSegmentRequests", "cleaning up segment registrations" );
     final SegmentCacheManager mgr = locus.getContext().getAggregationManager().getCacheMgr(null);
-    mgr.execute( new SegmentCacheManager.Command<Void>() {
-      @Override
-	public Void call() throws Exception {
-        mgr.getIndexRegistry().cancelExecutionSegments( ExecutionImpl.this );
-        return null;
-      }
-
-      @Override
-	public Locus getLocus() {
-        return locus;
-      }
-    } );
+    mgr.cancelExecutionSegments( locus, this );
   }
 
   public final LocalDateTime getStartTime() {
@@ -0,0 +1,649 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.daanse.olap.api.monitor.EventBus;
+import org.eclipse.daanse.olap.api.monitor.event.CellCacheSegmentCreateEvent;
+import org.eclipse.daanse.olap.api.monitor.event.CellCacheSegmentDeleteEvent;
+import org.eclipse.daanse.olap.api.monitor.event.ConnectionEndEvent;
+import org.eclipse.daanse.olap.api.monitor.event.ConnectionStartEvent;
+import org.eclipse.daanse.olap.api.monitor.event.Event;
+import org.eclipse.daanse.olap.api.monitor.event.ExecutionEndEvent;
+import org.eclipse.daanse.olap.api.monitor.event.ExecutionEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.ExecutionStartEvent;
+import org.eclipse.daanse.olap.api.monitor.event.MdxStatementEndEvent;
+import org.eclipse.daanse.olap.api.monitor.event.MdxStatementStartEvent;
+import org.eclipse.daanse.olap.api.monitor.event.SqlStatementEndEvent;
+import org.eclipse.daanse.olap.api.monitor.event.SqlStatementExecuteEvent;
+import org.eclipse.daanse.olap.api.monitor.event.SqlStatementStartEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mondrian.server.monitor.ConnectionInfo;
+import mondrian.server.monitor.LatencyHistogram;
+import mondrian.server.monitor.ServerInfo;
+import mondrian.server.monitor.SqlStatementInfo;
+import mondrian.util.MpscRingBuffer;
+
+/**
+ * Event bus that aggregates events into server, connection and SQL statement
+ * statistics.
+ *
+ * <p>Publishing threads only put the event into a bounded
+ * {@link MpscRingBuffer}; they never block and never wait for the
+ * aggregation. If the buffer is full, the event is dropped and counted. A
+ * daemon thread takes the events from the buffer and updates the counters,
+ * which can be read at any time by {@link #getServerInfo()},
+ * {@link #getConnectionInfos()}, {@link #getSqlStatementInfos()} and, if the
+ * event bus is registered, through JMX.</p>
+ *
+ * <p>The aggregator thread parks while the buffer is empty, and publishing
+ * threads wake it up only if it is parked.</p>
+ *
+ * <p>Connections, executions and SQL statements that have started are
+ * remembered until their end event arrives. Because end events may be
+ * dropped, an entry is also forgotten when it has not been active for the
+ * maximum age, or when there are more entries than the maximum; then the
+ * least recently active entries go first.</p>
+ */
+public class MetricsEventBus implements EventBus, MetricsEventBusMXBean,
+    AutoCloseable
+{
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(MetricsEventBus.class);
+
+    private static final NopEventBus.MemoryInfo MEMORY_INFO =
+        NopEventBus.getMemoryInfo();
+
+    /**
+     * Default maximum age of an open connection, execution or SQL statement
+     * since its last event.
+     */
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+
+    /**
+     * Default maximum number of open connections, executions and SQL
+     * statements, each.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final long MAX_SWEEP_INTERVAL_NANOS =
+        TimeUnit.SECONDS.toNanos(10);
+
+    private final MpscRingBuffer<Event> buffer;
+    private final Thread thread;
+    private volatile boolean running = true;
+    // Set by the aggregator thread just before it parks.
+    private volatile boolean idle;
+    private final long maxAgeNanos;
+    private final int maxEntries;
+    private final long sweepIntervalNanos;
+    private ObjectName objectName;
+
+    private final LongAdder droppedEventCount = new LongAdder();
+    private final LongAdder expiredEntryCount = new LongAdder();
+    private final LongAdder connectionStartCount = new LongAdder();
+    private final LongAdder connectionEndCount = new LongAdder();
+    private final LongAdder statementStartCount = new LongAdder();
+    private final LongAdder statementEndCount = new LongAdder();
+    private final LongAdder executeStartCount = new LongAdder();
+    private final LongAdder executeEndCount = new LongAdder();
+    private final LongAdder sqlStatementStartCount = new LongAdder();
+    private final LongAdder sqlStatementExecuteCount = new LongAdder();
+    private final LongAdder sqlStatementEndCount = new LongAdder();
+    private final LongAdder sqlStatementRowFetchCount = new LongAdder();
+    private final LongAdder sqlStatementExecuteNanos = new LongAdder();
+    private final LongAdder sqlStatementCellRequestCount = new LongAdder();
+    private final LongAdder cellCacheHitCount = new LongAdder();
+    private final LongAdder cellCacheMissCount = new LongAdder();
+    private final LongAdder cellCachePendingCount = new LongAdder();
+    private final LongAdder segmentCreateCount = new LongAdder();
+    private final LongAdder segmentCreateViaExternalCount = new LongAdder();
+    private final LongAdder segmentCreateViaRollupCount = new LongAdder();
+    private final LongAdder segmentCreateViaSqlCount = new LongAdder();
+    private final LongAdder segmentDeleteCount = new LongAdder();
+    private final LongAdder segmentDeleteViaExternalCount = new LongAdder();
+    private final LongAdder cellCount = new LongAdder();
+    private final LongAdder cellCoordinateCount = new LongAdder();
+    private final LatencyHistogram sqlStatementExecuteHistogram =
+        new LatencyHistogram();
+    private final LatencyHistogram executeHistogram = new LatencyHistogram();
+
+    private final Map<Long, ConnectionCounters> connections =
+        new ConcurrentHashMap<>();
+    private final Map<Long, Open<SqlStatementInfo>> sqlStatements =
+        new ConcurrentHashMap<>();
+    // Accessed by the aggregator thread only.
+    private final Map<Long, Open<Instant>> executionStarts = new HashMap<>();
+
+    /**
+     * Creates a MetricsEventBus with the default maximum age and number of
+     * open entries, and starts its aggregator thread.
+     *
+     * @param name Name of the context, used in the name of the thread
+     * @param capacity Capacity of the event buffer
+     */
+    public MetricsEventBus(String name, int capacity) {
+        this(name, capacity, DEFAULT_MAX_AGE, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a MetricsEventBus and starts its aggregator thread.
+     *
+     * @param name Name of the context, used in the name of the thread
+     * @param capacity Capacity of the event buffer
+     * @param maxAge Time after the last event of an open connection,
+     *     execution or SQL statement after which it is forgotten
+     * @param maxEntries Maximum number of open connections, executions and
+     *     SQL statements, each
+     */
+    public MetricsEventBus(
+        String name, int capacity, Duration maxAge, int maxEntries)
+    {
+        if (maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException(
+                "maxAge must be positive: " + maxAge);
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException(
+                "maxEntries must be positive: " + maxEntries);
+        }
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.maxAgeNanos = maxAge.toNanos();
+        this.maxEntries = maxEntries;
+        this.sweepIntervalNanos = Math.max(
+            TimeUnit.MILLISECONDS.toNanos(1),
+            Math.min(maxAgeNanos / 4, MAX_SWEEP_INTERVAL_NANOS));
+        this.thread = new Thread(
+            this::run, "mondrian.server.MetricsEventBus$Aggregator-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void accept(Event event) {
+        if (!buffer.offer(event)) {
+            droppedEventCount.increment();
+        } else if (idle) {
+            // The aggregator sets idle before it checks the buffer, so
+            // either it sees this event or we see that it parks.
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Registers this event bus with the platform MBean server. Failures are
+     * logged, and do not prevent the event bus from working.
+     *
+     * @param name Value of the <code>name</code> key of the object name
+     */
+    public void register(String name) {
+        try {
+            final ObjectName on = new ObjectName(
+                "mondrian.server:type=Metrics,name=" + ObjectName.quote(name));
+            final MBeanServer server =
+                ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, on);
+            objectName = on;
+        } catch (JMException e) {
+            LOGGER.warn("Cannot register metrics MBean for " + name, e);
+        }
+    }
+
+    /**
+     * Stops the aggregator thread, aggregates the events that are still
+     * buffered, and unregisters the MBean.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!thread.isAlive()) {
+            drain();
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                    .unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOGGER.debug("Cannot unregister " + objectName, e);
+            }
+            objectName = null;
+        }
+    }
+
+    private void run() {
+        long nextSweep = System.nanoTime() + sweepIntervalNanos;
+        while (running) {
+            drain();
+            final long now = System.nanoTime();
+            if (now - nextSweep >= 0) {
+                expire(now);
+                nextSweep = now + sweepIntervalNanos;
+            }
+            idle = true;
+            if (buffer.size() == 0 && running) {
+                LockSupport.parkNanos(this, nextSweep - now);
+            }
+            idle = false;
+        }
+    }
+
+    private boolean drain() {
+        boolean any = false;
+        Event event;
+        while ((event = buffer.poll()) != null) {
+            any = true;
+            try {
+                aggregate(event);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error while aggregating " + event, e);
+            }
+        }
+        return any;
+    }
+
+    private void aggregate(Event event) {
+        if (event instanceof ConnectionStartEvent e) {
+            connectionStartCount.increment();
+            final ConnectionCounters connection = new ConnectionCounters();
+            connection.lastActiveNanos = System.nanoTime();
+            connections.put(
+                e.connectionEventCommon().connectionId(), connection);
+            bound(connections, c -> c.lastActiveNanos);
+        } else if (event instanceof ConnectionEndEvent e) {
+            connectionEndCount.increment();
+            connections.remove(e.connectionEventCommon().connectionId());
+        } else if (event instanceof MdxStatementStartEvent e) {
+            statementStartCount.increment();
+            final ConnectionCounters connection = connection(
+                e.mdxStatementEventCommon().connectionEventCommon()
+                    .connectionId());
+            if (connection != null) {
+                connection.statementStartCount.increment();
+            }
+        } else if (event instanceof MdxStatementEndEvent e) {
+            statementEndCount.increment();
+            final ConnectionCounters connection = connection(
+                e.mdxStatementEventCommon().connectionEventCommon()
+                    .connectionId());
+            if (connection != null) {
+                connection.statementEndCount.increment();
+            }
+        } else if (event instanceof ExecutionStartEvent e) {
+            executeStartCount.increment();
+            executionStarts.put(
+                e.eventCommon().executionId(),
+                new Open<>(timestamp(e.eventCommon()), System.nanoTime()));
+            bound(executionStarts, Open::sinceNanos);
+            final ConnectionCounters connection = connection(e.eventCommon());
+            if (connection != null) {
+                connection.executeStartCount.increment();
+            }
+        } else if (event instanceof ExecutionEndEvent e) {
+            executeEndCount.increment();
+            cellCacheHitCount.add(e.cellCacheHitCount());
+            cellCacheMissCount.add(e.cellCacheMissCount());
+            cellCachePendingCount.add(e.cellCachePendingCount());
+            final Open<Instant> start =
+                executionStarts.remove(e.executionEventCommon().executionId());
+            if (start != null) {
+                executeHistogram.record(
+                    Duration.between(
+                        start.value(), timestamp(e.executionEventCommon()))
+                        .toNanos());
+            }
+            final ConnectionCounters connection =
+                connection(e.executionEventCommon());
+            if (connection != null) {
+                connection.executeEndCount.increment();
+                connection.cellCacheHitCount.add(e.cellCacheHitCount());
+                connection.cellCacheMissCount.add(e.cellCacheMissCount());
+                connection.cellCachePendingCount.add(
+                    e.cellCachePendingCount());
+            }
+        } else if (event instanceof SqlStatementStartEvent e) {
+            sqlStatementStartCount.increment();
+            sqlStatementCellRequestCount.add(e.cellRequestCount());
+            sqlStatements.put(
+                e.sqlStatementEventCommon().sqlStatementId(),
+                new Open<>(
+                    new SqlStatementInfo(
+                        null,
+                        e.sqlStatementEventCommon().sqlStatementId(),
+                        e.sqlStatementEventCommon().sql()),
+                    System.nanoTime()));
+            bound(sqlStatements, Open::sinceNanos);
+        } else if (event instanceof SqlStatementExecuteEvent e) {
+            sqlStatementExecuteCount.increment();
+            sqlStatementExecuteNanos.add(e.executeNanos());
+            sqlStatementExecuteHistogram.record(e.executeNanos());
+        } else if (event instanceof SqlStatementEndEvent e) {
+            sqlStatementEndCount.increment();
+            sqlStatementRowFetchCount.add(e.rowFetchCount());
+            sqlStatements.remove(e.sqlStatementEventInfo().sqlStatementId());
+        } else if (event instanceof CellCacheSegmentCreateEvent e) {
+            segmentCreateCount.increment();
+            cellCount.add(e.actualCellCount());
+            cellCoordinateCount.add(e.coordinateCount());
+            switch (e.cellCacheEventCommon().source()) {
+            case EXTERNAL:
+                segmentCreateViaExternalCount.increment();
+                break;
+            case ROLLUP:
+                segmentCreateViaRollupCount.increment();
+                break;
+            case SQL:
+                segmentCreateViaSqlCount.increment();
+                break;
+            default:
+                break;
+            }
+        } else if (event instanceof CellCacheSegmentDeleteEvent e) {
+            segmentDeleteCount.increment();
+            cellCoordinateCount.add(-e.coordinateCount());
+            switch (e.cellCacheEventCommon().source()) {
+            case EXTERNAL:
+                segmentDeleteViaExternalCount.increment();
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private ConnectionCounters connection(ExecutionEventCommon common) {
+        return connection(
+            common.mdxStatementEventCommon().connectionEventCommon()
+                .connectionId());
+    }
+
+    private ConnectionCounters connection(long connectionId) {
+        final ConnectionCounters connection = connections.get(connectionId);
+        if (connection != null) {
+            connection.lastActiveNanos = System.nanoTime();
+        }
+        return connection;
+    }
+
+    /**
+     * Forgets the open entries that have not been active for the maximum
+     * age. Called by the aggregator thread.
+     */
+    private void expire(long now) {
+        expire(connections, c -> c.lastActiveNanos, now);
+        expire(executionStarts, Open::sinceNanos, now);
+        expire(sqlStatements, Open::sinceNanos, now);
+    }
+
+    private <V> void expire(
+        Map<Long, V> map, ToLongFunction<V> activeNanos, long now)
+    {
+        final int size = map.size();
+        map.values().removeIf(
+            v -> now - activeNanos.applyAsLong(v) > maxAgeNanos);
+        expiredEntryCount.add(size - map.size());
+    }
+
+    /**
+     * If a map has more entries than the maximum, forgets the least recently
+     * active quarter of them, so that the cost of sorting is shared by the
+     * entries that are added until the next time.
+     */
+    private <V> void bound(Map<Long, V> map, ToLongFunction<V> activeNanos) {
+        if (map.size() <= maxEntries) {
+            return;
+        }
+        final List<Map.Entry<Long, V>> entries =
+            new ArrayList<>(map.entrySet());
+        entries.sort(
+            Comparator.comparingLong(
+                e -> activeNanos.applyAsLong(e.getValue())));
+        final int count = map.size() - maxEntries * 3 / 4;
+        for (Map.Entry<Long, V> entry : entries.subList(0, count)) {
+            map.remove(entry.getKey());
+        }
+        expiredEntryCount.add(count);
+    }
+
+    private static Instant timestamp(ExecutionEventCommon common) {
+        return common.mdxStatementEventCommon().connectionEventCommon()
+            .servertEventCommon().commonEventInfo().timestamp();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the server.
+     *
+     * @return Server statistics
+     */
+    public ServerInfo getServerInfo() {
+        final NopEventBus.MemoryInfo.Usage memoryUsage = MEMORY_INFO.get();
+        return new ServerInfo(
+            null,
+            connectionStartCount.intValue(),
+            connectionEndCount.intValue(),
+            statementStartCount.intValue(),
+            statementEndCount.intValue(),
+            sqlStatementStartCount.intValue(),
+            sqlStatementExecuteCount.intValue(),
+            sqlStatementEndCount.intValue(),
+            sqlStatementRowFetchCount.sum(),
+            sqlStatementExecuteNanos.sum(),
+            sqlStatementCellRequestCount.intValue(),
+            cellCacheHitCount.intValue(),
+            (int) (cellCacheHitCount.sum() + cellCacheMissCount.sum()
+                + cellCachePendingCount.sum()),
+            cellCacheMissCount.intValue(),
+            cellCachePendingCount.intValue(),
+            executeStartCount.intValue(),
+            executeEndCount.intValue(),
+            memoryUsage.getUsed(),
+            memoryUsage.getCommitted(),
+            memoryUsage.getMax(),
+            (int) (segmentCreateCount.sum() - segmentDeleteCount.sum()),
+            segmentCreateCount.intValue(),
+            segmentCreateViaExternalCount.intValue(),
+            segmentDeleteViaExternalCount.intValue(),
+            segmentCreateViaRollupCount.intValue(),
+            segmentCreateViaSqlCount.intValue(),
+            cellCount.intValue(),
+            cellCoordinateCount.intValue());
+    }
+
+    /**
+     * Returns a snapshot of the statistics of each open connection.
+     *
+     * @return Connection statistics
+     */
+    public List<ConnectionInfo> getConnectionInfos() {
+        final List<ConnectionInfo> list = new ArrayList<>();
+        for (ConnectionCounters connection : connections.values()) {
+            list.add(connection.fix());
+        }
+        return list;
+    }
+
+    /**
+     * Returns the SQL statements that have started and not yet ended.
+     *
+     * @return SQL statements
+     */
+    public List<SqlStatementInfo> getSqlStatementInfos() {
+        final List<SqlStatementInfo> list = new ArrayList<>();
+        for (Open<SqlStatementInfo> sqlStatement : sqlStatements.values()) {
+            list.add(sqlStatement.value());
+        }
+        return list;
+    }
+
+    @Override
+    public long getConnectionStartCount() {
+        return connectionStartCount.sum();
+    }
+
+    @Override
+    public long getConnectionEndCount() {
+        return connectionEndCount.sum();
+    }
+
+    @Override
+    public long getStatementStartCount() {
+        return statementStartCount.sum();
+    }
+
+    @Override
+    public long getStatementEndCount() {
+        return statementEndCount.sum();
+    }
+
+    @Override
+    public long getExecuteStartCount() {
+        return executeStartCount.sum();
+    }
+
+    @Override
+    public long getExecuteEndCount() {
+        return executeEndCount.sum();
+    }
+
+    @Override
+    public long getSqlStatementStartCount() {
+        return sqlStatementStartCount.sum();
+    }
+
+    @Override
+    public long getSqlStatementExecuteCount() {
+        return sqlStatementExecuteCount.sum();
+    }
+
+    @Override
+    public long getSqlStatementEndCount() {
+        return sqlStatementEndCount.sum();
+    }
+
+    @Override
+    public long getSqlStatementRowFetchCount() {
+        return sqlStatementRowFetchCount.sum();
+    }
+
+    @Override
+    public long getSqlStatementExecuteNanos() {
+        return sqlStatementExecuteNanos.sum();
+    }
+
+    @Override
+    public long getCellCacheHitCount() {
+        return cellCacheHitCount.sum();
+    }
+
+    @Override
+    public long getCellCacheMissCount() {
+        return cellCacheMissCount.sum();
+    }
+
+    @Override
+    public long getCellCachePendingCount() {
+        return cellCachePendingCount.sum();
+    }
+
+    @Override
+    public long getSegmentCreateCount() {
+        return segmentCreateCount.sum();
+    }
+
+    @Override
+    public long getSegmentDeleteCount() {
+        return segmentDeleteCount.sum();
+    }
+
+    @Override
+    public long getDroppedEventCount() {
+        return droppedEventCount.sum();
+    }
+
+    @Override
+    public long getExpiredEntryCount() {
+        return expiredEntryCount.sum();
+    }
+
+    @Override
+    public long[] getSqlStatementExecuteHistogram() {
+        return sqlStatementExecuteHistogram.getBucketCounts();
+    }
+
+    @Override
+    public long[] getExecuteHistogram() {
+        return executeHistogram.getBucketCounts();
+    }
+
+    /**
+     * Value of an open execution or SQL statement, and the time when it was
+     * started.
+     */
+    private record Open<V>(V value, long sinceNanos) {
+    }
+
+    /**
+     * Counters of an open connection.
+     */
+    private static class ConnectionCounters {
+        // Accessed by the aggregator thread only.
+        private long lastActiveNanos;
+        private final LongAdder statementStartCount = new LongAdder();
+        private final LongAdder statementEndCount = new LongAdder();
+        private final LongAdder executeStartCount = new LongAdder();
+        private final LongAdder executeEndCount = new LongAdder();
+        private final LongAdder cellCacheHitCount = new LongAdder();
+        private final LongAdder cellCacheMissCount = new LongAdder();
+        private final LongAdder cellCachePendingCount = new LongAdder();
+
+        ConnectionInfo fix() {
+            final long hitCount = cellCacheHitCount.sum();
+            final long missCount = cellCacheMissCount.sum();
+            final long pendingCount = cellCachePendingCount.sum();
+            return new ConnectionInfo(
+                null,
+                (int) hitCount,
+                (int) (hitCount + missCount + pendingCount),
+                (int) missCount,
+                (int) pendingCount,
+                statementStartCount.intValue(),
+                statementEndCount.intValue(),
+                executeStartCount.intValue(),
+                executeEndCount.intValue());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server;
+
+/**
+ * Management interface of {@link MetricsEventBus}.
+ *
+ * <p>Counts are cumulative since the event bus was created. Histograms hold
+ * the number of latencies per bucket of a
+ * {@link mondrian.server.monitor.LatencyHistogram}.</p>
+ */
+public interface MetricsEventBusMXBean {
+
+    long getConnectionStartCount();
+
+    long getConnectionEndCount();
+
+    long getStatementStartCount();
+
+    long getStatementEndCount();
+
+    long getExecuteStartCount();
+
+    long getExecuteEndCount();
+
+    long getSqlStatementStartCount();
+
+    long getSqlStatementExecuteCount();
+
+    long getSqlStatementEndCount();
+
+    long getSqlStatementRowFetchCount();
+
+    long getSqlStatementExecuteNanos();
+
+    long getCellCacheHitCount();
+
+    long getCellCacheMissCount();
+
+    long getCellCachePendingCount();
+
+    long getSegmentCreateCount();
+
+    long getSegmentDeleteCount();
+
+    /**
+     * Returns the number of events that were dropped because the event
+     * buffer was full.
+     */
+    long getDroppedEventCount();
+
+    /**
+     * Returns the number of open connections, executions and SQL statements
+     * that were forgotten without their end event, because they were too old
+     * or too many.
+     */
+    long getExpiredEntryCount();
+
+    long[] getSqlStatementExecuteHistogram();
+
+    long[] getExecuteHistogram();
+}
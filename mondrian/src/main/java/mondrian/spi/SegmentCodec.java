@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.spi;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import mondrian.rolap.agg.SegmentBodyCodec;
+import mondrian.rolap.agg.SegmentHeaderCodec;
+
+/**
+ * Versioned binary format of {@link SegmentHeader} and {@link SegmentBody},
+ * for {@link SegmentCache} implementations that store or transmit segments.
+ *
+ * <p>The format is much smaller and faster than Java serialization: it holds
+ * no class descriptors, writes numbers as variable-length integers,
+ * delta-encodes axis values and run-length encodes null indicators. Bodies
+ * may also be compressed. {@code SegmentBodyCodecPerformanceTest}, in the
+ * performance test module, measures both.</p>
+ *
+ * <p>Every cell value type has its own encoding; encoding a body with a
+ * value of any other type throws {@link IllegalArgumentException}. Java
+ * serialization is never used, in either direction, so decoding a segment
+ * from a shared store cannot instantiate arbitrary classes.</p>
+ *
+ * <p>Every encoded header and body starts with the format version, so that
+ * a cache can recognize and discard segments written by an incompatible
+ * version of Mondrian. Decoding a segment of another version throws
+ * {@link IllegalArgumentException}.</p>
+ *
+ * <p>Encoded bodies are self-describing; {@link #decodeBody(ByteBuffer)}
+ * does not need to know whether a body was compressed.</p>
+ */
+public final class SegmentCodec {
+
+    /**
+     * Version of the format.
+     */
+    public static final byte VERSION = 3;
+
+    private static final byte FLAG_DEFLATE = 1;
+
+    /**
+     * Compression of an encoded segment body.
+     */
+    public enum Compression {
+        /** Body is not compressed. Fastest to encode and decode. */
+        NONE,
+        /**
+         * Body is compressed with Deflate, unless that does not make it
+         * smaller. Suitable for caches that are bound by disk or network.
+         */
+        DEFLATE
+    }
+
+    private SegmentCodec() {
+    }
+
+    /**
+     * Encodes a segment header.
+     *
+     * @param header Segment header
+     * @return Encoded header
+     */
+    public static byte[] encodeHeader(SegmentHeader header) {
+        final byte[] payload = SegmentHeaderCodec.encode(header);
+        final byte[] bytes = new byte[payload.length + 1];
+        bytes[0] = VERSION;
+        System.arraycopy(payload, 0, bytes, 1, payload.length);
+        return bytes;
+    }
+
+    /**
+     * Decodes a segment header.
+     *
+     * <p>Reads from the current position of the buffer, and advances the
+     * position past the encoded header.</p>
+     *
+     * @param buffer Buffer containing an encoded header
+     * @return Segment header
+     */
+    public static SegmentHeader decodeHeader(ByteBuffer buffer) {
+        checkVersion(buffer.get());
+        return SegmentHeaderCodec.decode(buffer);
+    }
+
+    /**
+     * Encodes a segment body.
+     *
+     * @param body        Segment body
+     * @param compression Compression
+     * @return Encoded body
+     */
+    public static byte[] encodeBody(SegmentBody body, Compression compression) {
+        final byte[] payload = SegmentBodyCodec.encode(body);
+        if (compression == Compression.DEFLATE) {
+            final byte[] compressed = deflate(payload);
+            if (compressed != null) {
+                final ByteBuffer buffer =
+                    ByteBuffer.allocate(compressed.length + 10);
+                buffer.put(VERSION).put(FLAG_DEFLATE)
+                    .putInt(payload.length).putInt(compressed.length)
+                    .put(compressed);
+                return buffer.array();
+            }
+        }
+        final byte[] bytes = new byte[payload.length + 2];
+        bytes[0] = VERSION;
+        bytes[1] = 0;
+        System.arraycopy(payload, 0, bytes, 2, payload.length);
+        return bytes;
+    }
+
+    /**
+     * Decodes a segment body.
+     *
+     * <p>Reads from the current position of the buffer, and advances the
+     * position past the encoded body.</p>
+     *
+     * @param buffer Buffer containing an encoded body
+     * @return Segment body
+     */
+    public static SegmentBody decodeBody(ByteBuffer buffer) {
+        checkVersion(buffer.get());
+        final byte flags = buffer.get();
+        if ((flags & FLAG_DEFLATE) == 0) {
+            return SegmentBodyCodec.decode(buffer);
+        }
+        final int length = buffer.getInt();
+        final int compressedLength = buffer.getInt();
+        final byte[] payload = new byte[length];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(buffer.position(), compressedLength));
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                final int read = inflater.inflate(payload, n, length - n);
+                if (read == 0 && inflater.needsInput()) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != length) {
+                throw new IllegalArgumentException("Truncated segment body");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt segment body", e);
+        } finally {
+            inflater.end();
+        }
+        buffer.position(buffer.position() + compressedLength);
+        return SegmentBodyCodec.decode(ByteBuffer.wrap(payload));
+    }
+
+    private static void checkVersion(byte version) {
+        if (version != VERSION) {
+            throw new IllegalArgumentException(
+                "Unsupported segment format version " + version
+                    + "; expected " + VERSION);
+        }
+    }
+
+    /**
+     * Compresses bytes, or returns null if compression does not make them
+     * smaller.
+     */
+    private static byte[] deflate(byte[] bytes) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            final byte[] buffer = new byte[bytes.length];
+            int n = 0;
+            while (!deflater.finished() && n < buffer.length) {
+                n += deflater.deflate(buffer, n, buffer.length - n);
+            }
+            if (!deflater.finished()) {
+                return null;
+            }
+            return Arrays.copyOf(buffer, n);
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -2938,6 +2938,8 @@ public class Format {
                 formatValue.format((Date) o, buf);
             } else if (o instanceof Calendar calendar) {
                 formatValue.format(calendar, buf);
+            } else if (o instanceof HyperLogLog sketch) {
+                formatValue.format(sketch.estimate(), buf);
             } else {
                 buf.append(o.toString());
             }
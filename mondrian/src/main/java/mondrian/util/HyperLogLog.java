@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * HyperLogLog sketch, which estimates the number of distinct values added to
+ * it in a fixed amount of memory.
+ *
+ * <p>Two sketches of the same precision merge into a sketch of the union of
+ * their values, so distinct counts can be rolled up: the sketch of a year is
+ * the merge of the sketches of its months. With precision <i>p</i> a sketch
+ * has 2<sup><i>p</i></sup> registers, and the relative standard error of its
+ * estimate is 1.04 / sqrt(2<sup><i>p</i></sup>). At the default precision,
+ * 12, that is 1.6%; about 95% of estimates are within 3.3% of the true
+ * count. Counts up to a few hundred are nearly exact.</p>
+ *
+ * <p>A sketch with few values keeps them as a sorted list of register
+ * updates, and only allocates its registers, one byte each, when that list
+ * would be larger.</p>
+ *
+ * <p>Values are hashed by their text. Numbers are hashed by their plain
+ * decimal text without trailing zeros, so that {@code 5}, {@code 5L} and
+ * {@code 5.0} are the same value.</p>
+ *
+ * <p>The {@link Number} value of a sketch is its estimate. A sketch is not
+ * thread-safe; sketches that are shared, for instance as cell values of a
+ * segment, must not be modified.</p>
+ */
+public final class HyperLogLog extends Number {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_PRECISION = 12;
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final String PREFIX = "HLL1:";
+
+    private final int precision;
+    // While the sketch is sparse, sorted list of (register << 8 | rank).
+    private int[] entries;
+    private int entryCount;
+    // Registers, once the sketch is dense; otherwise null.
+    private byte[] registers;
+
+    /**
+     * Creates an empty sketch of the default precision.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param precision Base 2 logarithm of the number of registers, between
+     *                  {@link #MIN_PRECISION} and {@link #MAX_PRECISION}
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                "precision must be between " + MIN_PRECISION + " and "
+                + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.entries = new int[4];
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the relative standard error of the estimates of sketches of
+     * a given precision.
+     */
+    public static double relativeStandardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    /**
+     * Adds a value. Nulls are ignored.
+     */
+    public void add(Object value) {
+        if (value == null) {
+            return;
+        }
+        addHash(hash(text(value)));
+    }
+
+    /**
+     * Merges another sketch into this one.
+     *
+     * @param other Sketch of the same precision
+     * @return this sketch
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                "cannot merge sketches of precision " + precision + " and "
+                + other.precision);
+        }
+        if (other.registers != null) {
+            toDense();
+            for (int i = 0; i < registers.length; i++) {
+                if (other.registers[i] > registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < other.entryCount; i++) {
+                final int entry = other.entries[i];
+                update(entry >>> 8, entry & 0xff);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns a copy of this sketch, which may be modified without changing
+     * this sketch.
+     */
+    public HyperLogLog copy() {
+        final HyperLogLog copy = new HyperLogLog(precision);
+        copy.entries = entries.clone();
+        copy.entryCount = entryCount;
+        copy.registers = registers == null ? null : registers.clone();
+        return copy;
+    }
+
+    /**
+     * Returns the estimated number of distinct values.
+     */
+    public long estimate() {
+        final int m = 1 << precision;
+        double sum = 0;
+        int zeros = 0;
+        if (registers != null) {
+            for (byte rank : registers) {
+                sum += Math.scalb(1d, -rank);
+                if (rank == 0) {
+                    ++zeros;
+                }
+            }
+        } else {
+            zeros = m - entryCount;
+            sum = zeros;
+            for (int i = 0; i < entryCount; i++) {
+                sum += Math.scalb(1d, -(entries[i] & 0xff));
+            }
+        }
+        final double alpha = 0.7213d / (1d + 1.079d / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5d * m && zeros > 0) {
+            // Linear counting is more accurate for small cardinalities.
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Parses the text of a sketch, as written by {@link #toString()}; for
+     * instance, the value of a sketch column of an aggregate table.
+     *
+     * @param s Text
+     * @return Sketch, or null if the text is not that of a sketch
+     */
+    public static HyperLogLog parse(String s) {
+        if (s == null || !s.startsWith(PREFIX)) {
+            return null;
+        }
+        final int colon = s.indexOf(':', PREFIX.length());
+        if (colon < 0) {
+            return null;
+        }
+        try {
+            final HyperLogLog sketch = new HyperLogLog(
+                Integer.parseInt(s.substring(PREFIX.length(), colon)));
+            final byte[] bytes =
+                Base64.getDecoder().decode(s.substring(colon + 1));
+            if (bytes.length != 1 << sketch.precision) {
+                return null;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != 0) {
+                    sketch.update(i, bytes[i]);
+                }
+            }
+            return sketch;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the text of this sketch, which {@link #parse(String)} reads
+     * back; for instance, to populate a sketch column of an aggregate table.
+     */
+    @Override
+    public String toString() {
+        final byte[] bytes;
+        if (registers != null) {
+            bytes = registers;
+        } else {
+            bytes = new byte[1 << precision];
+            for (int i = 0; i < entryCount; i++) {
+                bytes[entries[i] >>> 8] = (byte) (entries[i] & 0xff);
+            }
+        }
+        return PREFIX + precision + ':'
+            + Base64.getEncoder().encodeToString(bytes);
+    }
+
+    @Override
+    public int intValue() {
+        return (int) Math.min(estimate(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long longValue() {
+        return estimate();
+    }
+
+    @Override
+    public float floatValue() {
+        return estimate();
+    }
+
+    @Override
+    public double doubleValue() {
+        return estimate();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj == this
+            || obj instanceof HyperLogLog that
+            && precision == that.precision
+            && toString().equals(that.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    private void addHash(long hash) {
+        // The first bits choose the register; the rank is the position of
+        // the first 1 bit in the rest.
+        final int register = (int) (hash >>> (64 - precision));
+        final long rest = (hash << precision) | (1L << (precision - 1));
+        update(register, Long.numberOfLeadingZeros(rest) + 1);
+    }
+
+    private void update(int register, int rank) {
+        if (registers != null) {
+            if (rank > registers[register]) {
+                registers[register] = (byte) rank;
+            }
+            return;
+        }
+        final int i = findEntry(register);
+        if (i >= 0) {
+            if (rank > (entries[i] & 0xff)) {
+                entries[i] = register << 8 | rank;
+            }
+            return;
+        }
+        // A sparse entry takes four bytes, a register one.
+        if (entryCount + 1 > (1 << precision) / 4) {
+            toDense();
+            registers[register] = (byte) rank;
+            return;
+        }
+        final int insert = -i - 1;
+        if (entryCount == entries.length) {
+            entries = Arrays.copyOf(entries, entryCount * 2);
+        }
+        System.arraycopy(
+            entries, insert, entries, insert + 1, entryCount - insert);
+        entries[insert] = register << 8 | rank;
+        ++entryCount;
+    }
+
+    private int findEntry(int register) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midRegister = entries[mid] >>> 8;
+            if (midRegister < register) {
+                low = mid + 1;
+            } else if (midRegister > register) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[1 << precision];
+        for (int i = 0; i < entryCount; i++) {
+            registers[entries[i] >>> 8] = (byte) (entries[i] & 0xff);
+        }
+        entries = new int[0];
+        entryCount = 0;
+    }
+
+    private static String text(Object value) {
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString())
+                    .stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                // NaN or infinity
+            }
+        }
+        return value.toString();
+    }
+
+    private static long hash(String s) {
+        // FNV-1a, then the finalizer of MurmurHash3 to spread the bits.
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.util;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free queue for many producer threads and a single consumer
+ * thread.
+ *
+ * <p>Producers claim a slot by advancing the tail with a compare-and-set, and
+ * never block: if the buffer is full, {@link #offer} returns false and the
+ * element is dropped. Only one thread may call {@link #poll}.</p>
+ *
+ * @param <E> Element type
+ */
+public class MpscRingBuffer<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Written by the consumer thread only.
+    private volatile long head;
+
+    /**
+     * Creates a MpscRingBuffer.
+     *
+     * @param capacity Minimum capacity; rounded up to a power of two
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                "capacity must be positive: " + capacity);
+        }
+        final int size = Integer.highestOneBit(capacity) == capacity
+            ? capacity
+            : Integer.highestOneBit(capacity) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element, unless the buffer is full. May be called by any
+     * thread.
+     *
+     * @param e Element; must not be null
+     * @return Whether the element was added
+     */
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long t;
+        do {
+            t = tail.get();
+            if (t - head > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.lazySet((int) (t & mask), e);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element. Must only be called by the consumer
+     * thread.
+     *
+     * <p>Returns null if the buffer is empty, or if the producer that claimed
+     * the next slot has not yet stored its element.</p>
+     *
+     * @return Oldest element, or null
+     */
+    public E poll() {
+        final long h = head;
+        final int index = (int) (h & mask);
+        final E e = slots.get(index);
+        if (e == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head = h + 1;
+        return e;
+    }
+
+    /**
+     * Returns the number of elements in the buffer. The result is only an
+     * estimate while producers or the consumer are active.
+     *
+     * @return Number of elements
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
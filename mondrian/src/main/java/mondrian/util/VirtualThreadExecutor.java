@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that runs each task on a new virtual thread, and limits the
+ * number of tasks that run at the same time with a semaphore.
+ *
+ * <p>Unlike a fixed-size pool of platform threads, a task that blocks, for
+ * instance on a JDBC call, does not hold on to an operating system thread.
+ * Tasks in excess of the limit are not rejected; their virtual threads wait
+ * for a permit. The semaphore may be shared by several executors, so that
+ * one limit applies to all work done against the same data source.</p>
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    /**
+     * Creates a VirtualThreadExecutor with its own limit.
+     *
+     * @param name           Prefix of the names of the threads
+     * @param maxConcurrency Maximum number of tasks running at the same time;
+     *                       0 or negative for no limit
+     */
+    public VirtualThreadExecutor(String name, int maxConcurrency) {
+        this(name, maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null);
+    }
+
+    /**
+     * Creates a VirtualThreadExecutor whose tasks take their permits from a
+     * given semaphore.
+     *
+     * @param name    Prefix of the names of the threads
+     * @param permits Semaphore, or null for no limit
+     */
+    public VirtualThreadExecutor(String name, Semaphore permits) {
+        this.executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name(name + '_', 1).factory());
+        this.permits = permits;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (permits == null) {
+            executor.execute(command);
+            return;
+        }
+        executor.execute(() -> {
+            // A task that is cancelled while it waits still completes, because
+            // running a cancelled FutureTask returns at once. The wait is
+            // therefore not interruptible.
+            permits.acquireUninterruptibly();
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException
+    {
+        return executor.awaitTermination(timeout, unit);
+    }
+}
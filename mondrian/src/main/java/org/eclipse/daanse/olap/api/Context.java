@@ -31,6 +31,8 @@ import org.eclipse.daanse.olap.calc.api.compiler.ExpressionCompilerFactory;
 import org.eclipse.daanse.olap.core.BasicContextConfig;
 import org.eclipse.daanse.olap.rolap.dbmapper.provider.api.DatabaseMappingSchemaProvider;
 
+import mondrian.olap.MdxStatementCache;
+import mondrian.rolap.QueryResultCache;
 import mondrian.rolap.agg.AggregationManager;
 import org.eclipse.daanse.rolap.mapping.api.RolapContextMappingSupplier;
 
@@ -132,4 +134,18 @@ public interface Context {
 
     MdxParserProvider getMdxParserProvider();
 
+    /**
+     * Gives access to the cache of parsed MDX statements of this Context.
+     *
+     * @return MdxStatementCache
+     */
+    MdxStatementCache getMdxStatementCache();
+
+    /**
+     * Gives access to the cache of query results of this Context.
+     *
+     * @return QueryResultCache
+     */
+    QueryResultCache getQueryResultCache();
+
 }
@@ -503,6 +503,19 @@ public interface SchemaReader {
         List<NameSegment> childNames,
         MatchType matchType);
 
+    /**
+     * Finds the children with the given names of several parent members,
+     * which must all belong to the same level.
+     *
+     * <p>The children of all parents are looked up together, so an
+     * implementation may return a child of one parent whose name was only
+     * wanted for another parent.</p>
+     */
+    List<Member> lookupMembersChildrenByNames(
+        List<Member> parents,
+        List<NameSegment> childNames,
+        MatchType matchType);
+
     /**
      * Returns an object which can evaluate an expression in native SQL, or
      * null if this is not possible.
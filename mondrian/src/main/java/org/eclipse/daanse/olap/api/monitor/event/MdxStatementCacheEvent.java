@@ -0,0 +1,27 @@
+/*
+* Copyright (c) 2024 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+
+package org.eclipse.daanse.olap.api.monitor.event;
+
+/**
+ * Fired when a statement is looked up in the parsed-statement cache of a context.
+ *
+ * @param mdxStatementEventCommon common statement event data
+ * @param hit                     whether the statement was found in the cache
+ * @param hitCount                hits of the cache so far
+ * @param missCount               misses of the cache so far
+ */
+public record MdxStatementCacheEvent(MdxStatementEventCommon mdxStatementEventCommon, boolean hit, long hitCount,
+		long missCount) implements StatementEvent {
+
+}
@@ -18,7 +18,13 @@ package org.eclipse.daanse.olap.api.monitor.event;
  *
  * @param sqlStatementEventInfo
  * @param cellRequestCount Number of missed cells that led to this request
+ * @param batchPlan How the missed cells were batched into this request, if
+ *                  the batches were planned by cost; otherwise null
  */
-public record SqlStatementStartEvent(SqlStatementEventCommon sqlStatementEventCommon, long cellRequestCount) implements SqlStatementEvent {
+public record SqlStatementStartEvent(SqlStatementEventCommon sqlStatementEventCommon, long cellRequestCount,
+		String batchPlan) implements SqlStatementEvent {
 
+	public SqlStatementStartEvent(SqlStatementEventCommon sqlStatementEventCommon, long cellRequestCount) {
+		this(sqlStatementEventCommon, cellRequestCount, null);
+	}
 }
@@ -13,6 +13,6 @@
 package org.eclipse.daanse.olap.api.monitor.event;
 
 public sealed interface StatementEvent extends OlapEvent
-		permits MdxStatementStartEvent, MdxStatementEndEvent {
+		permits MdxStatementStartEvent, MdxStatementEndEvent, MdxStatementCacheEvent {
 
 }
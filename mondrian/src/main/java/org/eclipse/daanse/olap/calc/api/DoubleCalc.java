@@ -14,6 +14,60 @@
 
 package org.eclipse.daanse.olap.calc.api;
 
+import org.eclipse.daanse.olap.api.Evaluator;
+
+import mondrian.olap.Util;
+
+/**
+ * Compiled expression which yields a {@code double}.
+ *
+ * <p>Numeric expressions are evaluated once per cell and per operator, so
+ * nested calcs should call {@link #evaluateDouble(Evaluator)}, which does not
+ * box the result. The MDX null value is returned as {@link #NULL_VALUE}; only
+ * {@link #evaluate(Evaluator)} boxes it into {@link Util#DOUBLE_NULL}.</p>
+ *
+ * <p>{@link #evaluateDouble(Evaluator)} has no way to return
+ * {@link mondrian.rolap.RolapUtil#valueNotReadyException}; a cell which is not
+ * loaded yet evaluates to 0. Callers which must know whether the result is
+ * final, like {@code Sum} in a batching pass, compare
+ * {@link Evaluator#getMissCount()} before and after the call.</p>
+ */
 public interface DoubleCalc extends Calc<Double> {
 
+    /**
+     * Value returned by {@link #evaluateDouble(Evaluator)} if the expression
+     * evaluates to the MDX null value. It is a NaN with a payload that
+     * arithmetic does not produce, so it cannot collide with a real value;
+     * test for it with {@link #isNull(double)}, not with {@code ==}.
+     */
+    double NULL_VALUE = Double.longBitsToDouble(0x7ff80000DAA05E01L);
+
+    /**
+     * Returns whether a value returned by {@link #evaluateDouble(Evaluator)}
+     * is the MDX null value.
+     */
+    static boolean isNull(double d) {
+        return Double.doubleToRawLongBits(d) == 0x7ff80000DAA05E01L;
+    }
+
+    /**
+     * Converts a value returned by {@link #evaluate(Evaluator)} to the value
+     * {@link #evaluateDouble(Evaluator)} returns for it.
+     */
+    static double unbox(Double d) {
+        return d == null || d == Util.DOUBLE_NULL ? NULL_VALUE : d.doubleValue();
+    }
+
+    /**
+     * Evaluates this expression to a primitive {@code double}.
+     *
+     * @param evaluator Provides dimensional context in which to evaluate
+     *                  this expression
+     * @return Result of expression evaluation, or {@link #NULL_VALUE} if the
+     *         result is null
+     */
+    default double evaluateDouble(Evaluator evaluator) {
+        return unbox(evaluate(evaluator));
+    }
+
 }
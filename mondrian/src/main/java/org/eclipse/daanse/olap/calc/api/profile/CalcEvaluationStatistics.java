@@ -0,0 +1,41 @@
+/*
+* Copyright (c) 2024 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.olap.calc.api.profile;
+
+import java.util.List;
+
+/**
+ * Aggregated timings of all evaluations of a calc.
+ *
+ * <p>
+ * Evaluation times are counted in a histogram with fixed buckets. Bucket
+ * {@code i} counts the evaluations that took less than
+ * {@code histogramBounds().get(i)} nanoseconds, and at least the bound of the
+ * previous bucket. The last bucket, which has no bound, counts the remaining
+ * evaluations.
+ */
+public interface CalcEvaluationStatistics {
+
+	long count();
+
+	long totalNanos();
+
+	long minNanos();
+
+	long maxNanos();
+
+	List<Long> histogramBounds();
+
+	long[] histogram();
+
+}
@@ -36,8 +36,14 @@ public interface CalculationProfile {
 
 	Map<String, Object> additionalValues();
 
+	/**
+	 * Traced evaluations. Only the first evaluations are traced, see
+	 * {@link #evaluationStatistics()} for all of them.
+	 */
 	List<CalcEvaluationProfile> evaluationProfiles();
 
+	CalcEvaluationStatistics evaluationStatistics();
+
 	List<CalculationProfile> childProfiles();
 
 	Duration duration();
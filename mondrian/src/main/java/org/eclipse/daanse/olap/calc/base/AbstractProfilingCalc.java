@@ -13,29 +13,23 @@
 */
 package org.eclipse.daanse.olap.calc.base;
 
-import java.time.Instant;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import org.eclipse.daanse.olap.api.Evaluator;
 import org.eclipse.daanse.olap.api.type.Type;
-import org.eclipse.daanse.olap.calc.api.profile.CalcEvaluationProfile;
 import org.eclipse.daanse.olap.calc.api.profile.CalculationProfile;
 import org.eclipse.daanse.olap.calc.api.profile.ProfilingCalc;
-import org.eclipse.daanse.olap.calc.base.profile.CalcEvaluationProfileR;
+import org.eclipse.daanse.olap.calc.base.profile.CalcEvaluationRecorder;
 import org.eclipse.daanse.olap.calc.base.profile.CalcProfileR;
 
 public abstract class AbstractProfilingCalc<T> implements ProfilingCalc<T> {
 
 	private Type type;
 
-	private Instant firstEvalStart = null;
-	private Instant lastEvalEnd = null;
-
-	private final List<CalcEvaluationProfile> evaluations = new ArrayList<CalcEvaluationProfile>();
+	private CalcEvaluationRecorder recorder = new CalcEvaluationRecorder(0);
+	private boolean recorderConfigured;
 
 	/**
 	 * Abstract Implementation of {@link ProfilingCalc} that generated a
@@ -51,25 +45,26 @@ public abstract class AbstractProfilingCalc<T> implements ProfilingCalc<T> {
 
 	@Override
 	public T evaluateWithProfile(Evaluator evaluator) {
-		Instant startEval = Instant.now();
-		if (firstEvalStart == null) {
-			firstEvalStart = startEval;
+		if (!recorderConfigured) {
+			recorderConfigured = true;
+			recorder = new CalcEvaluationRecorder(
+					evaluator.getQuery().getConnection().getContext().getConfig().calcProfileTraceSize());
 		}
+		final long startEval = System.nanoTime();
 		final T evalResult = evaluate(evaluator);
-
-		Instant endEval = Instant.now();
-		lastEvalEnd = endEval;
+		final long endEval = System.nanoTime();
 
 		profileEvaluation(startEval, endEval, evalResult);
 		return evalResult;
 	}
 
-	protected void profileEvaluation(Instant evaluationStart, Instant evaluationEnd, T evaluationResult) {
-
-		CalcEvaluationProfile evaluationProfile = new CalcEvaluationProfileR(evaluationStart, evaluationEnd,
-				evaluationResult, Map.of());
-		evaluations.add(evaluationProfile);
-
+	/**
+	 * Records an evaluation. Keeps counters and a histogram of the evaluation
+	 * times; the result is only kept for the first evaluations, see
+	 * {@link CalcEvaluationRecorder}.
+	 */
+	protected void profileEvaluation(long evaluationStartNanos, long evaluationEndNanos, T evaluationResult) {
+		recorder.record(evaluationStartNanos, evaluationEndNanos, evaluationResult);
 	}
 
 	protected Map<String, Object> profilingProperties(Map<String, Object> properties) {
@@ -79,8 +74,8 @@ public abstract class AbstractProfilingCalc<T> implements ProfilingCalc<T> {
 	public CalculationProfile getCalculationProfile() {
 		final List<CalculationProfile> childProfiles = getChildProfiles();
 		Map<String, Object> profilingProperties = profilingProperties(new HashMap<String, Object>());
-		return new CalcProfileR(this.getClass(), getType(), getResultStyle(), Optional.ofNullable(firstEvalStart),
-				Optional.ofNullable(lastEvalEnd), profilingProperties, evaluations, childProfiles);
+		return new CalcProfileR(this.getClass(), getType(), getResultStyle(), recorder.start(), recorder.end(),
+				profilingProperties, recorder.trace(), recorder.statistics(), childProfiles);
 	}
 
 	List<CalculationProfile> getChildProfiles() {
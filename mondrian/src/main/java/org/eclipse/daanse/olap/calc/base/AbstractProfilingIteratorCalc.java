@@ -14,7 +14,6 @@
 
 package org.eclipse.daanse.olap.calc.base;
 
-import java.time.Instant;
 import java.util.Collection;
 import java.util.Map;
 
@@ -30,8 +29,8 @@ public abstract class AbstractProfilingIteratorCalc<T> extends AbstractProfiling
 	private long elementSquaredCount;
 
 	@Override
-	protected void profileEvaluation(Instant evaluationStart, Instant evaluationEnd, T evaluationResult) {
-		super.profileEvaluation(evaluationStart, evaluationEnd, evaluationResult);
+	protected void profileEvaluation(long evaluationStartNanos, long evaluationEndNanos, T evaluationResult) {
+		super.profileEvaluation(evaluationStartNanos, evaluationEndNanos, evaluationResult);
 		if (evaluationResult instanceof Collection c) {
 			long size = c.size();
 			elementCount += size;
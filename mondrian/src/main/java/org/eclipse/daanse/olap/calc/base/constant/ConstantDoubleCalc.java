@@ -13,15 +13,25 @@
 */
 package org.eclipse.daanse.olap.calc.base.constant;
 
+import org.eclipse.daanse.olap.api.Evaluator;
 import org.eclipse.daanse.olap.calc.api.DoubleCalc;
 import org.eclipse.daanse.olap.calc.base.AbstractProfilingConstantCalc;
 
+import mondrian.olap.fun.FunUtil;
 import mondrian.olap.type.NumericType;
 
 public class ConstantDoubleCalc extends AbstractProfilingConstantCalc<Double> implements DoubleCalc {
 
+	private final double doubleValue;
+
 	public ConstantDoubleCalc(NumericType type, Double value) {
 		super(value, type);
+		this.doubleValue = value == null || value == FunUtil.DOUBLE_NULL ? NULL_VALUE : value.doubleValue();
+	}
+
+	@Override
+	public double evaluateDouble(Evaluator evaluator) {
+		return doubleValue;
 	}
 
 }
@@ -24,10 +24,15 @@ import mondrian.olap.fun.FunUtil;
 import mondrian.olap.type.NumericType;
 
 /**
- * Abstract implementation of the {@link org.eclipse.daanse.olap.calc.api.IntegerCalc} interface.
+ * Abstract implementation of the {@link org.eclipse.daanse.olap.calc.api.DoubleCalc} interface.
  * 
  * Handles nested child and profiling
  *
+ * Subclasses implement {@link #evaluateDouble(Evaluator)}; the boxing
+ * {@link #evaluate(Evaluator)} is derived from it. Subclasses which compute a
+ * boxed value, for instance to pass on the value-not-ready marker, override
+ * {@link #evaluate(Evaluator)} as well and unbox its result with
+ * {@link DoubleCalc#unbox(Double)}.
  */
 public abstract class AbstractProfilingNestedDoubleCalc<C  extends Calc<?>>
 extends AbstractProfilingNestedCalc<Double,C>
@@ -44,10 +49,13 @@ implements DoubleCalc
 
     @Override
     public Double evaluate(Evaluator evaluator) {
-        final Double d = evaluate(evaluator);
-        if (d == FunUtil.DOUBLE_NULL) {
-            return null;
+        final double d = evaluateDouble(evaluator);
+        if (DoubleCalc.isNull(d)) {
+            return FunUtil.DOUBLE_NULL;
         }
         return Double.valueOf(d);
     }
+
+    @Override
+    public abstract double evaluateDouble(Evaluator evaluator);
 }
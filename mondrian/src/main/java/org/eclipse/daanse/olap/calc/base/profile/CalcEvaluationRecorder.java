@@ -0,0 +1,116 @@
+/*
+* Copyright (c) 2024 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.olap.calc.base.profile;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.daanse.olap.calc.api.profile.CalcEvaluationProfile;
+import org.eclipse.daanse.olap.calc.api.profile.CalcEvaluationStatistics;
+
+/**
+ * Records the evaluations of a calc in constant memory.
+ *
+ * <p>
+ * Each evaluation updates a count, the total, minimum and maximum time and a
+ * histogram with fixed buckets. Times are measured with
+ * {@link System#nanoTime()}; wall-clock instants are derived from the start of
+ * the first evaluation. Only the first {@code traceSize} evaluations are kept
+ * as {@link CalcEvaluationProfile}s.
+ */
+public class CalcEvaluationRecorder {
+
+	/**
+	 * Upper bounds of the histogram buckets, in nanoseconds: 1&micro;s to 1s in
+	 * steps of ten.
+	 */
+	public static final List<Long> HISTOGRAM_BOUNDS = List.of(1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+			100_000_000L, 1_000_000_000L);
+
+	private final int traceSize;
+	private final long[] histogram = new long[HISTOGRAM_BOUNDS.size() + 1];
+	private final List<CalcEvaluationProfile> trace = new ArrayList<>();
+	private Instant firstStart;
+	private long firstStartNanos;
+	private long lastEndNanos;
+	private long count;
+	private long totalNanos;
+	private long minNanos = Long.MAX_VALUE;
+	private long maxNanos;
+
+	/**
+	 * @param traceSize number of evaluations kept as
+	 *                  {@link CalcEvaluationProfile}s; 0 keeps none
+	 */
+	public CalcEvaluationRecorder(int traceSize) {
+		this.traceSize = traceSize;
+	}
+
+	/**
+	 * Records an evaluation.
+	 *
+	 * @param startNanos       {@link System#nanoTime()} at the start
+	 * @param endNanos         {@link System#nanoTime()} at the end
+	 * @param evaluationResult result, kept only if the evaluation is traced
+	 */
+	public void record(long startNanos, long endNanos, Object evaluationResult) {
+		if (count == 0) {
+			firstStart = Instant.now().minusNanos(System.nanoTime() - startNanos);
+			firstStartNanos = startNanos;
+		}
+		final long nanos = endNanos - startNanos;
+		count++;
+		totalNanos += nanos;
+		minNanos = Math.min(minNanos, nanos);
+		maxNanos = Math.max(maxNanos, nanos);
+		lastEndNanos = endNanos;
+		histogram[bucket(nanos)]++;
+		if (trace.size() < traceSize) {
+			trace.add(new CalcEvaluationProfileR(toInstant(startNanos), toInstant(endNanos), evaluationResult,
+					Map.of()));
+		}
+	}
+
+	private static int bucket(long nanos) {
+		int i = 0;
+		while (i < HISTOGRAM_BOUNDS.size() && nanos >= HISTOGRAM_BOUNDS.get(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	private Instant toInstant(long nanos) {
+		return firstStart.plusNanos(nanos - firstStartNanos);
+	}
+
+	public Optional<Instant> start() {
+		return Optional.ofNullable(firstStart);
+	}
+
+	public Optional<Instant> end() {
+		return count == 0 ? Optional.empty() : Optional.of(toInstant(lastEndNanos));
+	}
+
+	public List<CalcEvaluationProfile> trace() {
+		return List.copyOf(trace);
+	}
+
+	public CalcEvaluationStatistics statistics() {
+		return new CalcEvaluationStatisticsR(count, totalNanos, count == 0 ? 0 : minNanos, maxNanos,
+				HISTOGRAM_BOUNDS, histogram.clone());
+	}
+
+}
@@ -0,0 +1,22 @@
+/*
+* Copyright (c) 2024 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.olap.calc.base.profile;
+
+import java.util.List;
+
+import org.eclipse.daanse.olap.calc.api.profile.CalcEvaluationStatistics;
+
+public record CalcEvaluationStatisticsR(long count, long totalNanos, long minNanos, long maxNanos,
+		List<Long> histogramBounds, long[] histogram) implements CalcEvaluationStatistics {
+
+}
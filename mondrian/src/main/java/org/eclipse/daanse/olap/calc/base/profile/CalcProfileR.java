@@ -9,11 +9,13 @@ import java.util.Optional;
 import org.eclipse.daanse.olap.api.type.Type;
 import org.eclipse.daanse.olap.calc.api.ResultStyle;
 import org.eclipse.daanse.olap.calc.api.profile.CalcEvaluationProfile;
+import org.eclipse.daanse.olap.calc.api.profile.CalcEvaluationStatistics;
 import org.eclipse.daanse.olap.calc.api.profile.CalculationProfile;
 
 public record CalcProfileR(Class<?> clazz, Type type, ResultStyle resultStyle, Optional<Instant> start,
 		Optional<Instant> end, Map<String, Object> additionalValues, List<CalcEvaluationProfile> evaluationProfiles,
-		List<CalculationProfile> childProfiles) implements CalculationProfile {
+		CalcEvaluationStatistics evaluationStatistics, List<CalculationProfile> childProfiles)
+		implements CalculationProfile {
 
 	@Override
 	public Duration duration() {
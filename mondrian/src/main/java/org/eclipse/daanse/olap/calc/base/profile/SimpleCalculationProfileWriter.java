@@ -15,10 +15,8 @@
 package org.eclipse.daanse.olap.calc.base.profile;
 
 import java.io.PrintWriter;
-import java.util.List;
 import java.util.Map;
 
-import org.eclipse.daanse.olap.calc.api.profile.CalcEvaluationProfile;
 import org.eclipse.daanse.olap.calc.api.profile.CalculationProfile;
 
 public class SimpleCalculationProfileWriter {
@@ -106,10 +104,9 @@ public class SimpleCalculationProfileWriter {
 	}
 
 	private void printSubProfiles(CalculationProfile profile) {
-		List<CalcEvaluationProfile> evaluationProfiles = profile.evaluationProfiles();
 		printWriter.print("callCount");
 		printWriter.print("=");
-		printWriter.print(evaluationProfiles.size());
+		printWriter.print(profile.evaluationStatistics().count());
 		printWriter.print(", ");
 	}
 
@@ -28,9 +28,9 @@ public class DoubleToBooleanCalc extends AbstractProfilingNestedBooleanCalc<Doub
 
 	@Override
 	public Boolean evaluate(Evaluator evaluator) {
-		Double v0 = getFirstChildCalc().evaluate(evaluator);
+		final double v0 = getFirstChildCalc().evaluateDouble(evaluator);
 
-		if (Double.isNaN(v0) || v0 == FunUtil.DOUBLE_NULL) {
+		if (Double.isNaN(v0) || DoubleCalc.isNull(v0)) {
 			return FunUtil.BOOLEAN_NULL;
 		}
 
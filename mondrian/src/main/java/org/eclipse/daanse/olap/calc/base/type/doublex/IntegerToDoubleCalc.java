@@ -18,8 +18,6 @@ import org.eclipse.daanse.olap.api.type.Type;
 import org.eclipse.daanse.olap.calc.api.IntegerCalc;
 import org.eclipse.daanse.olap.calc.base.nested.AbstractProfilingNestedDoubleCalc;
 
-import mondrian.olap.fun.FunUtil;
-
 public class IntegerToDoubleCalc extends AbstractProfilingNestedDoubleCalc<IntegerCalc> {
 
 	public IntegerToDoubleCalc(Type type, IntegerCalc integerCalc) {
@@ -27,13 +25,11 @@ public class IntegerToDoubleCalc extends AbstractProfilingNestedDoubleCalc<Integ
 	}
 
 	@Override
-	public Double evaluate(Evaluator evaluator) {
+	public double evaluateDouble(Evaluator evaluator) {
 
 		Integer i = getFirstChildCalc().evaluate(evaluator);
 		if (i == null) {
-			return FunUtil.DOUBLE_NULL;
-			// null;
-			// TODO: !!! JUST REFACTORING 0 must be null
+			return NULL_VALUE;
 		}
 		return i.doubleValue();
 	}
@@ -13,8 +13,6 @@
 */
 package org.eclipse.daanse.olap.calc.base.type.doublex;
 
-import java.util.Objects;
-
 import org.eclipse.daanse.olap.api.Evaluator;
 import org.eclipse.daanse.olap.api.type.Type;
 import org.eclipse.daanse.olap.calc.api.Calc;
@@ -34,15 +32,24 @@ public class UnknownToDoubleCalc extends AbstractProfilingNestedDoubleCalc<Calc<
 		Object o = getFirstChildCalc().evaluate(evaluator);
 		if (o == null) {
 			return FunUtil.DOUBLE_NULL;
-			// null;
-			// TODO: !!! JUST REFACTORING 0 must be null
-		} else if (Objects.equals(o, FunUtil.DOUBLE_NULL)) {
-			return FunUtil.DOUBLE_NULL;
 		} else if (o instanceof Double d) {
+			// keeps the identity of DOUBLE_NULL and of the value not ready marker
 			return d;
 		} else if (o instanceof Number n) {
 			return n.doubleValue();
 		}
 		throw evaluator.newEvalException(null, "wrtong typed, was: " + o);
 	}
+
+	@Override
+	public double evaluateDouble(Evaluator evaluator) {
+
+		Object o = getFirstChildCalc().evaluate(evaluator);
+		if (o == null || o == FunUtil.DOUBLE_NULL) {
+			return NULL_VALUE;
+		} else if (o instanceof Number n) {
+			return n.doubleValue();
+		}
+		throw evaluator.newEvalException(null, "wrtong typed, was: " + o);
+	}
 }
\ No newline at end of file
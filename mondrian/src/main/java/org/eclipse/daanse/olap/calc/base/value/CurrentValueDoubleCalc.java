@@ -1,5 +1,6 @@
 package org.eclipse.daanse.olap.calc.base.value;
 
+import org.eclipse.daanse.olap.api.Evaluator;
 import org.eclipse.daanse.olap.api.type.Type;
 import org.eclipse.daanse.olap.calc.api.DoubleCalc;
 import org.eclipse.daanse.olap.calc.base.AbstractProfilingValueCalc;
@@ -13,6 +14,17 @@ public class CurrentValueDoubleCalc extends AbstractProfilingValueCalc<Double> i
 		super(type);
 	}
 
+	@Override
+	public double evaluateDouble(Evaluator evaluator) {
+		final Object value = evaluator.evaluateCurrent();
+		if (value == null || value == FunUtil.DOUBLE_NULL) {
+			return NULL_VALUE;
+		} else if (value instanceof Number n) {
+			return n.doubleValue();
+		}
+		throw new RuntimeException("wring value");
+	}
+
 	@Override
 	protected Double convertCurrentValue(Object evaluatedCurrentValue) {
 		if (evaluatedCurrentValue == null) {
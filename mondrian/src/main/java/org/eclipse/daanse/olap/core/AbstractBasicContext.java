@@ -36,9 +36,10 @@ import org.eclipse.daanse.olap.api.monitor.event.ServertEventCommon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import mondrian.olap.MdxStatementCache;
 import mondrian.olap.MondrianException;
+import mondrian.rolap.QueryResultCache;
 import mondrian.rolap.agg.AggregationManager;
-import mondrian.server.NopEventBus;
 
 public abstract class AbstractBasicContext implements Context {
 
@@ -57,10 +58,14 @@ public abstract class AbstractBasicContext implements Context {
 	@SuppressWarnings("unchecked")
 	private final List<Statement> statements =Collections.synchronizedList(new ArrayList<>());
 
-    protected NopEventBus monitor;
+    protected EventBus monitor;
 
 	protected AggregationManager aggMgr;
 
+	private MdxStatementCache mdxStatementCache;
+
+	private QueryResultCache queryResultCache;
+
 	private boolean shutdown = false;
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractBasicContext.class);
@@ -154,6 +159,14 @@ public abstract class AbstractBasicContext implements Context {
 		aggMgr.shutdown();
 
 		shepherd.shutdown();
+
+		if (monitor instanceof AutoCloseable closeable) {
+			try {
+				closeable.close();
+			} catch (Exception e) {
+				LOGGER.warn("Error while closing event bus", e);
+			}
+		}
 	}
 
 	@Override
@@ -249,6 +262,24 @@ public abstract class AbstractBasicContext implements Context {
 
 
 
+	@Override
+	public synchronized MdxStatementCache getMdxStatementCache() {
+		if (mdxStatementCache == null) {
+			mdxStatementCache = new MdxStatementCache(getConfig().mdxStatementCacheSize());
+		}
+		return mdxStatementCache;
+	}
+
+	@Override
+	public synchronized QueryResultCache getQueryResultCache() {
+		if (queryResultCache == null) {
+			queryResultCache = new QueryResultCache(getConfig().queryResultCacheMaxCells());
+		} else {
+			queryResultCache.setMaxCells(getConfig().queryResultCacheMaxCells());
+		}
+		return queryResultCache;
+	}
+
 	@Override
 	public List<Statement> getStatements(org.eclipse.daanse.olap.api.Connection connection) {
 		return statements.stream().filter(stmnt -> stmnt.getMondrianConnection().equals(connection))
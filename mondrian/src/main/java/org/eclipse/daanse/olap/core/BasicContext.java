@@ -51,6 +51,7 @@ import mondrian.rolap.RolapConnection;
 import mondrian.rolap.RolapConnectionPropsR;
 import mondrian.rolap.RolapResultShepherd;
 import mondrian.rolap.agg.AggregationManager;
+import mondrian.server.MetricsEventBus;
 import mondrian.server.NopEventBus;
 
 @Designate(ocd = BasicContextConfig.class, factory = true)
@@ -121,29 +122,14 @@ public class BasicContext extends AbstractBasicContext {
 	public void activate1(BasicContextConfig configuration) throws Exception {
 
         this.config = configuration;
-		this.monitor = new NopEventBus();
-		//TODO: rm was just for testing
-		statisticsProvider=new StatisticsProvider(){
-	        @Override
-	        public void initialize(DataSource dataSource, Dialect dialect) {
-
-	        }
-
-	        @Override
-	        public long getTableCardinality(String catalog, String schema, String table) {
-	            return 0;
-	        }
-
-	        @Override
-	        public long getQueryCardinality(String sql) {
-	            return 0;
-	        }
-
-	        @Override
-	        public long getColumnCardinality(String catalog, String schema, String table, String column) {
-	            return 0;
-	        }
-	    };
+		if (config.metricsEventBufferSize() > 0) {
+			final MetricsEventBus metricsEventBus =
+					new MetricsEventBus(getName(), config.metricsEventBufferSize());
+			metricsEventBus.register(getName() + "-" + getId());
+			this.monitor = metricsEventBus;
+		} else {
+			this.monitor = new NopEventBus();
+		}
 
 		queryLimitSemaphore = new Semaphore(config.queryLimit());
 
@@ -153,7 +139,8 @@ public class BasicContext extends AbstractBasicContext {
 		}
 		statisticsProvider.initialize(dataSource, getDialect());
 		shepherd = new RolapResultShepherd(config.rolapConnectionShepherdThreadPollingInterval(),
-				config.rolapConnectionShepherdThreadPollingIntervalUnit(), config.rolapConnectionShepherdNbThreads());
+				config.rolapConnectionShepherdThreadPollingIntervalUnit(), config.rolapConnectionShepherdNbThreads(),
+				config.virtualThreads());
 		aggMgr = new AggregationManager(this);
 
 		if (LOGGER.isDebugEnabled()) {
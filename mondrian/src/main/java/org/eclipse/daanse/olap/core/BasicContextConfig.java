@@ -36,6 +36,7 @@ public interface BasicContextConfig {
     Long ROLAP_CONNECTION_SHEPHERD_THREAD_POLLING_INTERVAL = 1000L;
     TimeUnit ROLAP_CONNECTION_SHEPHERD_THREAD_POLLING_INTERVAL_UNIT = TimeUnit.MILLISECONDS;
     Integer SEGMENT_CACHE_MANAGER_NUMBER_SQL_THREADS = 100;
+    Integer SEGMENT_CACHE_MANAGER_NUMBER_ACTORS = 1;
     String SOLVE_ORDER_MODE = "ABSOLUTE";
     boolean CHOOSE_AGGREGATE_BY_VOLUME = false;
     boolean DISABLE_CACHING = false;
@@ -81,6 +82,21 @@ public interface BasicContextConfig {
     boolean GENERATE_FORMATTED_SQL = false;
     long EXECUTE_DURATION = 0;
     String EXECUTE_DURATION_UNIT = "MILLISECONDS";
+    int MDX_STATEMENT_CACHE_SIZE = 1000;
+    int SQL_FETCH_SIZE = -1;
+    boolean SQL_STREAMING_RESULT_SETS = true;
+    int CALC_PROFILE_TRACE_SIZE = 0;
+    long SEGMENT_CACHE_OFF_HEAP_BYTES = 0;
+    String SEGMENT_CACHE_DISK_DIRECTORY = "";
+    long SEGMENT_CACHE_DISK_MAX_BYTES = 1L << 30;
+    int METRICS_EVENT_BUFFER_SIZE = 4096;
+    int PARALLEL_CELL_EVALUATION_TASKS = 0;
+    long QUERY_RESULT_CACHE_MAX_CELLS = 0;
+    boolean VIRTUAL_THREADS = false;
+    boolean CHOOSE_AGGREGATE_BY_COST = false;
+    String STATISTICS_CACHE_FILE = "";
+    long STATISTICS_CACHE_TIME_TO_LIVE = 0;
+    boolean GROUPING_SETS_BY_COST = false;
 
     @AttributeDefinition(name = "%name.name", description = "%name.description", required = false)
     default String name() {
@@ -217,7 +233,7 @@ public interface BasicContextConfig {
     @AttributeDefinition(name = "%enableNativeCrossJoin.name", description = "%enableNativeCrossJoin.description", type = AttributeType.BOOLEAN)
     default Boolean enableNativeCrossJoin() { return ENABLE_NATIVE_CROSS_JOIN; }
 
-    //If enabled some TopCount will be computed in SQL.
+    //If enabled some TopCount will be computed in SQL, including a TopCount per member of a level in Generate if the database supports window functions.
     @AttributeDefinition(name = "%enableNativeTopCount.name", description = "%enableNativeTopCount.description", type = AttributeType.BOOLEAN)
     default Boolean enableNativeTopCount() { return ENABLE_NATIVE_TOP_COUNT; }
 
@@ -276,6 +292,10 @@ public interface BasicContextConfig {
     @AttributeDefinition(name = "%segmentCacheManagerNumberCacheThreads.name", description = "%segmentCacheManagerNumberCacheThreads.description", type = AttributeType.INTEGER)
     default Integer segmentCacheManagerNumberCacheThreads() { return SEGMENT_CACHE_MANAGER_NUMBER_CACHE_THREADS; }
 
+    //Number of partitions of the segment cache manager. Each partition has its own actor thread and segment index, and owns the segments of the fact tables hashed to it. Defaults to 1, a single actor as in earlier versions; raise it to let cubes with different fact tables use the cache concurrently.
+    @AttributeDefinition(name = "%segmentCacheManagerNumberActors.name", description = "%segmentCacheManagerNumberActors.description", type = AttributeType.INTEGER)
+    default Integer segmentCacheManagerNumberActors() { return SEGMENT_CACHE_MANAGER_NUMBER_ACTORS; }
+
     //Property that defines whether non-existent member errors should be ignored during schema load. If so, the non-existent member is treated as a null member.
     @AttributeDefinition(name = "%ignoreInvalidMembers.name", description = "%ignoreInvalidMembers.description", type = AttributeType.BOOLEAN)
     default Boolean ignoreInvalidMembers() { return IGNORE_INVALID_MEMBERS; }
@@ -348,6 +368,66 @@ public interface BasicContextConfig {
     @AttributeDefinition(name = "%enableSessionCaching.name", description = "%enableSessionCaching.description", type = AttributeType.BOOLEAN)
     default Boolean enableSessionCaching() { return ENABLE_SESSION_CACHING; }
 
+    //<p>Maximum number of parsed MDX statements kept per context. Statements are keyed by their text, with white space normalized. Only parsing is saved; queries are still validated and compiled on every execution. Setting this property to 0 disables the cache.</p>
+    @AttributeDefinition(name = "%mdxStatementCacheSize.name", description = "%mdxStatementCacheSize.description", type = AttributeType.INTEGER)
+    default Integer mdxStatementCacheSize() { return MDX_STATEMENT_CACHE_SIZE; }
+
+    //<p>Fetch size set on the JDBC statements that read segments, members and tuples. A negative value uses the default fetch size of the dialect; 0 leaves the default of the JDBC driver.</p>
+    @AttributeDefinition(name = "%sqlFetchSize.name", description = "%sqlFetchSize.description", type = AttributeType.INTEGER)
+    default Integer sqlFetchSize() { return SQL_FETCH_SIZE; }
+
+    //<p>Whether forward-only result sets are streamed from the database, if the dialect supports it, instead of being buffered by the JDBC driver. Bounds the memory used while large segments are loaded.</p>
+    @AttributeDefinition(name = "%sqlStreamingResultSets.name", description = "%sqlStreamingResultSets.description", type = AttributeType.BOOLEAN)
+    default Boolean sqlStreamingResultSets() { return SQL_STREAMING_RESULT_SETS; }
+
+    //<p>Number of evaluations of each calc that are traced, with their timestamps and results, when a query is profiled. All evaluations are counted in the calc's statistics regardless. Defaults to 0.</p>
+    @AttributeDefinition(name = "%calcProfileTraceSize.name", description = "%calcProfileTraceSize.description", type = AttributeType.INTEGER)
+    default Integer calcProfileTraceSize() { return CALC_PROFILE_TRACE_SIZE; }
+
+    //<p>Maximum number of bytes of segment data held by the local segment cache outside the Java heap. Least recently used segments are removed when the budget is exceeded. Setting this property to 0 keeps the segments on the heap, held by soft references.</p>
+    @AttributeDefinition(name = "%segmentCacheOffHeapBytes.name", description = "%segmentCacheOffHeapBytes.description", type = AttributeType.LONG)
+    default Long segmentCacheOffHeapBytes() { return SEGMENT_CACHE_OFF_HEAP_BYTES; }
+
+    //<p>Directory in which segments are also stored as files, so that they survive a restart. Each context uses its own subdirectory, named after the context, which is created readable by the owner only; the directory should not be shared with other users. If empty, segments are not stored on disk.</p>
+    @AttributeDefinition(name = "%segmentCacheDiskDirectory.name", description = "%segmentCacheDiskDirectory.description", type = AttributeType.STRING)
+    default String segmentCacheDiskDirectory() { return SEGMENT_CACHE_DISK_DIRECTORY; }
+
+    //<p>Maximum total size in bytes of the segment files of this context in segmentCacheDiskDirectory. Least recently used segments are deleted when the budget is exceeded. Setting this property to 0 or less removes the limit. Defaults to 1 GB.</p>
+    @AttributeDefinition(name = "%segmentCacheDiskMaxBytes.name", description = "%segmentCacheDiskMaxBytes.description", type = AttributeType.LONG)
+    default Long segmentCacheDiskMaxBytes() { return SEGMENT_CACHE_DISK_MAX_BYTES; }
+
+    //<p>Number of monitoring events buffered for the background thread that aggregates them into server, connection and SQL statement statistics, which are also published through JMX. Events are dropped when the buffer is full. Setting this property to 0 discards all events.</p>
+    @AttributeDefinition(name = "%metricsEventBufferSize.name", description = "%metricsEventBufferSize.description", type = AttributeType.INTEGER)
+    default Integer metricsEventBufferSize() { return METRICS_EVENT_BUFFER_SIZE; }
+
+    //<p>Number of tasks that evaluate the cells of a query in parallel. The positions of the outermost axis are split into this many chunks, which are evaluated on the common fork-join pool; the cell requests of all chunks are loaded together. Queries that use a dependency-testing or profiling evaluator, parameters, query-level named sets or a compound slicer are always evaluated sequentially. Setting this property to 0 or 1 evaluates all cells sequentially.</p>
+    @AttributeDefinition(name = "%parallelCellEvaluationTasks.name", description = "%parallelCellEvaluationTasks.description", type = AttributeType.INTEGER)
+    default Integer parallelCellEvaluationTasks() { return PARALLEL_CELL_EVALUATION_TASKS; }
+
+    //<p>Maximum total number of cells of the query results kept per context. A query without parameters or volatile functions such as Now(), executed by a connection without an active scenario, returns the cached result of an earlier execution of the same query by a connection with the same role and locale. Results are removed when a cache flush touches a cube they were computed from, and the least recently used results are removed when the limit is reached. Setting this property to 0 disables the cache.</p>
+    @AttributeDefinition(name = "%queryResultCacheMaxCells.name", description = "%queryResultCacheMaxCells.description", type = AttributeType.LONG)
+    default Long queryResultCacheMaxCells() { return QUERY_RESULT_CACHE_MAX_CELLS; }
+
+    //<p>Whether MDX queries, SQL segment loads and segment cache operations run on virtual threads instead of fixed-size pools of platform threads. Each task gets its own virtual thread, and a thread that blocks on JDBC does not hold on to an operating system thread. The properties rolapConnectionShepherdNbThreads, segmentCacheManagerNumberSqlThreads and segmentCacheManagerNumberCacheThreads then limit the number of tasks that run at the same time; SQL segment loads are limited per data source, to the smallest segmentCacheManagerNumberSqlThreads of the contexts that use it. Tasks in excess of a limit wait instead of being queued in a pool.</p>
+    @AttributeDefinition(name = "%virtualThreads.name", description = "%virtualThreads.description", type = AttributeType.BOOLEAN)
+    default Boolean virtualThreads() { return VIRTUAL_THREADS; }
+
+    //<p>Whether the aggregate table for a request is chosen by estimated cost instead of by size alone. The cost of an aggregate table is the number of rows it handles, times the cost of a row, which is 1, or the total size of its columns if chooseAggregateByVolume is set. The rows handled are the rows scanned, plus, if they have to be rolled up, the rows grouped and the estimated number of result rows. The number of result rows is estimated from the distinct counts of the requested columns. An exact match may therefore win over a smaller table that must be rolled up. If false, the smallest matching aggregate table is used.</p>
+    @AttributeDefinition(name = "%chooseAggregateByCost.name", description = "%chooseAggregateByCost.description", type = AttributeType.BOOLEAN)
+    default Boolean chooseAggregateByCost() { return CHOOSE_AGGREGATE_BY_COST; }
+
+    //<p>File in which the row counts and distinct counts of tables and columns are kept between restarts, so that they are not read from the database again. Statistics are read from the statistics provider of the context first, and by SQL queries if it has no estimate. Statistics older than statisticsCacheTimeToLive are obtained again. If empty, statistics are only kept in memory.</p>
+    @AttributeDefinition(name = "%statisticsCacheFile.name", description = "%statisticsCacheFile.description", type = AttributeType.STRING)
+    default String statisticsCacheFile() { return STATISTICS_CACHE_FILE; }
+
+    //<p>Number of seconds after which the row counts and distinct counts of the statistics cache, in memory and in statisticsCacheFile, are obtained again, so that they follow the growth of the tables. Setting this property to 0 keeps the statistics until the schema is reloaded, or, in statisticsCacheFile, forever.</p>
+    @AttributeDefinition(name = "%statisticsCacheTimeToLive.name", description = "%statisticsCacheTimeToLive.description", type = AttributeType.LONG)
+    default Long statisticsCacheTimeToLive() { return STATISTICS_CACHE_TIME_TO_LIVE; }
+
+    //<p>Whether GROUPING SETS queries are planned by estimated cost, if enableGroupingSets is set. Requests for groupings of the same star with the same constraints are then grouped even if they would be answered from different aggregate tables, and each summary grouping is only added to the query of a more detailed grouping if reading it from that query is estimated to be cheaper than a query of its own. Costs are estimated from the row counts and distinct counts of the statistics cache. The start event of each SQL statement that loads segments describes the plan. If false, only groupings that would be answered from the same table are grouped, and they always are.</p>
+    @AttributeDefinition(name = "%groupingSetsByCost.name", description = "%groupingSetsByCost.description", type = AttributeType.BOOLEAN)
+    default Boolean groupingSetsByCost() { return GROUPING_SETS_BY_COST; }
+
     @AttributeDefinition(name = "%executeDuration.name", description = "%executeDuration.description", type = AttributeType.LONG)
     default long executeDuration() {
          return EXECUTE_DURATION;
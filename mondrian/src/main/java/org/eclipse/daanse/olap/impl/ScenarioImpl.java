@@ -30,17 +30,44 @@ import org.eclipse.daanse.olap.api.result.Scenario;
 import org.eclipse.daanse.olap.calc.api.Calc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ScenarioImpl implements Scenario {
 
     private final int id;
 
+    /**
+     * Maximum number of atomic cell counts remembered per version of the
+     * scenario.
+     */
+    private static final int MAX_ATOMIC_CELL_COUNTS = 100000;
+
     private final List<ScenarioImpl.WritebackCell> writebackCells =
         new ArrayList<>();
 
+    /**
+     * Incremented whenever a writeback cell is added. The writeback index and
+     * the remembered atomic cell counts belong to one version.
+     */
+    private int version;
+
+    private WritebackIndex<WritebackCell> writebackIndex;
+
+    private final Map<List<Member>, Double> atomicCellCounts =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Data version of the context the remembered atomic cell counts were
+     * computed from. Flushing the cache changes the data version, after which
+     * the counts are computed again.
+     */
+    private long atomicCellCountsDataVersion = -1L;
+
     private RolapMember member;
 
     private static int nextId;
@@ -171,7 +198,11 @@ public class ScenarioImpl implements Scenario {
                 newValue,
                 currentValue,
                 allocationPolicy);
-        writebackCells.add(writebackCell);
+        synchronized (this) {
+            writebackCells.add(writebackCell);
+            ++version;
+            atomicCellCounts.clear();
+        }
     }
 
     @Override
@@ -257,6 +288,63 @@ public class ScenarioImpl implements Scenario {
         return hierarchy.getName().equals("Scenario");
     }
 
+    /**
+     * Returns the index of the writeback cells, building it if the writeback
+     * cells have changed since it was last built.
+     *
+     * @return Writeback index
+     */
+    private synchronized WritebackIndex<WritebackCell> getWritebackIndex() {
+        // The list may also have been cleared via getWritebackCells().
+        if (writebackIndex == null
+            || writebackIndex.getVersion() != version
+            || writebackIndex.size() != writebackCells.size())
+        {
+            writebackIndex = new WritebackIndex<>(
+                version, writebackCells, WritebackCell::getMembersByOrdinal);
+        }
+        return writebackIndex;
+    }
+
+    /**
+     * Returns the number of atomic cells that contribute to the current
+     * cell, remembering it for the current version of this scenario and the
+     * current data version of the context.
+     *
+     * @param evaluator Evaluator
+     * @return Number of atomic cells in the current cell
+     */
+    private double getAtomicCellCount(RolapEvaluator evaluator) {
+        final long dataVersion = evaluator.getCube().getContext()
+            .getQueryResultCache().getDataVersion();
+        synchronized (this) {
+            if (atomicCellCountsDataVersion != dataVersion) {
+                // The cache has been flushed; the counts may be stale.
+                atomicCellCounts.clear();
+                atomicCellCountsDataVersion = dataVersion;
+            }
+        }
+        final List<Member> key = Arrays.asList(evaluator.getMembers().clone());
+        final Double atomicCellCount = atomicCellCounts.get(key);
+        if (atomicCellCount != null) {
+            return atomicCellCount;
+        }
+        final double d = evaluateAtomicCellCount(evaluator);
+        // Zero may mean that the value is not in the cache yet, so do not
+        // remember it. Nor remember a count computed while the cache was
+        // being flushed.
+        if (d != 0d) {
+            synchronized (this) {
+                if (atomicCellCountsDataVersion == dataVersion
+                    && atomicCellCounts.size() < MAX_ATOMIC_CELL_COUNTS)
+                {
+                    atomicCellCounts.put(key, d);
+                }
+            }
+        }
+        return d;
+    }
+
     /**
      * Returns the number of atomic cells that contribute to the current
      * cell.
@@ -561,19 +649,31 @@ public class ScenarioImpl implements Scenario {
                 // accordingly.
                 //
                 // It is possible that the value is modified by several
-                // writebacks. If so, order is important.
+                // writebacks. If so, order is important. The index returns
+                // the candidates in the order they were written.
+                final Member[] members = evaluator.getMembers();
+                final WritebackIndex<WritebackCell> index =
+                    scenario.getWritebackIndex();
+                final BitSet candidates = index.getCandidates(members);
                 int changeCount = 0;
-                for (ScenarioImpl.WritebackCell writebackCell
-                    : scenario.writebackCells)
+                double atomicCellCount = -1d;
+                for (int k = candidates.nextSetBit(0);
+                    k >= 0;
+                    k = candidates.nextSetBit(k + 1))
                 {
+                    final ScenarioImpl.WritebackCell writebackCell =
+                        index.get(k);
                     ScenarioImpl.CellRelation relation =
-                        writebackCell.getRelationTo(evaluator.getMembers());
+                        writebackCell.getRelationTo(members);
                     switch (relation) {
                         case ABOVE:
                             // This cell is below the writeback cell. Value is
-                            // determined by allocation policy.
-                            double atomicCellCount =
-                                evaluateAtomicCellCount((RolapEvaluator) evaluator);
+                            // determined by allocation policy. The atomic cell
+                            // count is the same for all writeback cells.
+                            if (atomicCellCount < 0d) {
+                                atomicCellCount = scenario.getAtomicCellCount(
+                                    (RolapEvaluator) evaluator);
+                            }
                             if (atomicCellCount == 0d) {
                                 // Sometimes the value comes back zero if the cache
                                 // is not ready. Switch to 1, which at least does
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.daanse.olap.api.element.Member;
+
+/**
+ * Index of the writeback cells of a scenario, so that evaluating a cell
+ * visits only the writeback cells which are related to it.
+ *
+ * <p>For each hierarchy ordinal, holds the writeback cells by the unique
+ * name of their member, and by the unique names of the ancestors of their
+ * member. A writeback cell is related to a cell if, for every ordinal, its
+ * member is the cell's member, an ancestor of it or a descendant of it.
+ *
+ * @param <C> Writeback cell type
+ */
+public class WritebackIndex<C> {
+    private final int version;
+    private final List<C> cells;
+    private final List<Map<String, BitSet>> cellsByMember =
+        new ArrayList<>();
+    private final List<Map<String, BitSet>> cellsByAncestor =
+        new ArrayList<>();
+
+    /**
+     * Creates a WritebackIndex.
+     *
+     * @param version Version of the scenario the cells belong to
+     * @param writebackCells Writeback cells, in the order they were written
+     * @param coordinates Returns the members of a writeback cell, by
+     *     hierarchy ordinal
+     */
+    public WritebackIndex(
+        int version,
+        List<C> writebackCells,
+        Function<C, Member[]> coordinates)
+    {
+        this.version = version;
+        this.cells = List.copyOf(writebackCells);
+        for (int k = 0; k < cells.size(); k++) {
+            final Member[] members = coordinates.apply(cells.get(k));
+            for (int i = 0; i < members.length; i++) {
+                if (cellsByMember.size() <= i) {
+                    cellsByMember.add(new HashMap<>());
+                    cellsByAncestor.add(new HashMap<>());
+                }
+                final Member member = members[i];
+                cellsByMember.get(i)
+                    .computeIfAbsent(
+                        member.getUniqueName(), n -> new BitSet())
+                    .set(k);
+                for (Member m = member.getParentMember();
+                    m != null;
+                    m = m.getParentMember())
+                {
+                    cellsByAncestor.get(i)
+                        .computeIfAbsent(
+                            m.getUniqueName(), n -> new BitSet())
+                        .set(k);
+                }
+            }
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * Returns the writeback cell at a position.
+     *
+     * @param k Position, as returned by {@link #getCandidates(Member[])}
+     * @return Writeback cell
+     */
+    public C get(int k) {
+        return cells.get(k);
+    }
+
+    /**
+     * Returns the positions of the writeback cells which may be related to
+     * a cell, in the order they were written. The caller still needs to
+     * check the relation of each candidate, because a writeback cell which
+     * is above the cell for one hierarchy and below it for another is not
+     * related.
+     *
+     * @param members Coordinates of the cell
+     * @return Positions of the candidates
+     */
+    public BitSet getCandidates(Member[] members) {
+        BitSet candidates = null;
+        for (int i = 0; i < members.length; i++) {
+            final BitSet related = new BitSet();
+            if (i < cellsByMember.size()) {
+                final Map<String, BitSet> byMember = cellsByMember.get(i);
+                for (Member m = members[i];
+                    m != null;
+                    m = m.getParentMember())
+                {
+                    final BitSet bits = byMember.get(m.getUniqueName());
+                    if (bits != null) {
+                        related.or(bits);
+                    }
+                }
+                final BitSet bits =
+                    cellsByAncestor.get(i).get(members[i].getUniqueName());
+                if (bits != null) {
+                    related.or(bits);
+                }
+            }
+            if (candidates == null) {
+                candidates = related;
+            } else {
+                candidates.and(related);
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+        return candidates == null ? new BitSet() : candidates;
+    }
+}
@@ -79,6 +79,9 @@ class IdBatchResolverTest  {
     @Captor
      ArgumentCaptor<MatchType> matchType;
 
+    @Captor
+     ArgumentCaptor<List<Member>> parentMembers;
+
 
 
     @BeforeEach
@@ -238,7 +241,7 @@ class IdBatchResolverTest  {
                 "[Promotions].[Bye Bye Baby]"));
 
         verify(
-            query.getSchemaReader(true), times(5))
+            query.getSchemaReader(true), times(3))
             .lookupMemberChildrenByNames(
                 parentMember.capture(),
                 childNames.capture(),
@@ -253,13 +256,21 @@ class IdBatchResolverTest  {
             + "[Big Time Discounts], [Big Time Savings], [Bye Bye Baby]]",
             sortedNames(childNames.getAllValues().get(0)));
 
+        // the cities of both states are looked up together
+        verify(
+            query.getSchemaReader(true), times(1))
+            .lookupMembersChildrenByNames(
+                parentMembers.capture(),
+                childNames.capture(),
+                matchType.capture());
+
         assertEquals(
-            "[Store].[USA].[CA]",
-            parentMember.getAllValues().get(3).getUniqueName());
-        assertTrue(childNames.getAllValues().get(3).size() == 2);
+            "[[Store].[USA].[CA], [Store].[USA].[WA]]",
+            parentMembers.getValue().stream()
+                .map(Member::getUniqueName).toList().toString());
         assertEquals(
-            "[[Beverly Hills], [Los Angeles]]",
-            sortedNames(childNames.getAllValues().get(3)));
+            "[[Bellingham], [Beverly Hills], [Bremerton], [Los Angeles]]",
+            sortedNames(childNames.getValue()));
     }
 	@ParameterizedTest
 	@ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class )
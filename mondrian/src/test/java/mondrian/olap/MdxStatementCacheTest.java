@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.daanse.mdx.model.api.MdxStatement;
+import org.eclipse.daanse.mdx.model.api.SelectStatement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link MdxStatementCache}.
+ */
+class MdxStatementCacheTest {
+
+    @Test
+    void testNormalize() {
+        assertEquals(
+            "select [Measures].[Unit Sales] on 0 from [Sales]",
+            MdxStatementCache.normalize(
+                "  select\n\t[Measures].[Unit Sales]   on 0\r\nfrom [Sales] "));
+        // White space in identifiers and literals is significant.
+        assertEquals(
+            "select {[Store].[USA  CA]} on 0 from Sales where 'a  b'",
+            MdxStatementCache.normalize(
+                "select {[Store].[USA  CA]} on 0\n from Sales where 'a  b'"));
+        // A line comment must keep its line break.
+        assertEquals(
+            "select -- a  comment\n{} on 0",
+            MdxStatementCache.normalize("select   -- a  comment\n   {} on 0"));
+        // "]]" is an escaped "]" and does not end the identifier.
+        assertEquals(
+            "select {[Store].[a]]  b]} on 0",
+            MdxStatementCache.normalize("select  {[Store].[a]]  b]}  on 0"));
+        assertNotEquals(
+            MdxStatementCache.normalize("select {[Store].[a]]  b]} on 0"),
+            MdxStatementCache.normalize("select {[Store].[a]] b]} on 0"));
+    }
+
+    @Test
+    void testLookup() {
+        final MdxStatementCache cache = new MdxStatementCache(2);
+        final AtomicInteger parseCount = new AtomicInteger();
+        final MdxStatement statement = mock(SelectStatement.class);
+
+        MdxStatementCache.Lookup lookup =
+            cache.lookup("select from [Sales]", mdx -> {
+                parseCount.incrementAndGet();
+                return statement;
+            });
+        assertFalse(lookup.hit());
+        assertSame(statement, lookup.mdxStatement());
+
+        lookup = cache.lookup("select\n  from [Sales]", mdx -> {
+            parseCount.incrementAndGet();
+            return mock(SelectStatement.class);
+        });
+        assertTrue(lookup.hit());
+        assertSame(statement, lookup.mdxStatement());
+        assertEquals(1, parseCount.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // The least recently used entry is evicted.
+        cache.lookup("select from [Warehouse]", mdx -> mock(SelectStatement.class));
+        cache.lookup("select from [HR]", mdx -> mock(SelectStatement.class));
+        assertEquals(2, cache.size());
+        assertFalse(
+            cache.lookup("select from [Sales]", mdx -> statement).hit());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testDisabled() {
+        final MdxStatementCache cache = new MdxStatementCache(0);
+        cache.lookup("select from [Sales]", mdx -> mock(SelectStatement.class));
+        assertFalse(
+            cache.lookup("select from [Sales]", mdx -> mock(SelectStatement.class))
+                .hit());
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMissCount());
+    }
+}
@@ -258,6 +258,11 @@ public class SpySchemaReader implements SchemaReader {
 		return delegate.lookupMemberChildrenByNames(parent, childNames, matchType);
 	}
 
+	@Override
+	public List<Member> lookupMembersChildrenByNames(List<Member> parents, List<NameSegment> childNames, MatchType matchType) {
+		return delegate.lookupMembersChildrenByNames(parents, childNames, matchType);
+	}
+
 	@Override
 	public NativeEvaluator getNativeSetEvaluator(FunctionDefinition fun, Expression[] args, Evaluator evaluator, Calc calc) {
 		return delegate.getNativeSetEvaluator(fun, args, evaluator, calc);
@@ -4023,6 +4023,49 @@ class FunctionTest {//extends FoodMartTestCase {
       "SUM({[Promotion Media].[Media Type].members})", "266,773" );
   }
 
+  /**
+   * Sum and Avg over a numeric expression which is evaluated without boxing,
+   * while the cache is empty. In the batching passes, the cells are not
+   * loaded yet and evaluate to 0; these sums must not be taken for real
+   * values.
+   */
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+  void testSumDoubleWhileBatching(Context context) {
+    Connection connection = context.getConnection();
+    TestUtil.flushSchemaCache( connection );
+    assertQueryReturns(connection,
+      "with member [Measures].[Twice] as\n"
+        + " 'Sum({[Product].CurrentMember, [Product].CurrentMember}, [Measures].[Unit Sales] * 1)',\n"
+        + " FORMAT_STRING = '#,###'\n"
+        + "member [Measures].[Average] as\n"
+        + " 'Avg({[Product].CurrentMember, [Product].CurrentMember}, [Measures].[Unit Sales] + 0)',\n"
+        + " FORMAT_STRING = '#,###'\n"
+        + "select {[Measures].[Unit Sales], [Measures].[Twice], [Measures].[Average]} on 0,\n"
+        + " Order([Product].[Product Family].Members,\n"
+        + "   Sum({[Product].CurrentMember}, [Measures].[Unit Sales] * 1), BDESC) on 1\n"
+        + "from [Sales]",
+      "Axis #0:\n"
+        + "{}\n"
+        + "Axis #1:\n"
+        + "{[Measures].[Unit Sales]}\n"
+        + "{[Measures].[Twice]}\n"
+        + "{[Measures].[Average]}\n"
+        + "Axis #2:\n"
+        + "{[Product].[Food]}\n"
+        + "{[Product].[Non-Consumable]}\n"
+        + "{[Product].[Drink]}\n"
+        + "Row #0: 191,940\n"
+        + "Row #0: 383,880\n"
+        + "Row #0: 191,940\n"
+        + "Row #1: 50,236\n"
+        + "Row #1: 100,472\n"
+        + "Row #1: 50,236\n"
+        + "Row #2: 24,597\n"
+        + "Row #2: 49,194\n"
+        + "Row #2: 24,597\n" );
+  }
+
   @ParameterizedTest
   @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
   void testValue(Context context) {
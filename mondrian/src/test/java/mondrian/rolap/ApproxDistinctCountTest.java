@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opencube.junit5.TestUtil.executeQuery;
+import static org.opencube.junit5.TestUtil.withSchema;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.eclipse.daanse.olap.api.Connection;
+import org.eclipse.daanse.olap.api.Context;
+import org.eclipse.daanse.olap.api.result.Cell;
+import org.eclipse.daanse.olap.api.result.Result;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.MappingCube;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.MappingMeasure;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.MappingSchema;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.record.builder.MeasureRBuilder;
+import org.eclipse.daanse.olap.rolap.dbmapper.provider.modifier.record.RDbMappingSchemaModifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.opencube.junit5.ContextSource;
+import org.opencube.junit5.dataloader.FastFoodmardDataLoader;
+import org.opencube.junit5.propupdator.AppandFoodMartCatalog;
+
+/**
+ * Test for the approx-distinct-count aggregator, {@link
+ * RolapAggregator#ApproxDistinctCount}, against FoodMart.
+ */
+class ApproxDistinctCountTest {
+
+    /**
+     * Adds to the Sales cube an approximate counterpart of
+     * [Measures].[Customer Count].
+     */
+    private static class ApproxCustomerCountModifier
+        extends RDbMappingSchemaModifier
+    {
+        ApproxCustomerCountModifier(MappingSchema mappingSchema) {
+            super(mappingSchema);
+        }
+
+        @Override
+        protected List<MappingMeasure> cubeMeasures(MappingCube cube) {
+            List<MappingMeasure> result =
+                new ArrayList<>(super.cubeMeasures(cube));
+            if ("Sales".equals(cube.name())) {
+                result.add(
+                    MeasureRBuilder
+                        .builder()
+                        .name("Approx Customer Count")
+                        .column("customer_id")
+                        .aggregator("approx-distinct-count")
+                        .formatString("#,###")
+                        .build());
+            }
+            return result;
+        }
+    }
+
+    @AfterEach
+    public void afterEach() {
+        RolapUtil.setHook(null);
+        RolapSchemaPool.instance().clear();
+    }
+
+    /**
+     * The value of a cell is the estimate of its sketch, and the formatted
+     * value is the estimate formatted by the format string of the measure.
+     * Cells of a calculated member that aggregates sketches are estimates as
+     * well.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testValueAndFormattedValue(Context context) {
+        withSchema(context, ApproxCustomerCountModifier::new);
+        final Connection connection = context.getConnection();
+        final String stateQuery =
+            "select {[Measures].[Customer Count],"
+            + " [Measures].[Approx Customer Count]} on 0,\n"
+            + " {[Store].[USA].Children} on 1\n"
+            + "from [Sales]";
+        assertEstimates(executeQuery(connection, stateQuery), 3);
+
+        final String aggregateQuery =
+            "with member [Time].[Time].[H1] as"
+            + " 'Aggregate({[Time].[1997].[Q1], [Time].[1997].[Q2]})'\n"
+            + "select {[Measures].[Customer Count],"
+            + " [Measures].[Approx Customer Count]} on 0,\n"
+            + " {[Store].[USA].Children} on 1\n"
+            + "from [Sales]\n"
+            + "where [Time].[H1]";
+        assertEstimates(executeQuery(connection, aggregateQuery), 3);
+    }
+
+    private static void assertEstimates(Result result, int rowCount) {
+        final DecimalFormat format =
+            new DecimalFormat("#,###", DecimalFormatSymbols.getInstance(Locale.US));
+        for (int row = 0; row < rowCount; row++) {
+            final Cell exact = result.getCell(new int[] {0, row});
+            final Cell approx = result.getCell(new int[] {1, row});
+            final long count = ((Number) exact.getValue()).longValue();
+            final Object value = approx.getValue();
+            assertInstanceOf(Long.class, value);
+            final long estimate = (Long) value;
+            // Nearly all estimates are within 5%, at the default precision.
+            assertTrue(
+                Math.abs(estimate - count) <= count * 0.05,
+                "estimate " + estimate + " of " + count);
+            final String formattedValue = approx.getFormattedValue();
+            assertFalse(formattedValue.startsWith("HLL"), formattedValue);
+            assertEquals(format.format(estimate), formattedValue);
+        }
+    }
+
+    /**
+     * SQL cannot build sketches portably, so the segment load from the fact
+     * table groups by the operand: it returns a row for each distinct value
+     * in each cell. This test pins down that limit.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testFactLoadGroupsByOperand(Context context) {
+        withSchema(context, ApproxCustomerCountModifier::new);
+        final List<String> sqls = new ArrayList<>();
+        RolapUtil.setHook(sql -> sqls.add(sql.toLowerCase(Locale.ROOT)));
+        executeQuery(
+            context.getConnection(),
+            "select {[Measures].[Approx Customer Count]} on 0,\n"
+            + " {[Gender].[Gender].members} on 1\n"
+            + "from [Sales]");
+
+        final List<String> sketchSqls = new ArrayList<>();
+        for (String sql : sqls) {
+            if (sql.contains("sales_fact_1997")
+                && sql.contains("customer_id")
+                && sql.contains("group by"))
+            {
+                sketchSqls.add(sql);
+            }
+        }
+        assertEquals(1, sketchSqls.size(), sqls.toString());
+        final String sql = sketchSqls.get(0);
+        assertFalse(sql.contains("count("), sql);
+        final String groupBy = sql.substring(sql.lastIndexOf("group by"));
+        assertTrue(groupBy.contains("gender"), sql);
+        assertTrue(groupBy.contains("customer_id"), sql);
+    }
+}
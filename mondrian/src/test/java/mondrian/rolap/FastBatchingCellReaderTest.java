@@ -358,6 +358,82 @@ class FastBatchingCellReaderTest extends BatchTestCase{
     assertTrue( groupedBatches.get( 1 ).summaryBatches.contains( group2Agg1 ) );
   }
 
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+  void testGroupBatchesByCost(Context context) {
+    prepareContext(context);
+    final BatchLoader fbcr = createFbcr( null, salesCube );
+    Connection connection = context.getConnection();
+    // Grouping gender costs 50 instead of 200 on its own; grouping marital
+    // status costs 500 instead of 100, say because it has an aggregate table.
+    final BatchLoader.Batch genderBatch =
+        fbcr.new Batch( createRequest(connection, cubeNameSales, measureUnitSales, "customer", "gender", "F" ) ) {
+          @Override
+          boolean canGroup( BatchLoader.Batch batch ) {
+            return false;
+          }
+
+          @Override
+          double estimateCost() {
+            return 200;
+          }
+        };
+    final BatchLoader.Batch maritalStatusBatch =
+        fbcr.new Batch( createRequest(connection, cubeNameSales, measureUnitSales, "customer", "marital_status", "M" ) ) {
+          @Override
+          boolean canGroup( BatchLoader.Batch batch ) {
+            return false;
+          }
+
+          @Override
+          double estimateCost() {
+            return 100;
+          }
+        };
+    BatchLoader.Batch detailedBatch =
+        fbcr.new Batch( createRequest(connection, cubeNameSales, measureUnitSales, new String[0], new String[0],
+            new String[0] ) ) {
+          @Override
+          boolean canGroup( BatchLoader.Batch batch ) {
+            return true;
+          }
+
+          @Override
+          double estimateCost() {
+            return 1000;
+          }
+
+          @Override
+          double estimateRollupCost( BatchLoader.Batch batch ) {
+            return batch == genderBatch ? 50 : 500;
+          }
+        };
+    ArrayList<BatchLoader.Batch> batchList = new ArrayList<>();
+    batchList.add( genderBatch );
+    batchList.add( maritalStatusBatch );
+    batchList.add( detailedBatch );
+    List<BatchLoader.CompositeBatch> groupedBatches = BatchLoader.groupBatchesByCost( batchList );
+    assertEquals( 2, groupedBatches.size() );
+    BatchLoader.CompositeBatch grouped = null;
+    BatchLoader.CompositeBatch separate = null;
+    for ( BatchLoader.CompositeBatch compositeBatch : groupedBatches ) {
+      if ( compositeBatch.detailedBatch == detailedBatch ) {
+        grouped = compositeBatch;
+      } else {
+        separate = compositeBatch;
+      }
+    }
+    assertNotNull( grouped );
+    assertEquals( List.of( genderBatch ), grouped.summaryBatches );
+    assertEquals(
+        "grouping sets of 2 batches, estimated cost 1050 (1200 in separate queries)",
+        grouped.plan );
+    assertNotNull( separate );
+    assertEquals( maritalStatusBatch, separate.detailedBatch );
+    assertTrue( separate.summaryBatches.isEmpty() );
+    assertEquals( "separate query, estimated cost 100 (500 in grouping sets)", separate.plan );
+  }
+
   @ParameterizedTest
   @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
   void testGroupBatchesForTwoSetOfGroupableBatches(Context context) {
@@ -889,6 +965,7 @@ class FastBatchingCellReaderTest extends BatchTestCase{
     final List<Future<Map<Segment, SegmentWithData>>> segmentFutures =
         new ArrayList<>();
     context.getAggregationManager().cacheMgr.execute(
+        detailedBatch.getStar(),
         new SegmentCacheManager.Command<Void>() {
           private final Locus locus = LocusImpl.peek();
 
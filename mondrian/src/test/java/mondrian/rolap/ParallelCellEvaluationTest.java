@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.eclipse.daanse.olap.api.Connection;
+import org.eclipse.daanse.olap.api.Context;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.opencube.junit5.ContextSource;
+import org.opencube.junit5.TestUtil;
+import org.opencube.junit5.context.TestConfig;
+import org.opencube.junit5.dataloader.FastFoodmardDataLoader;
+import org.opencube.junit5.propupdator.AppandFoodMartCatalog;
+
+/**
+ * Compares the results of queries whose cells are evaluated in parallel with
+ * the results of a sequential evaluation.
+ */
+class ParallelCellEvaluationTest {
+
+    private static final String QUERY =
+        "select {[Measures].[Unit Sales], [Measures].[Store Sales],"
+        + " [Measures].[Customer Count]} on 0,\n"
+        + " non empty crossjoin([Store].[Store City].members,"
+        + " [Product].[Product Family].members) on 1\n"
+        + "from [Sales]";
+
+    private static final String CALCULATED_QUERY =
+        "with member [Measures].[Profit Share] as\n"
+        + " '([Measures].[Store Sales] - [Measures].[Store Cost])"
+        + " / ([Measures].[Store Sales], [Product].[All Products])',"
+        + " format_string = '0.00%'\n"
+        + "select {[Measures].[Unit Sales], [Measures].[Profit Share]} on 0,\n"
+        + " [Product].[Product Department].members on 1\n"
+        + "from [Sales]\n"
+        + "where [Time].[1997].[Q2]";
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testParallelEqualsSequential(Context context) {
+        assertParallelEqualsSequential(context, QUERY, 0);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testParallelCalculatedMemberEqualsSequential(Context context) {
+        assertParallelEqualsSequential(context, CALCULATED_QUERY, 0);
+    }
+
+    /**
+     * With a batch size of 2, every task fills its quantum of cell requests
+     * long before it has seen all its cells, so the cells are evaluated in
+     * several passes, each of which hands the segments loaded so far to the
+     * tasks.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testParallelEqualsSequentialInSeveralPasses(Context context) {
+        assertParallelEqualsSequential(context, QUERY, 2);
+        assertParallelEqualsSequential(context, CALCULATED_QUERY, 2);
+    }
+
+    private static void assertParallelEqualsSequential(
+        Context context, String query, int cellBatchSize)
+    {
+        final TestConfig config = (TestConfig) context.getConfig();
+        final int savedCellBatchSize = config.cellBatchSize();
+        try {
+            config.setCellBatchSize(cellBatchSize);
+            final String sequential = execute(context, query, 0);
+            // From an empty cache, then with the segments in the cache.
+            assertEquals(sequential, execute(context, query, 4));
+            assertEquals(
+                sequential, TestUtil.toString(
+                    TestUtil.executeQuery(context.getConnection(), query)));
+        } finally {
+            config.setCellBatchSize(savedCellBatchSize);
+            config.setParallelCellEvaluationTasks(0);
+        }
+    }
+
+    private static String execute(Context context, String query, int tasks) {
+        ((TestConfig) context.getConfig()).setParallelCellEvaluationTasks(tasks);
+        final Connection connection = context.getConnection();
+        TestUtil.flushCache(connection);
+        return TestUtil.toString(TestUtil.executeQuery(connection, query));
+    }
+}
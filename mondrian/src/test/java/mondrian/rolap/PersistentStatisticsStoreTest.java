@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit test for {@link PersistentStatisticsStore}.
+ */
+class PersistentStatisticsStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSurvivesRestart() {
+        Path file = dir.resolve("stats.properties");
+        PersistentStatisticsStore store = new PersistentStatisticsStore(file);
+        String tableKey =
+            PersistentStatisticsStore.key("ctx", "table", null, "s", "sales");
+        String queryKey = PersistentStatisticsStore.key(
+            "ctx", "query", "select count(*) from \"sales\" where a = 1");
+        store.put(tableKey, 86837);
+        store.put(queryKey, 12);
+        // Unknown estimates are not kept.
+        store.put(PersistentStatisticsStore.key("ctx", "table", "t"), -1);
+
+        PersistentStatisticsStore reloaded =
+            new PersistentStatisticsStore(file);
+        assertEquals(86837, reloaded.get(tableKey));
+        assertEquals(12, reloaded.get(queryKey));
+        assertEquals(-1, reloaded.get(
+            PersistentStatisticsStore.key("ctx", "table", "t")));
+    }
+
+    @Test
+    void testCorruptFileIsIgnored() throws Exception {
+        Path file = dir.resolve("stats.properties");
+        Files.writeString(file, "a=notANumber\n");
+        PersistentStatisticsStore store = new PersistentStatisticsStore(file);
+        assertEquals(-1, store.get("a"));
+        store.put("a", 5);
+        assertEquals(5, new PersistentStatisticsStore(file).get("a"));
+    }
+
+    @Test
+    void testForFile() {
+        assertNull(PersistentStatisticsStore.forFile(""));
+        assertNull(PersistentStatisticsStore.forFile(null));
+        String fileName = dir.resolve("shared.properties").toString();
+        assertSame(
+            PersistentStatisticsStore.forFile(fileName),
+            PersistentStatisticsStore.forFile(fileName));
+    }
+
+    @Test
+    void testKeysAreHashed() throws Exception {
+        String sql = "select count(*) from (select distinct \"product_id\""
+            + " from \"sales_fact_1997\" where \"store_id\" = 1) as c";
+        String queryKey = PersistentStatisticsStore.key("ctx", "query", sql);
+        // The length of a key does not depend on its parts.
+        assertEquals(
+            PersistentStatisticsStore.key("ctx", "table", "t").length(),
+            queryKey.length());
+        assertEquals(
+            queryKey, PersistentStatisticsStore.key("ctx", "query", sql));
+        // Parts are kept apart, and null differs from empty.
+        assertNotEquals(
+            PersistentStatisticsStore.key("ab", "c"),
+            PersistentStatisticsStore.key("a", "bc"));
+        assertNotEquals(
+            PersistentStatisticsStore.key("ctx", null, "t"),
+            PersistentStatisticsStore.key("ctx", "", "t"));
+
+        Path file = dir.resolve("stats.properties");
+        new PersistentStatisticsStore(file).put(queryKey, 7);
+        assertFalse(Files.readString(file).contains("sales_fact_1997"));
+    }
+
+    @Test
+    void testAppendsAndCompacts() throws Exception {
+        Path file = dir.resolve("stats.properties");
+        PersistentStatisticsStore store = new PersistentStatisticsStore(file);
+        store.put("a", 1);
+        store.put("b key=x", 2);
+        assertEquals(2, store.getLineCount());
+        assertEquals(2, Files.readAllLines(file).size());
+
+        // Replacing an estimate appends a line; the last line wins.
+        store.put("a", 3);
+        assertEquals(3, store.getLineCount());
+        PersistentStatisticsStore reloaded =
+            new PersistentStatisticsStore(file);
+        assertEquals(3, reloaded.get("a"));
+        assertEquals(2, reloaded.get("b key=x"));
+        assertEquals(3, reloaded.getLineCount());
+
+        // Once the file holds enough replaced lines, it is rewritten with
+        // one line per estimate.
+        for (int i = 0; i < PersistentStatisticsStore.MIN_REPLACED_LINES; i++) {
+            store.put("a", 10 + i);
+        }
+        assertTrue(
+            store.getLineCount()
+                < PersistentStatisticsStore.MIN_REPLACED_LINES);
+        reloaded = new PersistentStatisticsStore(file);
+        assertEquals(
+            10 + PersistentStatisticsStore.MIN_REPLACED_LINES - 1,
+            reloaded.get("a"));
+        assertEquals(2, reloaded.get("b key=x"));
+        assertEquals(store.getLineCount(), reloaded.getLineCount());
+    }
+
+    @Test
+    void testExpiredEstimatesAreIgnored() throws Exception {
+        Path file = dir.resolve("stats.properties");
+        PersistentStatisticsStore store = new PersistentStatisticsStore(file);
+        store.put("a", 5, 1_000L);
+        assertEquals(5, store.get("a", 0, 100_000L));
+        assertEquals(5, store.get("a", 10_000L, 11_000L));
+        assertEquals(-1, store.get("a", 10_000L, 11_001L));
+
+        // A new estimate is fresh again, also after a restart.
+        store.put("a", 6, 20_000L);
+        assertEquals(
+            6, new PersistentStatisticsStore(file).get("a", 10_000L, 25_000L));
+
+        // Estimates written without a time are as old as can be.
+        Files.writeString(file, "b=8\n");
+        PersistentStatisticsStore old = new PersistentStatisticsStore(file);
+        assertEquals(8, old.get("b"));
+        assertEquals(-1, old.get("b", 10_000L));
+    }
+}
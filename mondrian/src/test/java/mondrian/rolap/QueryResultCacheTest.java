@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.daanse.olap.api.CacheControl;
+import org.eclipse.daanse.olap.api.Connection;
+import org.eclipse.daanse.olap.api.Context;
+import org.eclipse.daanse.olap.api.result.Axis;
+import org.eclipse.daanse.olap.api.result.Position;
+import org.eclipse.daanse.olap.api.result.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.opencube.junit5.ContextSource;
+import org.opencube.junit5.TestUtil;
+import org.opencube.junit5.context.TestConfig;
+import org.opencube.junit5.dataloader.FastFoodmardDataLoader;
+import org.opencube.junit5.propupdator.AppandFoodMartCatalog;
+
+/**
+ * Test for {@link QueryResultCache} and {@link CachedResult}.
+ */
+class QueryResultCacheTest {
+
+    private static final String SALES_QUERY =
+        "select {[Measures].[Unit Sales], [Measures].[Store Sales]} on 0,\n"
+        + " non empty [Product].[Product Family].members on 1\n"
+        + "from [Sales]\n"
+        + "where [Time].[1997].[Q1]";
+
+    private static final String WAREHOUSE_AND_SALES_QUERY =
+        "select {[Measures].[Units Shipped]} on 0,\n"
+        + " [Store].[Store Country].members on 1\n"
+        + "from [Warehouse and Sales]";
+
+    private static QueryResultCache.Key key(String mdx) {
+        return new QueryResultCache.Key(null, mdx, null, Locale.US);
+    }
+
+    private static CachedResult result(int rows, int columns) {
+        CachedResult result = mock(CachedResult.class);
+        Axis rowAxis = mock(Axis.class);
+        Axis columnAxis = mock(Axis.class);
+        when(rowAxis.getPositions())
+            .thenReturn(Collections.nCopies(rows, mock(Position.class)));
+        when(columnAxis.getPositions())
+            .thenReturn(Collections.nCopies(columns, mock(Position.class)));
+        when(result.getAxes()).thenReturn(new Axis[] {columnAxis, rowAxis});
+        return result;
+    }
+
+    @Test
+    void testHitAndMiss() {
+        QueryResultCache cache = new QueryResultCache(100);
+        RolapStar star = mock(RolapStar.class);
+        CachedResult result = result(2, 3);
+        assertNull(cache.get(key("q1")));
+        assertTrue(
+            cache.put(key("q1"), result, Set.of(star), cache.getDataVersion()));
+        assertSame(result, cache.get(key("q1")));
+        assertNull(
+            cache.get(new QueryResultCache.Key(null, "q1", null, Locale.GERMAN)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1d / 3d, cache.getHitRate(), 1e-9);
+        assertEquals(6, cache.getCellCount());
+    }
+
+    @Test
+    void testInvalidate() {
+        QueryResultCache cache = new QueryResultCache(100);
+        RolapStar sales = mock(RolapStar.class);
+        RolapStar inventory = mock(RolapStar.class);
+        cache.put(key("sales"), result(1, 1), Set.of(sales), 0);
+        cache.put(key("inventory"), result(1, 1), Set.of(inventory), 0);
+        cache.put(key("both"), result(1, 1), Set.of(sales, inventory), 0);
+
+        cache.invalidate(List.of(sales));
+        assertNull(cache.get(key("sales")));
+        assertNull(cache.get(key("both")));
+        assertTrue(cache.get(key("inventory")) != null);
+        assertEquals(2, cache.getInvalidationCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCellCount());
+    }
+
+    @Test
+    void testStaleResultIsNotCached() {
+        QueryResultCache cache = new QueryResultCache(100);
+        RolapStar star = mock(RolapStar.class);
+        long dataVersion = cache.getDataVersion();
+        // A flush happens while the query runs.
+        cache.invalidate(List.of(star));
+        assertFalse(cache.put(key("q"), result(1, 1), Set.of(star), dataVersion));
+        assertNull(cache.get(key("q")));
+    }
+
+    @Test
+    void testEviction() {
+        QueryResultCache cache = new QueryResultCache(10);
+        Set<RolapStar> stars = Set.of(mock(RolapStar.class));
+        assertFalse(cache.put(key("huge"), result(4, 4), stars, 0));
+        cache.put(key("a"), result(2, 2), stars, 0);
+        cache.put(key("b"), result(2, 2), stars, 0);
+        // Touch "a", so that "b" is the least recently used.
+        cache.get(key("a"));
+        cache.put(key("c"), result(2, 2), stars, 0);
+        assertNull(cache.get(key("b")));
+        assertTrue(cache.get(key("a")) != null);
+        assertTrue(cache.get(key("c")) != null);
+        assertEquals(8, cache.getCellCount());
+    }
+
+    @Test
+    void testDisabled() {
+        QueryResultCache cache = new QueryResultCache(0);
+        assertFalse(cache.isEnabled());
+        assertFalse(cache.put(key("q"), result(1, 1), Set.of(), 0));
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testCachedResultEqualsComputedResult(Context context) {
+        enableCache(context);
+        try {
+            final Connection connection = context.getConnection();
+            final long hits = context.getQueryResultCache().getHitCount();
+            final Result computed = TestUtil.executeQuery(connection, SALES_QUERY);
+            final Result first = TestUtil.executeQuery(connection, SALES_QUERY);
+            final Result second = TestUtil.executeQuery(connection, SALES_QUERY);
+            assertFalse(computed instanceof CachedResult);
+            assertInstanceOf(CachedResult.class, first);
+            assertInstanceOf(CachedResult.class, second);
+            final String expected = TestUtil.toString(computed);
+            assertEquals(expected, TestUtil.toString(first));
+            assertEquals(expected, TestUtil.toString(second));
+
+            // Each caller gets the snapshot bound to its own execution, and
+            // the snapshots share their cells.
+            assertNotSame(first, second);
+            assertNotSame(computed.getExecution(), first.getExecution());
+            assertNotSame(first.getExecution(), second.getExecution());
+            assertSame(
+                second.getExecution().getMondrianStatement().getQuery(),
+                second.getQuery());
+            assertSame(
+                first.getCell(new int[] {1, 2}), second.getCell(new int[] {1, 2}));
+            assertEquals(
+                computed.getCell(new int[] {1, 2}).getFormattedValue(),
+                second.getCell(new int[] {1, 2}).getFormattedValue());
+            assertEquals(hits + 2, context.getQueryResultCache().getHitCount());
+        } finally {
+            disableCache(context);
+        }
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testConcurrentReadersOfCachedResult(Context context) throws Exception {
+        enableCache(context);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Connection connection = context.getConnection();
+            final String expected =
+                TestUtil.toString(TestUtil.executeQuery(connection, SALES_QUERY));
+            final long hits = context.getQueryResultCache().getHitCount();
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> TestUtil.toString(
+                    TestUtil.executeQuery(context.getConnection(), SALES_QUERY))));
+            }
+            for (Future<String> future : futures) {
+                assertEquals(expected, future.get());
+            }
+            assertEquals(hits + 16, context.getQueryResultCache().getHitCount());
+        } finally {
+            executor.shutdown();
+            disableCache(context);
+        }
+    }
+
+    /**
+     * A result of a virtual cube depends on the stars of its constituent
+     * cubes; flushing another cube leaves it in the cache.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testFlushOfConstituentCubeInvalidates(Context context) {
+        enableCache(context);
+        try {
+            final Connection connection = context.getConnection();
+            final QueryResultCache cache = context.getQueryResultCache();
+            final String expected = TestUtil.toString(
+                TestUtil.executeQuery(connection, WAREHOUSE_AND_SALES_QUERY));
+            TestUtil.executeQuery(connection, SALES_QUERY);
+            assertEquals(2, cache.size());
+
+            final CacheControl cacheControl = connection.getCacheControl(null);
+            cacheControl.flush(
+                cacheControl.createMeasuresRegion(
+                    connection.getSchema().lookupCube("Warehouse", true)));
+            assertEquals(1, cache.size());
+            assertInstanceOf(
+                CachedResult.class,
+                TestUtil.executeQuery(connection, SALES_QUERY));
+
+            final Result recomputed =
+                TestUtil.executeQuery(connection, WAREHOUSE_AND_SALES_QUERY);
+            assertFalse(recomputed instanceof CachedResult);
+            assertEquals(expected, TestUtil.toString(recomputed));
+        } finally {
+            disableCache(context);
+        }
+    }
+
+    /**
+     * A query that calls a volatile function, here through a calculated
+     * member, is computed on every execution.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testVolatileQueryIsNotCached(Context context) {
+        enableCache(context);
+        try {
+            final Connection connection = context.getConnection();
+            final QueryResultCache cache = context.getQueryResultCache();
+            final String mdx =
+                "with member [Measures].[Today] as 'Format(Now(), \"yyyy-mm-dd\")'\n"
+                + "select {[Measures].[Unit Sales], [Measures].[Today]} on 0\n"
+                + "from [Sales]";
+            assertTrue(QueryResultCache.isVolatile(connection.parseQuery(mdx)));
+            assertFalse(
+                QueryResultCache.isVolatile(connection.parseQuery(SALES_QUERY)));
+
+            TestUtil.executeQuery(connection, mdx);
+            final Result second = TestUtil.executeQuery(connection, mdx);
+            assertFalse(second instanceof CachedResult);
+            assertEquals(0, cache.size());
+        } finally {
+            disableCache(context);
+        }
+    }
+
+    private static void enableCache(Context context) {
+        ((TestConfig) context.getConfig()).setQueryResultCacheMaxCells(10_000);
+        context.getQueryResultCache().clear();
+    }
+
+    private static void disableCache(Context context) {
+        ((TestConfig) context.getConfig()).setQueryResultCacheMaxCells(0);
+        context.getQueryResultCache().clear();
+    }
+}
@@ -458,4 +458,76 @@ class RolapNativeTopCountTestCases {
         + "{}\n"
         + "Axis #1:\n";
 
-}
\ No newline at end of file
+    //
+    // The cases for verifying that a TopCount or BottomCount evaluated for
+    // each member of a level by Generate is read in one statement.
+    //
+
+    static final String GENERATE_TOPCOUNT_QUERY = ""
+        + "SELECT [Measures].[Unit Sales] ON COLUMNS, "
+        + "NON EMPTY GENERATE([Store].[Store State].Members, "
+        + "TOPCOUNT([Product].[Product Family].Members, 2, [Measures].[Unit Sales])) ON ROWS "
+        + "FROM [Sales]";
+
+    static final String GENERATE_CURRENT_MEMBER_TOPCOUNT_QUERY = ""
+        + "SELECT [Measures].[Unit Sales] ON COLUMNS, "
+        + "NON EMPTY GENERATE([Store].[Store State].Members, "
+        + "{[Store].CurrentMember} * "
+        + "TOPCOUNT([Product].[Product Family].Members, 2, [Measures].[Unit Sales])) ON ROWS "
+        + "FROM [Sales]";
+
+    static final String GENERATE_BOTTOMCOUNT_QUERY = ""
+        + "SELECT [Measures].[Unit Sales] ON COLUMNS, "
+        + "NON EMPTY GENERATE([Store].[Store State].Members, "
+        + "{[Store].CurrentMember} * "
+        + "BOTTOMCOUNT([Product].[Product Family].Members, 2, [Measures].[Unit Sales])) ON ROWS "
+        + "FROM [Sales]";
+
+    static final String GENERATE_ALL_QUERY = ""
+        + "SELECT [Measures].[Unit Sales] ON COLUMNS, "
+        + "NON EMPTY GENERATE([Store].[Store State].Members, "
+        + "TOPCOUNT([Product].[Product Family].Members, 2, [Measures].[Unit Sales]), ALL) ON ROWS "
+        + "FROM [Sales]";
+
+    // The unit sales of many products are the same, so the first 100
+    // products of a state are cut out of a run of equal values.
+    static final String GENERATE_TIES_QUERY = ""
+        + "SELECT [Measures].[Unit Sales] ON COLUMNS, "
+        + "NON EMPTY GENERATE([Store].[Store State].Members, "
+        + "{[Store].CurrentMember} * "
+        + "TOPCOUNT([Product].[Product Name].Members, 100, [Measures].[Unit Sales])) ON ROWS "
+        + "FROM [Sales]";
+
+    // Not a TopCount; evaluated by iterating over the states.
+    static final String GENERATE_HEAD_QUERY = ""
+        + "SELECT [Measures].[Unit Sales] ON COLUMNS, "
+        + "NON EMPTY GENERATE([Store].[Store State].Members, "
+        + "{[Store].CurrentMember} * "
+        + "HEAD([Product].[Product Family].Members, 2)) ON ROWS "
+        + "FROM [Sales]";
+
+    static final String GENERATE_CURRENT_MEMBER_TOPCOUNT_MYSQL = ""
+        + "select `r`.`c0`, `r`.`c1`, `r`.`c2`, `r`.`c3` "
+        + "from (select `q`.*, row_number() over (partition by `q`.`c0`, `q`.`c1` "
+        + "order by `q`.`c3` DESC, ISNULL(`q`.`c2`) ASC, `q`.`c2` ASC) as `rn` "
+        + "from (select `store`.`store_country` as `c0`, `store`.`store_state` as `c1`, "
+        + "`product_class`.`product_family` as `c2`, "
+        + "sum(`sales_fact_1997`.`unit_sales`) as `c3` "
+        + "from `store` as `store`, `sales_fact_1997` as `sales_fact_1997`, "
+        + "`product` as `product`, `product_class` as `product_class`, "
+        + "`time_by_day` as `time_by_day` "
+        + "where `sales_fact_1997`.`store_id` = `store`.`store_id` "
+        + "and `product`.`product_class_id` = `product_class`.`product_class_id` "
+        + "and `sales_fact_1997`.`product_id` = `product`.`product_id` "
+        + "and `sales_fact_1997`.`time_id` = `time_by_day`.`time_id` "
+        + "and `time_by_day`.`the_year` = 1997 "
+        + "group by `store`.`store_country`, `store`.`store_state`, "
+        + "`product_class`.`product_family`) as `q`) as `r` "
+        + "where `r`.`rn` <= 2 "
+        + "order by ISNULL(`r`.`c0`) ASC, `r`.`c0` ASC, "
+        + "ISNULL(`r`.`c1`) ASC, `r`.`c1` ASC, `r`.`rn`";
+
+    // The start of any statement that ranks rows per partition.
+    static final String PARTITIONED_TOPCOUNT_MYSQL_TRIGGER =
+        "select `r`.`c0`";
+}
@@ -15,8 +15,16 @@ import static mondrian.rolap.RolapNativeTopCountTestCases.EMPTY_CELLS_ARE_HIDDEN
 import static mondrian.rolap.RolapNativeTopCountTestCases.EMPTY_CELLS_ARE_SHOWN_COUNTRIES_QUERY;
 import static mondrian.rolap.RolapNativeTopCountTestCases.EMPTY_CELLS_ARE_SHOWN_NOT_MORE_THAN_EXIST_QUERY;
 import static mondrian.rolap.RolapNativeTopCountTestCases.EMPTY_CELLS_ARE_SHOWN_STATES_QUERY;
+import static mondrian.rolap.RolapNativeTopCountTestCases.GENERATE_ALL_QUERY;
+import static mondrian.rolap.RolapNativeTopCountTestCases.GENERATE_BOTTOMCOUNT_QUERY;
+import static mondrian.rolap.RolapNativeTopCountTestCases.GENERATE_CURRENT_MEMBER_TOPCOUNT_MYSQL;
+import static mondrian.rolap.RolapNativeTopCountTestCases.GENERATE_CURRENT_MEMBER_TOPCOUNT_QUERY;
+import static mondrian.rolap.RolapNativeTopCountTestCases.GENERATE_HEAD_QUERY;
+import static mondrian.rolap.RolapNativeTopCountTestCases.GENERATE_TIES_QUERY;
+import static mondrian.rolap.RolapNativeTopCountTestCases.GENERATE_TOPCOUNT_QUERY;
 import static mondrian.rolap.RolapNativeTopCountTestCases.IMPLICIT_COUNT_MEASURE_QUERY;
 import static mondrian.rolap.RolapNativeTopCountTestCases.NON_EMPTY_IS_NOT_IGNORED_WHEN_TWO_PARAMS_QUERY;
+import static mondrian.rolap.RolapNativeTopCountTestCases.PARTITIONED_TOPCOUNT_MYSQL_TRIGGER;
 import static mondrian.rolap.RolapNativeTopCountTestCases.RESULTS_ARE_SHOWN_NOT_MORE_THAN_EXIST_2_PARAMS_QUERY;
 import static mondrian.rolap.RolapNativeTopCountTestCases.ROLE_RESTRICTION_WORKS_DF_QUERY;
 import static mondrian.rolap.RolapNativeTopCountTestCases.ROLE_RESTRICTION_WORKS_DF_ROLE_NAME;
@@ -36,11 +44,14 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.opencube.junit5.ContextSource;
+import org.opencube.junit5.context.TestConfig;
 import org.opencube.junit5.context.TestContext;
 import org.opencube.junit5.dataloader.FastFoodmardDataLoader;
 import org.opencube.junit5.propupdator.AppandFoodMartCatalog;
 
+import mondrian.enums.DatabaseProduct;
 import mondrian.olap.SystemWideProperties;
+import mondrian.test.SqlPattern;
 
 /**
  * @author Andrey Khayrutdinov
@@ -195,4 +206,68 @@ class RolapNativeTopCountVersusNonNativeTest extends BatchTestCase {
             "Two Parameters - Does not ignore NON EMPTY",
             NON_EMPTY_IS_NOT_IGNORED_WHEN_TWO_PARAMS_QUERY);
     }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testGenerateTopCount(Context context) {
+        assertResultsAreEqual(context.getConnection(),
+            "Generate - TopCount",
+            GENERATE_TOPCOUNT_QUERY);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testGenerateCurrentMemberTopCount(Context context) {
+        ((TestConfig)context.getConfig()).setEnableNativeTopCount(true);
+        // The TopCount of every state is read in one statement.
+        String mysql = GENERATE_CURRENT_MEMBER_TOPCOUNT_MYSQL;
+        assertQuerySql(context.getConnection(),
+            GENERATE_CURRENT_MEMBER_TOPCOUNT_QUERY,
+            new SqlPattern[] {
+                new SqlPattern(DatabaseProduct.MYSQL, mysql, mysql.indexOf("("))
+            });
+        assertResultsAreEqual(context.getConnection(),
+            "Generate - CurrentMember * TopCount",
+            GENERATE_CURRENT_MEMBER_TOPCOUNT_QUERY);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testGenerateBottomCount(Context context) {
+        assertResultsAreEqual(context.getConnection(),
+            "Generate - BottomCount",
+            GENERATE_BOTTOMCOUNT_QUERY);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testGenerateAll(Context context) {
+        assertResultsAreEqual(context.getConnection(),
+            "Generate - ALL",
+            GENERATE_ALL_QUERY);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testGenerateTopCountWithTies(Context context) {
+        assertResultsAreEqual(context.getConnection(),
+            "Generate - TopCount with ties",
+            GENERATE_TIES_QUERY);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testGenerateWithoutTopCountIsNotNative(Context context) {
+        ((TestConfig)context.getConfig()).setEnableNativeTopCount(true);
+        String trigger = PARTITIONED_TOPCOUNT_MYSQL_TRIGGER;
+        assertQuerySqlOrNot(context.getConnection(),
+            GENERATE_HEAD_QUERY,
+            new SqlPattern[] {
+                new SqlPattern(DatabaseProduct.MYSQL, trigger, trigger)
+            },
+            true, false, true);
+        assertResultsAreEqual(context.getConnection(),
+            "Generate - Head",
+            GENERATE_HEAD_QUERY);
+    }
 }
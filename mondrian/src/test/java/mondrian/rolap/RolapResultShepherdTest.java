@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.daanse.olap.api.Execution;
+import org.eclipse.daanse.olap.api.result.Result;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import mondrian.olap.QueryCanceledException;
+import mondrian.olap.QueryTimeoutException;
+
+/**
+ * Test for {@link RolapResultShepherd}: an execution which times out or is
+ * canceled while its SQL statement is running returns the user thread at
+ * once and cancels the statement.
+ */
+class RolapResultShepherdTest {
+
+    private static final long POLLING_INTERVAL_MILLIS = 10;
+
+    /**
+     * Execution whose statement blocks until it is canceled, like a JDBC
+     * statement whose cancel makes the running query fail.
+     */
+    private static class RunningStatement {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch canceled = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final Execution execution = mock(Execution.class);
+
+        RunningStatement(RuntimeException stopException) {
+            when(execution.isCancelOrTimeout())
+                .thenAnswer(invocation -> stopped.get());
+            doAnswer(invocation -> {
+                if (stopped.get()) {
+                    throw stopException;
+                }
+                return null;
+            }).when(execution).checkCancelOrTimeout();
+            doAnswer(invocation -> {
+                canceled.countDown();
+                return null;
+            }).when(execution).cancelSqlStatements();
+        }
+
+        Result run() throws Exception {
+            started.countDown();
+            try {
+                canceled.await();
+                throw new IllegalStateException("statement canceled");
+            } finally {
+                finished.countDown();
+            }
+        }
+    }
+
+    private static RolapResultShepherd shepherd(boolean virtualThreads) {
+        return new RolapResultShepherd(
+            POLLING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, 2, virtualThreads);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testTimeoutWhileStatementIsRunning(boolean virtualThreads)
+        throws Exception
+    {
+        final RolapResultShepherd shepherd = shepherd(virtualThreads);
+        final ExecutorService user = Executors.newSingleThreadExecutor();
+        try {
+            final QueryTimeoutException timeout =
+                new QueryTimeoutException("Query timeout of 1 seconds reached");
+            final RunningStatement statement = new RunningStatement(timeout);
+            final Future<Result> future = user.submit(
+                () -> shepherd.shepherdExecution(
+                    statement.execution, statement::run));
+            assertTrue(statement.started.await(10, TimeUnit.SECONDS));
+
+            // The timeout is noticed by the waiting user thread, not by the
+            // statement, which is blocked.
+            statement.stopped.set(true);
+
+            final Exception e = assertThrows(
+                Exception.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertSame(timeout, e.getCause());
+            verify(statement.execution).cancelSqlStatements();
+            assertTrue(statement.finished.await(10, TimeUnit.SECONDS));
+        } finally {
+            user.shutdownNow();
+            shepherd.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testCancelWhileStatementIsRunning(boolean virtualThreads)
+        throws Exception
+    {
+        final RolapResultShepherd shepherd = shepherd(virtualThreads);
+        final ExecutorService user = Executors.newSingleThreadExecutor();
+        try {
+            final QueryCanceledException canceled =
+                new QueryCanceledException("Query canceled");
+            final RunningStatement statement = new RunningStatement(canceled);
+            final Future<Result> future = user.submit(
+                () -> shepherd.shepherdExecution(
+                    statement.execution, statement::run));
+            assertTrue(statement.started.await(10, TimeUnit.SECONDS));
+
+            statement.stopped.set(true);
+
+            final Exception e = assertThrows(
+                Exception.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertSame(canceled, e.getCause());
+            verify(statement.execution).cancelSqlStatements();
+            assertTrue(statement.finished.await(10, TimeUnit.SECONDS));
+
+            // The shepherd runs the next execution as usual.
+            final Result result = mock(Result.class);
+            assertSame(
+                result,
+                shepherd.shepherdExecution(
+                    mock(Execution.class), () -> result));
+        } finally {
+            user.shutdownNow();
+            shepherd.shutdown();
+        }
+    }
+}
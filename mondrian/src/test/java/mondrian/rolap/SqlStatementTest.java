@@ -9,22 +9,39 @@
 */
 package mondrian.rolap;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.Semaphore;
 
+import javax.sql.DataSource;
+
+import org.eclipse.daanse.db.dialect.api.Dialect;
 import org.eclipse.daanse.olap.api.Context;
 import org.eclipse.daanse.olap.api.monitor.EventBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.opencube.junit5.context.TestConfig;
 
 import mondrian.olap.QueryCanceledException;
 import mondrian.server.ExecutionImpl;
@@ -43,9 +60,12 @@ class SqlStatementTest {
   private ExecutionImpl execution;
   private LocusImpl locus;
   private SqlStatement statement;
+  private Dialect dialect;
+  private Connection jdbcConnection;
+  private Statement jdbcStatement;
 
   @BeforeEach
-  public void beforeEach() {
+  public void beforeEach() throws SQLException {
     monitor = mock(EventBus.class);
 
     context = mock(Context.class);
@@ -66,6 +86,14 @@ class SqlStatementTest {
 
     statement = new SqlStatement(null, "sql", null, 0, 0, locus, 0, 0, null);
     statement = spy(statement);
+
+    // By default, the query returns an empty result set.
+    dialect = mock(Dialect.class);
+    jdbcConnection = mock(Connection.class);
+    jdbcStatement = mock(Statement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getMetaData()).thenReturn(mock(ResultSetMetaData.class));
+    when(jdbcStatement.executeQuery("sql")).thenReturn(resultSet);
   }
 
   @Test
@@ -84,4 +112,134 @@ class SqlStatementTest {
     verify(statement).formatTimingStatus(eq(Duration.ZERO), anyInt());
   }
 
+  @Test
+  void testFetchSizeIsApplied() throws Exception {
+    TestConfig config = new TestConfig();
+    config.setSqlFetchSize(500);
+    config.setSqlStreamingResultSets(false);
+    SqlStatement sqlStatement = sqlStatement(config);
+
+    sqlStatement.execute();
+    sqlStatement.close();
+
+    verify(jdbcStatement).setFetchSize(500);
+    verify(jdbcConnection, never()).setAutoCommit(anyBoolean());
+    verify(jdbcConnection).close();
+  }
+
+  @Test
+  void testDialectDefaultFetchSize() throws Exception {
+    TestConfig config = new TestConfig();
+    config.setSqlFetchSize(-1);
+    config.setSqlStreamingResultSets(false);
+    when(dialect.getDefaultFetchSize()).thenReturn(100);
+    SqlStatement sqlStatement = sqlStatement(config);
+
+    sqlStatement.execute();
+    sqlStatement.close();
+
+    verify(jdbcStatement).setFetchSize(100);
+  }
+
+  @Test
+  void testAutoCommitOffForStreamingIsRestoredOnClose() throws Exception {
+    TestConfig config = new TestConfig();
+    config.setSqlFetchSize(-1);
+    config.setSqlStreamingResultSets(true);
+    when(dialect.requiresAutoCommitOffForStreaming()).thenReturn(true);
+    when(dialect.getStreamingFetchSize(anyInt())).thenReturn(1000);
+    when(jdbcConnection.getAutoCommit()).thenReturn(true);
+    SqlStatement sqlStatement = sqlStatement(config);
+
+    sqlStatement.execute();
+    verify(jdbcConnection).setAutoCommit(false);
+    verify(jdbcStatement).setFetchSize(1000);
+    verify(jdbcConnection, never()).setAutoCommit(true);
+
+    sqlStatement.close();
+    InOrder inOrder = inOrder(jdbcConnection);
+    inOrder.verify(jdbcConnection).setAutoCommit(true);
+    inOrder.verify(jdbcConnection).close();
+  }
+
+  @Test
+  void testAutoCommitIsRestoredWhenExecutionFails() throws Exception {
+    TestConfig config = new TestConfig();
+    config.setSqlStreamingResultSets(true);
+    when(dialect.requiresAutoCommitOffForStreaming()).thenReturn(true);
+    when(jdbcConnection.getAutoCommit()).thenReturn(true);
+    when(jdbcStatement.executeQuery("sql"))
+        .thenThrow(new SQLException("failed"));
+    SqlStatement sqlStatement = sqlStatement(config);
+
+    assertThrows(RuntimeException.class, sqlStatement::execute);
+
+    InOrder inOrder = inOrder(jdbcConnection);
+    inOrder.verify(jdbcConnection).setAutoCommit(false);
+    inOrder.verify(jdbcConnection).setAutoCommit(true);
+    inOrder.verify(jdbcConnection).close();
+  }
+
+  @Test
+  void testAutoCommitAlreadyOffIsLeftAlone() throws Exception {
+    TestConfig config = new TestConfig();
+    config.setSqlStreamingResultSets(true);
+    when(dialect.requiresAutoCommitOffForStreaming()).thenReturn(true);
+    when(jdbcConnection.getAutoCommit()).thenReturn(false);
+    SqlStatement sqlStatement = sqlStatement(config);
+
+    sqlStatement.execute();
+    sqlStatement.close();
+
+    verify(jdbcConnection, never()).setAutoCommit(anyBoolean());
+  }
+
+  @Test
+  void testNoStreamingForScrollableResultSets() throws Exception {
+    TestConfig config = new TestConfig();
+    config.setSqlFetchSize(50);
+    config.setSqlStreamingResultSets(true);
+    when(dialect.requiresAutoCommitOffForStreaming()).thenReturn(true);
+    when(jdbcConnection.getAutoCommit()).thenReturn(true);
+    SqlStatement sqlStatement = sqlStatement(
+        config, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+
+    sqlStatement.execute();
+    sqlStatement.close();
+
+    verify(jdbcStatement).setFetchSize(50);
+    verify(dialect, never()).getStreamingFetchSize(anyInt());
+    verify(jdbcConnection, never()).setAutoCommit(anyBoolean());
+  }
+
+  private SqlStatement sqlStatement(TestConfig config) throws SQLException {
+    return sqlStatement(config, -1, -1);
+  }
+
+  /**
+   * Creates a SqlStatement on a mocked context and JDBC connection.
+   */
+  private SqlStatement sqlStatement(
+      TestConfig config, int resultSetType, int resultSetConcurrency)
+      throws SQLException
+  {
+    when(jdbcConnection.createStatement()).thenReturn(jdbcStatement);
+    when(jdbcConnection.createStatement(resultSetType, resultSetConcurrency))
+        .thenReturn(jdbcStatement);
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(jdbcConnection);
+    when(context.getDataSource()).thenReturn(dataSource);
+    when(context.getDialect()).thenReturn(dialect);
+    when(context.getConfig()).thenReturn(config);
+    when(context.getQueryLimitSemaphore()).thenReturn(new Semaphore(1));
+
+    ExecutionImpl sqlExecution =
+        spy(new ExecutionImpl(statMock, Optional.empty()));
+    doNothing().when(sqlExecution).registerStatement(any(), any());
+    return new SqlStatement(
+        context, "sql", null, 0, 0,
+        new LocusImpl(sqlExecution, "component", "message"),
+        resultSetType, resultSetConcurrency, null);
+  }
+
 }
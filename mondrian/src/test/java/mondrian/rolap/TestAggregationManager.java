@@ -12,8 +12,11 @@ package mondrian.rolap;
 
 import static mondrian.enums.DatabaseProduct.getDatabaseProduct;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 import static org.opencube.junit5.TestUtil.assertQueryReturns;
@@ -3814,6 +3817,142 @@ class TestAggregationManager extends BatchTestCase {
             true, true, true);
     }
 
+    /**
+     * With chooseAggregateByCost, an aggregate table that matches the
+     * request exactly is preferred to a slightly smaller one whose rows
+     * would have to be rolled up, also if tables are measured by volume.
+     * By size alone, the smaller table is used.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testChooseAggregateByCost(Context context) {
+        final TestConfig config = (TestConfig) context.getConfig();
+        try {
+            config.setReadAggregates(true);
+            config.setUseAggregates(true);
+            for (boolean byVolume : new boolean[] {false, true}) {
+                config.setChooseAggregateByVolume(byVolume);
+                RolapSchemaPool.instance().clear();
+                final RolapStar star = context.getConnection()
+                    .getSchemaReader().getSchema().getStar("sales_fact_1997");
+                final AggStar exact =
+                    getAggStar(star, "agg_c_10_sales_fact_1997");
+                assertNotNull(exact);
+
+                // agg_g_ms_pcat also has the levels of agg_c_10, but must be
+                // rolled up. Make it look one row smaller than agg_c_10, and
+                // as wide, so that it comes first by size.
+                final AggStar rollup = spy(
+                    getAggStar(star, "agg_g_ms_pcat_sales_fact_1997"));
+                final AggStar.FactTable rollupFactTable =
+                    spy(rollup.getFactTable());
+                when(rollupFactTable.getNumberOfRows()).thenReturn(
+                    exact.getFactTable().getNumberOfRows() - 1);
+                when(rollupFactTable.getTotalColumnSize()).thenReturn(
+                    exact.getFactTable().getTotalColumnSize());
+                when(rollup.getFactTable()).thenReturn(rollupFactTable);
+                when(rollup.getSize(anyBoolean())).thenReturn(0L);
+                star.addAggStar(rollup);
+
+                final BitKey measureBitKey =
+                    BitKey.Factory.makeBitKey(star.getColumnCount());
+                measureBitKey.set(
+                    star.getFactTable()
+                        .lookupMeasureByName("Sales", "Unit Sales")
+                        .getBitPosition());
+
+                boolean[] rolledUp = {false};
+                config.setChooseAggregateByCost(false);
+                assertEquals(
+                    rollup,
+                    AggregationManager.findAgg(
+                        star, exact.getLevelBitKey(), measureBitKey,
+                        rolledUp));
+                assertTrue(rolledUp[0]);
+
+                // Scanning the rows of agg_c_10 is cheaper than scanning and
+                // grouping the rows of the other table.
+                rolledUp[0] = true;
+                config.setChooseAggregateByCost(true);
+                assertEquals(
+                    exact,
+                    AggregationManager.findAgg(
+                        star, exact.getLevelBitKey(), measureBitKey,
+                        rolledUp));
+                assertFalse(rolledUp[0]);
+            }
+        } finally {
+            config.setChooseAggregateByCost(false);
+            config.setChooseAggregateByVolume(false);
+            RolapSchemaPool.instance().clear();
+        }
+    }
+
+    /**
+     * With chooseAggregateByCost, an aggregate table is not used if it is
+     * no cheaper than the fact table, even if it matches the request
+     * exactly.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testChooseFactTableByCost(Context context) {
+        final TestConfig config = (TestConfig) context.getConfig();
+        try {
+            config.setReadAggregates(true);
+            config.setUseAggregates(true);
+            config.setChooseAggregateByCost(true);
+            for (boolean byVolume : new boolean[] {false, true}) {
+                config.setChooseAggregateByVolume(byVolume);
+                RolapSchemaPool.instance().clear();
+                final RolapStar star = context.getConnection()
+                    .getSchemaReader().getSchema().getStar("sales_fact_1997");
+                assertTrue(star.getFactTableColumnSize() > 0);
+                final AggStar exact =
+                    getAggStar(star, "agg_c_10_sales_fact_1997");
+                assertNotNull(exact);
+
+                final BitKey measureBitKey =
+                    BitKey.Factory.makeBitKey(star.getColumnCount());
+                measureBitKey.set(
+                    star.getFactTable()
+                        .lookupMeasureByName("Sales", "Unit Sales")
+                        .getBitPosition());
+
+                // agg_c_10 is much smaller than the fact table.
+                star.clearAggStarList();
+                star.addAggStar(exact);
+                boolean[] rolledUp = {true};
+                assertEquals(
+                    exact,
+                    AggregationManager.findAgg(
+                        star, exact.getLevelBitKey(), measureBitKey,
+                        rolledUp));
+                assertFalse(rolledUp[0]);
+
+                // Make it ten times as large as the fact table, with rows as
+                // wide as those of the fact table.
+                final AggStar large = spy(exact);
+                final AggStar.FactTable largeFactTable =
+                    spy(exact.getFactTable());
+                when(largeFactTable.getNumberOfRows()).thenReturn(
+                    10 * AggregationManager.getRowCount(star, null));
+                when(largeFactTable.getTotalColumnSize()).thenReturn(
+                    (long) star.getFactTableColumnSize());
+                when(large.getFactTable()).thenReturn(largeFactTable);
+                star.clearAggStarList();
+                star.addAggStar(large);
+                assertNull(
+                    AggregationManager.findAgg(
+                        star, exact.getLevelBitKey(), measureBitKey,
+                        rolledUp));
+            }
+        } finally {
+            config.setChooseAggregateByCost(false);
+            config.setChooseAggregateByVolume(false);
+            RolapSchemaPool.instance().clear();
+        }
+    }
+
     private AggStar getAggStar(RolapStar star, String aggStarName) {
         for (AggStar aggStar : star.getAggStars()) {
             if (aggStar.getFactTable().getName().equals(aggStarName)) {
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.eclipse.daanse.db.dialect.api.Datatype;
+import org.junit.jupiter.api.Test;
+
+import mondrian.rolap.RolapStar;
+
+class ColumnValueDictionaryTest {
+
+    private static RolapStar.Column column() {
+        return new RolapStar.Column(Datatype.INTEGER) {
+        };
+    }
+
+    @Test
+    void testEncodeLookup() {
+        ColumnValueDictionary dictionary = new ColumnValueDictionary();
+        assertEquals(0, dictionary.encode("a"));
+        assertEquals(1, dictionary.encode("b"));
+        assertEquals(0, dictionary.encode("a"));
+        assertEquals(1, dictionary.lookup("b"));
+        assertEquals(ColumnValueDictionary.NO_CODE, dictionary.lookup("c"));
+        assertEquals(ColumnValueDictionary.NO_CODE, dictionary.lookup(null));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void testClearKeepsOldSegmentsReadable() {
+        RolapStar.Column column = column();
+        SegmentAxis axis = new SegmentAxis(
+            new LiteralStarPredicate(column, true),
+            new Comparable[] { 1997, 1998 });
+        ColumnValueDictionary old = column.getValueDictionary();
+        assertEquals(2, old.size());
+
+        column.clearValueDictionary();
+
+        ColumnValueDictionary current = column.getValueDictionary();
+        assertNotSame(old, current);
+        assertEquals(0, current.size());
+        // The axis still finds its keys, with codes of either dictionary.
+        assertEquals(1, axis.getOffset(1998, current, current.lookup(1998)));
+        assertEquals(1, axis.getOffset(1998, old, old.lookup(1998)));
+
+        // A new axis encodes its keys afresh.
+        SegmentAxis newAxis = new SegmentAxis(
+            new LiteralStarPredicate(column, true),
+            new Comparable[] { 1998 });
+        assertEquals(1, current.size());
+        assertEquals(0, newAxis.getOffset(1998, current, current.lookup(1998)));
+    }
+
+    @Test
+    void testReplacesFullDictionary() {
+        RolapStar.Column column = column();
+        ColumnValueDictionary full = column.getValueDictionary();
+        for (int i = 0; i < ColumnValueDictionary.MAX_SIZE; i++) {
+            full.encode(i);
+        }
+        ColumnValueDictionary current = column.getValueDictionary();
+        assertNotSame(full, current);
+        assertEquals(0, current.size());
+        assertSame(current, column.getValueDictionary());
+        // The full dictionary is left as it was for the segments using it.
+        assertEquals(ColumnValueDictionary.MAX_SIZE, full.size());
+    }
+}
@@ -12,11 +12,16 @@
 */
 package mondrian.rolap.agg;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.Test;
 
+import mondrian.rolap.RolapStar;
+
 class SegmentAxisTest {
 
     @Test
@@ -28,4 +33,52 @@ class SegmentAxisTest {
         assertFalse(SegmentAxis.isSorted(new String[] { "a", "b", "d", "c" }));
 
     }
+
+    @Test
+    void testOffsetOfDenseCodes() {
+        SegmentAxis axis = new SegmentAxis(
+            LiteralStarPredicate.TRUE, new Comparable[] { "a", "b", "c" });
+        assertEquals(0, axis.getOffset("a"));
+        assertEquals(2, axis.getOffset("c"));
+        assertEquals(-1, axis.getOffset("d"));
+        assertEquals(-1, axis.getOffsetOfCode(ColumnValueDictionary.NO_CODE));
+    }
+
+    @Test
+    void testOffsetOfSparseCodes() {
+        ColumnValueDictionary dictionary = new ColumnValueDictionary();
+        for (int i = 0; i < 1000; i++) {
+            dictionary.encode(i);
+        }
+        RolapStar.Column column = mock(RolapStar.Column.class);
+        when(column.getValueDictionary()).thenReturn(dictionary);
+        SegmentAxis axis = new SegmentAxis(
+            new LiteralStarPredicate(column, true),
+            new Comparable[] { 3, 500, 998 });
+        assertEquals(0, axis.getOffset(3));
+        assertEquals(1, axis.getOffsetOfCode(dictionary.lookup(500)));
+        assertEquals(2, axis.getOffset(998));
+        assertEquals(-1, axis.getOffset(4));
+        assertEquals(-1, axis.getOffset(5000));
+    }
+
+    @Test
+    void testOffsetAfterDictionaryIsReplaced() {
+        ColumnValueDictionary old = new ColumnValueDictionary();
+        RolapStar.Column column = mock(RolapStar.Column.class);
+        when(column.getValueDictionary()).thenReturn(old);
+        SegmentAxis axis = new SegmentAxis(
+            new LiteralStarPredicate(column, true),
+            new Comparable[] { "a", "b", "c" });
+
+        // The star has been flushed; the new dictionary gives "c" the code
+        // which "a" has in the dictionary of the axis.
+        ColumnValueDictionary current = new ColumnValueDictionary();
+        int code = current.encode("c");
+        assertEquals(old.lookup("a"), code);
+        assertEquals(2, axis.getOffset("c", current, code));
+        assertEquals(0, axis.getOffset("a", old, old.lookup("a")));
+        assertEquals(
+            -1, axis.getOffset("d", current, ColumnValueDictionary.NO_CODE));
+    }
 }
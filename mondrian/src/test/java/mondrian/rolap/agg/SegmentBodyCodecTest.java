@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import static java.util.Arrays.asList;
+import static mondrian.util.Pair.of;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import mondrian.rolap.CellKey;
+import mondrian.spi.SegmentBody;
+import mondrian.spi.SegmentCodec;
+import mondrian.util.HyperLogLog;
+import mondrian.util.Pair;
+
+class SegmentBodyCodecTest {
+
+    private static List<Pair<SortedSet<Comparable>, Boolean>> axes() {
+        SortedSet<Comparable> axis1 = new TreeSet<>(asList("a", "b"));
+        SortedSet<Comparable> axis2 = new TreeSet<>(asList(1997, 1998));
+        return asList(of(axis1, false), of(axis2, true));
+    }
+
+    private static SegmentBody roundTrip(SegmentBody body) {
+        return SegmentBodyCodec.decode(
+            ByteBuffer.wrap(SegmentBodyCodec.encode(body)));
+    }
+
+    private static void assertAxesEqual(SegmentBody expected, SegmentBody actual) {
+        assertEquals(
+            asList(expected.getAxisValueSets()),
+            asList(actual.getAxisValueSets()));
+        assertArrayEquals(
+            expected.getNullAxisFlags(), actual.getNullAxisFlags());
+    }
+
+    @Test
+    void testDenseDouble() {
+        BitSet nullValues = new BitSet();
+        nullValues.set(2);
+        SegmentBody body = new DenseDoubleSegmentBody(
+            nullValues, new double[] {1.5, -2d, 0d, 4d}, axes());
+        SegmentBody decoded = roundTrip(body);
+        assertTrue(decoded instanceof DenseDoubleSegmentBody);
+        assertArrayEquals(
+            (double[]) body.getValueArray(),
+            (double[]) decoded.getValueArray());
+        assertEquals(nullValues, decoded.getNullValueIndicators());
+        assertAxesEqual(body, decoded);
+        assertEquals(body.getValueMap(), decoded.getValueMap());
+    }
+
+    @Test
+    void testDenseInt() {
+        BitSet nullValues = new BitSet();
+        nullValues.set(0);
+        SegmentBody body = new DenseIntSegmentBody(
+            nullValues, new int[] {0, 7, 8, Integer.MAX_VALUE}, axes());
+        SegmentBody decoded = roundTrip(body);
+        assertTrue(decoded instanceof DenseIntSegmentBody);
+        assertArrayEquals(
+            (int[]) body.getValueArray(), (int[]) decoded.getValueArray());
+        assertEquals(nullValues, decoded.getNullValueIndicators());
+        assertAxesEqual(body, decoded);
+    }
+
+    @Test
+    void testDenseObject() {
+        SegmentBody body = new DenseObjectSegmentBody(
+            new Object[] {"x", null, new BigDecimal("12.34"), 5L}, axes());
+        SegmentBody decoded = roundTrip(body);
+        assertTrue(decoded instanceof DenseObjectSegmentBody);
+        assertArrayEquals(
+            (Object[]) body.getValueArray(),
+            (Object[]) decoded.getValueArray());
+        assertAxesEqual(body, decoded);
+    }
+
+    @Test
+    void testValueTypes() throws IOException {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add("a");
+        sketch.add("b");
+        java.sql.Timestamp timestamp = new java.sql.Timestamp(1000L);
+        timestamp.setNanos(123456789);
+        List<Object> values = asList(
+            null, "s", 1, 2L, 3.5d, new BigDecimal("-1.25"), true, 4.5f,
+            (short) 6, new BigInteger("123456789012345678901234567890"),
+            new java.sql.Date(86400000L), timestamp, (byte) -7,
+            new java.sql.Time(3600000L), new java.util.Date(12345L),
+            LocalDate.of(1997, 1, 31),
+            LocalDateTime.of(1997, 1, 31, 12, 30, 15, 999),
+            'c', sketch);
+        for (Object value : values) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            SegmentBodyCodec.writeValue(new DataOutputStream(bytes), value);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            Object decoded = SegmentBodyCodec.readValue(buffer);
+            assertEquals(value, decoded);
+            assertEquals(
+                value == null ? null : value.getClass(),
+                decoded == null ? null : decoded.getClass());
+            assertEquals(0, buffer.remaining());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SegmentBodyCodec.writeValue(
+            new DataOutputStream(bytes), new byte[] {1, 2, 3});
+        assertArrayEquals(
+            new byte[] {1, 2, 3},
+            (byte[]) SegmentBodyCodec.readValue(
+                ByteBuffer.wrap(bytes.toByteArray())));
+    }
+
+    /**
+     * Values of unknown types fail fast, rather than being written with Java
+     * serialization; and a serialized value is never read.
+     */
+    @Test
+    void testUnknownValueTypeIsRejected() {
+        SegmentBody body = new DenseObjectSegmentBody(
+            new Object[] {java.util.UUID.randomUUID()}, axes());
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SegmentBodyCodec.encode(body));
+
+        // The tag that used to mark a Java-serialized value.
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SegmentBodyCodec.readValue(
+                ByteBuffer.wrap(new byte[] {127, 0})));
+    }
+
+    @Test
+    void testSparse() {
+        Map<CellKey, Object> data = new HashMap<>();
+        data.put(CellKey.Generator.newCellKey(new int[] {0, 1}), 3d);
+        data.put(CellKey.Generator.newCellKey(new int[] {1, 0}), "y");
+        SegmentBody body = new SparseSegmentBody(data, axes());
+        SegmentBody decoded = roundTrip(body);
+        assertTrue(decoded instanceof SparseSegmentBody);
+        assertEquals(data, decoded.getValueMap());
+        assertAxesEqual(body, decoded);
+    }
+
+    @Test
+    void testAxisLayouts() throws IOException {
+        List<Comparable> longs = asList(-5L, 0L, 1L, 1000000000000L);
+        List<Comparable> strings = asList("", "Alpha", "Alphabet", "Beta", "\ud83d\ude00a", "\ud83d\ude01");
+        List<Comparable> mixed = asList(1, "a", 2.5d);
+        for (List<Comparable> values : asList(longs, strings, mixed)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            SegmentBodyCodec.writeAxisValues(new DataOutputStream(bytes), values);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            assertEquals(values, asList(SegmentBodyCodec.readAxisValues(buffer)));
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    @Test
+    void testBitSetRuns() throws IOException {
+        BitSet bitSet = new BitSet();
+        bitSet.set(0);
+        bitSet.set(70, 5000);
+        bitSet.set(9999);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SegmentBodyCodec.writeBitSet(new DataOutputStream(bytes), bitSet);
+        assertTrue(bytes.size() < 16);
+        assertEquals(
+            bitSet,
+            SegmentBodyCodec.readBitSet(ByteBuffer.wrap(bytes.toByteArray())));
+        bytes.reset();
+        SegmentBodyCodec.writeBitSet(new DataOutputStream(bytes), new BitSet());
+        assertEquals(
+            new BitSet(),
+            SegmentBodyCodec.readBitSet(ByteBuffer.wrap(bytes.toByteArray())));
+    }
+
+    @Test
+    void testVersionedBody() throws IOException {
+        SortedSet<Comparable> years = new TreeSet<>();
+        SortedSet<Comparable> products = new TreeSet<>();
+        for (int i = 0; i < 20; i++) {
+            years.add(1990 + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            products.add("Product " + i);
+        }
+        List<Pair<SortedSet<Comparable>, Boolean>> axes =
+            new ArrayList<>(asList(of(years, false), of(products, false)));
+        BitSet nullValues = new BitSet();
+        nullValues.set(1000, 2000);
+        int[] values = new int[years.size() * products.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 37;
+        }
+        SegmentBody body = new DenseIntSegmentBody(nullValues, values, axes);
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(body);
+        }
+        byte[] plain =
+            SegmentCodec.encodeBody(body, SegmentCodec.Compression.NONE);
+        byte[] deflated =
+            SegmentCodec.encodeBody(body, SegmentCodec.Compression.DEFLATE);
+        assertTrue(plain.length < serialized.size());
+        assertTrue(deflated.length < plain.length);
+
+        for (byte[] bytes : asList(plain, deflated)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            SegmentBody decoded = SegmentCodec.decodeBody(buffer);
+            assertEquals(0, buffer.remaining());
+            assertArrayEquals(values, (int[]) decoded.getValueArray());
+            assertEquals(nullValues, decoded.getNullValueIndicators());
+            assertAxesEqual(body, decoded);
+        }
+
+        plain[0] = SegmentCodec.VERSION + 1;
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SegmentCodec.decodeBody(ByteBuffer.wrap(plain)));
+    }
+}
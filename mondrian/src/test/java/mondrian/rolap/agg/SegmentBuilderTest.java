@@ -59,6 +59,7 @@ import mondrian.spi.SegmentColumn;
 import mondrian.spi.SegmentHeader;
 import mondrian.test.PerformanceTest;
 import mondrian.util.ByteString;
+import mondrian.util.HyperLogLog;
 import mondrian.util.Pair;
 
 /**
@@ -516,6 +517,142 @@ class SegmentBuilderTest {
       }
     }
 
+    @Test
+    void testPrimitiveRollupMatchesBoxedRollup() {
+        // 3 values in col1, 2 values + null in col2, 4 values in col3;
+        // every fifth cell is null.
+        String[][] colValues = dummyColumnValues(3, 4);
+        colValues[0] = Arrays.copyOf(colValues[0], 3);
+        colValues[1] = Arrays.copyOf(colValues[1], 2);
+        boolean[] nullAxisFlags = {false, true, false};
+        double[] doubles = new double[3 * 3 * 4];
+        Object[] objects = new Object[doubles.length];
+        BitSet nulls = new BitSet();
+        for (int i = 0; i < doubles.length; i++) {
+            if (i % 5 == 0) {
+                nulls.set(i);
+            } else {
+                doubles[i] = i * 1.5;
+                objects[i] = doubles[i];
+            }
+        }
+        List<Pair<SortedSet<Comparable>, Boolean>> axes = new ArrayList<>();
+        List<SegmentColumn> segmentColumns = new ArrayList<>();
+        for (int i = 0; i < colValues.length; i++) {
+            axes.add(of(toSortedSet(colValues[i]), nullAxisFlags[i]));
+            segmentColumns.add(new SegmentColumn(
+                "col" + (i + 1),
+                colValues[i].length,
+                toSortedSet(colValues[i])));
+        }
+        SegmentHeader header = makeDummySegmentHeader(segmentColumns);
+        for (RolapAggregator aggregator : List.of(
+            RolapAggregator.Sum, RolapAggregator.Min, RolapAggregator.Max))
+        {
+            for (Set<String> keepColumns : List.of(
+                Set.of("col2"), Set.of("col1", "col3"), Set.of("col2", "col3")))
+            {
+                Pair<SegmentHeader, SegmentBody> primitive =
+                    SegmentBuilder.rollup(
+                        singletonMap(
+                            header,
+                            new DenseDoubleSegmentBody(nulls, doubles, axes)),
+                        keepColumns, null, aggregator, Datatype.NUMERIC,
+                        1000, 0.5);
+                Pair<SegmentHeader, SegmentBody> boxed =
+                    SegmentBuilder.rollup(
+                        singletonMap(
+                            header, new DenseObjectSegmentBody(objects, axes)),
+                        keepColumns, null, aggregator, Datatype.NUMERIC,
+                        1000, 0.5);
+                assertTrue(primitive.right instanceof DenseDoubleSegmentBody);
+                assertEquals(
+                    boxed.right.getValueMap(), primitive.right.getValueMap(),
+                    aggregator + " " + keepColumns);
+                assertTrue(Arrays.equals(
+                    boxed.right.getNullAxisFlags(),
+                    primitive.right.getNullAxisFlags()));
+            }
+        }
+    }
+
+    @Test
+    void testPrimitiveRollupOfDisjointSegments() {
+        // Two segments with different values of col1 are rolled up to col2.
+        //
+        //    segment 1 (col1 = a, b)    segment 2 (col1 = c)
+        //           1 2                        5
+        //    col2   3 4                        6
+        //
+        // Rolling up with SUM, we expect (1 + 2 + 5, 3 + 4 + 6).
+        SortedSet<Comparable> col2 = toSortedSet("x", "y");
+        Map<SegmentHeader, SegmentBody> segments = new HashMap<>();
+        int[][] values = {{1, 3, 2, 4}, {5, 6}};
+        String[][] col1 = {{"a", "b"}, {"c"}};
+        for (int s = 0; s < 2; s++) {
+            SortedSet<Comparable> col1Values = toSortedSet(col1[s]);
+            SegmentHeader header = makeDummySegmentHeader(List.of(
+                new SegmentColumn("col1", 3, col1Values),
+                new SegmentColumn("col2", 2, col2)));
+            segments.put(
+                header,
+                new DenseIntSegmentBody(
+                    new BitSet(),
+                    values[s],
+                    List.of(of(col1Values, false), of(col2, false))));
+        }
+        Pair<SegmentHeader, SegmentBody> rollup =
+            SegmentBuilder.rollup(
+                segments, singleton("col2"), null, RolapAggregator.Sum,
+                Datatype.INTEGER, 1000, 0.5);
+        assertTrue(rollup.right instanceof DenseIntSegmentBody);
+        int[] result = (int[]) rollup.right.getValueArray();
+        assertEquals(2, result.length);
+        assertEquals(1 + 2 + 5, result[0]);
+        assertEquals(3 + 4 + 6, result[1]);
+    }
+
+    @Test
+    void testSketchRollup() {
+        // Customers per (col1, col2); rolled up to col2, customers who are
+        // in both cells of a column are counted once.
+        //
+        //            col1 = a      col1 = b
+        //    x       0..99         50..149
+        //    y       0..9          (none)
+        SortedSet<Comparable> col1 = toSortedSet("a", "b");
+        SortedSet<Comparable> col2 = toSortedSet("x", "y");
+        HyperLogLog ax = new HyperLogLog();
+        HyperLogLog bx = new HyperLogLog();
+        HyperLogLog ay = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            ax.add(i);
+            bx.add(i + 50);
+        }
+        for (int i = 0; i < 10; i++) {
+            ay.add(i);
+        }
+        SegmentHeader header = makeDummySegmentHeader(List.of(
+            new SegmentColumn("col1", 2, col1),
+            new SegmentColumn("col2", 2, col2)));
+        Map<SegmentHeader, SegmentBody> segments = singletonMap(
+            header,
+            new DenseObjectSegmentBody(
+                new Object[] {ax, ay, bx, null},
+                List.of(of(col1, false), of(col2, false))));
+        Pair<SegmentHeader, SegmentBody> rollup =
+            SegmentBuilder.rollup(
+                segments, singleton("col2"), null,
+                RolapAggregator.ApproxDistinctCount, Datatype.INTEGER,
+                1000, 0.5);
+        Object[] result = (Object[]) rollup.right.getValueArray();
+        assertEquals(2, result.length);
+        assertEquals(150, ((HyperLogLog) result[0]).estimate(), 3);
+        assertEquals(10, ((HyperLogLog) result[1]).estimate());
+        // The sketches of the segment are not changed.
+        assertEquals(100, ax.estimate(), 3);
+    }
+
     @ParameterizedTest
     @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
     void testOverlappingSegments(Context context) {
@@ -11,7 +11,11 @@
 package mondrian.rolap.agg;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -22,8 +26,11 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
+import javax.sql.DataSource;
+
 import org.eclipse.daanse.olap.api.Context;
 import org.eclipse.daanse.olap.api.Locus;
 import org.junit.jupiter.api.BeforeEach;
@@ -99,6 +106,64 @@ class SegmentCacheManagerTest {
     assertTrue( results.get( 19 ) instanceof MondrianException );
   }
 
+  @Test
+  void testPartitionOfIsStable() {
+    SegmentCacheManager man = new SegmentCacheManager( context );
+    assertEquals( new TestConfig().segmentCacheManagerNumberActors().intValue(), man.getPartitionCount() );
+    for ( String alias : List.of( "sales_fact_1997", "inventory_fact_1997", "agg_c_14_sales_fact_1997" ) ) {
+      int partition = man.partitionOf( alias );
+      assertTrue( partition >= 0 && partition < man.getPartitionCount() );
+      assertEquals( partition, man.partitionOf( alias ) );
+    }
+    assertEquals( 0, man.partitionOf( null ) );
+    man.shutdown();
+  }
+
+  @Test
+  void testShutdownStopsAllPartitions() {
+    SegmentCacheManager man = new SegmentCacheManager( context );
+    man.shutdown();
+    for ( Thread thread : man.getThreads() ) {
+      try {
+        thread.join( 2000 );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException( e );
+      }
+      assertFalse( thread.isAlive() );
+    }
+  }
+
+  @Test
+  void testSqlPermitsAreSharedPerDataSource() {
+    DataSource dataSource = mock( DataSource.class );
+    Context context1 = sqlContext( dataSource, 4 );
+    Context context2 = sqlContext( dataSource, 2 );
+    Context other = sqlContext( mock( DataSource.class ), 3 );
+
+    Semaphore permits1 = SegmentCacheManager.getSqlPermits( context1 );
+    assertEquals( 4, permits1.availablePermits() );
+
+    // Both contexts get the smaller limit of the two.
+    Semaphore permits2 = SegmentCacheManager.getSqlPermits( context2 );
+    assertEquals( 2, permits2.availablePermits() );
+    assertSame( permits2, SegmentCacheManager.getSqlPermits( context1 ) );
+
+    // Another data source has its own limit.
+    Semaphore otherPermits = SegmentCacheManager.getSqlPermits( other );
+    assertNotSame( permits2, otherPermits );
+    assertEquals( 3, otherPermits.availablePermits() );
+  }
+
+  private static Context sqlContext( DataSource dataSource, int sqlThreads ) {
+    TestConfig config = new TestConfig();
+    config.setSegmentCacheManagerNumberSqlThreads( sqlThreads );
+    Context context = mock( Context.class );
+    when( context.getConfig() ).thenReturn( config );
+    when( context.getDataSource() ).thenReturn( dataSource );
+    return context;
+  }
+
   private void executeNtimes( BlockingQueue<Object> queue, SegmentCacheManager man, int n ) {
     for ( int i = 0; i < n; i++ ) {
       executor.submit( () ->
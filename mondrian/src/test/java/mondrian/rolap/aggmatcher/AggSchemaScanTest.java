@@ -15,6 +15,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -159,4 +160,45 @@ class AggSchemaScanTest {
       }
     }
   }
+
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class )
+  void testLoadColumnsInOneCallOrInParallel(Context context) throws Exception {
+    final RolapConnection rolapConn = (RolapConnection) context.getConnection();
+    final DataSource dataSource = rolapConn.getDataSource();
+    RolapConnectionPropsR rc = new RolapConnectionPropsR(List.of(), false, Locale.getDefault(), 0l, TimeUnit.SECONDS,
+        Optional.empty(), Optional.empty());
+
+    // Columns loaded table by table are the reference.
+    JdbcSchema reference = new JdbcSchema( dataSource );
+    reference.loadTables( rc );
+    for ( JdbcSchema.Table table : reference.getTables() ) {
+      table.load();
+    }
+
+    // All tables: one call for the columns of every table.
+    JdbcSchema bulk = new JdbcSchema( dataSource );
+    bulk.loadTables( rc );
+    bulk.loadColumns( bulk.getTables(), 4 );
+
+    // A few tables: loaded in parallel.
+    JdbcSchema parallel = new JdbcSchema( dataSource );
+    parallel.loadTables( rc );
+    List<JdbcSchema.Table> few = new ArrayList<>( parallel.getTables() ).subList( 0, 5 );
+    parallel.loadColumns( few, 4 );
+
+    for ( JdbcSchema.Table table : reference.getTables() ) {
+      assertEquals(
+        table.getColumnMap().keySet(),
+        bulk.getTable( table.getName() ).getColumnMap().keySet() );
+      assertEquals(
+        table.getTotalColumnSize(),
+        bulk.getTable( table.getName() ).getTotalColumnSize() );
+    }
+    for ( JdbcSchema.Table table : few ) {
+      assertEquals(
+        reference.getTable( table.getName() ).getColumnMap().keySet(),
+        table.getColumnMap().keySet() );
+    }
+  }
 }
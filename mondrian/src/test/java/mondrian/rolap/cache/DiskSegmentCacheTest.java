@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mondrian.rolap.BitKey;
+import mondrian.rolap.CellKey;
+import mondrian.spi.SegmentBody;
+import mondrian.spi.SegmentCache.SegmentCacheListener.SegmentCacheEvent;
+import mondrian.spi.SegmentCache.SegmentCacheListener.SegmentCacheEvent.EventType;
+import mondrian.spi.SegmentCodec;
+import mondrian.spi.SegmentColumn;
+import mondrian.spi.SegmentHeader;
+import mondrian.util.ByteString;
+
+class DiskSegmentCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private static SegmentHeader header(String measureName) {
+        return header(measureName, new byte[] {1, 2, 3});
+    }
+
+    private static SegmentHeader header(String measureName, byte[] checksum) {
+        SortedSet<Comparable> years = new TreeSet<>(Arrays.asList(1997, 1998));
+        BitKey bitKey = BitKey.Factory.makeBitKey(70);
+        bitKey.set(3);
+        bitKey.set(65);
+        return new SegmentHeader(
+            "FoodMart",
+            new ByteString(checksum),
+            "Sales",
+            measureName,
+            List.of(
+                new SegmentColumn("time_by_day.the_year", 2, years),
+                new SegmentColumn("store.store_state", 10, null)),
+            Collections.emptyList(),
+            "sales_fact_1997",
+            bitKey,
+            List.of(
+                new SegmentColumn(
+                    "store.store_state", 10,
+                    new TreeSet<>(Arrays.asList("CA")))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SegmentBody body(Map<CellKey, Object> values) {
+        SegmentBody body = mock(SegmentBody.class);
+        when(body.getValueMap()).thenReturn(values);
+        when(body.getAxisValueSets()).thenReturn(new SortedSet[] {
+            new TreeSet<>(Arrays.asList(1997, 1998)),
+            new TreeSet<>(Arrays.asList("OR", "WA"))
+        });
+        when(body.getNullAxisFlags()).thenReturn(new boolean[] {false, true});
+        return body;
+    }
+
+    @Test
+    void testSurvivesRestart() {
+        Map<CellKey, Object> values = new HashMap<>();
+        values.put(CellKey.Generator.newCellKey(new int[] {0, 1}), 12.5d);
+        values.put(CellKey.Generator.newCellKey(new int[] {1, 0}), null);
+
+        DiskSegmentCache cache = new DiskSegmentCache(directory);
+        assertTrue(cache.put(header("Unit Sales"), body(values)));
+        cache.tearDown();
+
+        DiskSegmentCache reloaded = new DiskSegmentCache(directory);
+        assertEquals(
+            List.of(header("Unit Sales")), reloaded.getSegmentHeaders());
+        SegmentHeader loadedHeader = reloaded.getSegmentHeaders().get(0);
+        assertEquals(
+            header("Unit Sales").constrainedColsBitKey,
+            loadedHeader.constrainedColsBitKey);
+        SegmentBody loaded = reloaded.get(header("Unit Sales"));
+        assertEquals(values, loaded.getValueMap());
+        assertEquals(
+            Arrays.asList(body(values).getAxisValueSets()),
+            Arrays.asList(loaded.getAxisValueSets()));
+        assertNull(reloaded.get(header("Store Sales")));
+    }
+
+    @Test
+    void testRemove() {
+        DiskSegmentCache cache = new DiskSegmentCache(directory);
+        cache.put(header("Unit Sales"), body(new HashMap<>()));
+        assertTrue(cache.remove(header("Unit Sales")));
+        assertTrue(
+            new DiskSegmentCache(directory).getSegmentHeaders().isEmpty());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws Exception {
+        DiskSegmentCache unbounded = new DiskSegmentCache(directory);
+        unbounded.put(header("a"), body(new HashMap<>()));
+        final long size = unbounded.getUsedBytes();
+        unbounded.remove(header("a"));
+
+        DiskSegmentCache cache = new DiskSegmentCache(directory, 2 * size);
+        List<SegmentCacheEvent> events = new ArrayList<>();
+        cache.addListener(events::add);
+        cache.put(header("a"), body(new HashMap<>()));
+        cache.put(header("b"), body(new HashMap<>()));
+        // Reading "a" makes "b" the least recently used.
+        assertNotNull(cache.get(header("a")));
+        events.clear();
+
+        assertTrue(cache.put(header("c"), body(new HashMap<>())));
+
+        assertEquals(
+            Set.of(header("a"), header("c")),
+            new HashSet<>(cache.getSegmentHeaders()));
+        assertEquals(2 * size, cache.getUsedBytes());
+        assertEquals(2, events.size());
+        assertEquals(EventType.ENTRY_DELETED, events.get(1).getEventType());
+        assertEquals(header("b"), events.get(1).getSource());
+        assertFalse(events.get(1).isLocal());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+
+        // A cache on the same directory with a smaller budget deletes files
+        // when it loads them.
+        DiskSegmentCache reloaded = new DiskSegmentCache(directory, size);
+        assertEquals(1, reloaded.getSegmentHeaders().size());
+        assertEquals(size, reloaded.getUsedBytes());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testDeletesSegmentsOfOtherSchemaVersions() throws Exception {
+        DiskSegmentCache cache = new DiskSegmentCache(directory);
+        List<SegmentCacheEvent> events = new ArrayList<>();
+        cache.addListener(events::add);
+        cache.put(header("Unit Sales"), body(new HashMap<>()));
+        cache.put(header("Store Sales"), body(new HashMap<>()));
+        events.clear();
+
+        SegmentHeader changed = header("Unit Sales", new byte[] {4, 5, 6});
+        assertTrue(cache.put(changed, body(new HashMap<>())));
+
+        assertEquals(List.of(changed), cache.getSegmentHeaders());
+        assertEquals(
+            Set.of(header("Unit Sales"), header("Store Sales")),
+            events.stream()
+                .filter(e -> e.getEventType() == EventType.ENTRY_DELETED)
+                .map(SegmentCacheEvent::getSource)
+                .collect(Collectors.toSet()));
+        assertEquals(
+            List.of(changed), new DiskSegmentCache(directory).getSegmentHeaders());
+    }
+
+    /**
+     * Contexts that share a directory get their own subdirectories, budgets
+     * and schema versions.
+     */
+    @Test
+    void testContextsDoNotShareSegments() throws Exception {
+        DiskSegmentCache cache1 =
+            DiskSegmentCache.forContext(directory, "context 1", 0);
+        DiskSegmentCache cache2 =
+            DiskSegmentCache.forContext(directory, "context/1", 0);
+        cache1.put(header("Unit Sales"), body(new HashMap<>()));
+        // Another context has another version of the schema.
+        SegmentHeader changed = header("Unit Sales", new byte[] {4, 5, 6});
+        cache2.put(changed, body(new HashMap<>()));
+
+        assertEquals(List.of(header("Unit Sales")), cache1.getSegmentHeaders());
+        assertEquals(List.of(changed), cache2.getSegmentHeaders());
+        assertEquals(
+            List.of(header("Unit Sales")),
+            DiskSegmentCache.forContext(directory, "context 1", 0)
+                .getSegmentHeaders());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testDirectoryIsOwnerOnly() throws Exception {
+        assumeTrue(
+            directory.getFileSystem().supportedFileAttributeViews()
+                .contains("posix"));
+        Path shared = directory.resolve("shared");
+        DiskSegmentCache.forContext(shared, "FoodMart", 0)
+            .put(header("Unit Sales"), body(new HashMap<>()));
+        Path contextDirectory = shared.resolve(
+            DiskSegmentCache.contextDirectoryName("FoodMart"));
+        assertEquals(
+            PosixFilePermissions.fromString("rwx------"),
+            Files.getPosixFilePermissions(shared));
+        assertEquals(
+            PosixFilePermissions.fromString("rwx------"),
+            Files.getPosixFilePermissions(contextDirectory));
+        try (Stream<Path> files = Files.list(contextDirectory)) {
+            for (Path file : files.toList()) {
+                assertFalse(
+                    Files.getPosixFilePermissions(file).stream()
+                        .anyMatch(p -> !p.name().startsWith("OWNER_")));
+            }
+        }
+    }
+
+    /**
+     * A file holding a Java-serialized value, as an older version wrote and
+     * another user could plant, is never deserialized; it is deleted.
+     */
+    @Test
+    void testRejectsSerializedValue() throws Exception {
+        ByteBuffer file = ByteBuffer.allocate(1024);
+        file.putInt(0x4d534547); // "MSEG"
+        file.putInt(SegmentCodec.VERSION);
+        file.put(SegmentCodec.encodeHeader(header("Unit Sales")));
+        // Version, flags, a sparse body without axes holding one cell, whose
+        // value has the serialized tag.
+        file.put(new byte[] {SegmentCodec.VERSION, 0, 4, 0, 1, 0, 127, 0});
+        file.flip();
+        Path path = directory.resolve("planted.seg");
+        Files.write(
+            path, Arrays.copyOfRange(file.array(), 0, file.limit()));
+
+        DiskSegmentCache cache = new DiskSegmentCache(directory);
+        assertEquals(List.of(header("Unit Sales")), cache.getSegmentHeaders());
+        assertNull(cache.get(header("Unit Sales")));
+        assertTrue(cache.getSegmentHeaders().isEmpty());
+        assertEquals(0, cache.getUsedBytes());
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void testReadsBodyRepeatedly() {
+        Map<CellKey, Object> values = new HashMap<>();
+        values.put(CellKey.Generator.newCellKey(new int[] {0, 0}), 1d);
+        DiskSegmentCache cache = new DiskSegmentCache(directory);
+        cache.put(header("Unit Sales"), body(values));
+        // Each read decodes a private view of the same mapping.
+        assertEquals(values, cache.get(header("Unit Sales")).getValueMap());
+        assertEquals(values, cache.get(header("Unit Sales")).getValueMap());
+    }
+}
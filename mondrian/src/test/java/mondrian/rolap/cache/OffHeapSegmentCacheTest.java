@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import mondrian.rolap.BitKey;
+import mondrian.rolap.CellKey;
+import mondrian.spi.SegmentBody;
+import mondrian.spi.SegmentCache.SegmentCacheListener.SegmentCacheEvent;
+import mondrian.spi.SegmentCache.SegmentCacheListener.SegmentCacheEvent.EventType;
+import mondrian.spi.SegmentCodec;
+import mondrian.spi.SegmentColumn;
+import mondrian.spi.SegmentHeader;
+import mondrian.util.ByteString;
+
+class OffHeapSegmentCacheTest {
+
+    private static SegmentHeader header(String measureName) {
+        BitKey bitKey = BitKey.Factory.makeBitKey(10);
+        bitKey.set(3);
+        return new SegmentHeader(
+            "FoodMart",
+            new ByteString(new byte[] {1, 2, 3}),
+            "Sales",
+            measureName,
+            List.of(
+                new SegmentColumn(
+                    "time_by_day.the_year", 2,
+                    new TreeSet<>(Arrays.asList(1997, 1998)))),
+            Collections.emptyList(),
+            "sales_fact_1997",
+            bitKey,
+            Collections.emptyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SegmentBody body(double value) {
+        Map<CellKey, Object> values = new HashMap<>();
+        values.put(CellKey.Generator.newCellKey(new int[] {0}), value);
+        values.put(CellKey.Generator.newCellKey(new int[] {1}), value + 1);
+        SegmentBody body = mock(SegmentBody.class);
+        when(body.getValueMap()).thenReturn(values);
+        when(body.getAxisValueSets()).thenReturn(new SortedSet[] {
+            new TreeSet<>(Arrays.asList(1997, 1998))
+        });
+        when(body.getNullAxisFlags()).thenReturn(new boolean[] {false});
+        return body;
+    }
+
+    private static int encodedSize(SegmentBody body) {
+        return SegmentCodec.encodeBody(body, SegmentCodec.Compression.NONE)
+            .length;
+    }
+
+    @Test
+    void testPutGet() {
+        OffHeapSegmentCache cache = new OffHeapSegmentCache(1 << 20);
+        SegmentBody body = body(12.5d);
+        assertTrue(cache.put(header("Unit Sales"), body));
+        assertTrue(cache.contains(header("Unit Sales")));
+        assertEquals(
+            List.of(header("Unit Sales")), cache.getSegmentHeaders());
+        assertEquals(encodedSize(body), cache.getUsedBytes());
+
+        SegmentBody loaded = cache.get(header("Unit Sales"));
+        assertEquals(body.getValueMap(), loaded.getValueMap());
+        assertEquals(
+            Arrays.asList(body.getAxisValueSets()),
+            Arrays.asList(loaded.getAxisValueSets()));
+        assertNull(cache.get(header("Store Sales")));
+
+        // Replacing a body does not count its bytes twice.
+        assertTrue(cache.put(header("Unit Sales"), body(13.5d)));
+        assertEquals(encodedSize(body), cache.getUsedBytes());
+        assertEquals(
+            14.5d,
+            cache.get(header("Unit Sales")).getValueMap()
+                .get(CellKey.Generator.newCellKey(new int[] {1})));
+    }
+
+    @Test
+    void testRemove() {
+        OffHeapSegmentCache cache = new OffHeapSegmentCache(1 << 20);
+        List<SegmentCacheEvent> events = new ArrayList<>();
+        cache.addListener(events::add);
+        cache.put(header("Unit Sales"), body(1d));
+
+        assertTrue(cache.remove(header("Unit Sales")));
+        assertFalse(cache.remove(header("Unit Sales")));
+        assertFalse(cache.contains(header("Unit Sales")));
+        assertEquals(0, cache.getUsedBytes());
+
+        // The caller knows about its own puts and removes.
+        assertEquals(2, events.size());
+        assertEquals(EventType.ENTRY_CREATED, events.get(0).getEventType());
+        assertTrue(events.get(0).isLocal());
+        assertEquals(EventType.ENTRY_DELETED, events.get(1).getEventType());
+        assertTrue(events.get(1).isLocal());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        final int size = encodedSize(body(1d));
+        OffHeapSegmentCache cache = new OffHeapSegmentCache(2L * size);
+        List<SegmentCacheEvent> events = new ArrayList<>();
+        cache.addListener(events::add);
+        cache.put(header("a"), body(1d));
+        cache.put(header("b"), body(2d));
+        // Reading "a" makes "b" the least recently used.
+        cache.get(header("a"));
+        events.clear();
+
+        assertTrue(cache.put(header("c"), body(3d)));
+
+        assertTrue(cache.contains(header("a")));
+        assertFalse(cache.contains(header("b")));
+        assertTrue(cache.contains(header("c")));
+        assertEquals(2L * size, cache.getUsedBytes());
+        assertEquals(2, events.size());
+        assertEquals(EventType.ENTRY_CREATED, events.get(0).getEventType());
+        assertEquals(header("c"), events.get(0).getSource());
+        assertTrue(events.get(0).isLocal());
+        // The eviction is not local, so that the segment index drops the
+        // header.
+        assertEquals(EventType.ENTRY_DELETED, events.get(1).getEventType());
+        assertEquals(header("b"), events.get(1).getSource());
+        assertFalse(events.get(1).isLocal());
+    }
+
+    /**
+     * Bodies that are evicted, replaced or removed give their native memory
+     * back at once, so that it stays within the budget under pressure.
+     */
+    @Test
+    void testNativeMemoryFollowsBudget() {
+        final int size = encodedSize(body(1d));
+        final long maxBytes = 4L * size;
+        final long baseline = directMemoryUsed();
+        OffHeapSegmentCache cache = new OffHeapSegmentCache(maxBytes);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(cache.put(header("m" + i), body(i)));
+            assertTrue(cache.getUsedBytes() <= maxBytes);
+            assertTrue(
+                directMemoryUsed() - baseline <= maxBytes,
+                "native memory above budget after " + i + " puts");
+        }
+        assertEquals(4, cache.getSegmentHeaders().size());
+        assertEquals(999d, cache.get(header("m999")).getValueMap()
+            .get(CellKey.Generator.newCellKey(new int[] {0})));
+
+        // Replacing a body frees the old one.
+        assertTrue(cache.put(header("m999"), body(-1d)));
+        assertTrue(directMemoryUsed() - baseline <= maxBytes);
+
+        assertTrue(cache.remove(header("m999")));
+        assertEquals(3L * size, cache.getUsedBytes());
+        assertTrue(directMemoryUsed() - baseline <= 3L * size);
+
+        cache.tearDown();
+        assertEquals(0, cache.getUsedBytes());
+        assertTrue(directMemoryUsed() <= baseline);
+    }
+
+    /**
+     * Returns the native memory reserved by direct buffers and memory
+     * segments.
+     */
+    private static long directMemoryUsed() {
+        for (BufferPoolMXBean pool
+            : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+        {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        fail("no direct buffer pool");
+        return -1;
+    }
+
+    @Test
+    void testRejectsBodyLargerThanBudget() {
+        OffHeapSegmentCache cache =
+            new OffHeapSegmentCache(encodedSize(body(1d)) - 1);
+        assertFalse(cache.put(header("Unit Sales"), body(1d)));
+        assertTrue(cache.getSegmentHeaders().isEmpty());
+        assertEquals(0, cache.getUsedBytes());
+    }
+}
@@ -53,6 +53,7 @@ import org.eclipse.daanse.olap.rolap.dbmapper.model.record.builder.SqlSelectQuer
 import org.eclipse.daanse.olap.rolap.dbmapper.provider.modifier.record.RDbMappingSchemaModifier;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.opencube.junit5.ContextSource;
 import org.opencube.junit5.context.TestConfig;
@@ -179,6 +180,34 @@ class SqlQueryTest  extends BatchTestCase {
             queryUnixString("expr", "alias", false, true, false, true));
     }
 
+    @Test
+    void testPartitionRowLimit() {
+        JdbcDialectImpl dialect = spy(new JdbcDialectImplForTest());
+        when(dialect.supportsWindowFunctions()).thenReturn(true);
+        SqlQuery query = new SqlQuery(dialect, false);
+        query.addSelect("region", null);
+        query.addSelect("product", null);
+        final String alias = query.addSelect("sum(sales)", null);
+        query.addFromQuery("select * from sales", "s", true);
+        query.addGroupBy("region");
+        query.addGroupBy("product");
+        // Ignored; the result is ordered by partition and rank.
+        query.addOrderBy("product", "c1", true, false, false, true);
+        query.setPartitionRowLimit(1, alias, false, false, 10);
+        assertEquals(
+            "select r.c0, r.c1, r.c2"
+            + " from (select q.*, row_number() over (partition by q.c0"
+            + " order by q.c2 DESC, CASE WHEN q.c1 IS NULL THEN 1 ELSE 0 END,"
+            + " q.c1 ASC) as rn"
+            + " from (select region as c0, product as c1, sum(sales) as c2"
+            + " from (select * from sales) as s group by region, product)"
+            + " as q) as r"
+            + " where r.rn <= 10"
+            + " order by CASE WHEN r.c0 IS NULL THEN 1 ELSE 0 END, r.c0 ASC,"
+            + " r.rn",
+            query.toString());
+    }
+
     /**
      * Builds a SqlQuery with flags set according to params.
      * Uses a Mockito spy to construct a dialect which will give the desired
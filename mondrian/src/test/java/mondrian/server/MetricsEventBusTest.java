@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.daanse.olap.api.monitor.event.CellCacheEvent;
+import org.eclipse.daanse.olap.api.monitor.event.CellCacheEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.CellCacheSegmentCreateEvent;
+import org.eclipse.daanse.olap.api.monitor.event.ConnectionEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.ConnectionStartEvent;
+import org.eclipse.daanse.olap.api.monitor.event.EventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.ExecutionEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.ExecutionStartEvent;
+import org.eclipse.daanse.olap.api.monitor.event.MdxStatementEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.MdxStatementStartEvent;
+import org.eclipse.daanse.olap.api.monitor.event.ServertEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.SqlStatementEndEvent;
+import org.eclipse.daanse.olap.api.monitor.event.SqlStatementEvent;
+import org.eclipse.daanse.olap.api.monitor.event.SqlStatementEventCommon;
+import org.eclipse.daanse.olap.api.monitor.event.SqlStatementExecuteEvent;
+import org.eclipse.daanse.olap.api.monitor.event.SqlStatementStartEvent;
+import org.junit.jupiter.api.Test;
+
+import mondrian.server.monitor.ServerInfo;
+import mondrian.server.monitor.SqlStatementInfo;
+
+class MetricsEventBusTest {
+
+    private static final ConnectionEventCommon CONNECTION =
+        new ConnectionEventCommon(
+            new ServertEventCommon(new EventCommon(Instant.now()), "test"), 7);
+
+    @Test
+    void testAggregation() {
+        MetricsEventBus bus = new MetricsEventBus("test", 16);
+        MdxStatementEventCommon statement =
+            new MdxStatementEventCommon(CONNECTION, 3);
+        SqlStatementEventCommon sql = new SqlStatementEventCommon(
+            new EventCommon(Instant.now()), 3, 11, "select 1",
+            SqlStatementEvent.Purpose.CELL_SEGMENT);
+
+        bus.accept(new ConnectionStartEvent(CONNECTION));
+        bus.accept(new MdxStatementStartEvent(statement));
+        bus.accept(new SqlStatementStartEvent(sql, 5));
+        bus.accept(new SqlStatementExecuteEvent(sql, 2_000_000));
+        bus.accept(new SqlStatementEndEvent(sql, 42, false, null));
+        bus.accept(
+            new CellCacheSegmentCreateEvent(
+                new CellCacheEventCommon(
+                    new ExecutionEventCommon(statement, 1),
+                    CellCacheEvent.Source.SQL),
+                2, 10));
+        bus.close();
+
+        ServerInfo serverInfo = bus.getServerInfo();
+        assertEquals(1, serverInfo.connectionStartCount);
+        assertEquals(1, serverInfo.statementStartCount);
+        assertEquals(1, serverInfo.sqlStatementStartCount);
+        assertEquals(1, serverInfo.sqlStatementEndCount);
+        assertEquals(42, serverInfo.sqlStatementRowFetchCount);
+        assertEquals(2_000_000, serverInfo.sqlStatementExecuteNanos);
+        assertEquals(5, serverInfo.sqlStatementCellRequestCount);
+        assertEquals(1, serverInfo.segmentCreateViaSqlCount);
+        assertEquals(10, serverInfo.cellCount);
+        assertEquals(1, bus.getConnectionInfos().size());
+        assertEquals(
+            1, bus.getConnectionInfos().get(0).statementStartCount);
+        assertEquals(0, bus.getSqlStatementInfos().size());
+        assertEquals(
+            1, Arrays.stream(bus.getSqlStatementExecuteHistogram()).sum());
+        assertEquals(0, bus.getDroppedEventCount());
+    }
+
+    @Test
+    void testBoundsOpenEntries() {
+        // The end events never arrive, as if they were dropped.
+        MetricsEventBus bus =
+            new MetricsEventBus("test", 64, Duration.ofHours(1), 4);
+        for (int i = 1; i <= 10; i++) {
+            ConnectionEventCommon connection = new ConnectionEventCommon(
+                new ServertEventCommon(new EventCommon(Instant.now()), "test"),
+                i);
+            MdxStatementEventCommon statement =
+                new MdxStatementEventCommon(connection, i);
+            bus.accept(new ConnectionStartEvent(connection));
+            bus.accept(
+                new ExecutionStartEvent(
+                    new ExecutionEventCommon(statement, i), "select"));
+            bus.accept(
+                new SqlStatementStartEvent(
+                    new SqlStatementEventCommon(
+                        new EventCommon(Instant.now()), i, i, "select " + i,
+                        SqlStatementEvent.Purpose.CELL_SEGMENT),
+                    1));
+        }
+        bus.close();
+
+        // Each map is cut down to 3 entries when it exceeds 4, so 6 of the
+        // 10 entries of each kind are forgotten, the oldest first.
+        assertEquals(4, bus.getConnectionInfos().size());
+        assertEquals(4, bus.getSqlStatementInfos().size());
+        assertTrue(
+            bus.getSqlStatementInfos().stream()
+                .mapToLong(SqlStatementInfo::getSqlStatementId)
+                .allMatch(id -> id > 6));
+        assertEquals(18, bus.getExpiredEntryCount());
+        assertEquals(0, bus.getDroppedEventCount());
+    }
+
+    @Test
+    void testExpiresOpenEntries() throws InterruptedException {
+        MetricsEventBus bus =
+            new MetricsEventBus("test", 16, Duration.ofMillis(20), 100);
+        try {
+            bus.accept(new ConnectionStartEvent(CONNECTION));
+            bus.accept(
+                new SqlStatementStartEvent(
+                    new SqlStatementEventCommon(
+                        new EventCommon(Instant.now()), 3, 11, "select 1",
+                        SqlStatementEvent.Purpose.CELL_SEGMENT),
+                    1));
+            await(() -> bus.getSqlStatementStartCount() == 1, 10);
+
+            // No more events arrive; the aggregator wakes up by itself to
+            // forget the entries.
+            await(() -> bus.getConnectionInfos().isEmpty()
+                && bus.getSqlStatementInfos().isEmpty(), 10);
+            assertEquals(2, bus.getExpiredEntryCount());
+        } finally {
+            bus.close();
+        }
+    }
+
+    @Test
+    void testAggregatesAfterIdle() throws InterruptedException {
+        MetricsEventBus bus = new MetricsEventBus("test", 16);
+        try {
+            // Let the aggregator park on the empty buffer. It would sleep
+            // for 10 seconds if the event did not wake it up.
+            Thread.sleep(50);
+            bus.accept(new ConnectionStartEvent(CONNECTION));
+            await(() -> bus.getConnectionStartCount() == 1, 2);
+            assertEquals(1, bus.getConnectionInfos().size());
+        } finally {
+            bus.close();
+        }
+    }
+
+    private static void await(BooleanSupplier condition, int seconds)
+        throws InterruptedException
+    {
+        final long deadline =
+            System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, "timed out");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -23,9 +23,11 @@ import static org.opencube.junit5.TestUtil.withSchema;
 import java.sql.SQLException;
 import java.util.Arrays;
 
+import org.eclipse.daanse.olap.api.CacheControl;
 import org.eclipse.daanse.olap.api.Connection;
 import org.eclipse.daanse.olap.api.Context;
 import org.eclipse.daanse.olap.api.Statement;
+import org.eclipse.daanse.olap.api.element.Cube;
 import org.eclipse.daanse.olap.api.result.AllocationPolicy;
 import org.eclipse.daanse.olap.api.result.Cell;
 import org.eclipse.daanse.olap.api.result.CellSet;
@@ -509,6 +511,148 @@ class ScenarioTest {
             TestUtil.toString(cellSet2));
     }
 
+    /**
+     * Tests several writebacks to the same cell, with the "equal allocation"
+     * and the "equal increment" allocation policy. The writeback cells are
+     * found through the writeback index, in the order they were written.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testAllocationThroughWritebackIndex(Context context) throws SQLException {
+        withSchema(context,  SchemaModifiers.ScenarioTestModifier1::new);
+        final Connection connection = context.getConnection();
+        final Scenario scenario = connection.createScenario();
+        connection.setScenario(scenario);
+        final String scenarioUniqueName = "[Scenario].[" + scenario.getId() + "]";
+        final Statement pstmt = connection.createStatement();
+
+        final CellSet cellSet =
+            pstmt.executeQuery(drinkByGenderQuery(scenarioUniqueName));
+        cellSet.getCell(Arrays.asList(0, 0))
+            .setValue(scenario, 10, AllocationPolicy.EQUAL_ALLOCATION);
+        final CellSet cellSet2 =
+            pstmt.executeQuery(drinkByGenderQuery(scenarioUniqueName));
+        assertEqualsVerbose(
+            drinkByGenderResult(scenarioUniqueName)
+            + "Row #0: 10\n"
+            + "Row #0: 5\n"
+            + "Row #0: 5\n"
+            + "Row #1: 2\n"
+            + "Row #1: \n"
+            + "Row #1: 2\n",
+            TestUtil.toString(cellSet2));
+
+        // The current value of the cell is 10, so the increment is 6, which
+        // is shared equally by the two atomic cells below.
+        cellSet2.getCell(Arrays.asList(0, 0))
+            .setValue(scenario, 16, AllocationPolicy.EQUAL_INCREMENT);
+        final CellSet cellSet3 =
+            pstmt.executeQuery(drinkByGenderQuery(scenarioUniqueName));
+        assertEqualsVerbose(
+            drinkByGenderResult(scenarioUniqueName)
+            + "Row #0: 16\n"
+            + "Row #0: 8\n"
+            + "Row #0: 8\n"
+            + "Row #1: 2\n"
+            + "Row #1: \n"
+            + "Row #1: 2\n",
+            TestUtil.toString(cellSet3));
+
+        // Writing a cell below the writeback cells changes the cells above.
+        cellSet3.getCell(Arrays.asList(2, 0))
+            .setValue(scenario, 9, AllocationPolicy.EQUAL_ALLOCATION);
+        assertEqualsVerbose(
+            drinkByGenderResult(scenarioUniqueName)
+            + "Row #0: 17\n"
+            + "Row #0: 8\n"
+            + "Row #0: 9\n"
+            + "Row #1: 2\n"
+            + "Row #1: \n"
+            + "Row #1: 2\n",
+            TestUtil.toString(
+                pstmt.executeQuery(drinkByGenderQuery(scenarioUniqueName))));
+    }
+
+    /**
+     * Tests that writeback still allocates correctly after the cache has been
+     * flushed, when the atomic cell counts remembered by the scenario must be
+     * computed again.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
+    void testWritebackAfterCacheFlush(Context context) throws SQLException {
+        withSchema(context,  SchemaModifiers.ScenarioTestModifier1::new);
+        final Connection connection = context.getConnection();
+        final Scenario scenario = connection.createScenario();
+        connection.setScenario(scenario);
+        final String scenarioUniqueName = "[Scenario].[" + scenario.getId() + "]";
+        final Statement pstmt = connection.createStatement();
+
+        final CellSet cellSet =
+            pstmt.executeQuery(drinkByGenderQuery(scenarioUniqueName));
+        cellSet.getCell(Arrays.asList(0, 0))
+            .setValue(scenario, 10, AllocationPolicy.EQUAL_ALLOCATION);
+        final String expected =
+            drinkByGenderResult(scenarioUniqueName)
+            + "Row #0: 10\n"
+            + "Row #0: 5\n"
+            + "Row #0: 5\n"
+            + "Row #1: 2\n"
+            + "Row #1: \n"
+            + "Row #1: 2\n";
+        assertEqualsVerbose(
+            expected,
+            TestUtil.toString(
+                pstmt.executeQuery(drinkByGenderQuery(scenarioUniqueName))));
+
+        // Flush the cells of the cube, then read the allocated cells again.
+        final CacheControl cacheControl = connection.getCacheControl(null);
+        final Cube salesCube =
+            connection.getSchema().lookupCube("Sales", true);
+        cacheControl.flush(cacheControl.createMeasuresRegion(salesCube));
+        final CellSet cellSet2 =
+            pstmt.executeQuery(drinkByGenderQuery(scenarioUniqueName));
+        assertEqualsVerbose(expected, TestUtil.toString(cellSet2));
+
+        // Write back after the flush.
+        cellSet2.getCell(Arrays.asList(0, 0))
+            .setValue(scenario, 20, AllocationPolicy.EQUAL_ALLOCATION);
+        cacheControl.flush(cacheControl.createMeasuresRegion(salesCube));
+        assertEqualsVerbose(
+            drinkByGenderResult(scenarioUniqueName)
+            + "Row #0: 20\n"
+            + "Row #0: 10\n"
+            + "Row #0: 10\n"
+            + "Row #1: 2\n"
+            + "Row #1: \n"
+            + "Row #1: 2\n",
+            TestUtil.toString(
+                pstmt.executeQuery(drinkByGenderQuery(scenarioUniqueName))));
+    }
+
+    private static String drinkByGenderQuery(String scenarioUniqueName) {
+        return "select [Gender].Members ON COLUMNS,\n"
+            + "{[Product].[Drink].[Alcoholic Beverages],\n"
+            + " [Product].[Drink].[Beverages]} ON ROWS\n"
+            + "from [Sales]\n"
+            + "where ([Customers].[All Customers].[USA].[CA].[San Francisco],\n"
+            + " [Time].[1997], " + scenarioUniqueName + ")";
+    }
+
+    private static String drinkByGenderResult(String scenarioUniqueName) {
+        return "Axis #0:\n"
+            + "{[Customers].[USA].[CA].[San Francisco], [Time].[1997], "
+            + scenarioUniqueName
+            + "}\n"
+            + "Axis #1:\n"
+            + "{[Gender].[All Gender]}\n"
+            + "{[Gender].[F]}\n"
+            + "{[Gender].[M]}\n"
+            + "Axis #2:\n"
+            + "{[Product].[Drink].[Alcoholic Beverages]}\n"
+            + "{[Product].[Drink].[Beverages]}\n";
+    }
+
     @ParameterizedTest
     @ContextSource(propertyUpdater = AppandFoodMartCatalog.class, dataloader = FastFoodmardDataLoader.class)
     void testScenarioPropertyBug1496(Context context) {
@@ -3954,7 +3954,7 @@ class SchemaTest {
         withSchema(context, TestInvalidAggregatorModifier::new);
         assertQueryThrows(context,
             "select from [Sales]",
-            "Unknown aggregator 'invalidAggregator'; valid aggregators are: 'sum', 'count', 'min', 'max', 'avg', 'distinct-count'");
+            "Unknown aggregator 'invalidAggregator'; valid aggregators are: 'sum', 'count', 'min', 'max', 'avg', 'distinct-count', 'approx-distinct-count'");
     }
 
     /**
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link HyperLogLog}.
+ */
+class HyperLogLogTest {
+
+    @Test
+    void testSmallCountsAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertEquals(0, sketch.estimate());
+        for (int i = 0; i < 100; i++) {
+            sketch.add(i);
+            // Duplicates do not count.
+            sketch.add(Integer.toString(i));
+            sketch.add((double) i);
+        }
+        sketch.add(null);
+        assertEquals(100, sketch.estimate(), 3);
+    }
+
+    @Test
+    void testErrorBound() {
+        final double error =
+            HyperLogLog.relativeStandardError(HyperLogLog.DEFAULT_PRECISION);
+        for (int n : new int[] {1_000, 10_000, 200_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < n; i++) {
+                sketch.add("customer" + i);
+            }
+            // Four standard errors; fails far less than once in 10,000 runs.
+            assertEquals(n, sketch.estimate(), 4 * error * n);
+        }
+    }
+
+    @Test
+    void testMerge() {
+        // Two months with overlapping customers.
+        HyperLogLog january = new HyperLogLog();
+        HyperLogLog february = new HyperLogLog();
+        HyperLogLog year = new HyperLogLog();
+        for (int i = 0; i < 30_000; i++) {
+            january.add(i);
+            year.add(i);
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            february.add(i);
+            year.add(i);
+        }
+        HyperLogLog merged = january.copy().merge(february);
+        // The merge is the sketch of the union, and leaves its input alone.
+        assertEquals(year, merged);
+        assertEquals(year.estimate(), merged.estimate());
+        assertEquals(30_000, january.estimate(), 30_000 * 0.07);
+        assertEquals(50_000, merged.estimate(), 50_000 * 0.07);
+
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> january.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void testParse() {
+        HyperLogLog sparse = new HyperLogLog(10);
+        sparse.add("a");
+        sparse.add("b");
+        HyperLogLog dense = new HyperLogLog(10);
+        for (int i = 0; i < 5_000; i++) {
+            dense.add(i);
+        }
+        for (HyperLogLog sketch : new HyperLogLog[] {sparse, dense}) {
+            HyperLogLog parsed = HyperLogLog.parse(sketch.toString());
+            assertEquals(sketch, parsed);
+            assertEquals(sketch.estimate(), parsed.estimate());
+            assertEquals(10, parsed.getPrecision());
+        }
+        assertNull(HyperLogLog.parse("Bellingham"));
+        assertNull(HyperLogLog.parse("HLL1:10:AAAA"));
+        assertNull(HyperLogLog.parse(null));
+    }
+
+    @Test
+    void testNumberValue() {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add("x");
+        sketch.add("y");
+        assertEquals(2, sketch.intValue());
+        assertEquals(2d, sketch.doubleValue());
+        assertTrue(sketch instanceof Number);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+* Copyright (c) 2024 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.olap.calc.base.nested;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.eclipse.daanse.olap.api.Evaluator;
+import org.eclipse.daanse.olap.calc.api.Calc;
+import org.eclipse.daanse.olap.calc.api.DoubleCalc;
+import org.eclipse.daanse.olap.calc.base.constant.ConstantDoubleCalc;
+import org.junit.jupiter.api.Test;
+
+import mondrian.olap.fun.FunUtil;
+import mondrian.olap.type.NumericType;
+
+class AbstractProfilingNestedDoubleCalcTest {
+
+	private static DoubleCalc plus(DoubleCalc calc0, DoubleCalc calc1) {
+		return new AbstractProfilingNestedDoubleCalc<DoubleCalc>(NumericType.INSTANCE,
+				new DoubleCalc[] { calc0, calc1 }) {
+			@Override
+			public double evaluateDouble(Evaluator evaluator) {
+				final double v0 = calc0.evaluateDouble(evaluator);
+				final double v1 = calc1.evaluateDouble(evaluator);
+				if (DoubleCalc.isNull(v0) || DoubleCalc.isNull(v1)) {
+					return NULL_VALUE;
+				}
+				return v0 + v1;
+			}
+		};
+	}
+
+	@Test
+	void testEvaluateBoxesEvaluateDouble() {
+		DoubleCalc calc = plus(new ConstantDoubleCalc(NumericType.INSTANCE, 1.5),
+				new ConstantDoubleCalc(NumericType.INSTANCE, 2.0));
+		assertThat(calc.evaluateDouble(null)).isEqualTo(3.5);
+		assertThat(calc.evaluate(null)).isEqualTo(3.5);
+	}
+
+	@Test
+	void testNullIsBoxedToDoubleNull() {
+		DoubleCalc calc = plus(new ConstantDoubleCalc(NumericType.INSTANCE, FunUtil.DOUBLE_NULL),
+				new ConstantDoubleCalc(NumericType.INSTANCE, 2.0));
+		assertThat(DoubleCalc.isNull(calc.evaluateDouble(null))).isTrue();
+		assertThat(calc.evaluate(null)).isSameAs(FunUtil.DOUBLE_NULL);
+	}
+
+	@Test
+	void testValueEqualToDoubleNullIsNotNull() {
+		// a measure may have the value of DOUBLE_NULL without being null
+		final double value = FunUtil.DOUBLE_NULL.doubleValue();
+		DoubleCalc calc = plus(new ConstantDoubleCalc(NumericType.INSTANCE, value),
+				new ConstantDoubleCalc(NumericType.INSTANCE, 0.0));
+		assertThat(DoubleCalc.isNull(calc.evaluateDouble(null))).isFalse();
+		assertThat(calc.evaluate(null)).isNotSameAs(FunUtil.DOUBLE_NULL).isEqualTo(value);
+	}
+
+	@Test
+	void testEvaluateDoubleUnboxesEvaluate() {
+		DoubleCalc calc = new AbstractProfilingNestedDoubleCalc<Calc<?>>(NumericType.INSTANCE, new Calc[0]) {
+			@Override
+			public Double evaluate(Evaluator evaluator) {
+				return null;
+			}
+
+			@Override
+			public double evaluateDouble(Evaluator evaluator) {
+				return DoubleCalc.unbox(evaluate(evaluator));
+			}
+		};
+		assertThat(DoubleCalc.isNull(calc.evaluateDouble(null))).isTrue();
+		assertThat(DoubleCalc.isNull(DoubleCalc.unbox(FunUtil.DOUBLE_NULL))).isTrue();
+		assertThat(DoubleCalc.unbox(2.5)).isEqualTo(2.5);
+	}
+
+}
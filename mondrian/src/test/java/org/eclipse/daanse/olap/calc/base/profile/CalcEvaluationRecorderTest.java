@@ -0,0 +1,53 @@
+/*
+* Copyright (c) 2024 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.olap.calc.base.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.eclipse.daanse.olap.calc.api.profile.CalcEvaluationStatistics;
+import org.junit.jupiter.api.Test;
+
+class CalcEvaluationRecorderTest {
+
+	@Test
+	void testEmpty() {
+		CalcEvaluationRecorder recorder = new CalcEvaluationRecorder(2);
+		CalcEvaluationStatistics statistics = recorder.statistics();
+		assertThat(statistics.count()).isZero();
+		assertThat(statistics.minNanos()).isZero();
+		assertThat(recorder.start()).isEmpty();
+		assertThat(recorder.end()).isEmpty();
+		assertThat(recorder.trace()).isEmpty();
+	}
+
+	@Test
+	void testStatisticsAndTrace() {
+		CalcEvaluationRecorder recorder = new CalcEvaluationRecorder(2);
+		long t = System.nanoTime();
+		recorder.record(t, t + 500, "a");
+		recorder.record(t + 1_000, t + 21_000, "b");
+		recorder.record(t + 30_000, t + 2_030_000, "c");
+
+		CalcEvaluationStatistics statistics = recorder.statistics();
+		assertThat(statistics.count()).isEqualTo(3);
+		assertThat(statistics.totalNanos()).isEqualTo(2_020_500);
+		assertThat(statistics.minNanos()).isEqualTo(500);
+		assertThat(statistics.maxNanos()).isEqualTo(2_000_000);
+		assertThat(statistics.histogram()).containsExactly(1, 0, 1, 0, 1, 0, 0, 0);
+
+		assertThat(recorder.trace()).hasSize(2);
+		assertThat(recorder.trace().get(1).evaluationResult()).isEqualTo("b");
+		assertThat(recorder.end().get()).isEqualTo(recorder.start().get().plusNanos(2_030_000));
+	}
+
+}
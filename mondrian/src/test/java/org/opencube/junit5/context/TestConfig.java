@@ -53,6 +53,11 @@ public class TestConfig implements BasicContextConfig {
 	private double sparseSegmentDensityThreshold = SPARSE_SEGMENT_DENSITY_THRESHOLD;
 	private int memoryMonitorThreshold = MEMORY_MONITOR_THRESHOLD;
 	private boolean generateFormattedSql = GENERATE_FORMATTED_SQL;
+	private int parallelCellEvaluationTasks = PARALLEL_CELL_EVALUATION_TASKS;
+	private long queryResultCacheMaxCells = QUERY_RESULT_CACHE_MAX_CELLS;
+	private boolean chooseAggregateByCost = CHOOSE_AGGREGATE_BY_COST;
+	private int sqlFetchSize = SQL_FETCH_SIZE;
+	private boolean sqlStreamingResultSets = SQL_STREAMING_RESULT_SETS;
 
 	@Override
 	public Integer cellBatchSize() {
@@ -485,5 +490,48 @@ public class TestConfig implements BasicContextConfig {
 		return generateFormattedSql;
 	}
 
+	@Override
+	public Integer parallelCellEvaluationTasks() {
+		return parallelCellEvaluationTasks;
+	}
+
+	public void setParallelCellEvaluationTasks(int parallelCellEvaluationTasks) {
+		this.parallelCellEvaluationTasks = parallelCellEvaluationTasks;
+	}
+
+	@Override
+	public Long queryResultCacheMaxCells() {
+		return queryResultCacheMaxCells;
+	}
+
+	public void setQueryResultCacheMaxCells(long queryResultCacheMaxCells) {
+		this.queryResultCacheMaxCells = queryResultCacheMaxCells;
+	}
+
+	@Override
+	public Boolean chooseAggregateByCost() {
+		return chooseAggregateByCost;
+	}
 
+	public void setChooseAggregateByCost(boolean chooseAggregateByCost) {
+		this.chooseAggregateByCost = chooseAggregateByCost;
+	}
+
+	@Override
+	public Integer sqlFetchSize() {
+		return sqlFetchSize;
+	}
+
+	public void setSqlFetchSize(int sqlFetchSize) {
+		this.sqlFetchSize = sqlFetchSize;
+	}
+
+	@Override
+	public Boolean sqlStreamingResultSets() {
+		return sqlStreamingResultSets;
+	}
+
+	public void setSqlStreamingResultSets(boolean sqlStreamingResultSets) {
+		this.sqlStreamingResultSets = sqlStreamingResultSets;
+	}
 }
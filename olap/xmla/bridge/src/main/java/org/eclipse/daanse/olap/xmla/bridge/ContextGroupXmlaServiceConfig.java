@@ -133,4 +133,14 @@ public interface ContextGroupXmlaServiceConfig {
         return null;
     }
 
+    @AttributeDefinition(name = "Session idle timeout", description = "Seconds after which an XMLA session that has not been used is closed. 0 keeps sessions open.", required = false)
+    default long sessionIdleTimeout() {
+        return 3600;
+    }
+
+    @AttributeDefinition(name = "Session max bytes", description = "Maximum estimated number of bytes of writeback values held by an XMLA session. Updates to a session above the limit are rejected. 0 for no limit.", required = false)
+    default long sessionMaxBytes() {
+        return 0;
+    }
+
 }
@@ -26,6 +26,8 @@ import java.util.stream.Collectors;
 import org.eclipse.daanse.olap.api.Context;
 import org.eclipse.daanse.olap.api.DataType;
 import org.eclipse.daanse.olap.api.DrillThroughAction;
+import org.eclipse.daanse.olap.api.SchemaReader;
+import org.eclipse.daanse.olap.api.Segment;
 import org.eclipse.daanse.olap.api.element.Cube;
 import org.eclipse.daanse.olap.api.element.Dimension;
 import org.eclipse.daanse.olap.api.element.Hierarchy;
@@ -1086,96 +1088,97 @@ public class Utils {
             //TODO
             return List.of();
         } else {
-            if (oLevelUniqueName.isPresent()) {
-                Optional<Level> l = lookupLevel(cube, oLevelUniqueName.get());
-                if (l.isPresent()) {
-                    List<Member> members = cube.getLevelMembers(l.get(), true);
-                    return getMdSchemaMembersResponseRow(catalogName, schemaName, cube, members,
-                        oMemberUniqueName, oMemberType, emitInvisibleMembers);
-                }
+            // Resolve the one member by its unique name, instead of loading
+            // whole levels and filtering them.
+            List<Segment> memberName;
+            try {
+                memberName = Util.parseIdentifier(oMemberUniqueName.get());
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("Invalid MEMBER_UNIQUE_NAME restriction " + oMemberUniqueName.get(), e);
+                return List.of();
             }
-            List<Dimension> dimensions = cube.getDimensions() == null ? List.of() : Arrays.asList(cube.getDimensions());
-            return getDimensionsWithFilterByUniqueName(dimensions, oDimensionUniqueName)
-                .stream()
-                .map(d -> getMdSchemaMembersResponseRow(catalogName, schemaName, cube, d,
-                    oHierarchyUniqueName, oLevelNumber,
-                    oMemberUniqueName,
-                    oMemberType,
-                    emitInvisibleMembers))
+            SchemaReader schemaReader = cube.getSchemaReader(null).withLocus();
+            Member member = schemaReader.getMemberByUniqueName(memberName, false);
+            if (member == null
+                || !matches(member, oDimensionUniqueName, oHierarchyUniqueName, oLevelUniqueName, oLevelNumber)) {
+                return List.of();
+            }
+            List<Member> members = getMembersWithTreeOp(schemaReader, member, oTreeOp);
+            return getMembersWithFilterByType(members, oMemberType).stream()
+                .map(m -> getMdSchemaMembersResponseRow(catalogName, schemaName, cube, m, emitInvisibleMembers))
                 .flatMap(Collection::stream).toList();
         }
     }
 
-    private static List<MdSchemaMembersResponseRow> getMdSchemaMembersResponseRow(
-        String catalogName, String schemaName, Cube cube, Dimension dimension,
-        Optional<String> oHierarchyUniqueName, Optional<Integer> oLevelNumber,
-        Optional<String> oMemberUniqueName,
-        Optional<MemberTypeEnum> oMemberType,
-        Optional<Boolean> emitInvisibleMembers
+    private static boolean matches(
+        Member member,
+        Optional<String> oDimensionUniqueName,
+        Optional<String> oHierarchyUniqueName,
+        Optional<String> oLevelUniqueName,
+        Optional<Integer> oLevelNumber
     ) {
-        List<Hierarchy> hierarchies = dimension.getHierarchies() == null ? List.of() :
-            Arrays.asList(dimension.getHierarchies());
-        return getHierarchiesWithFilterByUniqueName(hierarchies, oHierarchyUniqueName)
-            .stream()
-            .map(h -> getMdSchemaMembersResponseRow(catalogName, schemaName, cube, h,
-                oLevelNumber, oMemberUniqueName, oMemberType, emitInvisibleMembers))
-            .flatMap(Collection::stream).toList();
-    }
-
-    private static List<MdSchemaMembersResponseRow> getMdSchemaMembersResponseRow(
-        String catalogName, String schemaName,
-        Cube cube, Hierarchy hierarchy,
-        Optional<Integer> oLevelNumber,
-        Optional<String> oMemberUniqueName,
-        Optional<MemberTypeEnum> oMemberType,
-        Optional<Boolean> emitInvisibleMembers
+        Level level = member.getLevel();
+        Hierarchy hierarchy = level.getHierarchy();
+        return (oDimensionUniqueName.isEmpty()
+                || oDimensionUniqueName.get().equals(hierarchy.getDimension().getUniqueName()))
+            && (oHierarchyUniqueName.isEmpty()
+                || oHierarchyUniqueName.get().equals(hierarchy.getUniqueName()))
+            && (oLevelUniqueName.isEmpty()
+                || oLevelUniqueName.get().equals(level.getUniqueName()))
+            && (oLevelNumber.isEmpty()
+                || oLevelNumber.get() == level.getDepth());
+    }
+
+    /**
+     * Returns the members related to a member by a tree operation. Children
+     * and siblings are read by constrained member queries; whole levels are
+     * only read for the siblings of a root member.
+     */
+    private static List<Member> getMembersWithTreeOp(
+        SchemaReader schemaReader,
+        Member member,
+        Optional<TreeOpEnum> oTreeOp
     ) {
-        if (oLevelNumber.isPresent()) {
-            int levelNumber = oLevelNumber.get();
-            if (levelNumber == -1) {
-                LOGGER.warn(
-                    "LevelNumber invalid");
-                return List.of();
+        if (oTreeOp.isEmpty()) {
+            return List.of(member);
+        }
+        switch (oTreeOp.get()) {
+            case CHILDREN:
+                return schemaReader.getMemberChildren(member);
+            case PARENT: {
+                Member parent = schemaReader.getMemberParent(member);
+                return parent == null ? List.of() : List.of(parent);
             }
-            Level[] levels = hierarchy.getLevels();
-            if (levelNumber >= levels.length) {
-                LOGGER.warn(
-                    "LevelNumber ("
-                        + levelNumber
-                        + ") is greater than number of levels ("
-                        + levels.length
-                        + ") for hierarchy \""
-                        + hierarchy.getUniqueName()
-                        + "\"");
-                return List.of();
+            case LEVEL: {
+                // The siblings do not include the member itself; that is
+                // the separate ITSELF operation.
+                Member parent = schemaReader.getMemberParent(member);
+                List<Member> siblings = parent == null
+                    ? schemaReader.getLevelMembers(member.getLevel(), true)
+                    : schemaReader.getMemberChildren(parent);
+                return siblings.stream().filter(m -> !m.equals(member)).toList();
             }
-
-            Level level = levels[levelNumber];
-            List<Member> members = cube.getLevelMembers(level, true);
-            return getMdSchemaMembersResponseRow(catalogName, schemaName, cube, members,
-                oMemberUniqueName, oMemberType, emitInvisibleMembers);
-        } else {
-            // At this point we get ALL of the members associated with
-            // the Hierarchy (rather than getting them one at a time).
-            // The value returned is not used at this point but they are
-            // now cached in the SchemaReader.
-            List<Level> levels = hierarchy.getLevels() == null ? List.of() : Arrays.asList(hierarchy.getLevels());
-            return levels.stream().map(l -> getMdSchemaMembersResponseRow(catalogName, schemaName, cube,
-                cube.getLevelMembers(l, true), oMemberUniqueName, oMemberType, emitInvisibleMembers)).
-                flatMap(Collection::stream).toList();
+            case ALL: {
+                List<Member> ancestors = new ArrayList<>();
+                for (Member m = schemaReader.getMemberParent(member); m != null;
+                     m = schemaReader.getMemberParent(m)) {
+                    ancestors.add(m);
+                }
+                return ancestors;
+            }
+            case ALL_DESCENDANTS: {
+                List<Member> descendants = new ArrayList<>();
+                List<Member> children = schemaReader.getMemberChildren(member);
+                while (!children.isEmpty()) {
+                    descendants.addAll(children);
+                    children = schemaReader.getMemberChildren(children);
+                }
+                return descendants;
+            }
+            case ITSELF:
+            default:
+                return List.of(member);
         }
-
-    }
-
-    private static List<MdSchemaMembersResponseRow> getMdSchemaMembersResponseRow(
-        String catalogName, String schemaName,
-        Cube cube, List<Member> members,
-        Optional<String> oMemberUniqueName,
-        Optional<MemberTypeEnum> oMemberType, Optional<Boolean> emitInvisibleMembers
-    ) {
-        return getMembersWithFilterByType(getMembersWithFilterByUniqueName(members, oMemberUniqueName), oMemberType).stream().map(m -> getMdSchemaMembersResponseRow(
-            catalogName, schemaName, cube, m, emitInvisibleMembers))
-            .flatMap(Collection::stream).toList();
     }
 
     private static List<Member> getMembersWithFilterByType(List<Member> members, Optional<MemberTypeEnum> oMemberType) {
@@ -1205,16 +1208,6 @@ public class Utils {
         return MemberTypeEnum.REGULAR_MEMBER;
     }
 
-    private static List<Member> getMembersWithFilterByUniqueName(
-        List<Member> members,
-        Optional<String> oMemberUniqueName
-    ) {
-        if (oMemberUniqueName.isPresent()) {
-            return members.stream().filter(m -> oMemberUniqueName.get().equals(m.getUniqueName())).toList();
-        }
-        return members;
-    }
-
     private static List<MdSchemaMembersResponseRow> getMdSchemaMembersResponseRow(
         String catalogName,
         String schemaName,
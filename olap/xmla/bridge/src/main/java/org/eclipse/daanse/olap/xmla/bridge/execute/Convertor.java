@@ -30,10 +30,12 @@ import java.time.Instant;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -474,50 +476,115 @@ public class Convertor {
     }
 
     private static CellDataR getCellData(CellSet cellSet, List<String> queryCellPropertyNames, boolean json) {
-        List<CellType> cell = new ArrayList<>();
         CellSetTypeR cellSetType = null;
-        final int axisCount = cellSet.getAxes().size();
-        List<Integer> pos = new ArrayList<>();
-        for (int i = 0; i < axisCount; i++) {
-            pos.add(-1);
+        return new CellDataR(new CellTypeList(cellSet, queryCellPropertyNames, json), cellSetType);
+    }
+
+    /**
+     * Cells of a cell set, in cell ordinal order.
+     *
+     * <p>The cells are converted while the list is iterated, so that a writer
+     * that streams the response never holds more than one cell in memory.
+     * {@link #get} and {@link #size} convert all cells once and keep them.</p>
+     */
+    private static class CellTypeList extends AbstractList<CellType> {
+        private final CellSet cellSet;
+        private final List<String> queryCellPropertyNames;
+        private final boolean json;
+        private List<CellType> cells;
+
+        CellTypeList(CellSet cellSet, List<String> queryCellPropertyNames, boolean json) {
+            this.cellSet = cellSet;
+            this.queryCellPropertyNames = queryCellPropertyNames;
+            this.json = json;
         }
-        int[] cellOrdinal = new int[]{0};
 
-        int axisOrdinal = axisCount - 1;
-        cell.addAll(recurse(cellSet, pos, axisOrdinal, cellOrdinal, queryCellPropertyNames, json));
-        return new CellDataR(cell, cellSetType);
-    }
+        @Override
+        public Iterator<CellType> iterator() {
+            if (cells != null) {
+                return cells.iterator();
+            }
+            final List<CellSetAxis> axes = cellSet.getAxes();
+            final int[] sizes = new int[axes.size()];
+            boolean empty = false;
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = axes.get(i).getPositions().size();
+                empty |= sizes[i] == 0;
+            }
+            final boolean noCells = empty;
+            return new Iterator<>() {
+                // Axis 0 varies fastest, as in the cell ordinal.
+                private final List<Integer> pos = new ArrayList<>(Collections.nCopies(sizes.length, 0));
+                private int ordinal = noCells ? -1 : 0;
+                private CellType next = advance();
+
+                private CellType advance() {
+                    while (ordinal >= 0) {
+                        CellType cellType = getCellType(cellSet, pos, ordinal, queryCellPropertyNames, json);
+                        ordinal = increment() ? ordinal + 1 : -1;
+                        if (cellType != null) {
+                            return cellType;
+                        }
+                    }
+                    return null;
+                }
 
-    private static List<CellType> recurse(
-        CellSet cellSet,
-        List<Integer> pos,
-        int axisOrdinal,
-        int[] cellOrdinal,
-        List<String> queryCellPropertyNames,
-        boolean json
-    ) {
-        List<CellType> cellList = new ArrayList<>();
-        if (axisOrdinal < 0) {
-            cellList.addAll(getCellTypeList(cellSet, pos, cellOrdinal[0]++, queryCellPropertyNames, json));
-        } else {
-            CellSetAxis axis = cellSet.getAxes().get(axisOrdinal);
-            List<Position> positions = axis.getPositions();
-            for (int i = 0, n = positions.size(); i < n; i++) {
-                pos.set(axisOrdinal, i);
-                cellList.addAll(recurse(cellSet, pos, axisOrdinal - 1, cellOrdinal, queryCellPropertyNames, json));
+                private boolean increment() {
+                    for (int i = 0; i < sizes.length; i++) {
+                        int p = pos.get(i) + 1;
+                        if (p < sizes[i]) {
+                            pos.set(i, p);
+                            return true;
+                        }
+                        pos.set(i, 0);
+                    }
+                    return false;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public CellType next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    CellType cellType = next;
+                    next = advance();
+                    return cellType;
+                }
+            };
+        }
+
+        @Override
+        public CellType get(int index) {
+            return materialize().get(index);
+        }
+
+        @Override
+        public int size() {
+            return materialize().size();
+        }
+
+        private List<CellType> materialize() {
+            if (cells == null) {
+                List<CellType> list = new ArrayList<>();
+                iterator().forEachRemaining(list::add);
+                cells = list;
             }
+            return cells;
         }
-        return cellList;
     }
 
-    private static List<CellType> getCellTypeList(
+    private static CellType getCellType(
         CellSet cellSet,
         List<Integer> pos,
         int ordinal,
         List<String> queryCellPropertyNames,
         boolean json
     ) {
-        List<CellType> cellList = new ArrayList<>();
         Cell cell = cellSet.getCell(pos);
 
         Boolean allPropertyIsEmpty = true;
@@ -530,7 +597,7 @@ public class Convertor {
 
         if (cell.isNull() && allPropertyIsEmpty && ordinal != 0) {
             // Ignore null cell like MS AS, except for Oth ordinal
-            return cellList;
+            return null;
         }
 
         ValueR val = null;
@@ -578,8 +645,7 @@ public class Convertor {
                     Optional.empty()));
             }
         }
-        cellList.add(new CellTypeR(val, any, ordinal));
-        return cellList;
+        return new CellTypeR(val, any, ordinal);
     }
 
     private static AxesR getAxes(
@@ -819,70 +885,32 @@ public class Convertor {
     }
 
     private static Axis getAxis(CellSet cellSet, CellSetAxis axis, List<Property> props, String name) {
-        List<Type> setType = new ArrayList<>();
-
-
-
-
-
-        HashMap<Level, ArrayList<Member>> levelMembers = new HashMap<>();
-
-        for (Position p : axis.getPositions()) {
-            for (Member member : p.getMembers()) {
-                Level level = member.getLevel();
-                levelMembers.computeIfAbsent(level, k -> new ArrayList<Member>());
-                levelMembers.get(level)
-                    .add(member);
-            }
-        }
-        /*
-        mondrian.rolap.RolapConnection rolapConnection =
-            ((mondrian.olap4j.MondrianOlap4jConnection)this.connection).getMondrianConnection();
-        final Statement statement =
-            cellSet.getStatement();
-
-        for(Map.Entry<Level, ArrayList<Member>> entry : levelMembers.entrySet()) {
-            Level level = entry.getKey();
-            ArrayList<Member> members = entry.getValue();
-
-            if (!members.isEmpty()
-                && members.get(0).getLevel().getChildLevel() != null
-                && !members.get(0).getLevel().isAll()) {
-                Locus.execute(
-                    rolapConnection,
-                    "MondrianOlap4jMember.getChildMembers",
-                    new Locus.Action<List<org.eclipse.daanse.olap.api.element.Member>>() {
-                        @Override
-                        public List<org.eclipse.daanse.olap.api.element.Member> execute() {
-                            return
-                                statement.getQuery().getSchemaReader(true).getMemberChildren(members);
-                        }
-                    });
+        final List<Position> positions = axis.getPositions();
+        final int size = positions.size();
+        // Tuples are converted on access, so that a writer that streams the
+        // response does not hold the whole axis in memory.
+        List<Type> setType = new AbstractList<>() {
+            @Override
+            public Type get(int index) {
+                Position prevPosition = index > 0 ? positions.get(index - 1) : null;
+                Position position = positions.get(index);
+                Position nextPosition = index + 1 < size ? positions.get(index + 1) : null;
+                List<MemberType> memberList = new ArrayList<>();
+                int k = 0;
+                for (Member member : position.getMembers()) {
+                    memberList.add(getMember(
+                        member, prevPosition, nextPosition, k++, props));
+                }
+                List<TupleType> tuples = new ArrayList<>();
+                tuples.add(new TupleTypeR(memberList));
+                return new TuplesTypeR(tuples);
             }
-        }
-         */
-
-        List<Position> positions = axis.getPositions();
-        Iterator<Position> pit = positions.iterator();
-        Position prevPosition = null;
-        Position position = pit.hasNext() ? pit.next() : null;
-        Position nextPosition = pit.hasNext() ? pit.next() : null;
-        while (position != null) {
-            List<MemberType> memberList = new ArrayList<>();
-            TupleType tupleType = new TupleTypeR(memberList);
-            List<TupleType> tuples = new ArrayList<>();
-            tuples.add(tupleType);
-            TuplesType tuplesType = new TuplesTypeR(tuples);
-            setType.add(tuplesType);
-            int k = 0;
-            for (Member member : position.getMembers()) {
-                memberList.add(getMember(
-                    member, prevPosition, nextPosition, k++, props));
+
+            @Override
+            public int size() {
+                return size;
             }
-            prevPosition = position;
-            position = nextPosition;
-            nextPosition = pit.hasNext() ? pit.next() : null;
-        }
+        };
         return new AxisR(setType, name);
     }
 
@@ -15,6 +15,7 @@ package org.eclipse.daanse.olap.xmla.bridge.execute;
 
 import mondrian.olap.MondrianException;
 import mondrian.olap.UpdateImpl;
+import mondrian.olap.Util;
 import mondrian.rolap.RolapConnectionPropsR;
 import mondrian.rolap.RolapCube;
 import mondrian.xmla.XmlaException;
@@ -25,24 +26,29 @@ import org.eclipse.daanse.olap.api.CacheControl;
 import org.eclipse.daanse.olap.api.Command;
 import org.eclipse.daanse.olap.api.Connection;
 import org.eclipse.daanse.olap.api.Context;
+import org.eclipse.daanse.olap.api.DataType;
+import org.eclipse.daanse.olap.api.SchemaReader;
 import org.eclipse.daanse.olap.api.Statement;
 import org.eclipse.daanse.olap.api.element.Cube;
+import org.eclipse.daanse.olap.api.element.Dimension;
+import org.eclipse.daanse.olap.api.element.Member;
 import org.eclipse.daanse.olap.api.element.Schema;
 import org.eclipse.daanse.olap.api.query.component.CalculatedFormula;
 import org.eclipse.daanse.olap.api.query.component.DmvQuery;
 import org.eclipse.daanse.olap.api.query.component.DrillThrough;
+import org.eclipse.daanse.olap.api.query.component.Expression;
 import org.eclipse.daanse.olap.api.query.component.Formula;
+import org.eclipse.daanse.olap.api.query.component.FunctionCall;
+import org.eclipse.daanse.olap.api.query.component.Id;
 import org.eclipse.daanse.olap.api.query.component.Query;
 import org.eclipse.daanse.olap.api.query.component.QueryComponent;
 import org.eclipse.daanse.olap.api.query.component.Refresh;
 import org.eclipse.daanse.olap.api.query.component.TransactionCommand;
 import org.eclipse.daanse.olap.api.query.component.Update;
-import org.eclipse.daanse.olap.api.query.component.UpdateClause;
 import org.eclipse.daanse.olap.api.result.AllocationPolicy;
-import org.eclipse.daanse.olap.api.result.Cell;
 import org.eclipse.daanse.olap.api.result.CellSet;
-import org.eclipse.daanse.olap.api.result.CellSetAxis;
 import org.eclipse.daanse.olap.api.result.Scenario;
+import org.eclipse.daanse.olap.operation.api.ParenthesesOperationAtom;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.MappingRelationQuery;
 import org.eclipse.daanse.olap.xmla.bridge.ContextGroupXmlaServiceConfig;
 import org.eclipse.daanse.olap.xmla.bridge.ContextListSupplyer;
@@ -156,10 +162,14 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static mondrian.xmla.XmlaConstants.CLIENT_FAULT_FC;
 import static mondrian.xmla.XmlaConstants.HSB_DRILL_THROUGH_SQL_CODE;
@@ -177,6 +187,7 @@ public class OlapExecuteService implements ExecuteService {
     private final MDSchemaDiscoverService mdSchemaService;
     private final OtherDiscoverService otherDiscoverService;
     private final WriteBackService writeBackService;
+    private final SessionRegistry sessions;
 
     public OlapExecuteService(ContextListSupplyer contextsListSupplyer, ActionService actionService, ContextGroupXmlaServiceConfig config) {
         this.contextsListSupplyer = contextsListSupplyer;
@@ -185,6 +196,15 @@ public class OlapExecuteService implements ExecuteService {
         mdSchemaService = new MDSchemaDiscoverService(contextsListSupplyer, actionService);
         otherDiscoverService = new OtherDiscoverService(contextsListSupplyer, config);
         writeBackService = new WriteBackService();
+        sessions = new SessionRegistry(
+            Duration.ofSeconds(config.sessionIdleTimeout()), config.sessionMaxBytes());
+    }
+
+    /**
+     * Returns the registry of the XMLA sessions of this service.
+     */
+    public SessionRegistry getSessions() {
+        return sessions;
     }
 
     @Override
@@ -277,7 +297,7 @@ public class OlapExecuteService implements ExecuteService {
 	}
 
     private StatementResponse executeQuery(StatementRequest statementRequest, UserPrincipal userPrincipal, Query query) {
-        Session session = Session.getWithoutCheck(statementRequest.sessionId());
+        Session session = sessions.getWithoutCheck(statementRequest.sessionId());
         MappingRelationQuery fact = null;
         try {
         Scenario scenario;
@@ -290,7 +310,7 @@ public class OlapExecuteService implements ExecuteService {
                 query.getConnection().setScenario(scenario);
             }
         } else {
-        	session = Session.create(statementRequest.sessionId());
+        	session = sessions.create(statementRequest.sessionId());
         	scenario = query.getConnection().createScenario();
             query.getConnection().setScenario(scenario);
 
@@ -338,14 +358,14 @@ public class OlapExecuteService implements ExecuteService {
     ) {
         String sessionId = statementRequest.sessionId();
 		if (transactionCommand.getCommand() == Command.BEGIN) {
-            Session session = Session.create(sessionId);
+            Session session = sessions.create(sessionId);
 			Scenario scenario = context.createScenario();
             session.setScenario(scenario);
 		} else if (transactionCommand.getCommand() == Command.ROLLBACK) {
-            Session session = Session.get(sessionId);
+            Session session = sessions.get(sessionId);
             session.setScenario(null);
 		} else if (transactionCommand.getCommand() == Command.COMMIT) {
-            Session session = Session.get(sessionId);
+            Session session = sessions.get(sessionId);
             Scenario scenario = session.getScenario();
             writeBackService.commit(scenario, context.getConnection(), userPrincipal);
             scenario.getWritebackCells().clear();
@@ -355,60 +375,130 @@ public class OlapExecuteService implements ExecuteService {
     }
 
     private StatementResponse executeUpdate(Context context, StatementRequest statementRequest, Update update) {
-        Session session = Session.get(statementRequest.sessionId());
+        Session session = sessions.get(statementRequest.sessionId());
         if (session != null) {
+            sessions.checkResources(session);
             Scenario scenario = session.getScenario();
             Connection connection = context.getConnection();
             connection.setScenario(scenario);
-            for (UpdateClause updateClause : update.getUpdateClauses()) {
-                if (updateClause instanceof UpdateImpl.UpdateClauseImpl updateClauseImpl) {
-                    StringWriter sw = new StringWriter();
-                    PrintWriter pw = new mondrian.mdx.QueryPrintWriter(sw);
-                    updateClause.getTupleExp().unparse(pw);
-                    String tupleString = sw.toString();
-
-                    Statement pstmt = connection.createStatement();
-                    CellSet cellSet = pstmt.executeQuery(
-                        new StringBuilder("SELECT ")
-                            .append(tupleString)
-                            .append(" ON 0 FROM ")
-                            .append(update.getCubeName())
-                            //.append(" CELL PROPERTIES CELL_ORDINAL")
-                            .toString()
-                    );
-                    CellSetAxis axis = cellSet.getAxes().get(0);
-                    if (axis.getPositionCount() == 0) {
-                        //Empty tuple exception
-                    }
-                    if (axis.getPositionCount() == 1) {
-                        //More than one tuple exception
-                    }
-                    //Cell writeBackCell = cellSet.getCell(Arrays.asList(0));
-
-                    sw = new StringWriter();
-                    pw = new mondrian.mdx.QueryPrintWriter(sw);
-                    updateClause.getValueExp().unparse(pw);
-                    String valueString = sw.toString();
-
-                    pstmt = connection.createStatement();
-                    cellSet = pstmt.executeQuery(
-                        new StringBuilder("WITH MEMBER [Measures].[m1] AS ")
-                            .append(valueString)
-                            .append(" SELECT [Measures].[m1] ON 0 FROM ")
-                            .append(update.getCubeName())
-                            .append(" CELL PROPERTIES VALUE").toString()
-                    );
-                    Cell cell = cellSet.getCell(Arrays.asList(0));
-                    AllocationPolicy allocationPolicy = convertAllocation(updateClauseImpl.getAllocation());
-                    List<Map<String, Map.Entry<Datatype, Object>>> values = writeBackService.getAllocationValues(tupleString, cell.getValue(), allocationPolicy, update.getCubeName(), connection);
-                    scenario.getSessionValues().addAll(values);
-                    connection.getCacheControl(null).flushSchemaCache();
-                }
+            List<UpdateImpl.UpdateClauseImpl> updateClauses = update.getUpdateClauses().stream()
+                .filter(UpdateImpl.UpdateClauseImpl.class::isInstance)
+                .map(UpdateImpl.UpdateClauseImpl.class::cast)
+                .toList();
+            if (updateClauses.isEmpty()) {
+                return new StatementResponseR(null, null);
+            }
+            Cube cube = connection.getSchema().lookupCube(update.getCubeName(), true);
+            List<Object> values = evaluateUpdateValues(connection, update.getCubeName(), updateClauses);
+            CacheControl cacheControl = connection.getCacheControl(null);
+            for (int i = 0; i < updateClauses.size(); i++) {
+                UpdateImpl.UpdateClauseImpl updateClauseImpl = updateClauses.get(i);
+                String tupleString = unparse(updateClauseImpl.getTupleExp());
+                List<Member> tupleMembers = lookupTupleMembers(connection, cube, updateClauseImpl.getTupleExp());
+                AllocationPolicy allocationPolicy = convertAllocation(updateClauseImpl.getAllocation());
+                List<Map<String, Map.Entry<Datatype, Object>>> sessionValues = writeBackService.getAllocationValues(tupleString, values.get(i), allocationPolicy, update.getCubeName(), connection);
+                scenario.getSessionValues().addAll(sessionValues);
+                // Only the cells of the tuple, its ancestors and its
+                // descendants change; flush them before the next clause reads
+                // its allocation data.
+                cacheControl.flush(createUpdateRegion(cacheControl, cube, tupleMembers));
             }
         }
         return new StatementResponseR(null, null);
     }
 
+    /**
+     * Evaluates the value expressions of all update clauses with one query.
+     *
+     * @return Values, by position of the update clause
+     */
+    private static List<Object> evaluateUpdateValues(
+        Connection connection, String cubeName, List<UpdateImpl.UpdateClauseImpl> updateClauses
+    ) {
+        StringBuilder with = new StringBuilder("WITH");
+        StringBuilder select = new StringBuilder(" SELECT {");
+        for (int i = 0; i < updateClauses.size(); i++) {
+            String name = new StringBuilder("[Measures].[m").append(i + 1).append("]").toString();
+            with.append(" MEMBER ").append(name).append(" AS ")
+                .append(unparse(updateClauses.get(i).getValueExp()));
+            if (i > 0) {
+                select.append(", ");
+            }
+            select.append(name);
+        }
+        select.append("} ON 0 FROM ").append(cubeName).append(" CELL PROPERTIES VALUE");
+        Statement pstmt = connection.createStatement();
+        CellSet cellSet = pstmt.executeQuery(with.append(select).toString());
+        List<Object> values = new ArrayList<>(updateClauses.size());
+        for (int i = 0; i < updateClauses.size(); i++) {
+            values.add(cellSet.getCell(Arrays.asList(i)).getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Resolves the members of the tuple of an update clause, such as
+     * {@code ([Store].[USA].[CA], [Measures].[Unit Sales])}.
+     *
+     * @return Members, or null if the tuple is not a plain list of member
+     *     names
+     */
+    private static List<Member> lookupTupleMembers(Connection connection, Cube cube, Expression tupleExp) {
+        final Expression[] args;
+        if (tupleExp instanceof Id) {
+            args = new Expression[] {tupleExp};
+        } else if (tupleExp instanceof FunctionCall call
+            && call.getOperationAtom() instanceof ParenthesesOperationAtom) {
+            args = call.getArgs();
+        } else {
+            return null;
+        }
+        SchemaReader schemaReader = connection.getSchemaReader().withLocus();
+        List<Member> members = new ArrayList<>();
+        for (Expression arg : args) {
+            if (!(arg instanceof Id id)) {
+                return null;
+            }
+            members.add((Member) Util.lookupCompound(schemaReader, cube, id.getSegments(), true, DataType.MEMBER));
+        }
+        return members;
+    }
+
+    /**
+     * Creates the region of the cells whose values depend on a tuple: the
+     * crossjoin of the tuple's members and their descendants, for all
+     * measures of the cube. Segments which aggregate over a member are
+     * flushed as well. If the tuple could not be resolved, returns the region
+     * of the whole cube.
+     */
+    private static CacheControl.CellRegion createUpdateRegion(
+        CacheControl cacheControl, Cube cube, List<Member> tupleMembers
+    ) {
+        List<CacheControl.CellRegion> regions = new ArrayList<>();
+        regions.add(cacheControl.createMeasuresRegion(cube));
+        if (tupleMembers != null) {
+            Set<Dimension> dimensions = new HashSet<>();
+            for (Member member : tupleMembers) {
+                // A crossjoin allows one region per dimension; leaving out a
+                // second hierarchy of a dimension only widens the region.
+                if (!member.isMeasure() && !member.isAll() && dimensions.add(member.getDimension())) {
+                    regions.add(cacheControl.createMemberRegion(member, true));
+                }
+            }
+        }
+        return regions.size() == 1
+            ? regions.get(0)
+            : cacheControl.createCrossjoinRegion(regions.toArray(new CacheControl.CellRegion[0]));
+    }
+
+    private static String unparse(Expression expression) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new mondrian.mdx.QueryPrintWriter(sw);
+        expression.unparse(pw);
+        pw.flush();
+        return sw.toString();
+    }
+
     private AllocationPolicy convertAllocation(Allocation allocation) {
             switch (allocation) {
                 case NO_ALLOCATION:
@@ -740,7 +830,7 @@ public class OlapExecuteService implements ExecuteService {
         ResultSet resultSet = null;
         MappingRelationQuery fact = null;
         RolapCube cube = null;
-        Session session = Session.getWithoutCheck(statementRequest.sessionId());
+        Session session = sessions.getWithoutCheck(statementRequest.sessionId());
         try {
             connection = context.getConnection(new RolapConnectionPropsR(userPrincipal.getRole()));
             QueryComponent parseTree;
@@ -760,7 +850,7 @@ public class OlapExecuteService implements ExecuteService {
                         scenario = session.getScenario();
                         connection.setScenario(scenario);
                     } else {
-                    	session = Session.create(statementRequest.sessionId());
+                    	session = sessions.create(statementRequest.sessionId());
                     	scenario = drillThrough.getQuery().getConnection().createScenario();
                     	drillThrough.getQuery().getConnection().setScenario(scenario);
 
@@ -15,85 +15,43 @@ package org.eclipse.daanse.olap.xmla.bridge.execute;
 
 import org.eclipse.daanse.olap.api.result.Scenario;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
-
+/**
+ * XMLA session. Sessions are created, looked up and expired by a
+ * {@link SessionRegistry}.
+ */
 public class Session
 {
-    private static Map<String, Session> sessions = new HashMap<String, Session>();
-    private java.time.LocalDateTime checkInTime = null;
-    private String sessionId;
+    /** Estimated size of a scenario without writeback values. */
+    static final long SCENARIO_BYTES = 256;
 
-    static Timer timer = new Timer(true);
-    static TimerTask timerTask = new TimerTask() {
-        public void run() {
-            List<String> toRemove = new ArrayList<String>();
-            for(Map.Entry<String, Session> entry : sessions.entrySet()) {
-                Session session = entry.getValue();
-                java.time.Duration duration = java.time.Duration.between(
-                        session.checkInTime,
-                        java.time.LocalDateTime.now());
-                //TODO use configuration parameter 3600
-                if(duration.getSeconds() >
-                        3600) {
-                    toRemove.add(entry.getKey());
-                }
-            }
-            for(String sessionId : toRemove) {
-                close(sessionId);
-            }
-        }
-    };
-    static
-    {
-        timer.scheduleAtFixedRate(timerTask, 0, 60*1000);
-    }
+    /** Estimated size of a cell written by {@code UPDATE CUBE}. */
+    static final long WRITEBACK_CELL_BYTES = 128;
 
+    /** Estimated size of a row of writeback values, with its columns. */
+    static final long SESSION_VALUE_ROW_BYTES = 512;
 
-    private Session(String sessionId)
-    {
-        this.sessionId = sessionId;
-    }
+    private final String sessionId;
+    private volatile long lastAccessNanos;
+    private volatile Scenario scenario = null;
 
-    public static Session create(String sessionId)
+    Session(String sessionId)
     {
-        if(sessions.containsKey(sessionId)) {
-        	sessions.remove(sessionId);            
-        }
-
-        Session session = new Session(sessionId);
-
-        sessions.put(sessionId, session);
-        session.checkInTime = java.time.LocalDateTime.now();
-
-        return session;
+        this.sessionId = sessionId;
+        touch();
     }
 
-    public static Session getWithoutCheck(String sessionId)
-    {
-        return sessions.get(sessionId);
+    public String getId() {
+        return sessionId;
     }
 
-
-    public static Session get(String sessionId) {
-        if(!sessions.containsKey(sessionId)) {
-            throw new RuntimeException("Session with id \"" + sessionId + "\" does not exist");
-        }
-        return sessions.get(sessionId);
+    void touch() {
+        lastAccessNanos = System.nanoTime();
     }
 
-
-    public static void close(String sessionId)
-    {
-        sessions.remove(sessionId);
+    long getLastAccessNanos() {
+        return lastAccessNanos;
     }
 
-    private Scenario scenario = null;
-
     public void setScenario(Scenario scenario) {
         this.scenario = scenario;
     }
@@ -101,4 +59,23 @@ public class Session
     public Scenario getScenario() {
         return this.scenario;
     }
+
+    /**
+     * Returns an estimate of the memory held by the scenario of this
+     * session and its writeback values.
+     *
+     * <p>The estimate only reads the sizes of the lists of the scenario, so
+     * it is cheap and safe to call while the session is in use.</p>
+     *
+     * @return Estimated number of bytes
+     */
+    public long getEstimatedBytes() {
+        final Scenario s = scenario;
+        if (s == null) {
+            return 0;
+        }
+        return SCENARIO_BYTES
+            + s.getWritebackCells().size() * WRITEBACK_CELL_BYTES
+            + s.getSessionValues().size() * SESSION_VALUE_ROW_BYTES;
+    }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.xmla.bridge.execute;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the XMLA sessions of an {@link OlapExecuteService}.
+ *
+ * <p>Sessions are held in a concurrent map. A session expires when it has not
+ * been used for the idle timeout. Rather than scanning all sessions
+ * periodically, the registry keeps one entry per session in a queue ordered
+ * by deadline. Each call to the registry removes the entries whose deadline
+ * has passed; a session that was used after its entry was queued is queued
+ * again with a new deadline. Expiry therefore only costs work for sessions
+ * which are due, and needs no timer thread.</p>
+ *
+ * <p>The registry also limits the memory that the scenario of a session may
+ * hold; see {@link #checkResources(Session)}.</p>
+ */
+public class SessionRegistry {
+
+    /**
+     * Key of the session used by requests without a session id.
+     */
+    private static final String NO_SESSION_ID = "";
+
+    private final ConcurrentMap<String, Session> sessions =
+        new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+    private final long idleTimeoutNanos;
+    private final long maxSessionBytes;
+
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder closedCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates a SessionRegistry.
+     *
+     * @param idleTimeout     Time after which an unused session expires; zero
+     *                        or negative if sessions never expire
+     * @param maxSessionBytes Maximum estimated number of bytes held by the
+     *                        scenario of a session; zero or negative for no
+     *                        limit
+     */
+    public SessionRegistry(Duration idleTimeout, long maxSessionBytes) {
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxSessionBytes = maxSessionBytes;
+    }
+
+    /**
+     * Creates a session, replacing any session with the same id.
+     *
+     * @param sessionId Session id
+     * @return New session
+     */
+    public Session create(String sessionId) {
+        expire();
+        final Session session = new Session(sessionId);
+        sessions.put(key(sessionId), session);
+        createdCount.increment();
+        if (idleTimeoutNanos > 0) {
+            expiries.add(
+                new Expiry(session, session.getLastAccessNanos() + idleTimeoutNanos));
+        }
+        return session;
+    }
+
+    /**
+     * Returns a session and marks it as used.
+     *
+     * @param sessionId Session id
+     * @return Session, or null if there is no such session
+     */
+    public Session getWithoutCheck(String sessionId) {
+        expire();
+        final Session session = sessions.get(key(sessionId));
+        if (session != null) {
+            session.touch();
+        }
+        return session;
+    }
+
+    /**
+     * Returns a session and marks it as used.
+     *
+     * @param sessionId Session id
+     * @return Session
+     * @throws RuntimeException if there is no such session
+     */
+    public Session get(String sessionId) {
+        final Session session = getWithoutCheck(sessionId);
+        if (session == null) {
+            throw new RuntimeException("Session with id \"" + sessionId + "\" does not exist");
+        }
+        return session;
+    }
+
+    /**
+     * Closes a session.
+     *
+     * @param sessionId Session id
+     */
+    public void close(String sessionId) {
+        if (sessions.remove(key(sessionId)) != null) {
+            closedCount.increment();
+        }
+    }
+
+    /**
+     * Checks that the scenario of a session holds no more memory than
+     * allowed, before more writeback values are added to it.
+     *
+     * @param session Session
+     * @throws RuntimeException if the session holds more than the limit
+     */
+    public void checkResources(Session session) {
+        if (maxSessionBytes <= 0) {
+            return;
+        }
+        final long bytes = session.getEstimatedBytes();
+        if (bytes > maxSessionBytes) {
+            rejectedCount.increment();
+            throw new RuntimeException(
+                new StringBuilder("Session with id \"").append(session.getId())
+                    .append("\" holds about ").append(bytes)
+                    .append(" bytes of writeback values, more than the limit of ")
+                    .append(maxSessionBytes).append(" bytes").toString());
+        }
+    }
+
+    /**
+     * Removes the sessions that have not been used for the idle timeout.
+     */
+    public void expire() {
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            final Session session = expiry.session;
+            final String key = key(session.getId());
+            if (sessions.get(key) != session) {
+                // Closed or replaced since the entry was queued.
+                continue;
+            }
+            final long deadline = session.getLastAccessNanos() + idleTimeoutNanos;
+            if (deadline - System.nanoTime() > 0) {
+                expiries.add(new Expiry(session, deadline));
+            } else if (sessions.remove(key, session)) {
+                expiredCount.increment();
+            }
+        }
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    public long getCreatedSessionCount() {
+        return createdCount.sum();
+    }
+
+    public long getClosedSessionCount() {
+        return closedCount.sum();
+    }
+
+    public long getExpiredSessionCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * Returns the number of requests that were rejected because their
+     * session held more memory than allowed.
+     */
+    public long getRejectedRequestCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Returns the estimated number of bytes held by the scenarios of all
+     * sessions.
+     */
+    public long getEstimatedBytes() {
+        long bytes = 0;
+        for (Session session : sessions.values()) {
+            bytes += session.getEstimatedBytes();
+        }
+        return bytes;
+    }
+
+    private static String key(String sessionId) {
+        return sessionId == null ? NO_SESSION_ID : sessionId;
+    }
+
+    /**
+     * Entry in the expiry queue.
+     */
+    private record Expiry(Session session, long deadlineNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.signum(deadlineNanos - ((Expiry) o).deadlineNanos);
+        }
+    }
+}
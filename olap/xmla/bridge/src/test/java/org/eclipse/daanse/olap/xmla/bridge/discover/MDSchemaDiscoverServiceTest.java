@@ -16,8 +16,11 @@ package org.eclipse.daanse.olap.xmla.bridge.discover;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -32,6 +35,7 @@ import org.eclipse.daanse.olap.api.Connection;
 import org.eclipse.daanse.olap.api.Context;
 import org.eclipse.daanse.olap.api.ContextGroup;
 import org.eclipse.daanse.olap.api.DataType;
+import org.eclipse.daanse.olap.api.SchemaReader;
 import org.eclipse.daanse.olap.api.element.Cube;
 import org.eclipse.daanse.olap.api.element.Dimension;
 import org.eclipse.daanse.olap.api.element.Hierarchy;
@@ -65,6 +69,7 @@ import org.eclipse.daanse.xmla.api.common.enums.PropertyTypeEnum;
 import org.eclipse.daanse.xmla.api.common.enums.ScopeEnum;
 import org.eclipse.daanse.xmla.api.common.enums.SetEvaluationContextEnum;
 import org.eclipse.daanse.xmla.api.common.enums.StructureEnum;
+import org.eclipse.daanse.xmla.api.common.enums.TreeOpEnum;
 import org.eclipse.daanse.xmla.api.discover.Properties;
 import org.eclipse.daanse.xmla.api.discover.mdschema.actions.MdSchemaActionsRequest;
 import org.eclipse.daanse.xmla.api.discover.mdschema.actions.MdSchemaActionsResponseRow;
@@ -199,6 +204,12 @@ class MDSchemaDiscoverServiceTest {
     @Mock
     private ActionService actionService;
 
+    private Member usa;
+    private Member ca;
+    private Member or;
+    private Member sf;
+    private Member la;
+
     @BeforeEach
     void setup() {
         /*
@@ -938,18 +949,11 @@ class MDSchemaDiscoverServiceTest {
 
         when(hierarchy1.getDimension()).thenReturn(dimension1);
 
-        when(hierarchy1.getLevels()).thenAnswer(setupDummyArrayAnswer(level1, level2));
-        when(hierarchy2.getLevels()).thenAnswer(setupDummyArrayAnswer(level1, level2));
-
-        when(dimension1.getHierarchies()).thenAnswer(setupDummyArrayAnswer(hierarchy1, hierarchy2));
-        when(dimension2.getHierarchies()).thenAnswer(setupDummyArrayAnswer(hierarchy1, hierarchy2));
         when(dimension1.getUniqueName()).thenReturn("dimension1UniqueName");
 
         when(cube1.getName()).thenReturn("cube1Name");
         when(cube2.getName()).thenReturn("cube2Name");
 
-        when(cube1.getDimensions()).thenAnswer(setupDummyArrayAnswer(dimension1, dimension2));
-        when(cube2.getDimensions()).thenAnswer(setupDummyArrayAnswer(dimension1, dimension2));
         Member member = mock(Member.class);
         when(member.getUniqueName()).thenReturn("memberUniqueName");
         when(member.getName()).thenReturn("measure1Name");
@@ -957,8 +961,12 @@ class MDSchemaDiscoverServiceTest {
         when(member.getCaption()).thenReturn("measure1Caption");
 
         when(member.getLevel()).thenReturn(level1);
-        when(cube1.getLevelMembers(any(), eq(true))).thenAnswer(setupDummyListAnswer(member));
-        when(cube2.getLevelMembers(any(), eq(true))).thenAnswer(setupDummyListAnswer(member));
+        // The member is resolved by its unique name in each cube.
+        SchemaReader schemaReader = mock(SchemaReader.class);
+        when(schemaReader.withLocus()).thenReturn(schemaReader);
+        when(schemaReader.getMemberByUniqueName(any(), eq(false))).thenReturn(member);
+        when(cube1.getSchemaReader(null)).thenReturn(schemaReader);
+        when(cube2.getSchemaReader(null)).thenReturn(schemaReader);
 
         when(level1.getHierarchy()).thenReturn(hierarchy1);
 
@@ -975,14 +983,14 @@ class MDSchemaDiscoverServiceTest {
         List<MdSchemaMembersResponseRow> rows = service.mdSchemaMembers(request);
         verify(context1, times(1)).getName();
         verify(context2, times(3)).getName();
-        assertThat(rows).isNotNull().hasSize(32);
+        assertThat(rows).isNotNull().hasSize(4);
         checkMdSchemaMembersResponseRow(rows.get(0), "foo",
             "schema1Name", "cube1Name", "dimension1UniqueName",
             "hierarchy1UniqueName", "level1UniqueName", 0, 0, "measure1Name",
             "memberUniqueName", MemberTypeEnum.REGULAR_MEMBER, "measure1Caption", 100, 0,
             Optional.empty(), 0, "measure1Description"
         );
-        checkMdSchemaMembersResponseRow(rows.get(31), "foo",
+        checkMdSchemaMembersResponseRow(rows.get(3), "foo",
                 "schema2Name", "cube2Name", "dimension1UniqueName",
                 "hierarchy1UniqueName", "level1UniqueName", 0, 0, "measure1Name",
                 "memberUniqueName", MemberTypeEnum.REGULAR_MEMBER, "measure1Caption", 100, 0,
@@ -991,6 +999,149 @@ class MDSchemaDiscoverServiceTest {
 
     }
 
+    @Test
+    void mdSchemaMembersTreeOpChildren() {
+        SchemaReader schemaReader = setupMembers();
+        when(schemaReader.getMemberByUniqueName(any(), eq(false))).thenReturn(ca);
+        when(schemaReader.getMemberChildren(ca)).thenReturn(List.of(sf, la));
+
+        assertThat(memberUniqueNames("[Store].[USA].[CA]", TreeOpEnum.CHILDREN))
+            .containsExactly("[Store].[USA].[CA].[SF]", "[Store].[USA].[CA].[LA]");
+    }
+
+    @Test
+    void mdSchemaMembersTreeOpParent() {
+        SchemaReader schemaReader = setupMembers();
+        when(schemaReader.getMemberByUniqueName(any(), eq(false))).thenReturn(ca);
+        when(schemaReader.getMemberParent(ca)).thenReturn(usa);
+
+        assertThat(memberUniqueNames("[Store].[USA].[CA]", TreeOpEnum.PARENT))
+            .containsExactly("[Store].[USA]");
+    }
+
+    @Test
+    void mdSchemaMembersTreeOpSiblings() {
+        SchemaReader schemaReader = setupMembers();
+        when(schemaReader.getMemberByUniqueName(any(), eq(false))).thenReturn(ca);
+        when(schemaReader.getMemberParent(ca)).thenReturn(usa);
+        when(schemaReader.getMemberChildren(usa)).thenReturn(List.of(ca, or));
+
+        assertThat(memberUniqueNames("[Store].[USA].[CA]", TreeOpEnum.LEVEL))
+            .containsExactly("[Store].[USA].[OR]");
+        // The siblings are read as children of the parent, not as a level.
+        verify(schemaReader, never()).getLevelMembers(any(Level.class), anyBoolean());
+    }
+
+    @Test
+    void mdSchemaMembersTreeOpSiblingsOfRoot() {
+        SchemaReader schemaReader = setupMembers();
+        Member canada = member("[Store].[Canada]", 0, null);
+        when(schemaReader.getMemberByUniqueName(any(), eq(false))).thenReturn(usa);
+        when(schemaReader.getMemberParent(usa)).thenReturn(null);
+        when(schemaReader.getLevelMembers(usa.getLevel(), true)).thenReturn(List.of(canada, usa));
+
+        assertThat(memberUniqueNames("[Store].[USA]", TreeOpEnum.LEVEL))
+            .containsExactly("[Store].[Canada]");
+    }
+
+    @Test
+    void mdSchemaMembersTreeOpSelf() {
+        SchemaReader schemaReader = setupMembers();
+        when(schemaReader.getMemberByUniqueName(any(), eq(false))).thenReturn(ca);
+
+        assertThat(memberUniqueNames("[Store].[USA].[CA]", TreeOpEnum.ITSELF))
+            .containsExactly("[Store].[USA].[CA]");
+    }
+
+    @Test
+    void mdSchemaMembersTreeOpAncestors() {
+        SchemaReader schemaReader = setupMembers();
+        when(schemaReader.getMemberByUniqueName(any(), eq(false))).thenReturn(sf);
+        when(schemaReader.getMemberParent(sf)).thenReturn(ca);
+        when(schemaReader.getMemberParent(ca)).thenReturn(usa);
+        when(schemaReader.getMemberParent(usa)).thenReturn(null);
+
+        assertThat(memberUniqueNames("[Store].[USA].[CA].[SF]", TreeOpEnum.ALL))
+            .containsExactly("[Store].[USA].[CA]", "[Store].[USA]");
+    }
+
+    @Test
+    void mdSchemaMembersTreeOpDescendants() {
+        SchemaReader schemaReader = setupMembers();
+        when(schemaReader.getMemberByUniqueName(any(), eq(false))).thenReturn(usa);
+        when(schemaReader.getMemberChildren(usa)).thenReturn(List.of(ca, or));
+        when(schemaReader.getMemberChildren(List.of(ca, or))).thenReturn(List.of(sf, la));
+        when(schemaReader.getMemberChildren(List.of(sf, la))).thenReturn(List.of());
+
+        assertThat(memberUniqueNames("[Store].[USA]", TreeOpEnum.ALL_DESCENDANTS))
+            .containsExactly(
+                "[Store].[USA].[CA]", "[Store].[USA].[OR]",
+                "[Store].[USA].[CA].[SF]", "[Store].[USA].[CA].[LA]");
+    }
+
+    @Test
+    void mdSchemaMembersMalformedUniqueName() {
+        when(cls.get()).thenReturn(List.of(context2));
+        when(context2.getName()).thenReturn("foo");
+        when(context2.getConnection()).thenReturn(connection);
+        when(connection.getSchemas()).thenAnswer(setupDummyListAnswer(schema1));
+        when(schema1.getCubes()).thenAnswer(setupDummyArrayAnswer(cube1));
+
+        assertThat(memberUniqueNames("[Store].[USA", TreeOpEnum.CHILDREN)).isEmpty();
+        verify(cube1, never()).getSchemaReader(any());
+    }
+
+    /**
+     * Sets up the catalog "foo" with one cube, and the members USA, CA, OR,
+     * SF and LA of a store hierarchy, and returns the schema reader of the
+     * cube.
+     */
+    private SchemaReader setupMembers() {
+        when(cls.get()).thenReturn(List.of(context2));
+        when(context2.getName()).thenReturn("foo");
+        when(context2.getConnection()).thenReturn(connection);
+        when(connection.getSchemas()).thenAnswer(setupDummyListAnswer(schema1));
+        when(schema1.getCubes()).thenAnswer(setupDummyArrayAnswer(cube1));
+
+        SchemaReader schemaReader = mock(SchemaReader.class);
+        when(schemaReader.withLocus()).thenReturn(schemaReader);
+        when(cube1.getSchemaReader(null)).thenReturn(schemaReader);
+
+        lenient().when(hierarchy1.getDimension()).thenReturn(dimension1);
+        usa = member("[Store].[USA]", 0, null);
+        ca = member("[Store].[USA].[CA]", 1, usa);
+        or = member("[Store].[USA].[OR]", 1, usa);
+        sf = member("[Store].[USA].[CA].[SF]", 2, ca);
+        la = member("[Store].[USA].[CA].[LA]", 2, ca);
+        return schemaReader;
+    }
+
+    private Member member(String uniqueName, int depth, Member parent) {
+        Level level = mock(Level.class);
+        lenient().when(level.getDepth()).thenReturn(depth);
+        lenient().when(level.getHierarchy()).thenReturn(hierarchy1);
+        Member member = mock(Member.class);
+        lenient().when(member.getUniqueName()).thenReturn(uniqueName);
+        lenient().when(member.getLevel()).thenReturn(level);
+        lenient().when(member.getParentMember()).thenReturn(parent);
+        return member;
+    }
+
+    private List<String> memberUniqueNames(String memberUniqueName, TreeOpEnum treeOp) {
+        MdSchemaMembersRequest request = mock(MdSchemaMembersRequest.class);
+        MdSchemaMembersRestrictions restrictions = mock(MdSchemaMembersRestrictions.class);
+        Properties properties = mock(Properties.class);
+        when(request.restrictions()).thenReturn(restrictions);
+        when(request.properties()).thenReturn(properties);
+        when(restrictions.catalogName()).thenReturn(Optional.of("foo"));
+        when(restrictions.memberUniqueName()).thenReturn(Optional.of(memberUniqueName));
+        when(restrictions.treeOp()).thenReturn(Optional.of(treeOp));
+
+        return service.mdSchemaMembers(request).stream()
+            .map(r -> r.memberUniqueName().orElseThrow())
+            .toList();
+    }
+
     @Test
     void mdSchemaProperties() {
         when(cls.get()).thenReturn(List.of(context1, context2));
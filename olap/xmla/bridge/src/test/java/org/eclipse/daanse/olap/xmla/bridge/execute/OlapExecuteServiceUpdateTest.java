@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.xmla.bridge.execute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.daanse.db.dialect.api.Datatype;
+import org.eclipse.daanse.mdx.model.api.select.Allocation;
+import org.eclipse.daanse.olap.action.api.ActionService;
+import org.eclipse.daanse.olap.api.CacheControl;
+import org.eclipse.daanse.olap.api.Connection;
+import org.eclipse.daanse.olap.api.Context;
+import org.eclipse.daanse.olap.api.SchemaReader;
+import org.eclipse.daanse.olap.api.Statement;
+import org.eclipse.daanse.olap.api.element.Member;
+import org.eclipse.daanse.olap.api.element.Schema;
+import org.eclipse.daanse.olap.api.query.component.Expression;
+import org.eclipse.daanse.olap.api.query.component.UpdateClause;
+import org.eclipse.daanse.olap.api.result.Cell;
+import org.eclipse.daanse.olap.api.result.CellSet;
+import org.eclipse.daanse.olap.api.result.Result;
+import org.eclipse.daanse.olap.api.result.Scenario;
+import org.eclipse.daanse.olap.operation.api.ParenthesesOperationAtom;
+import org.eclipse.daanse.olap.xmla.bridge.ContextGroupXmlaServiceConfig;
+import org.eclipse.daanse.olap.xmla.bridge.ContextListSupplyer;
+import org.eclipse.daanse.xmla.api.UserPrincipal;
+import org.eclipse.daanse.xmla.api.discover.Properties;
+import org.eclipse.daanse.xmla.api.execute.statement.StatementRequest;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import mondrian.mdx.UnresolvedFunCallImpl;
+import mondrian.olap.IdImpl;
+import mondrian.olap.NumericLiteralImpl;
+import mondrian.olap.QueryImpl;
+import mondrian.olap.UpdateImpl;
+import mondrian.rolap.RolapBaseCubeMeasure;
+import mondrian.rolap.RolapConnection;
+import mondrian.rolap.RolapCube;
+import mondrian.rolap.RolapSchema;
+import mondrian.rolap.RolapWritebackColumn;
+import mondrian.rolap.RolapWritebackMeasure;
+import mondrian.rolap.RolapWritebackTable;
+
+/**
+ * Runs UPDATE CUBE statements through {@link OlapExecuteService} and checks
+ * the values it puts into the scenario of the session.
+ */
+class OlapExecuteServiceUpdateTest {
+
+    private static final String CUBE_NAME = "Sales";
+    private static final String MEASURE_NAME = "[Measures].[Unit Sales]";
+    private static final String MEASURE_COLUMN = "UNIT_SALES";
+    private static final String SESSION_ID = "s1";
+
+    @Test
+    void testUpdateCubeAllocatesIntoScenario() {
+        Member measure = mock(RolapBaseCubeMeasure.class);
+        when(measure.getUniqueName()).thenReturn(MEASURE_NAME);
+        when(measure.isMeasure()).thenReturn(true);
+
+        // The cube has a writeback table with a column for the measure, and
+        // the current value of the measure is 40.
+        RolapWritebackMeasure writebackMeasure = mock(RolapWritebackMeasure.class);
+        when(writebackMeasure.getMeasure()).thenReturn(measure);
+        when(writebackMeasure.getColumnName()).thenReturn(MEASURE_COLUMN);
+        RolapWritebackTable writebackTable = mock(RolapWritebackTable.class);
+        List<RolapWritebackColumn> columns = List.of(writebackMeasure);
+        when(writebackTable.getColumns()).thenReturn(columns);
+
+        Cell currentCell = mock(Cell.class);
+        when(currentCell.getValue()).thenReturn(40d);
+        Result currentResult = mock(Result.class);
+        when(currentResult.getCell(any(int[].class))).thenReturn(currentCell);
+        QueryImpl currentQuery = mock(QueryImpl.class);
+        RolapConnection internalConnection = mock(RolapConnection.class);
+        when(internalConnection.parseQuery(anyString())).thenReturn(currentQuery);
+        when(internalConnection.execute(currentQuery)).thenReturn(currentResult);
+        RolapSchema rolapSchema = mock(RolapSchema.class);
+        when(rolapSchema.getInternalConnection()).thenReturn(internalConnection);
+
+        RolapCube cube = mock(RolapCube.class);
+        when(cube.getName()).thenReturn(CUBE_NAME);
+        when(cube.getSchema()).thenReturn(rolapSchema);
+        when(cube.getWritebackTable()).thenReturn(Optional.of(writebackTable));
+        when(cube.getMeasures()).thenReturn(List.of(measure));
+        when(cube.getHierarchies()).thenReturn(List.of());
+
+        Schema schema = mock(Schema.class);
+        when(schema.getCubes()).thenReturn(new RolapCube[] {cube});
+        when(schema.lookupCube(CUBE_NAME, true)).thenReturn(cube);
+
+        SchemaReader schemaReader = mock(SchemaReader.class);
+        when(schemaReader.withLocus()).thenReturn(schemaReader);
+        when(schemaReader.getCalculatedMember(any())).thenReturn(measure);
+
+        // The values of the clauses, evaluated with one query
+        Cell value1 = mock(Cell.class);
+        when(value1.getValue()).thenReturn(100d);
+        Cell value2 = mock(Cell.class);
+        when(value2.getValue()).thenReturn(130d);
+        CellSet valueCellSet = mock(CellSet.class);
+        when(valueCellSet.getCell(List.of(0))).thenReturn(value1);
+        when(valueCellSet.getCell(List.of(1))).thenReturn(value2);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(valueCellSet);
+
+        CacheControl cacheControl = mock(CacheControl.class);
+        CacheControl.CellRegion measuresRegion = mock(CacheControl.CellRegion.class);
+        when(cacheControl.createMeasuresRegion(cube)).thenReturn(measuresRegion);
+
+        UpdateImpl update = new UpdateImpl(CUBE_NAME, List.<UpdateClause>of(
+            new UpdateImpl.UpdateClauseImpl(
+                measureTuple(), NumericLiteralImpl.create(new BigDecimal(100)),
+                Allocation.USE_EQUAL_ALLOCATION, null),
+            new UpdateImpl.UpdateClauseImpl(
+                measureTuple(), NumericLiteralImpl.create(new BigDecimal(130)),
+                Allocation.USE_EQUAL_INCREMENT, null)));
+
+        Connection connection = mock(Connection.class);
+        when(connection.parseStatement(anyString())).thenReturn(update);
+        when(connection.getSchema()).thenReturn(schema);
+        when(connection.getSchemaReader()).thenReturn(schemaReader);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.getCacheControl(null)).thenReturn(cacheControl);
+
+        Context context = mock(Context.class);
+        when(context.getConnection()).thenReturn(connection);
+        when(context.getConnection(any())).thenReturn(connection);
+        ContextListSupplyer contexts = mock(ContextListSupplyer.class);
+        when(contexts.tryGetFirstByName("FoodMart")).thenReturn(Optional.of(context));
+
+        OlapExecuteService service = new OlapExecuteService(
+            contexts, mock(ActionService.class), mock(ContextGroupXmlaServiceConfig.class));
+        Scenario scenario = mock(Scenario.class);
+        List<Map<String, Map.Entry<Datatype, Object>>> sessionValues = new ArrayList<>();
+        when(scenario.getSessionValues()).thenReturn(sessionValues);
+        when(scenario.getWritebackCells()).thenReturn(List.of());
+        service.getSessions().create(SESSION_ID).setScenario(scenario);
+
+        service.statement(
+            request("UPDATE CUBE [Sales] SET ([Measures].[Unit Sales]) = 100, "
+                + "([Measures].[Unit Sales]) = 130 USE_EQUAL_INCREMENT"),
+            null, mock(UserPrincipal.class));
+
+        verify(connection).setScenario(scenario);
+        // Both values are evaluated with one query
+        ArgumentCaptor<String> mdx = ArgumentCaptor.forClass(String.class);
+        verify(statement).executeQuery(mdx.capture());
+        assertThat(mdx.getValue())
+            .contains("[Measures].[m1] AS 100")
+            .contains("[Measures].[m2] AS 130")
+            .contains("FROM Sales");
+        // The first clause replaces 40 by 100; the second one adds the
+        // difference between 130 and 40.
+        assertThat(sessionValues).containsExactly(
+            Map.of(MEASURE_COLUMN, Map.entry(Datatype.NUMERIC, -40d)),
+            Map.of(MEASURE_COLUMN, Map.entry(Datatype.NUMERIC, 100d)),
+            Map.of(MEASURE_COLUMN, Map.entry(Datatype.NUMERIC, -40d)),
+            Map.of(MEASURE_COLUMN, Map.entry(Datatype.NUMERIC, 130d)));
+        // A tuple of measures only changes the measures of the cube; it is
+        // flushed after each clause, and no member region is needed.
+        verify(cacheControl, times(2)).flush(measuresRegion);
+        verify(cacheControl, times(0)).createMemberRegion(any(Member.class), anyBoolean());
+    }
+
+    private static Expression measureTuple() {
+        return new UnresolvedFunCallImpl(
+            new ParenthesesOperationAtom(),
+            new Expression[] {
+                new IdImpl(List.of(
+                    new IdImpl.NameSegmentImpl("Measures"),
+                    new IdImpl.NameSegmentImpl("Unit Sales")))
+            });
+    }
+
+    private static StatementRequest request(String mdx) {
+        Properties properties = mock(Properties.class);
+        when(properties.catalog()).thenReturn(Optional.of("FoodMart"));
+        org.eclipse.daanse.xmla.api.xmla.Statement command =
+            mock(org.eclipse.daanse.xmla.api.xmla.Statement.class);
+        when(command.statement()).thenReturn(mdx);
+        StatementRequest request = mock(StatementRequest.class);
+        when(request.properties()).thenReturn(properties);
+        when(request.command()).thenReturn(command);
+        when(request.sessionId()).thenReturn(SESSION_ID);
+        return request;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.xmla.bridge.execute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.daanse.db.dialect.api.Datatype;
+import org.eclipse.daanse.olap.api.result.Scenario;
+import org.junit.jupiter.api.Test;
+
+class SessionRegistryTest {
+
+    @Test
+    void testCreateGetClose() {
+        SessionRegistry registry = new SessionRegistry(Duration.ofHours(1), 0);
+        Session session = registry.create("s1");
+        assertThat(registry.get("s1")).isSameAs(session);
+        assertThat(registry.getWithoutCheck("s2")).isNull();
+        assertThatThrownBy(() -> registry.get("s2")).isInstanceOf(RuntimeException.class);
+
+        assertThat(registry.create("s1")).isNotSameAs(session);
+        assertThat(registry.getActiveSessionCount()).isEqualTo(1);
+
+        registry.close("s1");
+        assertThat(registry.getWithoutCheck("s1")).isNull();
+        assertThat(registry.getCreatedSessionCount()).isEqualTo(2);
+        assertThat(registry.getClosedSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testExpiry() throws InterruptedException {
+        SessionRegistry registry = new SessionRegistry(Duration.ofMillis(50), 0);
+        registry.create("idle");
+        registry.create("used");
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(20);
+            assertThat(registry.getWithoutCheck("used")).isNotNull();
+        }
+        assertThat(registry.getWithoutCheck("idle")).isNull();
+        assertThat(registry.getActiveSessionCount()).isEqualTo(1);
+        assertThat(registry.getExpiredSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testResourceLimit() {
+        SessionRegistry registry = new SessionRegistry(Duration.ZERO, 1000);
+        Session session = registry.create("s1");
+        registry.checkResources(session);
+
+        Scenario scenario = mock(Scenario.class);
+        List<Map<String, Map.Entry<Datatype, Object>>> values =
+            Collections.nCopies(2, Map.of());
+        when(scenario.getSessionValues()).thenReturn(values);
+        when(scenario.getWritebackCells()).thenReturn(List.of());
+        session.setScenario(scenario);
+
+        assertThat(registry.getEstimatedBytes()).isEqualTo(
+            Session.SCENARIO_BYTES + 2 * Session.SESSION_VALUE_ROW_BYTES);
+        assertThatThrownBy(() -> registry.checkResources(session))
+            .isInstanceOf(RuntimeException.class);
+        assertThat(registry.getRejectedRequestCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.xmla.server.adapter.soapmessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that keeps what is written in memory until it is flushed
+ * for the first time, and only then opens the response stream.
+ *
+ * <p>Until then, the response can still be replaced, for example by a SOAP
+ * fault, and the status of the response can still be set.</p>
+ */
+class DeferredOutputStream extends OutputStream {
+
+    private final XmlaApiAdapter.ResponseStream responseStream;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private OutputStream target;
+
+    DeferredOutputStream(XmlaApiAdapter.ResponseStream responseStream) {
+        this.responseStream = responseStream;
+    }
+
+    /**
+     * Returns whether the response stream has been opened, after which the
+     * response can no longer be replaced.
+     */
+    boolean isCommitted() {
+        return target != null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (target != null) {
+            target.write(b);
+        } else {
+            buffer.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (target != null) {
+            target.write(b, off, len);
+        } else {
+            buffer.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (target == null) {
+            target = responseStream.open(false);
+            buffer.writeTo(target);
+            buffer = null;
+        }
+        target.flush();
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.xmla.server.adapter.soapmessage;
+
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_AXIS;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_CELL;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_CELL_DATA;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_CROSS_PRODUCT;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_MEMBER;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_MEMBERS;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_NORM_TUPLE_SET;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_TUPLE;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_TUPLES;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.MDDATASET.QN_UNION;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.ROWSET.ROW_PROPERTY.QN_MEMBERS_LOOKUP;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.ROWSET.ROW_PROPERTY.QN_MEMBER_DISP_INFO;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.ROWSET.ROW_PROPERTY.QN_MEMBER_ORDINAL;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.ROWSET.ROW_PROPERTY.QN_MEMBER_REF;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.ROWSET.ROW_PROPERTY.QN_NORM_TUPLE;
+import static org.eclipse.daanse.xmla.server.adapter.soapmessage.Constants.ROWSET.ROW_PROPERTY.QN_NORM_TUPLES;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.eclipse.daanse.xmla.api.mddataset.Axes;
+import org.eclipse.daanse.xmla.api.mddataset.Axis;
+import org.eclipse.daanse.xmla.api.mddataset.CellData;
+import org.eclipse.daanse.xmla.api.mddataset.CellInfoItem;
+import org.eclipse.daanse.xmla.api.mddataset.CellType;
+import org.eclipse.daanse.xmla.api.mddataset.CellTypeError;
+import org.eclipse.daanse.xmla.api.mddataset.MemberType;
+import org.eclipse.daanse.xmla.api.mddataset.MembersType;
+import org.eclipse.daanse.xmla.api.mddataset.Mddataset;
+import org.eclipse.daanse.xmla.api.mddataset.NormTupleSet;
+import org.eclipse.daanse.xmla.api.mddataset.SetListType;
+import org.eclipse.daanse.xmla.api.mddataset.TupleType;
+import org.eclipse.daanse.xmla.api.mddataset.TuplesType;
+import org.eclipse.daanse.xmla.api.mddataset.Type;
+import org.eclipse.daanse.xmla.api.mddataset.Union;
+import org.eclipse.daanse.xmla.api.mddataset.Value;
+import org.eclipse.daanse.xmla.api.msxmla.MemberRef;
+import org.eclipse.daanse.xmla.api.msxmla.NormTuple;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes a SOAP response with an MDDataSet to an output stream, using StAX.
+ *
+ * <p>The envelope, the MDDataSet root and the OlapInfo are small; they are
+ * built as a DOM by {@link SoapUtil} and copied to the stream. The axes and
+ * the cells are written directly from the {@link Mddataset}, without building
+ * a DOM, and the stream is flushed every {@code chunkSize} tuples or cells,
+ * so the client receives the response while it is being written.</p>
+ *
+ * <p>If the client disconnects, flushing fails with an {@link IOException}
+ * and writing stops.</p>
+ *
+ * <p>If the axes or cells cannot be converted, and nothing has been flushed
+ * yet, the exception is thrown, so that the caller can send a SOAP fault
+ * instead. Once the start of the response has been flushed, the open elements
+ * are closed, an {@code Exception} and a {@code Messages} element with the
+ * error are added to the MDDataSet root, as XMLA prescribes for errors that
+ * occur while a result is returned, and the document is completed before the
+ * exception is thrown.</p>
+ */
+class MdDataSetStreamWriter {
+
+    /**
+     * Default number of tuples or cells written between two flushes.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final String XMLNS = "xmlns";
+
+    private static final QName QN_EXCEPTION =
+        new QName(Constants.MDDATASET.NS_URN, "Exception", Constants.MDDATASET.PREFIX);
+
+    private final OutputStream outputStream;
+    private final XMLStreamWriter writer;
+    private final int chunkSize;
+    private int pending;
+    private int depth;
+    private boolean flushed;
+    private RuntimeException failure;
+
+    MdDataSetStreamWriter(OutputStream outputStream, int chunkSize) throws XMLStreamException {
+        this.outputStream = outputStream;
+        this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+        this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Writes a response document. The axes and cell data of the dataset are
+     * appended to the children of the MDDataSet root element.
+     *
+     * @param document    response document, containing the MDDataSet root
+     *                    without axes and cell data
+     * @param mdDataSetRoot MDDataSet root element of the document
+     * @param mdDataSet   dataset whose axes and cells are written
+     * @throws IOException if the stream cannot be written, for example
+     *                     because the client has disconnected
+     */
+    void write(Document document, Element mdDataSetRoot, Mddataset mdDataSet)
+        throws XMLStreamException, IOException {
+        writer.writeStartDocument("UTF-8", "1.0");
+        writeElement(document.getDocumentElement(), mdDataSetRoot, mdDataSet);
+        writer.writeEndDocument();
+        flush();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns whether part of the response has been flushed to the stream.
+     */
+    boolean isFlushed() {
+        return flushed;
+    }
+
+    private void writeNode(Node node, Element mdDataSetRoot, Mddataset mdDataSet)
+        throws XMLStreamException, IOException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE -> writeElement((Element) node, mdDataSetRoot, mdDataSet);
+            case Node.TEXT_NODE -> writer.writeCharacters(node.getNodeValue());
+            case Node.CDATA_SECTION_NODE -> writer.writeCData(node.getNodeValue());
+            default -> {
+                // comments and processing instructions are not written
+            }
+        }
+    }
+
+    private void writeElement(Element element, Element mdDataSetRoot, Mddataset mdDataSet)
+        throws XMLStreamException, IOException {
+        String prefix = element.getPrefix();
+        String localName = element.getLocalName() != null ? element.getLocalName() : element.getNodeName();
+        String namespaceUri = element.getNamespaceURI();
+        writer.writeStartElement(prefix != null ? prefix : "", localName, namespaceUri != null ? namespaceUri : "");
+        ++depth;
+
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            writeAttribute((Attr) attributes.item(i));
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            writeNode(child, mdDataSetRoot, mdDataSet);
+        }
+        if (element.isSameNode(mdDataSetRoot)) {
+            final int rootDepth = depth;
+            try {
+                writeAxes(mdDataSet.axes());
+                writeCellData(mdDataSet.cellData());
+            } catch (RuntimeException e) {
+                if (!flushed) {
+                    throw e;
+                }
+                while (depth > rootDepth) {
+                    endElement();
+                }
+                writeError(e);
+                failure = e;
+            }
+        }
+        endElement();
+    }
+
+    private void writeAttribute(Attr attr) throws XMLStreamException {
+        String name = attr.getName();
+        if (XMLNS.equals(name)) {
+            writer.writeDefaultNamespace(attr.getValue());
+        } else if (name.startsWith(XMLNS + ":")) {
+            writer.writeNamespace(name.substring(XMLNS.length() + 1), attr.getValue());
+        } else if (attr.getNamespaceURI() != null && attr.getLocalName() != null) {
+            writer.writeAttribute(attr.getPrefix() != null ? attr.getPrefix() : "", attr.getNamespaceURI(),
+                attr.getLocalName(), attr.getValue());
+        } else {
+            writer.writeAttribute(name, attr.getValue());
+        }
+    }
+
+    private void writeAxes(Axes axes) throws XMLStreamException, IOException {
+        if (axes != null) {
+            startElement(Constants.MDDATASET.QN_AXES);
+            if (axes.axis() != null) {
+                for (Axis axis : axes.axis()) {
+                    writeAxis(axis);
+                }
+            }
+            endElement();
+        }
+    }
+
+    private void writeAxis(Axis axis) throws XMLStreamException, IOException {
+        if (axis != null) {
+            startElement(QN_AXIS);
+            attribute("name", axis.name());
+            if (axis.setType() != null) {
+                for (Type type : axis.setType()) {
+                    writeType(type);
+                    tick();
+                }
+            }
+            endElement();
+        }
+    }
+
+    private void writeTypeList(List<Type> list) throws XMLStreamException {
+        if (list != null) {
+            for (Type type : list) {
+                writeType(type);
+            }
+        }
+    }
+
+    private void writeType(Type type) throws XMLStreamException {
+        if (type instanceof MembersType membersType) {
+            writeMembersType(membersType);
+        }
+        if (type instanceof TuplesType tuplesType) {
+            writeTuplesType(tuplesType);
+        }
+        if (type instanceof SetListType setListType) {
+            startElement(QN_CROSS_PRODUCT);
+            writeTypeList(setListType.setType());
+            textElement(Constants.MDDATASET.QN_SIZE, String.valueOf(setListType.size()));
+            endElement();
+        }
+        if (type instanceof NormTupleSet normTupleSet) {
+            writeNormTupleSet(normTupleSet);
+        }
+        if (type instanceof Union union) {
+            startElement(QN_UNION);
+            writeTypeList(union.setType());
+            endElement();
+        }
+    }
+
+    private void writeMembersType(MembersType membersType) throws XMLStreamException {
+        if (membersType.member() != null) {
+            startElement(QN_MEMBERS);
+            attribute("Hierarchy", membersType.hierarchy());
+            for (MemberType memberType : membersType.member()) {
+                writeMemberType(memberType);
+            }
+            endElement();
+        }
+    }
+
+    private void writeTuplesType(TuplesType tuplesType) throws XMLStreamException {
+        startElement(QN_TUPLES);
+        if (tuplesType.tuple() != null) {
+            for (TupleType tupleType : tuplesType.tuple()) {
+                writeTupleType(QN_TUPLE, tupleType);
+            }
+        }
+        endElement();
+    }
+
+    private void writeTupleType(QName qName, TupleType tupleType) throws XMLStreamException {
+        if (tupleType != null && tupleType.member() != null) {
+            startElement(qName);
+            for (MemberType memberType : tupleType.member()) {
+                writeMemberType(memberType);
+            }
+            endElement();
+        }
+    }
+
+    private void writeNormTupleSet(NormTupleSet normTupleSet) throws XMLStreamException {
+        startElement(QN_NORM_TUPLE_SET);
+        if (normTupleSet.normTuples() != null) {
+            startElement(QN_NORM_TUPLES);
+            if (normTupleSet.normTuples().normTuple() != null) {
+                for (NormTuple normTuple : normTupleSet.normTuples().normTuple()) {
+                    writeNormTuple(normTuple);
+                }
+            }
+            endElement();
+        }
+        if (normTupleSet.membersLookup() != null) {
+            startElement(QN_MEMBERS_LOOKUP);
+            if (normTupleSet.membersLookup().members() != null) {
+                for (TupleType tupleType : normTupleSet.membersLookup().members()) {
+                    writeTupleType(QN_MEMBERS, tupleType);
+                }
+            }
+            endElement();
+        }
+        endElement();
+    }
+
+    private void writeNormTuple(NormTuple normTuple) throws XMLStreamException {
+        if (normTuple != null) {
+            startElement(QN_NORM_TUPLE);
+            if (normTuple.memberRef() != null) {
+                for (MemberRef memberRef : normTuple.memberRef()) {
+                    if (memberRef != null) {
+                        startElement(QN_MEMBER_REF);
+                        textElement(QN_MEMBER_ORDINAL, String.valueOf(memberRef.memberOrdinal()));
+                        textElement(QN_MEMBER_DISP_INFO, String.valueOf(memberRef.memberDispInfo()));
+                        endElement();
+                    }
+                }
+            }
+            endElement();
+        }
+    }
+
+    private void writeMemberType(MemberType memberType) throws XMLStreamException {
+        if (memberType != null) {
+            startElement(QN_MEMBER);
+            attribute("Hierarchy", memberType.hierarchy());
+            writeCellInfoItemList(memberType.any());
+            endElement();
+        }
+    }
+
+    private void writeCellData(CellData cellData) throws XMLStreamException, IOException {
+        if (cellData != null) {
+            startElement(QN_CELL_DATA);
+            if (cellData.cell() != null) {
+                for (CellType cellType : cellData.cell()) {
+                    writeCellType(cellType);
+                    tick();
+                }
+            }
+            endElement();
+        }
+    }
+
+    private void writeCellType(CellType cellType) throws XMLStreamException {
+        if (cellType != null) {
+            startElement(QN_CELL);
+            attribute("CellOrdinal", String.valueOf(cellType.cellOrdinal()));
+            writeValue(cellType.value());
+            writeCellInfoItemList(cellType.any());
+            endElement();
+        }
+    }
+
+    private void writeValue(Value value) throws XMLStreamException {
+        if (value != null) {
+            startElement(Constants.MDDATASET.QN_VALUE);
+            writer.writeAttribute(Constants.XSI.PREFIX, Constants.XSI.NS_URN, "type", value.type().getValue());
+            if (value.value() != null) {
+                writer.writeCharacters(value.value());
+            }
+            if (value.error() != null) {
+                for (CellTypeError error : value.error()) {
+                    if (error != null) {
+                        startElement(Constants.MDDATASET.QN_ERROR);
+                        attribute("ErrorCode", String.valueOf(error.errorCode()));
+                        attribute(Constants.DESCRIPTION, error.description());
+                        endElement();
+                    }
+                }
+            }
+            endElement();
+        }
+    }
+
+    private void writeCellInfoItemList(List<CellInfoItem> list) throws XMLStreamException {
+        if (list != null) {
+            for (CellInfoItem item : list) {
+                if (item != null) {
+                    writer.writeStartElement(Constants.MDDATASET.PREFIX, item.tagName(),
+                        Constants.MDDATASET.NS_URN);
+                    ++depth;
+                    if (item.type().isPresent()) {
+                        attribute("type", item.type().get());
+                    }
+                    if (item.name() != null) {
+                        writer.writeCharacters(item.name());
+                    }
+                    endElement();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the error of a response that fails after it has been partly
+     * flushed.
+     */
+    private void writeError(RuntimeException e) throws XMLStreamException {
+        startElement(QN_EXCEPTION);
+        endElement();
+        startElement(Constants.MDDATASET.QN_MESSAGES);
+        startElement(Constants.MDDATASET.QN_ERROR);
+        attribute("ErrorCode", "0");
+        attribute(Constants.DESCRIPTION, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+        attribute("Source", e.getClass().getName());
+        endElement();
+        endElement();
+    }
+
+    private void startElement(QName qName) throws XMLStreamException {
+        writer.writeStartElement(qName.getPrefix(), qName.getLocalPart(), qName.getNamespaceURI());
+        ++depth;
+    }
+
+    private void endElement() throws XMLStreamException {
+        writer.writeEndElement();
+        --depth;
+    }
+
+    private void textElement(QName qName, String text) throws XMLStreamException {
+        startElement(qName);
+        if (text != null) {
+            writer.writeCharacters(text);
+        }
+        endElement();
+    }
+
+    private void attribute(String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeAttribute(name, value);
+        }
+    }
+
+    /**
+     * Counts a written tuple or cell, and flushes the stream at the end of
+     * each chunk.
+     */
+    private void tick() throws XMLStreamException, IOException {
+        if (++pending >= chunkSize) {
+            flush();
+        }
+    }
+
+    private void flush() throws XMLStreamException, IOException {
+        pending = 0;
+        writer.flush();
+        outputStream.flush();
+        flushed = true;
+    }
+}
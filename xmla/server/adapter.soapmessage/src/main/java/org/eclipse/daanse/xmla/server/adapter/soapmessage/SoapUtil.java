@@ -653,6 +653,18 @@ public class SoapUtil {
         }
     }
 
+    /**
+     * Adds the MDDataSet root and the OlapInfo of a dataset, without axes and
+     * cell data. These are appended by {@link MdDataSetStreamWriter}.
+     *
+     * @return the MDDataSet root element
+     */
+    static SOAPElement toStatementResponseRoot(Mddataset mdDataSet, SOAPBody body) throws SOAPException {
+        SOAPElement root = addMddatasetRoot(body);
+        addOlapInfo(root, mdDataSet.olapInfo());
+        return root;
+    }
+
     private static void addRowSetRow(SOAPElement e, RowSetRow it) throws SOAPException {
         SOAPElement seRow = e.addChildElement(Constants.ROWSET.QN_ROW);
         if (it.rowSetRowItem() != null) {
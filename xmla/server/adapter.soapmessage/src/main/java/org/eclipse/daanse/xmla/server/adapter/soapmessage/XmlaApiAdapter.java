@@ -16,6 +16,7 @@ package org.eclipse.daanse.xmla.server.adapter.soapmessage;
 import jakarta.xml.soap.MessageFactory;
 import jakarta.xml.soap.Node;
 import jakarta.xml.soap.SOAPBody;
+import jakarta.xml.soap.SOAPConstants;
 import jakarta.xml.soap.SOAPElement;
 import jakarta.xml.soap.SOAPEnvelope;
 import jakarta.xml.soap.SOAPException;
@@ -89,6 +90,7 @@ import org.eclipse.daanse.xmla.api.execute.clearcache.ClearCacheRequest;
 import org.eclipse.daanse.xmla.api.execute.clearcache.ClearCacheResponse;
 import org.eclipse.daanse.xmla.api.execute.statement.StatementRequest;
 import org.eclipse.daanse.xmla.api.execute.statement.StatementResponse;
+import org.eclipse.daanse.xmla.api.mddataset.Mddataset;
 import org.eclipse.daanse.xmla.api.xmla.Command;
 import org.eclipse.daanse.xmla.api.xmla.Session;
 import org.eclipse.daanse.xmla.model.record.UserPrincipalR;
@@ -159,6 +161,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -206,6 +211,85 @@ public class XmlaApiAdapter {
     private Set<String> sessions = new HashSet<>();
 
     public SOAPMessage handleRequest(SOAPMessage messageRequest, Map<String, Object> headers) {
+        return createResponse(messageRequest, headers, null);
+    }
+
+    /**
+     * Opens the stream a response is written to.
+     */
+    @FunctionalInterface
+    public interface ResponseStream {
+        /**
+         * Called once, before the first byte of the response is written.
+         *
+         * @param fault whether the response is a SOAP fault
+         */
+        OutputStream open(boolean fault) throws IOException;
+    }
+
+    /**
+     * Handles a request and writes the response to a stream.
+     *
+     * <p>The axes and cells of a multidimensional Execute response are not
+     * added to the response message, but streamed by
+     * {@link MdDataSetStreamWriter}. If the client disconnects while the
+     * response is written, writing stops.</p>
+     *
+     * <p>The response stream is opened when the first chunk is flushed. If
+     * an error occurs before that, a SOAP fault is written instead; if it
+     * occurs later, the writer ends the document with an error element.</p>
+     *
+     * @return false if no response could be created
+     */
+    public boolean handleRequest(SOAPMessage messageRequest, Map<String, Object> headers,
+                                 ResponseStream responseStream) {
+        StreamedMdDataSet streamed = new StreamedMdDataSet();
+        SOAPMessage messageResponse = createResponse(messageRequest, headers, streamed);
+        if (messageResponse == null) {
+            return false;
+        }
+        DeferredOutputStream outputStream = new DeferredOutputStream(responseStream);
+        try {
+            if (streamed.root == null) {
+                messageResponse.writeTo(outputStream);
+            } else {
+                new MdDataSetStreamWriter(outputStream, MdDataSetStreamWriter.DEFAULT_CHUNK_SIZE)
+                    .write(messageResponse.getSOAPPart(), streamed.root, streamed.mdDataSet);
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            LOGGER.debug("client disconnected, response aborted", e);
+        } catch (XMLStreamException e) {
+            if (e.getCause() instanceof IOException) {
+                LOGGER.debug("client disconnected, response aborted", e);
+            } else {
+                handleError(outputStream, responseStream, e);
+            }
+        } catch (SOAPException | RuntimeException e) {
+            handleError(outputStream, responseStream, e);
+        }
+        return true;
+    }
+
+    private static void handleError(DeferredOutputStream outputStream, ResponseStream responseStream,
+                                    Exception e) {
+        LOGGER.error("handleRequest error", e);
+        if (outputStream.isCommitted()) {
+            return;
+        }
+        try {
+            SOAPMessage fault = MessageFactory.newInstance().createMessage();
+            fault.getSOAPBody().addFault(
+                new QName(SOAPConstants.URI_NS_SOAP_1_1_ENVELOPE, "Server"),
+                e.getMessage() == null ? e.getClass().getName() : e.getMessage());
+            fault.writeTo(responseStream.open(true));
+        } catch (SOAPException | IOException ex) {
+            LOGGER.debug("fault response aborted", ex);
+        }
+    }
+
+    private SOAPMessage createResponse(SOAPMessage messageRequest, Map<String, Object> headers,
+                                       StreamedMdDataSet streamed) {
         try {
             SOAPMessage messageResponse = MessageFactory.newInstance().createMessage();
             SOAPPart soapPartResponse = messageResponse.getSOAPPart();
@@ -231,7 +315,7 @@ public class XmlaApiAdapter {
                 sessionElement.addAttribute(new QName("SessionId"), ses.get().sessionId());
             }
             RequestMetaData metaData = RequestMetaDataUtils.getRequestMetaData(headers, ses);
-            handleBody(messageRequest.getSOAPBody(), bodyResponse, metaData, userPrincipal);
+            handleBody(messageRequest.getSOAPBody(), bodyResponse, metaData, userPrincipal, streamed);
             return messageResponse;
         } catch (SOAPException e) {
             LOGGER.error("handleRequest error", e);
@@ -253,7 +337,8 @@ public class XmlaApiAdapter {
         return null;
     }
 
-    private void handleBody(SOAPBody body, SOAPBody responseBody,RequestMetaData metaData, UserPrincipal userPrincipal) throws SOAPException {
+    private void handleBody(SOAPBody body, SOAPBody responseBody,RequestMetaData metaData, UserPrincipal userPrincipal,
+                            StreamedMdDataSet streamed) throws SOAPException {
         SOAPElement node = null;
 
         Iterator<Node> nodeIterator = body.getChildElements();
@@ -274,7 +359,7 @@ public class XmlaApiAdapter {
 
         }
         if (node != null && Constants.MSXMLA.QN_EXECUTE.equals(node.getElementQName())) {
-            execute(node, responseBody, metaData, userPrincipal);
+            execute(node, responseBody, metaData, userPrincipal, streamed);
         }
 
     }
@@ -307,7 +392,8 @@ public class XmlaApiAdapter {
     }
 
     private void execute(SOAPElement discover, SOAPBody responseBody,
-                         RequestMetaData metaData, UserPrincipal userPrincipal) throws SOAPException {
+                         RequestMetaData metaData, UserPrincipal userPrincipal,
+                         StreamedMdDataSet streamed) throws SOAPException {
 
         Command command = null;
         PropertiesR properties = null;
@@ -326,7 +412,7 @@ public class XmlaApiAdapter {
             }
         }
 
-        execute(command, properties, parameters, responseBody, metaData, userPrincipal);
+        execute(command, properties, parameters, responseBody, metaData, userPrincipal, streamed);
     }
 
     private void printNode(SOAPElement node) {
@@ -347,10 +433,11 @@ public class XmlaApiAdapter {
                              List<ExecuteParameter> parameters,
                              SOAPBody responseBody,
                              RequestMetaData metaData,
-                             UserPrincipal userPrincipal) throws SOAPException {
+                             UserPrincipal userPrincipal,
+                             StreamedMdDataSet streamed) throws SOAPException {
 
         if (command instanceof StatementR statement) {
-            handleStatement(metaData, userPrincipal, statement, properties, parameters, responseBody);
+            handleStatement(metaData, userPrincipal, statement, properties, parameters, responseBody, streamed);
         }
         if (command instanceof AlterR alter) {
             handleAlter(metaData, userPrincipal, alter, properties, parameters, responseBody);
@@ -668,13 +755,21 @@ public class XmlaApiAdapter {
     private void handleStatement(RequestMetaData metaData, UserPrincipal userPrincipal, StatementR statement,
                                      PropertiesR properties,
                                      List<ExecuteParameter> parameters,
-                                     SOAPBody responseBody)  throws SOAPException {
+                                     SOAPBody responseBody,
+                                     StreamedMdDataSet streamed)  throws SOAPException {
         String sessionId = metaData != null && metaData.sessionId() != null && metaData.sessionId().isPresent() ? metaData.sessionId().get() : null;
         StatementRequest statementRequest = new StatementRequestR(properties,
             parameters,
             statement, sessionId);
         StatementResponse statementResponse = xmlaService.execute().statement(statementRequest, metaData, userPrincipal);
-        SoapUtil.toStatementResponse(statementResponse, responseBody);
+        Mddataset mdDataSet = statementResponse != null ? statementResponse.mdDataSet() : null;
+        if (streamed != null && mdDataSet != null
+            && mdDataSet.exception() == null && mdDataSet.messages() == null) {
+            streamed.root = SoapUtil.toStatementResponseRoot(mdDataSet, responseBody);
+            streamed.mdDataSet = mdDataSet;
+        } else {
+            SoapUtil.toStatementResponse(statementResponse, responseBody);
+        }
     }
 
     private void handleAlter(RequestMetaData metaData, UserPrincipal userPrincipal, AlterR alter,
@@ -704,4 +799,12 @@ public class XmlaApiAdapter {
         SoapUtil.toCancelResponse(cancelResponse, responseBody);
     }
 
+    /**
+     * MDDataSet of a response whose axes and cells are streamed, and the root
+     * element they are appended to.
+     */
+    private static class StreamedMdDataSet {
+        private SOAPElement root;
+        private Mddataset mdDataSet;
+    }
 }
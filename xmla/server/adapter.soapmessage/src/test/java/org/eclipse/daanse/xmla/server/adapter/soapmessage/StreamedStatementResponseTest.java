@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.xmla.server.adapter.soapmessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.daanse.xmla.api.XmlaService;
+import org.eclipse.daanse.xmla.api.common.enums.ItemTypeEnum;
+import org.eclipse.daanse.xmla.api.execute.ExecuteService;
+import org.eclipse.daanse.xmla.api.execute.statement.StatementResponse;
+import org.eclipse.daanse.xmla.api.mddataset.Axis;
+import org.eclipse.daanse.xmla.api.mddataset.CellInfoItem;
+import org.eclipse.daanse.xmla.api.mddataset.CellType;
+import org.eclipse.daanse.xmla.api.mddataset.MemberType;
+import org.eclipse.daanse.xmla.api.mddataset.TupleType;
+import org.eclipse.daanse.xmla.api.mddataset.Type;
+import org.eclipse.daanse.xmla.model.record.execute.statement.StatementResponseR;
+import org.eclipse.daanse.xmla.model.record.mddataset.AxesInfoR;
+import org.eclipse.daanse.xmla.model.record.mddataset.AxesR;
+import org.eclipse.daanse.xmla.model.record.mddataset.AxisR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellDataR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellInfoItemR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellInfoR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellTypeR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CubeInfoR;
+import org.eclipse.daanse.xmla.model.record.mddataset.MddatasetR;
+import org.eclipse.daanse.xmla.model.record.mddataset.MemberTypeR;
+import org.eclipse.daanse.xmla.model.record.mddataset.OlapInfoCubeR;
+import org.eclipse.daanse.xmla.model.record.mddataset.OlapInfoR;
+import org.eclipse.daanse.xmla.model.record.mddataset.TupleTypeR;
+import org.eclipse.daanse.xmla.model.record.mddataset.TuplesTypeR;
+import org.eclipse.daanse.xmla.model.record.mddataset.ValueR;
+import org.junit.jupiter.api.Test;
+import org.xmlunit.assertj3.XmlAssert;
+
+import jakarta.xml.soap.MessageFactory;
+import jakarta.xml.soap.MimeHeaders;
+import jakarta.xml.soap.SOAPMessage;
+
+/**
+ * Compares streamed Execute responses with the responses built as a whole,
+ * and checks how errors while streaming are reported.
+ */
+class StreamedStatementResponseTest {
+
+    private static final String REQUEST = """
+        <SOAP-ENV:Envelope xmlns:SOAP-ENV="http://schemas.xmlsoap.org/soap/envelope/">
+          <SOAP-ENV:Body>
+            <Execute xmlns="urn:schemas-microsoft-com:xml-analysis">
+              <Command>
+                <Statement>select [Measures].[Sales Count] on 0, [Store].[Store State].members on 1 from [Sales]</Statement>
+              </Command>
+              <Properties>
+                <PropertyList>
+                  <DataSourceInfo>FoodMart</DataSourceInfo>
+                  <Catalog>FoodMart</Catalog>
+                  <Format>Multidimensional</Format>
+                  <AxisFormat>TupleFormat</AxisFormat>
+                </PropertyList>
+              </Properties>
+            </Execute>
+          </SOAP-ENV:Body>
+        </SOAP-ENV:Envelope>
+        """;
+
+    private static final String MDDATASET_NS = "urn:schemas-microsoft-com:xml-analysis:mddataset";
+
+    private static final String SOAP_ENV_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    @Test
+    void testStreamedEqualsBuiltResponse() throws Exception {
+        XmlaApiAdapter adapter = adapter(response(cells(2500, -1)));
+
+        ByteArrayOutputStream built = new ByteArrayOutputStream();
+        adapter.handleRequest(request(), Map.of()).writeTo(built);
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        boolean[] fault = new boolean[1];
+        assertThat(adapter.handleRequest(request(), Map.of(), f -> {
+            fault[0] = f;
+            return streamed;
+        })).isTrue();
+
+        assertThat(fault[0]).isFalse();
+        XmlAssert.assertThat(streamed.toString(StandardCharsets.UTF_8))
+            .and(built.toString(StandardCharsets.UTF_8))
+            .ignoreWhitespace()
+            .areSimilar();
+    }
+
+    @Test
+    void testErrorBeforeFirstFlushSendsFault() throws Exception {
+        XmlaApiAdapter adapter = adapter(response(cells(10, 5)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Boolean> opened = new ArrayList<>();
+        assertThat(adapter.handleRequest(request(), Map.of(), f -> {
+            opened.add(f);
+            return out;
+        })).isTrue();
+
+        assertThat(opened).containsExactly(true);
+        String xml = out.toString(StandardCharsets.UTF_8);
+        XmlAssert.assertThat(xml)
+            .withNamespaceContext(Map.of("soap", SOAP_ENV_NS))
+            .valueByXPath("//soap:Fault/faultstring")
+            .isEqualTo("cell 5 failed");
+        XmlAssert.assertThat(xml)
+            .withNamespaceContext(Map.of("md", MDDATASET_NS))
+            .doesNotHaveXPath("//md:root");
+    }
+
+    @Test
+    void testErrorAfterFirstFlushEndsDocument() throws Exception {
+        XmlaApiAdapter adapter = adapter(response(cells(2500, 1500)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Boolean> opened = new ArrayList<>();
+        assertThat(adapter.handleRequest(request(), Map.of(), f -> {
+            opened.add(f);
+            return out;
+        })).isTrue();
+
+        assertThat(opened).containsExactly(false);
+        String xml = out.toString(StandardCharsets.UTF_8);
+        Map<String, String> ns = Map.of("md", MDDATASET_NS, "soap", SOAP_ENV_NS);
+        // the document is well formed and ends with the error
+        XmlAssert.assertThat(xml).withNamespaceContext(ns)
+            .hasXPath("/soap:Envelope/soap:Body//md:root/md:Exception");
+        XmlAssert.assertThat(xml).withNamespaceContext(ns)
+            .valueByXPath("//md:root/md:Messages/md:Error/@Description")
+            .isEqualTo("cell 1500 failed");
+        XmlAssert.assertThat(xml).withNamespaceContext(ns)
+            .valueByXPath("count(//md:root/md:CellData/md:Cell)")
+            .isEqualTo("1500");
+    }
+
+    @Test
+    void testSmallResponseOpensStreamOnce() throws Exception {
+        XmlaApiAdapter adapter = adapter(response(cells(0, -1)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Boolean> opened = new ArrayList<>();
+        adapter.handleRequest(request(), Map.of(), f -> {
+            opened.add(f);
+            return out;
+        });
+
+        assertThat(opened).containsExactly(false);
+        XmlAssert.assertThat(out.toString(StandardCharsets.UTF_8))
+            .withNamespaceContext(Map.of("md", MDDATASET_NS))
+            .hasXPath("//md:root/md:OlapInfo");
+    }
+
+    private static XmlaApiAdapter adapter(StatementResponse response) {
+        XmlaService xmlaService = mock(XmlaService.class);
+        ExecuteService executeService = mock(ExecuteService.class);
+        when(xmlaService.execute()).thenReturn(executeService);
+        when(executeService.statement(any(), any(), any())).thenReturn(response);
+        return new XmlaApiAdapter(xmlaService);
+    }
+
+    private static SOAPMessage request() throws Exception {
+        return MessageFactory.newInstance().createMessage(new MimeHeaders(),
+            new ByteArrayInputStream(REQUEST.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static StatementResponse response(List<CellType> cells) {
+        List<CellInfoItem> cellInfo = List.of(
+            new CellInfoItemR("Value", "VALUE", Optional.empty()),
+            new CellInfoItemR("FmtValue", "FORMATTED_VALUE", Optional.empty()));
+        OlapInfoR olapInfo = new OlapInfoR(
+            new CubeInfoR(List.of(new OlapInfoCubeR("Sales", Instant.EPOCH, Instant.EPOCH))),
+            new AxesInfoR(List.of()),
+            new CellInfoR(cellInfo));
+
+        List<TupleType> tuples = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<CellInfoItem> memberInfo = List.of(
+                new CellInfoItemR("UName", "[Store].[State " + i + "]", Optional.empty()),
+                new CellInfoItemR("Caption", "State " + i, Optional.empty()));
+            List<MemberType> members = List.of(new MemberTypeR(memberInfo, "[Store]"));
+            tuples.add(new TupleTypeR(members));
+        }
+        List<Type> setType = List.of(new TuplesTypeR(tuples));
+        List<Axis> axes = List.of(new AxisR(setType, "Axis0"));
+
+        return new StatementResponseR(
+            new MddatasetR(olapInfo, new AxesR(axes), new CellDataR(cells, null), null, null),
+            null);
+    }
+
+    /**
+     * Returns cells whose conversion fails at the given ordinal, or never if
+     * it is negative.
+     */
+    private static List<CellType> cells(int size, int failAt) {
+        return new AbstractList<>() {
+            @Override
+            public CellType get(int index) {
+                if (index == failAt) {
+                    throw new IllegalStateException("cell " + index + " failed");
+                }
+                return new CellTypeR(
+                    new ValueR(Integer.toString(index), ItemTypeEnum.DOUBLE, null),
+                    List.of(new CellInfoItemR("FmtValue", Integer.toString(index), Optional.empty())),
+                    index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -2,7 +2,13 @@
 package org.eclipse.daanse.xmla.server.jakarta.saaj;
 
 import jakarta.servlet.Servlet;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.xml.soap.MessageFactory;
 import jakarta.xml.soap.MimeHeader;
+import jakarta.xml.soap.MimeHeaders;
+import jakarta.xml.soap.SOAPException;
 import jakarta.xml.soap.SOAPMessage;
 import org.eclipse.daanse.jakarta.servlet.soap.AbstractSoapServlet;
 import org.eclipse.daanse.xmla.api.XmlaService;
@@ -20,6 +26,8 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Enumeration;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -45,10 +53,7 @@ public class XmlaServlet extends AbstractSoapServlet {
 			if (LOGGER.isDebugEnabled()) {
 				LOGGER.debug("SoapMessage in:", prettyPrint(soapMessage).toString());
 			}
-            Iterable<MimeHeader> iterable = () -> soapMessage.getMimeHeaders().getAllHeaders();
-            Map<String, Object> map = StreamSupport.stream(iterable.spliterator(), true).collect(Collectors.toMap(MimeHeader::getName, MimeHeader::getValue, (oldValue, newValue) -> oldValue));
-
-			SOAPMessage returnMessage = wsAdapter.handleRequest(soapMessage, map);
+			SOAPMessage returnMessage = wsAdapter.handleRequest(soapMessage, headers(soapMessage));
 
 			LOGGER.debug("SoapMessage out:", prettyPrint(returnMessage).toString());
 
@@ -60,6 +65,51 @@ public class XmlaServlet extends AbstractSoapServlet {
 		}
 	}
 
+	/**
+	 * Handles the request without building the whole response message, so
+	 * that large Execute responses are streamed to the client, see
+	 * {@link XmlaApiAdapter#handleRequest(SOAPMessage, Map, XmlaApiAdapter.ResponseStream)}.
+	 * A SOAP fault is sent with status 500.
+	 */
+	@Override
+	protected void doPost(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		MimeHeaders mimeHeaders = new MimeHeaders();
+		Enumeration<String> names = request.getHeaderNames();
+		while (names.hasMoreElements()) {
+			String name = names.nextElement();
+			Enumeration<String> values = request.getHeaders(name);
+			while (values.hasMoreElements()) {
+				mimeHeaders.addHeader(name, values.nextElement());
+			}
+		}
+		SOAPMessage soapMessage;
+		try {
+			soapMessage = MessageFactory.newInstance().createMessage(mimeHeaders, request.getInputStream());
+		} catch (SOAPException e) {
+			throw new ServletException(e);
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("SoapMessage in:", prettyPrint(soapMessage).toString());
+		}
+		boolean handled = wsAdapter.handleRequest(soapMessage, headers(soapMessage), fault -> {
+			if (fault) {
+				response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			}
+			response.setContentType("text/xml; charset=UTF-8");
+			return response.getOutputStream();
+		});
+		if (!handled) {
+			response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	private static Map<String, Object> headers(SOAPMessage soapMessage) {
+		Iterable<MimeHeader> iterable = () -> soapMessage.getMimeHeaders().getAllHeaders();
+		return StreamSupport.stream(iterable.spliterator(), true).collect(Collectors.toMap(MimeHeader::getName,
+				MimeHeader::getValue, (oldValue, newValue) -> oldValue));
+	}
+
 	private static ByteArrayOutputStream prettyPrint(SOAPMessage msg) {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		try {